@@ -18,7 +18,7 @@ package com.datapps.zebra.workflow;
 
 import com.datapps.zebra.workflow.db.*;
 import com.datapps.zebra.workflow.executor.ExecutorLoader;
-import com.datapps.zebra.workflow.executor.JdbcExecutorLoader;
+import com.datapps.zebra.workflow.executor.CachingExecutorLoader;
 import com.datapps.zebra.workflow.project.JdbcProjectImpl;
 import com.datapps.zebra.workflow.project.ProjectLoader;
 import com.datapps.zebra.workflow.spi.AzkabanException;
@@ -73,7 +73,7 @@ public class AzkabanCommonModule extends AbstractModule {
     bind(TriggerLoader.class).to(JdbcTriggerImpl.class);
     bind(ProjectLoader.class).to(JdbcProjectImpl.class);
     bind(DataSource.class).to(AzkabanDataSource.class);
-    bind(ExecutorLoader.class).to(JdbcExecutorLoader.class);
+    bind(ExecutorLoader.class).to(CachingExecutorLoader.class);
     bind(MetricRegistry.class).in(Scopes.SINGLETON);
   }
 
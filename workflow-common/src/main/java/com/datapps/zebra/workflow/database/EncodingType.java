@@ -17,10 +17,11 @@
 package com.datapps.zebra.workflow.database;
 
 /**
- * Used for when we store text data. Plain uses UTF8 encoding.
+ * Used for when we store text data. Plain uses UTF8 encoding. Binary is the encoding of
+ * {@link com.datapps.zebra.workflow.utils.BinaryObjectCodec}, only used for flows.
  */
 public enum EncodingType {
-  PLAIN(1), GZIP(2);
+  PLAIN(1), GZIP(2), BINARY(3);
 
   private final int numVal;
 
@@ -34,6 +35,8 @@ public enum EncodingType {
         return PLAIN;
       case 2:
         return GZIP;
+      case 3:
+        return BINARY;
       default:
         return PLAIN;
     }
@@ -0,0 +1,488 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.executor;
+
+import com.datapps.zebra.workflow.executor.ExecutorLogEvent.EventType;
+import com.datapps.zebra.workflow.metrics.MetricsManager;
+import com.datapps.zebra.workflow.utils.FileIOUtils.LogData;
+import com.datapps.zebra.workflow.utils.Pair;
+import com.datapps.zebra.workflow.utils.Props;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ExecutorLoader} keeping the executions it reads in memory, in front of another loader.
+ *
+ * Finished executions never change anymore, they are kept until the size of the cache goes
+ * over executor.flow.cache.max.bytes. Active executions are only kept for
+ * executor.flow.cache.active.ttl.ms. Writing an execution through this loader drops it from
+ * the caches. The flows are kept in their object form and each caller gets its own copy, so
+ * callers are free to modify what they get.
+ *
+ * The hit ratio, the average load time and the size of the cache are reported through the
+ * {@link MetricsManager}.
+ */
+@Singleton
+public class CachingExecutorLoader implements ExecutorLoader {
+
+  private final ExecutorLoader loader;
+  private final Cache<Integer, CachedFlow> finishedFlows;
+  private final Cache<Integer, CachedFlow> activeFlows;
+  private final Cache<Integer, Pair<ExecutionReference, CachedFlow>> activeReferences;
+  private final AtomicLong finishedFlowsBytes = new AtomicLong(0L);
+  private final AtomicLong hits = new AtomicLong(0L);
+  private final AtomicLong misses = new AtomicLong(0L);
+  private final AtomicLong loadTimeNanos = new AtomicLong(0L);
+
+  @Inject
+  public CachingExecutorLoader(final JdbcExecutorLoader loader, final Props props,
+      final MetricsManager metricsManager) {
+    this((ExecutorLoader) loader, props, metricsManager);
+  }
+
+  public CachingExecutorLoader(final ExecutorLoader loader, final Props props,
+      final MetricsManager metricsManager) {
+    this.loader = loader;
+    this.finishedFlows = CacheBuilder.newBuilder()
+        .maximumWeight(props.getLong("executor.flow.cache.max.bytes", 64L * 1024 * 1024))
+        .<Integer, CachedFlow>weigher((execId, flow) -> flow.size)
+        .<Integer, CachedFlow>removalListener(
+            notification -> this.finishedFlowsBytes.addAndGet(-notification.getValue().size))
+        .build();
+    final long activeTtlMs = props.getLong("executor.flow.cache.active.ttl.ms", 1000);
+    this.activeFlows = CacheBuilder.newBuilder()
+        .maximumSize(1000)
+        .expireAfterWrite(activeTtlMs, TimeUnit.MILLISECONDS)
+        .build();
+    this.activeReferences = CacheBuilder.newBuilder()
+        .maximumSize(1000)
+        .expireAfterWrite(activeTtlMs, TimeUnit.MILLISECONDS)
+        .build();
+
+    metricsManager.addGauge("flow-cache-hit-ratio", this::getHitRatio);
+    metricsManager.addGauge("flow-cache-load-time-ms", this::getAverageLoadTimeMs);
+    metricsManager.addGauge("flow-cache-bytes", this.finishedFlowsBytes::get);
+  }
+
+  /**
+   * Copies the maps and lists of a flow object, the other values are immutable.
+   */
+  private static Object copyObject(final Object obj) {
+    if (obj instanceof Map) {
+      final Map<Object, Object> copy = new HashMap<>();
+      for (final Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+        copy.put(entry.getKey(), copyObject(entry.getValue()));
+      }
+      return copy;
+    } else if (obj instanceof Collection) {
+      final List<Object> copy = new ArrayList<>();
+      for (final Object value : (Collection<?>) obj) {
+        copy.add(copyObject(value));
+      }
+      return copy;
+    }
+    return obj;
+  }
+
+  /**
+   * Rough size in bytes of a flow object in memory
+   */
+  private static long estimateSize(final Object obj) {
+    if (obj instanceof Map) {
+      long size = 48;
+      for (final Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+        size += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+      }
+      return size;
+    } else if (obj instanceof Collection) {
+      long size = 40;
+      for (final Object value : (Collection<?>) obj) {
+        size += 8 + estimateSize(value);
+      }
+      return size;
+    } else if (obj instanceof String) {
+      return 40 + 2 * ((String) obj).length();
+    }
+    return 16;
+  }
+
+  private static ExecutionReference copyReference(final ExecutionReference ref) {
+    final ExecutionReference copy = ref.getExecutor() == null
+        ? new ExecutionReference(ref.getExecId())
+        : new ExecutionReference(ref.getExecId(), ref.getExecutor());
+    copy.setUpdateTime(ref.getUpdateTime());
+    return copy;
+  }
+
+  public double getHitRatio() {
+    final long hitCount = this.hits.get();
+    final long requestCount = hitCount + this.misses.get();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  public double getAverageLoadTimeMs() {
+    final long loadCount = this.misses.get();
+    return loadCount == 0 ? 0.0
+        : this.loadTimeNanos.get() / (double) loadCount / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  public long getCachedBytes() {
+    return this.finishedFlowsBytes.get();
+  }
+
+  private void invalidate(final int execId) {
+    this.finishedFlows.invalidate(execId);
+    this.activeFlows.invalidate(execId);
+    this.activeReferences.invalidate(execId);
+  }
+
+  @Override
+  public ExecutableFlow fetchExecutableFlow(final int execId)
+      throws ExecutorManagerException {
+    CachedFlow cached = this.finishedFlows.getIfPresent(execId);
+    if (cached == null) {
+      cached = this.activeFlows.getIfPresent(execId);
+    }
+    if (cached != null) {
+      this.hits.incrementAndGet();
+      return cached.toFlow();
+    }
+
+    final long start = System.nanoTime();
+    final ExecutableFlow flow = this.loader.fetchExecutableFlow(execId);
+    this.loadTimeNanos.addAndGet(System.nanoTime() - start);
+    this.misses.incrementAndGet();
+    if (flow != null) {
+      cached = new CachedFlow(flow);
+      if (Status.isStatusFinished(flow.getStatus())) {
+        this.finishedFlowsBytes.addAndGet(cached.size);
+        this.finishedFlows.put(execId, cached);
+      } else {
+        this.activeFlows.put(execId, cached);
+      }
+    }
+    return flow;
+  }
+
+  @Override
+  public Pair<ExecutionReference, ExecutableFlow> fetchActiveFlowByExecId(final int execId)
+      throws ExecutorManagerException {
+    final Pair<ExecutionReference, CachedFlow> cached =
+        this.activeReferences.getIfPresent(execId);
+    if (cached != null) {
+      this.hits.incrementAndGet();
+      return new Pair<>(copyReference(cached.getFirst()), cached.getSecond().toFlow());
+    }
+
+    final long start = System.nanoTime();
+    final Pair<ExecutionReference, ExecutableFlow> activeFlow =
+        this.loader.fetchActiveFlowByExecId(execId);
+    this.loadTimeNanos.addAndGet(System.nanoTime() - start);
+    this.misses.incrementAndGet();
+    if (activeFlow != null) {
+      this.activeReferences.put(execId, new Pair<>(copyReference(activeFlow.getFirst()),
+          new CachedFlow(activeFlow.getSecond())));
+    }
+    return activeFlow;
+  }
+
+  @Override
+  public void uploadExecutableFlow(final ExecutableFlow flow)
+      throws ExecutorManagerException {
+    this.loader.uploadExecutableFlow(flow);
+    invalidate(flow.getExecutionId());
+  }
+
+  @Override
+  public void updateExecutableFlow(final ExecutableFlow flow)
+      throws ExecutorManagerException {
+    this.loader.updateExecutableFlow(flow);
+    invalidate(flow.getExecutionId());
+  }
+
+  @Override
+  public void addActiveExecutableReference(final ExecutionReference ref)
+      throws ExecutorManagerException {
+    this.loader.addActiveExecutableReference(ref);
+    invalidate(ref.getExecId());
+  }
+
+  @Override
+  public void removeActiveExecutableReference(final int execId)
+      throws ExecutorManagerException {
+    this.loader.removeActiveExecutableReference(execId);
+    invalidate(execId);
+  }
+
+  @Override
+  public void unassignExecutor(final int executionId) throws ExecutorManagerException {
+    this.loader.unassignExecutor(executionId);
+    invalidate(executionId);
+  }
+
+  @Override
+  public void assignExecutor(final int executorId, final int execId)
+      throws ExecutorManagerException {
+    this.loader.assignExecutor(executorId, execId);
+    invalidate(execId);
+  }
+
+  @Override
+  public boolean updateExecutableReference(final int execId, final long updateTime)
+      throws ExecutorManagerException {
+    final boolean updated = this.loader.updateExecutableReference(execId, updateTime);
+    this.activeReferences.invalidate(execId);
+    return updated;
+  }
+
+  @Override
+  public List<ExecutableFlow> fetchRecentlyFinishedFlows(final Duration maxAge)
+      throws ExecutorManagerException {
+    return this.loader.fetchRecentlyFinishedFlows(maxAge);
+  }
+
+  @Override
+  public Map<Integer, Pair<ExecutionReference, ExecutableFlow>> fetchActiveFlows()
+      throws ExecutorManagerException {
+    return this.loader.fetchActiveFlows();
+  }
+
+  @Override
+  public List<ExecutableFlow> fetchFlowHistory(final int skip, final int num)
+      throws ExecutorManagerException {
+    return this.loader.fetchFlowHistory(skip, num);
+  }
+
+  @Override
+  public List<ExecutableFlow> fetchFlowHistory(final int projectId, final String flowId,
+      final int skip, final int num) throws ExecutorManagerException {
+    return this.loader.fetchFlowHistory(projectId, flowId, skip, num);
+  }
+
+  @Override
+  public List<ExecutableFlow> fetchFlowHistory(final int projectId, final String flowId,
+      final int skip, final int num, final Status status) throws ExecutorManagerException {
+    return this.loader.fetchFlowHistory(projectId, flowId, skip, num, status);
+  }
+
+  @Override
+  public List<ExecutableFlow> fetchFlowHistory(final String projContain,
+      final String flowContains, final String userNameContains, final int status,
+      final long startData, final long endData, final int skip, final int num)
+      throws ExecutorManagerException {
+    return this.loader.fetchFlowHistory(projContain, flowContains, userNameContains, status,
+        startData, endData, skip, num);
+  }
+
+  @Override
+  public List<Executor> fetchAllExecutors() throws ExecutorManagerException {
+    return this.loader.fetchAllExecutors();
+  }
+
+  @Override
+  public List<Executor> fetchActiveExecutors() throws ExecutorManagerException {
+    return this.loader.fetchActiveExecutors();
+  }
+
+  @Override
+  public Executor fetchExecutor(final String host, final int port)
+      throws ExecutorManagerException {
+    return this.loader.fetchExecutor(host, port);
+  }
+
+  @Override
+  public Executor fetchExecutor(final int executorId) throws ExecutorManagerException {
+    return this.loader.fetchExecutor(executorId);
+  }
+
+  @Override
+  public Executor addExecutor(final String host, final int port)
+      throws ExecutorManagerException {
+    return this.loader.addExecutor(host, port);
+  }
+
+  @Override
+  public void updateExecutor(final Executor executor) throws ExecutorManagerException {
+    this.loader.updateExecutor(executor);
+  }
+
+  @Override
+  public void removeExecutor(final String host, final int port)
+      throws ExecutorManagerException {
+    this.loader.removeExecutor(host, port);
+  }
+
+  @Override
+  public void postExecutorEvent(final Executor executor, final EventType type,
+      final String user, final String message) throws ExecutorManagerException {
+    this.loader.postExecutorEvent(executor, type, user, message);
+  }
+
+  @Override
+  public List<ExecutorLogEvent> getExecutorEvents(final Executor executor, final int num,
+      final int offset) throws ExecutorManagerException {
+    return this.loader.getExecutorEvents(executor, num, offset);
+  }
+
+  @Override
+  public Executor fetchExecutorByExecutionId(final int executionId)
+      throws ExecutorManagerException {
+    return this.loader.fetchExecutorByExecutionId(executionId);
+  }
+
+  @Override
+  public List<Pair<ExecutionReference, ExecutableFlow>> fetchQueuedFlows()
+      throws ExecutorManagerException {
+    return this.loader.fetchQueuedFlows();
+  }
+
+  @Override
+  public LogData fetchLogs(final int execId, final String name, final int attempt,
+      final int startByte, final int endByte) throws ExecutorManagerException {
+    return this.loader.fetchLogs(execId, name, attempt, startByte, endByte);
+  }
+
+  @Override
+  public List<Object> fetchAttachments(final int execId, final String name, final int attempt)
+      throws ExecutorManagerException {
+    return this.loader.fetchAttachments(execId, name, attempt);
+  }
+
+  @Override
+  public void uploadLogFile(final int execId, final String name, final int attempt,
+      final File... files) throws ExecutorManagerException {
+    this.loader.uploadLogFile(execId, name, attempt, files);
+  }
+
+  @Override
+  public void uploadAttachmentFile(final ExecutableNode node, final File file)
+      throws ExecutorManagerException {
+    this.loader.uploadAttachmentFile(node, file);
+  }
+
+  @Override
+  public void uploadExecutableNode(final ExecutableNode node, final Props inputParams)
+      throws ExecutorManagerException {
+    this.loader.uploadExecutableNode(node, inputParams);
+  }
+
+  @Override
+  public List<ExecutableJobInfo> fetchJobInfoAttempts(final int execId, final String jobId)
+      throws ExecutorManagerException {
+    return this.loader.fetchJobInfoAttempts(execId, jobId);
+  }
+
+  @Override
+  public ExecutableJobInfo fetchJobInfo(final int execId, final String jobId,
+      final int attempt) throws ExecutorManagerException {
+    return this.loader.fetchJobInfo(execId, jobId, attempt);
+  }
+
+  @Override
+  public List<ExecutableJobInfo> fetchJobHistory(final int projectId, final String jobId,
+      final int skip, final int size) throws ExecutorManagerException {
+    return this.loader.fetchJobHistory(projectId, jobId, skip, size);
+  }
+
+  @Override
+  public void updateExecutableNode(final ExecutableNode node)
+      throws ExecutorManagerException {
+    this.loader.updateExecutableNode(node);
+  }
+
+  @Override
+  public int fetchNumExecutableFlows(final int projectId, final String flowId)
+      throws ExecutorManagerException {
+    return this.loader.fetchNumExecutableFlows(projectId, flowId);
+  }
+
+  @Override
+  public int fetchNumExecutableFlows() throws ExecutorManagerException {
+    return this.loader.fetchNumExecutableFlows();
+  }
+
+  @Override
+  public int fetchNumExecutableNodes(final int projectId, final String jobId)
+      throws ExecutorManagerException {
+    return this.loader.fetchNumExecutableNodes(projectId, jobId);
+  }
+
+  @Override
+  public Props fetchExecutionJobInputProps(final int execId, final String jobId)
+      throws ExecutorManagerException {
+    return this.loader.fetchExecutionJobInputProps(execId, jobId);
+  }
+
+  @Override
+  public Props fetchExecutionJobOutputProps(final int execId, final String jobId)
+      throws ExecutorManagerException {
+    return this.loader.fetchExecutionJobOutputProps(execId, jobId);
+  }
+
+  @Override
+  public Pair<Props, Props> fetchExecutionJobProps(final int execId, final String jobId)
+      throws ExecutorManagerException {
+    return this.loader.fetchExecutionJobProps(execId, jobId);
+  }
+
+  @Override
+  public ExecutionJobsProps fetchExecutionJobsProps(final int execId)
+      throws ExecutorManagerException {
+    return this.loader.fetchExecutionJobsProps(execId);
+  }
+
+  @Override
+  public int removeExecutionLogsByTime(final long millis)
+      throws ExecutorManagerException {
+    return this.loader.removeExecutionLogsByTime(millis);
+  }
+
+  @Override
+  public void shutdown() throws ExecutorManagerException {
+    this.loader.shutdown();
+  }
+
+  /**
+   * A flow in its object form
+   */
+  private static class CachedFlow {
+
+    private final Object flowObject;
+    private final int size;
+
+    private CachedFlow(final ExecutableFlow flow) {
+      this.flowObject = flow.toObject();
+      this.size = (int) Math.min(Integer.MAX_VALUE, estimateSize(this.flowObject));
+    }
+
+    private ExecutableFlow toFlow() {
+      return ExecutableFlow.createExecutableFlowFromObject(copyObject(this.flowObject));
+    }
+  }
+}
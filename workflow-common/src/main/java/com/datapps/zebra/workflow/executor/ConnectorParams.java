@@ -35,6 +35,8 @@ public interface ConnectorParams {
   public static final String ATTACHMENTS_ACTION = "attachments";
   public static final String METADATA_ACTION = "metadata";
   public static final String RELOAD_JOBTYPE_PLUGINS_ACTION = "reloadJobTypePlugins";
+  public static final String INVALIDATE_JOB_OVERRIDES_ACTION = "invalidateJobOverrides";
+  public static final String PROJECT_ID_PARAM = "projectId";
   public static final String ACTIVATE = "activate";
   public static final String DEACTIVATE = "deactivate";
   public static final String GET_STATUS = "getStatus";
@@ -71,6 +73,8 @@ public interface ConnectorParams {
 
   public static final String UPDATE_TIME_LIST_PARAM = "updatetime";
   public static final String EXEC_ID_LIST_PARAM = "executionId";
+  // optional, change sequence of each execution as of the caller's last update, -1 if unknown
+  public static final String CHANGE_SEQUENCE_LIST_PARAM = "changeSequence";
 
   public static final String FORCED_FAILED_MARKER = ".failed";
 
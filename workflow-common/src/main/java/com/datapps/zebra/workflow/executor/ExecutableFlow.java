@@ -52,6 +52,8 @@ public class ExecutableFlow extends ExecutableFlowBase {
   private String executionPath;
   private ExecutionOptions executionOptions;
   private List<SlaOption> slaOptions = new ArrayList<>();
+  // change sequence of the executor's copy as of the last applied update, -1 if none was
+  private volatile long appliedChangeSequence = -1;
 
   public ExecutableFlow(final Project project, final Flow flow) {
     this.projectId = project.getId();
@@ -280,11 +282,33 @@ public class ExecutableFlow extends ExecutableFlowBase {
 
   @Override
   public Map<String, Object> toUpdateObject(final long lastUpdateTime) {
+    final long changeSequence = getChangeSequence();
     final Map<String, Object> updateData = super.toUpdateObject(lastUpdateTime);
     updateData.put(EXECUTIONID_PARAM, this.executionId);
+    updateData.put(CHANGE_SEQUENCE_PARAM, changeSequence);
     return updateData;
   }
 
+  @Override
+  public Map<String, Object> toUpdateObjectSince(final long changeSequence) {
+    final Map<String, Object> updateData = super.toUpdateObjectSince(changeSequence);
+    updateData.put(EXECUTIONID_PARAM, this.executionId);
+    return updateData;
+  }
+
+  @Override
+  public void applyUpdateObject(final TypedMapWrapper<String, Object> updateData,
+      final List<ExecutableNode> updatedNodes) {
+    super.applyUpdateObject(updateData, updatedNodes);
+    if (updateData.containsKey(CHANGE_SEQUENCE_PARAM)) {
+      this.appliedChangeSequence = updateData.getLong(CHANGE_SEQUENCE_PARAM);
+    }
+  }
+
+  public long getAppliedChangeSequence() {
+    return this.appliedChangeSequence;
+  }
+
   @Override
   public void resetForRetry() {
     super.resetForRetry();
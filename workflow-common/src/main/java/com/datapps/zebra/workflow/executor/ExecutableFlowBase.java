@@ -20,6 +20,7 @@ import com.datapps.zebra.workflow.project.Project;
 import com.datapps.zebra.workflow.utils.TypedMapWrapper;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ExecutableFlowBase extends ExecutableNode {
 
@@ -28,6 +29,7 @@ public class ExecutableFlowBase extends ExecutableNode {
   public static final String PROPERTIES_PARAM = "properties";
   public static final String SOURCE_PARAM = "source";
   public static final String INHERITED_PARAM = "inherited";
+  public static final String CHANGE_SEQUENCE_PARAM = "changeSequence";
 
   private final HashMap<String, ExecutableNode> executableNodes =
       new HashMap<>();
@@ -37,6 +39,17 @@ public class ExecutableFlowBase extends ExecutableNode {
   private ArrayList<String> endNodes;
   private String flowId;
 
+  // Sequence number of the node changes of the execution, only the root flow's counter is used
+  // so that the sequence numbers are comparable across the embedded flows. Incremented under
+  // the root flow's changeLog lock, read without it.
+  private final AtomicLong changeCounter = new AtomicLong();
+  // Last change of each changed child node, by sequence number and by node id. Embedded flows
+  // are recorded as changed whenever one of their descendants is. The logs of all the flows of
+  // an execution are guarded by the changeLog of the root flow, so that a sequence number is
+  // handed out and recorded at all levels before any reader can see it.
+  private final TreeMap<Long, String> changeLog = new TreeMap<>();
+  private final Map<String, Long> lastChanges = new HashMap<>();
+
   public ExecutableFlowBase(final Project project, final Node node, final Flow flow,
       final ExecutableFlowBase parent) {
     super(node, parent);
@@ -275,6 +288,104 @@ public class ExecutableFlowBase extends ExecutableNode {
     }
   }
 
+  /**
+   * Called when the update time of a child node is set
+   */
+  void nodeChanged(final ExecutableNode node) {
+    final ExecutableFlowBase root = getRootFlow();
+    synchronized (root.changeLog) {
+      recordChange(node.getId(), root.changeCounter.incrementAndGet());
+    }
+  }
+
+  private ExecutableFlowBase getRootFlow() {
+    ExecutableFlowBase root = this;
+    while (root.getParentFlow() != null) {
+      root = root.getParentFlow();
+    }
+    return root;
+  }
+
+  /**
+   * Records a change in the log of this flow and of its parents, the root flow's changeLog lock
+   * must be held.
+   */
+  private void recordChange(final String nodeId, final long sequence) {
+    final Long previous = this.lastChanges.put(nodeId, sequence);
+    if (previous != null) {
+      this.changeLog.remove(previous);
+    }
+    this.changeLog.put(sequence, nodeId);
+    if (this.getParentFlow() != null) {
+      this.getParentFlow().recordChange(getId(), sequence);
+    }
+  }
+
+  /**
+   * Returns the sequence number of the latest node change of the execution
+   */
+  public long getChangeSequence() {
+    return getRootFlow().changeCounter.get();
+  }
+
+  /**
+   * Same as {@link #toUpdateObject(long)} but only visits the nodes changed after the given
+   * change sequence, through the change log instead of the whole graph. The returned object
+   * carries the change sequence to ask for the next changes with.
+   */
+  public Map<String, Object> toUpdateObjectSince(final long changeSequence) {
+    // the sequence and the changed nodes are read under the lock the changes are recorded with,
+    // every change up to the returned sequence is in the copied logs
+    final ExecutableFlowBase root = getRootFlow();
+    final long currentSequence;
+    final Map<ExecutableFlowBase, List<String>> changedIds = new IdentityHashMap<>();
+    synchronized (root.changeLog) {
+      currentSequence = root.changeCounter.get();
+      collectChangedIds(changeSequence, changedIds);
+    }
+
+    final Map<String, Object> updateData = collectChangesSince(changedIds);
+    updateData.put(CHANGE_SEQUENCE_PARAM, currentSequence);
+    return updateData;
+  }
+
+  /**
+   * Copies the ids of the nodes changed after the given sequence, in this flow and in its changed
+   * embedded flows. The root flow's changeLog lock must be held.
+   */
+  private void collectChangedIds(final long changeSequence,
+      final Map<ExecutableFlowBase, List<String>> changedIds) {
+    final List<String> ids =
+        new ArrayList<>(this.changeLog.tailMap(changeSequence, false).values());
+    changedIds.put(this, ids);
+    for (final String id : ids) {
+      final ExecutableNode node = this.executableNodes.get(id);
+      if (node instanceof ExecutableFlowBase) {
+        ((ExecutableFlowBase) node).collectChangedIds(changeSequence, changedIds);
+      }
+    }
+  }
+
+  private Map<String, Object> collectChangesSince(
+      final Map<ExecutableFlowBase, List<String>> changedIds) {
+    final Map<String, Object> updateData = super.toUpdateObject();
+
+    final List<Map<String, Object>> updatedNodes = new ArrayList<>();
+    for (final String id : changedIds.get(this)) {
+      final ExecutableNode node = this.executableNodes.get(id);
+      if (node instanceof ExecutableFlowBase) {
+        updatedNodes.add(((ExecutableFlowBase) node).collectChangesSince(changedIds));
+      } else if (node != null) {
+        updatedNodes.add(node.toUpdateObject());
+      }
+    }
+
+    if (!updatedNodes.isEmpty()) {
+      updateData.put(NODES_PARAM, updatedNodes);
+    }
+    return updateData;
+  }
+
   public Map<String, Object> toUpdateObject(final long lastUpdateTime) {
     final Map<String, Object> updateData = super.toUpdateObject();
 
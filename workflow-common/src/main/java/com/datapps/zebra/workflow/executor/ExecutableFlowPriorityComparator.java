@@ -22,7 +22,8 @@ import org.apache.log4j.Logger;
 import java.util.Comparator;
 
 /**
- * Comparator implicitly used in priority queue for QueuedExecutions.
+ * Priority order of queued flows. QueuedExecutions applies the same priority
+ * rule, with fair share across projects and users ahead of update time.
  */
 public final class ExecutableFlowPriorityComparator implements
     Comparator<Pair<ExecutionReference, ExecutableFlow>> {
@@ -74,7 +75,7 @@ public final class ExecutableFlowPriorityComparator implements
   }
 
   /* Helper method to fetch flow priority from flow props */
-  private int getPriority(final ExecutableFlow exflow) {
+  static int getPriority(final ExecutableFlow exflow) {
     final ExecutionOptions options = exflow.getExecutionOptions();
     int priority = ExecutionOptions.DEFAULT_FLOW_PRIORITY;
     if (options != null
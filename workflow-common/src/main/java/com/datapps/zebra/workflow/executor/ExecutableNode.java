@@ -149,6 +149,9 @@ public class ExecutableNode {
 
   public void setUpdateTime(final long updateTime) {
     this.updateTime = updateTime;
+    if (this.parentFlow != null) {
+      this.parentFlow.nodeChanged(this);
+    }
   }
 
   public void setKilledBySLA(boolean killedBySLA) {
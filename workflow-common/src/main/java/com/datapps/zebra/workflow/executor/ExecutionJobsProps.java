@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.executor;
+
+import com.datapps.zebra.workflow.utils.JSONUtils;
+import com.datapps.zebra.workflow.utils.Props;
+import com.datapps.zebra.workflow.utils.PropsUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Input and output props of all the jobs of an execution, as fetched in one query.
+ *
+ * The gzipped blobs are kept as read from the database and only decoded when the props of a
+ * job are asked for, straight from the gzip stream into the JSON parser. Each job is decoded
+ * at most once. Callers must not modify the returned Props.
+ */
+public class ExecutionJobsProps {
+
+  private final int execId;
+  // job id -> {input_params, output_params} blobs of the latest attempt, guarded by this
+  private final Map<String, byte[][]> encoded = new HashMap<>();
+  private final Map<String, Props> inputProps = new HashMap<>();
+  private final Map<String, Props> outputProps = new HashMap<>();
+
+  public ExecutionJobsProps(final int execId) {
+    this.execId = execId;
+  }
+
+  private static Props decode(final byte[] data) throws IOException {
+    if (data == null) {
+      return null;
+    }
+    try (Reader reader = new InputStreamReader(
+        new GZIPInputStream(new ByteArrayInputStream(data)), StandardCharsets.UTF_8)) {
+      @SuppressWarnings("unchecked") final Map<String, Object> map =
+          (Map<String, Object>) JSONUtils.parseJSONFromReader(reader);
+      return PropsUtils.fromHierarchicalMap(map);
+    }
+  }
+
+  /**
+   * Adds the blobs of a job, replacing those of a previous attempt
+   */
+  synchronized void add(final String jobId, final byte[] input, final byte[] output) {
+    this.encoded.put(jobId, new byte[][]{input, output});
+    this.inputProps.remove(jobId);
+    this.outputProps.remove(jobId);
+  }
+
+  public int getExecId() {
+    return this.execId;
+  }
+
+  public synchronized Set<String> getJobIds() {
+    return Collections.unmodifiableSet(new HashSet<>(this.encoded.keySet()));
+  }
+
+  public Props getInputProps(final String jobId) throws ExecutorManagerException {
+    return getProps(jobId, 0, this.inputProps);
+  }
+
+  public Props getOutputProps(final String jobId) throws ExecutorManagerException {
+    return getProps(jobId, 1, this.outputProps);
+  }
+
+  private synchronized Props getProps(final String jobId, final int column,
+      final Map<String, Props> decoded) throws ExecutorManagerException {
+    if (decoded.containsKey(jobId)) {
+      return decoded.get(jobId);
+    }
+    final byte[][] blobs = this.encoded.get(jobId);
+    if (blobs == null) {
+      return null;
+    }
+    final Props props;
+    try {
+      props = decode(blobs[column]);
+    } catch (final IOException e) {
+      throw new ExecutorManagerException("Error decoding job params " + this.execId + " "
+          + jobId, e);
+    }
+    decoded.put(jobId, props);
+    return props;
+  }
+}
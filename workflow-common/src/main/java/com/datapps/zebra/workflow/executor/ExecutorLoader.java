@@ -299,6 +299,18 @@ public interface ExecutorLoader {
   Pair<Props, Props> fetchExecutionJobProps(int execId, String jobId)
       throws ExecutorManagerException;
 
+  /**
+   * Fetches the input and output props of all the jobs of an execution in one query. The props
+   * of finished executions are kept in memory for a few minutes.
+   */
+  ExecutionJobsProps fetchExecutionJobsProps(int execId)
+      throws ExecutorManagerException;
+
   int removeExecutionLogsByTime(long millis)
       throws ExecutorManagerException;
+
+  /**
+   * Writes what is still pending and stops the background writers, when the server shuts down.
+   */
+  void shutdown() throws ExecutorManagerException;
 }
@@ -21,7 +21,7 @@ import com.datapps.zebra.workflow.alert.Alerter;
 import com.datapps.zebra.workflow.event.EventHandler;
 import com.datapps.zebra.workflow.executor.selector.ExecutorComparator;
 import com.datapps.zebra.workflow.executor.selector.ExecutorFilter;
-import com.datapps.zebra.workflow.executor.selector.ExecutorSelector;
+import com.datapps.zebra.workflow.executor.selector.ExecutorSnapshot;
 import com.datapps.zebra.workflow.metrics.CommonMetrics;
 import com.datapps.zebra.workflow.project.Project;
 import com.datapps.zebra.workflow.project.ProjectWhitelist;
@@ -31,7 +31,7 @@ import com.datapps.zebra.workflow.utils.FlowUtils;
 import com.datapps.zebra.workflow.utils.JSONUtils;
 import com.datapps.zebra.workflow.utils.Pair;
 import com.datapps.zebra.workflow.utils.Props;
-import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.apache.commons.lang.StringUtils;
@@ -45,6 +45,7 @@ import java.net.URI;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Executor manager used to manage the client side job.
@@ -63,12 +64,18 @@ public class ExecutorManager extends EventHandler implements
     "azkaban.use.multiple.executors";
   private static final String AZKABAN_WEBSERVER_QUEUE_SIZE =
     "azkaban.webserver.queue.size";
+  private static final String AZKABAN_WEBSERVER_QUEUE_PROJECT_WEIGHT_PREFIX =
+    "azkaban.webserver.queue.project.weight.";
   private static final String AZKABAN_ACTIVE_EXECUTOR_REFRESH_IN_MS =
     "azkaban.activeexecutor.refresh.milisecinterval";
   private static final String AZKABAN_ACTIVE_EXECUTOR_REFRESH_IN_NUM_FLOW =
     "azkaban.activeexecutor.refresh.flowinterval";
   private static final String AZKABAN_EXECUTORINFO_REFRESH_MAX_THREADS =
       "azkaban.executorinfo.refresh.maxThreads";
+  private static final String AZKABAN_QUEUEPROCESSING_BATCH_SIZE =
+    "azkaban.queueprocessing.batchsize";
+  private static final String AZKABAN_QUEUEPROCESSING_DISPATCH_MAX_THREADS =
+    "azkaban.queueprocessing.dispatch.maxThreads";
   private static final String AZKABAN_MAX_DISPATCHING_ERRORS_PERMITTED =
     "azkaban.maxDispatchingErrors";
 
@@ -85,7 +92,12 @@ public class ExecutorManager extends EventHandler implements
 
   final private Set<Executor> activeExecutors = new HashSet<Executor>();
   private QueueProcessorThread queueProcessor;
-  private volatile Pair<ExecutionReference, ExecutableFlow> runningCandidate = null;
+  // flows taken from the queue by the QueueProcessorThread and not yet dispatched
+  private final ConcurrentHashMap<Integer, Pair<ExecutionReference, ExecutableFlow>> runningCandidates =
+      new ConcurrentHashMap<Integer, Pair<ExecutionReference, ExecutableFlow>>();
+
+  // serializes submissions of the same flow; other flows only wait on a (rare) stripe collision
+  private final Striped<Lock> submitLocks = Striped.lazyWeakLock(1024);
 
   private ExecutingManagerUpdaterThread executingManager;
   // 12 weeks
@@ -107,6 +119,7 @@ public class ExecutorManager extends EventHandler implements
   private Map<String, Integer> comparatorWeightsMap;
   private long lastSuccessfulExecutorInfoRefresh;
   private ExecutorService executorInforRefresherService;
+  private ExecutorService dispatcherService;
 
   @Inject
   public ExecutorManager(Props azkProps, ExecutorLoader loader, AlerterHolder alerterHolder,
@@ -119,6 +132,13 @@ public class ExecutorManager extends EventHandler implements
     this.loadRunningFlows();
 
     queuedFlows = new QueuedExecutions(azkProps.getLong(AZKABAN_WEBSERVER_QUEUE_SIZE, 100000));
+    Map<String, String> projectWeights =
+      azkProps.getMapByPrefix(AZKABAN_WEBSERVER_QUEUE_PROJECT_WEIGHT_PREFIX);
+    if (projectWeights != null) {
+      for (Map.Entry<String, String> entry : projectWeights.entrySet()) {
+        queuedFlows.setProjectWeight(entry.getKey(), Double.valueOf(entry.getValue()));
+      }
+    }
     this.loadQueuedFlows();
 
     cacheDir = new File(azkProps.getString("cache.directory", "cache"));
@@ -161,13 +181,18 @@ public class ExecutorManager extends EventHandler implements
         Executors.newFixedThreadPool(azkProps.getInt(
           AZKABAN_EXECUTORINFO_REFRESH_MAX_THREADS, 5));
 
+    dispatcherService =
+        Executors.newFixedThreadPool(azkProps.getInt(
+          AZKABAN_QUEUEPROCESSING_DISPATCH_MAX_THREADS, 10));
+
     // configure queue processor
     queueProcessor =
       new QueueProcessorThread(azkProps.getBoolean(
         AZKABAN_QUEUEPROCESSING_ENABLED, true), azkProps.getLong(
         AZKABAN_ACTIVE_EXECUTOR_REFRESH_IN_MS, 50000), azkProps.getInt(
-        AZKABAN_ACTIVE_EXECUTOR_REFRESH_IN_NUM_FLOW, 5), azkProps.getInt(
-        AZKABAN_MAX_DISPATCHING_ERRORS_PERMITTED, activeExecutors.size()));
+        AZKABAN_ACTIVE_EXECUTOR_REFRESH_IN_NUM_FLOW, 1000), azkProps.getInt(
+        AZKABAN_MAX_DISPATCHING_ERRORS_PERMITTED, activeExecutors.size()),
+        azkProps.getInt(AZKABAN_QUEUEPROCESSING_BATCH_SIZE, 20));
 
     queueProcessor.start();
   }
@@ -213,6 +238,9 @@ public class ExecutorManager extends EventHandler implements
       // executors
       activeExecutors.clear();
       activeExecutors.addAll(newExecutors);
+      if (queueProcessor != null) {
+        queueProcessor.invalidateSnapshot();
+      }
     }
   }
 
@@ -450,11 +478,10 @@ public class ExecutorManager extends EventHandler implements
     List<Integer> executionIds = new ArrayList<Integer>();
     executionIds.addAll(getRunningFlowsHelper(projectId, flowId,
       queuedFlows.getAllEntries()));
-    // it's possible an execution is runningCandidate, meaning it's in dispatching state neither in queuedFlows nor runningFlows,
-    // so checks the runningCandidate as well.
-    if (runningCandidate != null) {
-      executionIds.addAll(getRunningFlowsHelper(projectId, flowId, Lists.newArrayList(runningCandidate)));
-    }
+    // it's possible an execution is a runningCandidate, meaning it's in dispatching state neither in queuedFlows nor runningFlows,
+    // so checks the runningCandidates as well.
+    executionIds.addAll(getRunningFlowsHelper(projectId, flowId,
+      runningCandidates.values()));
     executionIds.addAll(getRunningFlowsHelper(projectId, flowId,
       runningFlows.values()));
     Collections.sort(executionIds);
@@ -602,6 +629,21 @@ public class ExecutorManager extends EventHandler implements
     return queuedFlows.size();
   }
 
+  /* Number of queued flows per project name */
+  public Map<String, Integer> getQueuedFlowDepthByProject() {
+    return queuedFlows.getQueueDepthByProject();
+  }
+
+  /* Wait time in millisecond of the longest waiting queued flow per project name */
+  public Map<String, Long> getQueuedFlowMaxWaitTimeByProject() {
+    return queuedFlows.getMaxQueueWaitTimeByProject();
+  }
+
+  /* Average wait time in millisecond of dispatched flows per project name */
+  public Map<String, Long> getQueuedFlowAverageWaitTimeByProject() {
+    return queuedFlows.getAverageDispatchWaitTimeByProject();
+  }
+
   /* Helper method to flow ids of all running flows */
   private void getRunningFlowsIdsHelper(List<Integer> allIds,
     Collection<Pair<ExecutionReference, ExecutableFlow>> collection) {
@@ -731,6 +773,12 @@ public class ExecutorManager extends EventHandler implements
     }
   }
 
+  @Override
+  public ExecutionJobsProps getExecutionJobsProps(ExecutableFlow exFlow)
+      throws ExecutorManagerException {
+    return executorLoader.fetchExecutionJobsProps(exFlow.getExecutionId());
+  }
+
   @Override
   public List<Object> getExecutionJobStats(ExecutableFlow exFlow, String jobId,
       int attempt) throws ExecutorManagerException {
@@ -940,7 +988,9 @@ public class ExecutorManager extends EventHandler implements
     String exFlowKey = exflow.getProjectName() + "." + exflow.getId() + ".submitFlow";
     // using project and flow name to prevent race condition when same flow is submitted by API and schedule at the same time
     // causing two same flow submission entering this piece.
-    synchronized (exFlowKey.intern()) {
+    Lock submitLock = this.submitLocks.get(exFlowKey);
+    submitLock.lock();
+    try {
       String flowId = exflow.getFlowId();
 
       logger.info("Submitting execution flow " + flowId + " by " + userId);
@@ -1034,6 +1084,8 @@ public class ExecutorManager extends EventHandler implements
             + exflow.getExecutionId();
       }
       return message;
+    } finally {
+      submitLock.unlock();
     }
   }
 
@@ -1180,6 +1232,21 @@ public class ExecutorManager extends EventHandler implements
   }
 
 
+  @Override
+  public void invalidateJobOverrides(int projectId) {
+    for (Executor executor : activeExecutors) {
+      try {
+        callExecutorServer(executor.getHost(), executor.getPort(),
+          ConnectorParams.INVALIDATE_JOB_OVERRIDES_ACTION, null, null,
+          new Pair<String, String>(ConnectorParams.PROJECT_ID_PARAM,
+            String.valueOf(projectId)));
+      } catch (IOException e) {
+        logger.warn("Failed to invalidate the job overrides of project " + projectId
+          + " on executor " + executor.getHost() + ":" + executor.getPort(), e);
+      }
+    }
+  }
+
   @Override
   public Map<String, Object> callExecutorJMX(String hostPort, String action,
       String mBean) throws IOException {
@@ -1200,6 +1267,7 @@ public class ExecutorManager extends EventHandler implements
   public void shutdown() {
     if (isMultiExecutorMode()) {
       queueProcessor.shutdown();
+      dispatcherService.shutdown();
     }
     executingManager.shutdown();
   }
@@ -1243,6 +1311,7 @@ public class ExecutorManager extends EventHandler implements
                 .entrySet()) {
               List<Long> updateTimesList = new ArrayList<Long>();
               List<Integer> executionIdsList = new ArrayList<Integer>();
+              List<Long> changeSequencesList = new ArrayList<Long>();
 
               Executor executor = entry.getKey();
 
@@ -1253,7 +1322,7 @@ public class ExecutorManager extends EventHandler implements
               // We pack the parameters of the same host together before we
               // query.
               fillUpdateTimeAndExecId(entry.getValue(), executionIdsList,
-                  updateTimesList);
+                  updateTimesList, changeSequencesList);
 
               Pair<String, String> updateTimes =
                   new Pair<String, String>(
@@ -1262,13 +1331,17 @@ public class ExecutorManager extends EventHandler implements
               Pair<String, String> executionIds =
                   new Pair<String, String>(ConnectorParams.EXEC_ID_LIST_PARAM,
                       JSONUtils.toJSON(executionIdsList));
+              Pair<String, String> changeSequences =
+                  new Pair<String, String>(
+                      ConnectorParams.CHANGE_SEQUENCE_LIST_PARAM,
+                      JSONUtils.toJSON(changeSequencesList));
 
               Map<String, Object> results = null;
               try {
                 results =
                     callExecutorServer(executor.getHost(),
                       executor.getPort(), ConnectorParams.UPDATE_ACTION,
-                        null, null, executionIds, updateTimes);
+                        null, null, executionIds, updateTimes, changeSequences);
               } catch (IOException e) {
                 logger.error(e);
                 for (ExecutableFlow flow : entry.getValue()) {
@@ -1566,10 +1639,12 @@ public class ExecutorManager extends EventHandler implements
   }
 
   private void fillUpdateTimeAndExecId(List<ExecutableFlow> flows,
-      List<Integer> executionIds, List<Long> updateTimes) {
+      List<Integer> executionIds, List<Long> updateTimes,
+      List<Long> changeSequences) {
     for (ExecutableFlow flow : flows) {
       executionIds.add(flow.getExecutionId());
       updateTimes.add(flow.getUpdateTime());
+      changeSequences.add(flow.getAppliedChangeSequence());
     }
   }
 
@@ -1715,6 +1790,13 @@ public class ExecutorManager extends EventHandler implements
     private final int maxDispatchingErrors;
     private final long activeExecutorRefreshWindowInMilisec;
     private final int activeExecutorRefreshWindowInFlows;
+    private final int dispatchBatchSize;
+    private final ExecutorFilter executorFilter;
+    private final ExecutorComparator executorComparator;
+    // executors ranked at the last refresh, updated locally after each assignment
+    private volatile ExecutorSnapshot executorSnapshot;
+    // set when the active executors change, the snapshot is then rebuilt before the next batch
+    private volatile boolean snapshotStale = false;
 
     private volatile boolean shutdown = false;
     private volatile boolean isActive = true;
@@ -1722,13 +1804,19 @@ public class ExecutorManager extends EventHandler implements
     public QueueProcessorThread(boolean isActive,
       long activeExecutorRefreshWindowInTime,
       int activeExecutorRefreshWindowInFlows,
-      int maxDispatchingErrors) {
+      int maxDispatchingErrors,
+      int dispatchBatchSize) {
       setActive(isActive);
       this.maxDispatchingErrors = maxDispatchingErrors;
       this.activeExecutorRefreshWindowInFlows =
         activeExecutorRefreshWindowInFlows;
       this.activeExecutorRefreshWindowInMilisec =
         activeExecutorRefreshWindowInTime;
+      this.dispatchBatchSize = dispatchBatchSize;
+      this.executorFilter = null == filterList || filterList.isEmpty() ? null
+        : new ExecutorFilter(filterList);
+      this.executorComparator = null == comparatorWeightsMap || comparatorWeightsMap.isEmpty()
+        ? null : new ExecutorComparator(comparatorWeightsMap);
       this.setName("AzkabanWebServer-QueueProcessor-Thread");
     }
 
@@ -1741,6 +1829,11 @@ public class ExecutorManager extends EventHandler implements
       return isActive;
     }
 
+    /* rank the executors again before dispatching the next batch */
+    public void invalidateSnapshot() {
+      snapshotStale = true;
+    }
+
     public void shutdown() {
       shutdown = true;
       this.interrupt();
@@ -1773,83 +1866,146 @@ public class ExecutorManager extends EventHandler implements
       long lastExecutorRefreshTime = 0;
       int currentContinuousFlowProcessed = 0;
 
-      while (isActive() && (runningCandidate = queuedFlows.fetchHead()) != null) {
-        ExecutionReference reference = runningCandidate.getFirst();
-        ExecutableFlow exflow = runningCandidate.getSecond();
+      while (isActive()) {
+        List<Pair<ExecutionReference, ExecutableFlow>> batch =
+          queuedFlows.fetchHeads(dispatchBatchSize);
+        for (Pair<ExecutionReference, ExecutableFlow> candidate : batch) {
+          runningCandidates.put(candidate.getSecond().getExecutionId(), candidate);
+        }
         long currentTime = System.currentTimeMillis();
 
         // if we have dispatched more than maxContinuousFlowProcessed or
         // It has been more then activeExecutorsRefreshWindow millisec since we
         // refreshed
-
         if (currentTime - lastExecutorRefreshTime > activeExecutorsRefreshWindow
-          || currentContinuousFlowProcessed >= maxContinuousFlowProcessed) {
-          // Refresh executorInfo for all activeExecutors
+          || currentContinuousFlowProcessed >= maxContinuousFlowProcessed
+          || snapshotStale) {
+          // Refresh executorInfo for all activeExecutors and rank them once,
+          // assignments until the next refresh are accounted locally
+          snapshotStale = false;
           refreshExecutors();
+          synchronized (activeExecutors) {
+            executorSnapshot =
+              new ExecutorSnapshot(activeExecutors, executorFilter, executorComparator);
+          }
           lastExecutorRefreshTime = currentTime;
           currentContinuousFlowProcessed = 0;
         }
 
+        boolean allExecutorsBusy = dispatchBatch(batch, currentTime);
 
-        /**
-         * <pre>
-         *  TODO: Work around till we improve Filters to have a notion of GlobalSystemState.
-         *        Currently we try each queued flow once to infer a global busy state
-         * Possible improvements:-
-         *   1. Move system level filters in refreshExecutors and sleep if we have all executors busy after refresh
-         *   2. Implement GlobalSystemState in selector or in a third place to manage system filters. Basically
-         *      taking out all the filters which do not depend on the flow but are still being part of Selector.
-         * Assumptions:-
-         *   1. no one else except QueueProcessor is updating ExecutableFlow update time
-         *   2. re-attempting a flow (which has been tried before) is considered as all executors are busy
-         * </pre>
-         */
-        if(exflow.getUpdateTime() > lastExecutorRefreshTime) {
-          // put back in the queue
-          queuedFlows.enqueue(exflow, reference);
-          runningCandidate = null;
-          long sleepInterval =
-            activeExecutorsRefreshWindow
-              - (currentTime - lastExecutorRefreshTime);
-          // wait till next executor refresh
-          sleep(sleepInterval);
-        } else {
-          exflow.setUpdateTime(currentTime);
-          // process flow with current snapshot of activeExecutors
-          selectExecutorAndDispatchFlow(reference, exflow, new HashSet<Executor>(activeExecutors));
-          runningCandidate = null;
+        // do not count failed flow processsing (flows still in queue)
+        for (Pair<ExecutionReference, ExecutableFlow> candidate : batch) {
+          if (queuedFlows.getFlow(candidate.getSecond().getExecutionId()) == null) {
+            currentContinuousFlowProcessed++;
+          }
         }
 
-        // do not count failed flow processsing (flows still in queue)
-        if(queuedFlows.getFlow(exflow.getExecutionId()) == null) {
-          currentContinuousFlowProcessed++;
+        // no executor can take more flows as per the snapshot, which only
+        // changes with a refresh, so wait till next executor refresh
+        if (allExecutorsBusy && !snapshotStale) {
+          long sleepInterval =
+            activeExecutorsRefreshWindow
+              - (System.currentTimeMillis() - lastExecutorRefreshTime);
+          if (sleepInterval > 0) {
+            sleep(sleepInterval);
+          }
         }
       }
     }
 
-    /* process flow with a snapshot of available Executors */
-    private void selectExecutorAndDispatchFlow(ExecutionReference reference,
-      ExecutableFlow exflow, Set<Executor> availableExecutors)
-      throws ExecutorManagerException {
-      synchronized (exflow) {
-        Executor selectedExecutor = selectExecutor(exflow, availableExecutors);
+    /*
+     * Select executors for a batch of flows against the snapshot, then
+     * dispatch to distinct executors in parallel. Returns true if no executor
+     * was available for some of the flows.
+     */
+    private boolean dispatchBatch(List<Pair<ExecutionReference, ExecutableFlow>> batch,
+      long currentTime) throws InterruptedException {
+      boolean allExecutorsBusy = false;
+      final Map<Executor, List<Pair<ExecutionReference, ExecutableFlow>>> assignments =
+        new LinkedHashMap<Executor, List<Pair<ExecutionReference, ExecutableFlow>>>();
+      for (Pair<ExecutionReference, ExecutableFlow> candidate : batch) {
+        ExecutionReference reference = candidate.getFirst();
+        ExecutableFlow exflow = candidate.getSecond();
+        exflow.setUpdateTime(currentTime);
+        Executor selectedExecutor =
+          selectExecutor(exflow, Collections.<Executor>emptySet());
         if (selectedExecutor != null) {
+          assignments.computeIfAbsent(selectedExecutor,
+            k -> new ArrayList<Pair<ExecutionReference, ExecutableFlow>>()).add(candidate);
+        } else {
+          allExecutorsBusy = true;
+          commonMetrics.markDispatchFail();
           try {
-            dispatch(reference, exflow, selectedExecutor);
-            commonMetrics.markDispatchSuccess();
+            handleNoExecutorSelectedCase(reference, exflow);
           } catch (ExecutorManagerException e) {
-            commonMetrics.markDispatchFail();
-            logger.warn(String.format(
-              "Executor %s responded with exception for exec: %d",
-              selectedExecutor, exflow.getExecutionId()), e);
-            handleDispatchExceptionCase(reference, exflow, selectedExecutor,
-              availableExecutors);
+            logger.error("Failed to re-queue flow " + exflow.getExecutionId(), e);
+          } finally {
+            runningCandidates.remove(exflow.getExecutionId());
           }
-        } else {
-          commonMetrics.markDispatchFail();
-          handleNoExecutorSelectedCase(reference, exflow);
         }
       }
+
+      if (assignments.size() == 1) {
+        Map.Entry<Executor, List<Pair<ExecutionReference, ExecutableFlow>>> assignment =
+          assignments.entrySet().iterator().next();
+        dispatchFlows(assignment.getKey(), assignment.getValue());
+        return allExecutorsBusy;
+      }
+
+      List<Future<?>> dispatches = new ArrayList<Future<?>>();
+      for (final Map.Entry<Executor, List<Pair<ExecutionReference, ExecutableFlow>>> assignment
+        : assignments.entrySet()) {
+        dispatches.add(dispatcherService.submit(new Runnable() {
+          @Override
+          public void run() {
+            dispatchFlows(assignment.getKey(), assignment.getValue());
+          }
+        }));
+      }
+      for (Future<?> dispatch : dispatches) {
+        try {
+          dispatch.get();
+        } catch (ExecutionException e) {
+          logger.error("Failed to dispatch queued flows", e.getCause());
+        }
+      }
+      return allExecutorsBusy;
+    }
+
+    /* dispatch flows assigned to the same executor one after another */
+    private void dispatchFlows(Executor selectedExecutor,
+      List<Pair<ExecutionReference, ExecutableFlow>> flows) {
+      for (Pair<ExecutionReference, ExecutableFlow> candidate : flows) {
+        ExecutableFlow exflow = candidate.getSecond();
+        try {
+          synchronized (exflow) {
+            dispatchFlow(candidate.getFirst(), exflow, selectedExecutor,
+              new HashSet<Executor>());
+          }
+        } catch (ExecutorManagerException e) {
+          logger.error("Failed to process queued flow " + exflow.getExecutionId(), e);
+        } finally {
+          runningCandidates.remove(exflow.getExecutionId());
+        }
+      }
+    }
+
+    /* dispatch flow to the selected executor, trying other executors on failure */
+    private void dispatchFlow(ExecutionReference reference,
+      ExecutableFlow exflow, Executor selectedExecutor, Set<Executor> failedExecutors)
+      throws ExecutorManagerException {
+      try {
+        dispatch(reference, exflow, selectedExecutor);
+        commonMetrics.markDispatchSuccess();
+      } catch (ExecutorManagerException e) {
+        commonMetrics.markDispatchFail();
+        logger.warn(String.format(
+          "Executor %s responded with exception for exec: %d",
+          selectedExecutor, exflow.getExecutionId()), e);
+        failedExecutors.add(selectedExecutor);
+        handleDispatchExceptionCase(reference, exflow, failedExecutors);
+      }
     }
 
     /* Helper method to fetch  overriding Executor, if a valid user has specifed otherwise return null */
@@ -1889,9 +2045,9 @@ public class ExecutorManager extends EventHandler implements
       return executor;
     }
 
-    /* Choose Executor for exflow among the available executors */
+    /* Choose Executor for exflow among the ranked executors, except the excluded ones */
     private Executor selectExecutor(ExecutableFlow exflow,
-      Set<Executor> availableExecutors) {
+      Set<Executor> excludedExecutors) {
       Executor choosenExecutor =
         getUserSpecifiedExecutor(exflow.getExecutionOptions(),
           exflow.getExecutionId());
@@ -1900,15 +2056,16 @@ public class ExecutorManager extends EventHandler implements
       if (choosenExecutor == null) {
         logger.info("Using dispatcher for execution id :"
           + exflow.getExecutionId());
-        ExecutorSelector selector = new ExecutorSelector(filterList, comparatorWeightsMap);
-        choosenExecutor = selector.getBest(availableExecutors, exflow);
+        choosenExecutor = executorSnapshot.select(exflow, excludedExecutors);
+      } else {
+        executorSnapshot.recordAssignment(choosenExecutor);
       }
       return choosenExecutor;
     }
 
     private void handleDispatchExceptionCase(ExecutionReference reference,
-      ExecutableFlow exflow, Executor lastSelectedExecutor,
-      Set<Executor> remainingExecutors) throws ExecutorManagerException {
+      ExecutableFlow exflow, Set<Executor> failedExecutors)
+      throws ExecutorManagerException {
       logger
         .info(String
           .format(
@@ -1916,13 +2073,18 @@ public class ExecutorManager extends EventHandler implements
             exflow.getExecutionId(), reference.getNumErrors()));
       reference.setNumErrors(reference.getNumErrors() + 1);
       if (reference.getNumErrors() > this.maxDispatchingErrors
-        || remainingExecutors.size() <= 1) {
+        || executorSnapshot.getCandidateCount(failedExecutors) == 0) {
         logger.error("Failed to process queued flow");
         finalizeFlows(exflow);
       } else {
-        remainingExecutors.remove(lastSelectedExecutor);
-        // try other executors except chosenExecutor
-        selectExecutorAndDispatchFlow(reference, exflow, remainingExecutors);
+        // try other executors except the ones which failed
+        Executor selectedExecutor = selectExecutor(exflow, failedExecutors);
+        if (selectedExecutor != null) {
+          dispatchFlow(reference, exflow, selectedExecutor, failedExecutors);
+        } else {
+          commonMetrics.markDispatchFail();
+          handleNoExecutorSelectedCase(reference, exflow);
+        }
       }
     }
 
@@ -1935,7 +2097,7 @@ public class ExecutorManager extends EventHandler implements
             exflow.getExecutionId(), reference.getNumErrors()));
       // TODO: handle scenario where a high priority flow failing to get
       // schedule can starve all others
-      queuedFlows.enqueue(exflow, reference);
+      queuedFlows.requeue(exflow, reference);
     }
   }
 }
@@ -138,6 +138,12 @@ public interface ExecutorManagerAdapter {
   public List<Object> getExecutionJobStats(ExecutableFlow exflow, String jobId,
                                            int attempt) throws ExecutorManagerException;
 
+  /**
+   * Returns the input and output props of all the jobs of an execution, read in one query
+   */
+  public ExecutionJobsProps getExecutionJobsProps(ExecutableFlow exFlow)
+      throws ExecutorManagerException;
+
   public JobMetaData getExecutionJobMetaData(ExecutableFlow exFlow,
                                              String jobId, int offset, int length, int attempt)
       throws ExecutorManagerException;
@@ -194,6 +200,13 @@ public interface ExecutorManagerAdapter {
   public Map<String, Object> callExecutorJMX(String hostPort, String action,
                                              String mBean) throws IOException;
 
+  /**
+   * Asks all active executors to drop their cached job overrides of a project. Failures are
+   * logged, an executor which missed the call keeps the stale overrides until the installed
+   * version is cleaned up.
+   */
+  public void invalidateJobOverrides(int projectId);
+
   public void shutdown();
 
   public Set<String> getAllActiveExecutorServerHosts();
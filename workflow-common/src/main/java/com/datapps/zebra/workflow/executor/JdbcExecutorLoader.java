@@ -21,6 +21,8 @@ import com.datapps.zebra.workflow.executor.ExecutorLogEvent.EventType;
 import com.datapps.zebra.workflow.metrics.CommonMetrics;
 import com.datapps.zebra.workflow.utils.*;
 import com.datapps.zebra.workflow.utils.FileIOUtils.LogData;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.apache.commons.dbutils.DbUtils;
@@ -34,10 +36,15 @@ import org.joda.time.DateTime;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLDataException;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Singleton
 public class JdbcExecutorLoader extends AbstractJdbcLoader implements
@@ -46,10 +53,27 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
       .getLogger(JdbcExecutorLoader.class);
 
   private EncodingType defaultEncodingType = EncodingType.GZIP;
+  // encoding of the flow blobs, binary once all the servers can read it
+  private final EncodingType flowEncodingType;
+
+  // job props of recently viewed finished executions, which never change anymore
+  private final Cache<Integer, ExecutionJobsProps> finishedJobsProps;
+  // write-behind of the execution_jobs rows
+  private final NodeStatusWriter nodeWriter;
 
   @Inject
   public JdbcExecutorLoader(Props props, CommonMetrics commonMetrics) {
     super(props, commonMetrics);
+    this.flowEncodingType = EncodingType.valueOf(
+        props.getString("flow.encoding.type", EncodingType.GZIP.name()).toUpperCase());
+    this.finishedJobsProps = CacheBuilder.newBuilder()
+        .maximumSize(props.getInt("executor.jobprops.cache.size", 100))
+        .expireAfterAccess(props.getLong("executor.jobprops.cache.ttl.seconds", 300),
+            TimeUnit.SECONDS)
+        .build();
+    this.nodeWriter = new NodeStatusWriter(this::writeExecutableNodes,
+        props.getInt("executor.node.write.batch.size", 200),
+        props.getLong("executor.node.write.interval.ms", 5));
   }
 
   public EncodingType getDefaultEncodingType() {
@@ -61,59 +85,84 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   }
 
   @Override
-  public synchronized void uploadExecutableFlow(ExecutableFlow flow)
+  public void uploadExecutableFlow(ExecutableFlow flow)
       throws ExecutorManagerException {
     Connection connection = getConnection();
     try {
-      uploadExecutableFlow(connection, flow, defaultEncodingType);
-    } catch (IOException e) {
-      throw new ExecutorManagerException("Error uploading flow", e);
+      uploadExecutableFlow(connection, flow, flowEncodingType);
     } finally {
       DbUtils.closeQuietly(connection);
     }
   }
 
-  private synchronized void uploadExecutableFlow(Connection connection,
+  /**
+   * Insert the execution together with its flow data in a single statement and read the
+   * execution id back from the generated keys, so concurrent submissions neither share a
+   * monitor nor need a second round trip for LAST_INSERT_ID() and the flow data update.
+   */
+  private void uploadExecutableFlow(Connection connection,
       ExecutableFlow flow, EncodingType encType)
-      throws ExecutorManagerException, IOException {
+      throws ExecutorManagerException {
     final String INSERT_EXECUTABLE_FLOW =
         "INSERT INTO execution_flows "
-            + "(project_id, flow_id, version, status, submit_time, submit_user, update_time) "
-            + "values (?,?,?,?,?,?,?)";
-    QueryRunner runner = new QueryRunner();
+            + "(project_id, flow_id, version, status, submit_time, submit_user, update_time, "
+            + "start_time, end_time, enc_type, flow_data) "
+            + "values (?,?,?,?,?,?,?,?,?,?,?)";
     long submitTime = System.currentTimeMillis();
 
-    long id;
-    try {
-      flow.setStatus(Status.PREPARING);
-      runner.update(connection, INSERT_EXECUTABLE_FLOW, flow.getProjectId(),
-          flow.getFlowId(), flow.getVersion(), Status.PREPARING.getNumVal(),
-          submitTime, flow.getSubmitUser(), submitTime);
-      connection.commit();
-      id =
-          runner.query(connection, LastInsertID.LAST_INSERT_ID,
-              new LastInsertID());
+    flow.setStatus(Status.PREPARING);
+    // the execution id is not known yet, fetches take it from the exec_id column
+    byte[] data = encodeExecutableFlow(flow, encType);
 
-      if (id == -1L) {
+    PreparedStatement statement = null;
+    ResultSet generatedKeys = null;
+    try {
+      statement =
+          connection.prepareStatement(INSERT_EXECUTABLE_FLOW,
+              Statement.RETURN_GENERATED_KEYS);
+      statement.setInt(1, flow.getProjectId());
+      statement.setString(2, flow.getFlowId());
+      statement.setInt(3, flow.getVersion());
+      statement.setInt(4, Status.PREPARING.getNumVal());
+      statement.setLong(5, submitTime);
+      statement.setString(6, flow.getSubmitUser());
+      statement.setLong(7, flow.getUpdateTime());
+      statement.setLong(8, flow.getStartTime());
+      statement.setLong(9, flow.getEndTime());
+      statement.setInt(10, encType.getNumVal());
+      statement.setBytes(11, data);
+      statement.executeUpdate();
+
+      generatedKeys = statement.getGeneratedKeys();
+      if (!generatedKeys.next()) {
+        connection.rollback();
         throw new ExecutorManagerException(
             "Execution id is not properly created.");
       }
-      logger.info("Flow given " + flow.getFlowId() + " given id " + id);
-      flow.setExecutionId((int) id);
+      int id = generatedKeys.getInt(1);
+      connection.commit();
 
-      updateExecutableFlow(connection, flow, encType);
+      logger.info("Flow given " + flow.getFlowId() + " given id " + id);
+      flow.setExecutionId(id);
     } catch (SQLException e) {
       throw new ExecutorManagerException("Error creating execution.", e);
+    } finally {
+      DbUtils.closeQuietly(generatedKeys);
+      DbUtils.closeQuietly(statement);
     }
   }
 
   @Override
   public void updateExecutableFlow(ExecutableFlow flow)
       throws ExecutorManagerException {
+    if (Status.isStatusFinished(flow.getStatus())) {
+      // the final state of the jobs is stored before the one of the flow
+      nodeWriter.flush();
+    }
     Connection connection = this.getConnection();
 
     try {
-      updateExecutableFlow(connection, flow, defaultEncodingType);
+      updateExecutableFlow(connection, flow, flowEncodingType);
     } finally {
       DbUtils.closeQuietly(connection);
     }
@@ -127,6 +176,28 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
             + "WHERE exec_id=?";
     QueryRunner runner = new QueryRunner();
 
+    byte[] data = encodeExecutableFlow(flow, encType);
+
+    try {
+      runner.update(connection, UPDATE_EXECUTABLE_FLOW_DATA, flow.getStatus()
+          .getNumVal(), flow.getUpdateTime(), flow.getStartTime(), flow
+          .getEndTime(), encType.getNumVal(), data, flow.getExecutionId());
+      connection.commit();
+    } catch (SQLException e) {
+      throw new ExecutorManagerException("Error updating flow.", e);
+    }
+  }
+
+  private static byte[] encodeExecutableFlow(ExecutableFlow flow,
+      EncodingType encType) throws ExecutorManagerException {
+    if (encType == EncodingType.BINARY) {
+      try {
+        return BinaryObjectCodec.encode(flow.toObject());
+      } catch (IOException e) {
+        throw new ExecutorManagerException("Error encoding the execution flow.", e);
+      }
+    }
+
     String json = JSONUtils.toJSON(flow.toObject());
     byte[] data = null;
     try {
@@ -137,17 +208,22 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
         data = GZIPUtils.gzipBytes(stringData);
       }
     } catch (IOException e) {
-      throw new ExecutorManagerException("Error encoding the execution flow.");
+      throw new ExecutorManagerException("Error encoding the execution flow.", e);
     }
+    return data;
+  }
 
-    try {
-      runner.update(connection, UPDATE_EXECUTABLE_FLOW_DATA, flow.getStatus()
-          .getNumVal(), flow.getUpdateTime(), flow.getStartTime(), flow
-          .getEndTime(), encType.getNumVal(), data, flow.getExecutionId());
-      connection.commit();
-    } catch (SQLException e) {
-      throw new ExecutorManagerException("Error updating flow.", e);
+  /**
+   * Decodes a flow blob of any of the encodings, the binary one or the legacy JSON ones
+   */
+  private static Object decodeFlowObject(EncodingType encType, byte[] data)
+      throws IOException {
+    if (encType == EncodingType.BINARY) {
+      return BinaryObjectCodec.decode(data);
+    } else if (encType == EncodingType.GZIP) {
+      return JSONUtils.parseJSONFromString(GZIPUtils.unGzipString(data, "UTF-8"));
     }
+    return JSONUtils.parseJSONFromString(new String(data, "UTF-8"));
   }
 
   @Override
@@ -281,6 +357,7 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   @Override
   public int fetchNumExecutableNodes(int projectId, String jobId)
       throws ExecutorManagerException {
+    nodeWriter.flush();
     QueryRunner runner = createQueryRunner();
 
     IntHandler intHandler = new IntHandler();
@@ -483,11 +560,6 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   @Override
   public void uploadExecutableNode(ExecutableNode node, Props inputProps)
       throws ExecutorManagerException {
-    final String INSERT_EXECUTION_NODE =
-        "INSERT INTO execution_jobs "
-            + "(exec_id, project_id, version, flow_id, job_id, start_time, "
-            + "end_time, status, input_params, attempt) VALUES (?,?,?,?,?,?,?,?,?,?)";
-
     byte[] inputParam = null;
     if (inputProps != null) {
       try {
@@ -499,28 +571,12 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
       }
     }
 
-    ExecutableFlow flow = node.getExecutableFlow();
-    String flowId = node.getParentFlow().getFlowPath();
-    System.out.println("Uploading flowId " + flowId);
-    QueryRunner runner = createQueryRunner();
-    try {
-      runner.update(INSERT_EXECUTION_NODE, flow.getExecutionId(),
-          flow.getProjectId(), flow.getVersion(), flowId, node.getId(),
-          node.getStartTime(), node.getEndTime(), node.getStatus().getNumVal(),
-          inputParam, node.getAttempt());
-    } catch (SQLException e) {
-      throw new ExecutorManagerException("Error writing job " + node.getId(), e);
-    }
+    nodeWriter.write(new NodeStatusWriter.NodeWrite(node, true, inputParam, null));
   }
 
   @Override
   public void updateExecutableNode(ExecutableNode node)
       throws ExecutorManagerException {
-    final String UPSERT_EXECUTION_NODE =
-        "UPDATE execution_jobs "
-            + "SET start_time=?, end_time=?, status=?, output_params=? "
-            + "WHERE exec_id=? AND flow_id=? AND job_id=? AND attempt=?";
-
     byte[] outputParam = null;
     Props outputProps = node.getOutputProps();
     if (outputProps != null) {
@@ -533,21 +589,151 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
       }
     }
 
-    QueryRunner runner = createQueryRunner();
+    nodeWriter.write(new NodeStatusWriter.NodeWrite(node, false, null, outputParam));
+  }
+
+  /**
+   * Writes the rows flushed by the node writer in a single transaction. If the database refused
+   * some of the values the rows are written one by one, so that a bad row doesn't keep the others
+   * from being written, and the refused rows are dropped. Any other failure, like a lost
+   * connection, fails the batch, writing the rows one by one wouldn't help. The rows which weren't
+   * written are then handed back to be written again.
+   */
+  private List<NodeStatusWriter.NodeWrite> writeExecutableNodes(
+      List<NodeStatusWriter.NodeWrite> writes) throws ExecutorManagerException {
+    Connection connection = getConnection();
     try {
-      runner.update(UPSERT_EXECUTION_NODE, node.getStartTime(), node
-          .getEndTime(), node.getStatus().getNumVal(), outputParam, node
-          .getExecutableFlow().getExecutionId(), node.getParentFlow()
-          .getFlowPath(), node.getId(), node.getAttempt());
+      try {
+        executeNodeWrites(connection, writes);
+        connection.commit();
+        return Collections.emptyList();
+      } catch (SQLException e) {
+        rollbackQuietly(connection);
+        if (!isDataError(e)) {
+          throw new ExecutorManagerException(
+              "Error writing a batch of " + writes.size() + " jobs", e);
+        }
+        logger.warn("The database refused a batch of " + writes.size()
+            + " jobs, writing them one by one", e);
+      }
+
+      for (int i = 0; i < writes.size(); i++) {
+        NodeStatusWriter.NodeWrite write = writes.get(i);
+        try {
+          executeNodeWrites(connection, Collections.singletonList(write));
+          connection.commit();
+        } catch (SQLException e) {
+          rollbackQuietly(connection);
+          if (!isDataError(e)) {
+            logger.error("Error writing job " + write.getJobId() + " of execution "
+                + write.getExecId() + ", keeping it and the " + (writes.size() - i - 1)
+                + " jobs after it", e);
+            return new ArrayList<>(writes.subList(i, writes.size()));
+          }
+          logger.error("Dropping job " + write.getJobId() + " of execution "
+              + write.getExecId() + " refused by the database", e);
+        }
+      }
+      return Collections.emptyList();
+    } finally {
+      DbUtils.closeQuietly(connection);
+    }
+  }
+
+  /**
+   * @return whether the database refused the values themselves, writing them again won't help
+   */
+  private static boolean isDataError(SQLException e) {
+    // a failed batch reports the error of the statement through the chained exceptions
+    for (SQLException next = e; next != null; next = next.getNextException()) {
+      String state = next.getSQLState();
+      if (next instanceof SQLDataException
+          || next instanceof SQLIntegrityConstraintViolationException
+          || (state != null && (state.startsWith("22") || state.startsWith("23")))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void executeNodeWrites(Connection connection,
+      List<NodeStatusWriter.NodeWrite> writes) throws SQLException {
+    final String INSERT_EXECUTION_NODE =
+        "INSERT INTO execution_jobs "
+            + "(exec_id, project_id, version, flow_id, job_id, start_time, "
+            + "end_time, status, input_params, output_params, attempt) "
+            + "VALUES (?,?,?,?,?,?,?,?,?,?,?)";
+    final String UPDATE_EXECUTION_NODE =
+        "UPDATE execution_jobs "
+            + "SET start_time=?, end_time=?, status=?, output_params=? "
+            + "WHERE exec_id=? AND flow_id=? AND job_id=? AND attempt=?";
+
+    PreparedStatement insert = null;
+    PreparedStatement update = null;
+    try {
+      for (NodeStatusWriter.NodeWrite write : writes) {
+        if (write.isInsert()) {
+          if (insert == null) {
+            insert = connection.prepareStatement(INSERT_EXECUTION_NODE);
+          }
+          insert.setInt(1, write.getExecId());
+          insert.setInt(2, write.getProjectId());
+          insert.setInt(3, write.getVersion());
+          insert.setString(4, write.getFlowPath());
+          insert.setString(5, write.getJobId());
+          insert.setLong(6, write.getStartTime());
+          insert.setLong(7, write.getEndTime());
+          insert.setInt(8, write.getStatus().getNumVal());
+          insert.setBytes(9, write.getInputParams());
+          insert.setBytes(10, write.getOutputParams());
+          insert.setInt(11, write.getAttempt());
+          insert.addBatch();
+        } else {
+          if (update == null) {
+            update = connection.prepareStatement(UPDATE_EXECUTION_NODE);
+          }
+          update.setLong(1, write.getStartTime());
+          update.setLong(2, write.getEndTime());
+          update.setInt(3, write.getStatus().getNumVal());
+          update.setBytes(4, write.getOutputParams());
+          update.setInt(5, write.getExecId());
+          update.setString(6, write.getFlowPath());
+          update.setString(7, write.getJobId());
+          update.setInt(8, write.getAttempt());
+          update.addBatch();
+        }
+      }
+      // a job attempt is only once in a batch, so the inserts and updates can't depend on
+      // each other
+      if (insert != null) {
+        insert.executeBatch();
+      }
+      if (update != null) {
+        update.executeBatch();
+      }
+    } finally {
+      DbUtils.closeQuietly(insert);
+      DbUtils.closeQuietly(update);
+    }
+  }
+
+  @Override
+  public void shutdown() throws ExecutorManagerException {
+    nodeWriter.close();
+  }
+
+  private static void rollbackQuietly(Connection connection) {
+    try {
+      connection.rollback();
     } catch (SQLException e) {
-      throw new ExecutorManagerException("Error updating job " + node.getId(),
-          e);
+      logger.error("Error rolling back", e);
     }
   }
 
   @Override
   public List<ExecutableJobInfo> fetchJobInfoAttempts(int execId, String jobId)
       throws ExecutorManagerException {
+    nodeWriter.flush();
     QueryRunner runner = createQueryRunner();
 
     try {
@@ -567,6 +753,7 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   @Override
   public ExecutableJobInfo fetchJobInfo(int execId, String jobId, int attempts)
       throws ExecutorManagerException {
+    nodeWriter.flush();
     QueryRunner runner = createQueryRunner();
 
     try {
@@ -585,6 +772,11 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   @Override
   public Props fetchExecutionJobInputProps(int execId, String jobId)
       throws ExecutorManagerException {
+    ExecutionJobsProps cached = finishedJobsProps.getIfPresent(execId);
+    if (cached != null) {
+      return cloneProps(cached.getInputProps(jobId));
+    }
+    nodeWriter.flush();
     QueryRunner runner = createQueryRunner();
     try {
       Pair<Props, Props> props =
@@ -601,6 +793,11 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   @Override
   public Props fetchExecutionJobOutputProps(int execId, String jobId)
       throws ExecutorManagerException {
+    ExecutionJobsProps cached = finishedJobsProps.getIfPresent(execId);
+    if (cached != null) {
+      return cloneProps(cached.getOutputProps(jobId));
+    }
+    nodeWriter.flush();
     QueryRunner runner = createQueryRunner();
     try {
       Pair<Props, Props> props =
@@ -618,6 +815,12 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   @Override
   public Pair<Props, Props> fetchExecutionJobProps(int execId, String jobId)
       throws ExecutorManagerException {
+    ExecutionJobsProps cached = finishedJobsProps.getIfPresent(execId);
+    if (cached != null) {
+      return new Pair<Props, Props>(cloneProps(cached.getInputProps(jobId)),
+          cloneProps(cached.getOutputProps(jobId)));
+    }
+    nodeWriter.flush();
     QueryRunner runner = createQueryRunner();
     try {
       Pair<Props, Props> props =
@@ -632,9 +835,37 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
     }
   }
 
+  @Override
+  public ExecutionJobsProps fetchExecutionJobsProps(int execId)
+      throws ExecutorManagerException {
+    ExecutionJobsProps cached = finishedJobsProps.getIfPresent(execId);
+    if (cached != null) {
+      return cached;
+    }
+
+    nodeWriter.flush();
+    QueryRunner runner = createQueryRunner();
+    try {
+      Pair<ExecutionJobsProps, Boolean> result =
+          runner.query(FetchExecutionJobsPropsHandler.FETCH_EXECUTION_JOBS_PROPS,
+              new FetchExecutionJobsPropsHandler(execId), execId);
+      if (result.getSecond()) {
+        finishedJobsProps.put(execId, result.getFirst());
+      }
+      return result.getFirst();
+    } catch (SQLException e) {
+      throw new ExecutorManagerException("Error querying job params " + execId, e);
+    }
+  }
+
+  private static Props cloneProps(Props props) {
+    return props == null ? null : Props.clone(props);
+  }
+
   @Override
   public List<ExecutableJobInfo> fetchJobHistory(int projectId, String jobId,
       int skip, int size) throws ExecutorManagerException {
+    nodeWriter.flush();
     QueryRunner runner = createQueryRunner();
 
     try {
@@ -671,6 +902,7 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   @Override
   public List<Object> fetchAttachments(int execId, String jobId, int attempt)
       throws ExecutorManagerException {
+    nodeWriter.flush();
     QueryRunner runner = createQueryRunner();
 
     try {
@@ -788,6 +1020,7 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
   @Override
   public void uploadAttachmentFile(ExecutableNode node, File file)
       throws ExecutorManagerException {
+    nodeWriter.flush();
     Connection connection = getConnection();
     try {
       uploadAttachmentFile(connection, node, file, defaultEncodingType);
@@ -1109,19 +1342,6 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
     return executor;
   }
 
-  private static class LastInsertID implements ResultSetHandler<Long> {
-    private static String LAST_INSERT_ID = "SELECT LAST_INSERT_ID()";
-
-    @Override
-    public Long handle(ResultSet rs) throws SQLException {
-      if (!rs.next()) {
-        return -1L;
-      }
-      long id = rs.getLong(1);
-      return id;
-    }
-  }
-
   private static class FetchLogsHandler implements ResultSetHandler<LogData> {
     private static String FETCH_LOGS =
         "SELECT exec_id, name, attempt, enc_type, start_byte, end_byte, log "
@@ -1311,6 +1531,35 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
     }
   }
 
+  /**
+   * JDBC ResultSetHandler to fetch the props of all the jobs of an execution, together with
+   * whether the execution is finished. Rows are ordered by attempt so the latest one wins.
+   */
+  private static class FetchExecutionJobsPropsHandler implements
+      ResultSetHandler<Pair<ExecutionJobsProps, Boolean>> {
+    private static String FETCH_EXECUTION_JOBS_PROPS =
+        "SELECT j.job_id, j.input_params, j.output_params, f.status "
+            + "FROM execution_jobs j JOIN execution_flows f ON f.exec_id=j.exec_id "
+            + "WHERE j.exec_id=? ORDER BY j.attempt";
+
+    private final int execId;
+
+    private FetchExecutionJobsPropsHandler(int execId) {
+      this.execId = execId;
+    }
+
+    @Override
+    public Pair<ExecutionJobsProps, Boolean> handle(ResultSet rs) throws SQLException {
+      ExecutionJobsProps props = new ExecutionJobsProps(execId);
+      boolean finished = false;
+      while (rs.next()) {
+        props.add(rs.getString(1), rs.getBytes(2), rs.getBytes(3));
+        finished = Status.isStatusFinished(Status.fromInteger(rs.getInt(4)));
+      }
+      return new Pair<ExecutionJobsProps, Boolean>(props, finished);
+    }
+  }
+
   /**
    * JDBC ResultSetHandler to fetch queued executions
    */
@@ -1342,19 +1591,11 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
           EncodingType encType = EncodingType.fromInteger(encodingType);
           Object flowObj;
           try {
-            // Convoluted way to inflate strings. Should find common package or
-            // helper function.
-            if (encType == EncodingType.GZIP) {
-              // Decompress the sucker.
-              String jsonString = GZIPUtils.unGzipString(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            } else {
-              String jsonString = new String(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            }
+            flowObj = decodeFlowObject(encType, data);
 
             ExecutableFlow exFlow =
               ExecutableFlow.createExecutableFlowFromObject(flowObj);
+            exFlow.setExecutionId(id);
             ExecutionReference ref = new ExecutionReference(id);
             execFlows.add(new Pair<>(ref, exFlow));
           } catch (IOException e) {
@@ -1391,16 +1632,11 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
           EncodingType encType = EncodingType.fromInteger(encodingType);
           Object flowObj;
           try {
-            if (encType == EncodingType.GZIP) {
-              String jsonString = GZIPUtils.unGzipString(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            } else {
-              String jsonString = new String(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            }
+            flowObj = decodeFlowObject(encType, data);
 
             ExecutableFlow exFlow =
                 ExecutableFlow.createExecutableFlowFromObject(flowObj);
+            exFlow.setExecutionId(id);
 
             execFlows.add(exFlow);
           } catch (IOException e) {
@@ -1451,19 +1687,11 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
           EncodingType encType = EncodingType.fromInteger(encodingType);
           Object flowObj;
           try {
-            // Convoluted way to inflate strings. Should find common package or
-            // helper function.
-            if (encType == EncodingType.GZIP) {
-              // Decompress the sucker.
-              String jsonString = GZIPUtils.unGzipString(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            } else {
-              String jsonString = new String(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            }
+            flowObj = decodeFlowObject(encType, data);
 
             ExecutableFlow exFlow =
                 ExecutableFlow.createExecutableFlowFromObject(flowObj);
+            exFlow.setExecutionId(id);
             Executor executor = new Executor(executorId, host, port, executorStatus);
             ExecutionReference ref = new ExecutionReference(id, executor);
             execFlows.put(id, new Pair<>(ref, exFlow));
@@ -1514,16 +1742,11 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
           EncodingType encType = EncodingType.fromInteger(encodingType);
           Object flowObj;
           try {
-            if (encType == EncodingType.GZIP) {
-              String jsonString = GZIPUtils.unGzipString(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            } else {
-              String jsonString = new String(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            }
+            flowObj = decodeFlowObject(encType, data);
 
             ExecutableFlow exFlow =
                 ExecutableFlow.createExecutableFlowFromObject(flowObj);
+            exFlow.setExecutionId(id);
             Executor executor = new Executor(executorId, host, port, executorStatus);
             ExecutionReference ref = new ExecutionReference(id, executor);
             execFlows.add(new Pair<>(ref, exFlow));
@@ -1577,19 +1800,11 @@ public class JdbcExecutorLoader extends AbstractJdbcLoader implements
           EncodingType encType = EncodingType.fromInteger(encodingType);
           Object flowObj;
           try {
-            // Convoluted way to inflate strings. Should find common package
-            // or helper function.
-            if (encType == EncodingType.GZIP) {
-              // Decompress the sucker.
-              String jsonString = GZIPUtils.unGzipString(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            } else {
-              String jsonString = new String(data, "UTF-8");
-              flowObj = JSONUtils.parseJSONFromString(jsonString);
-            }
+            flowObj = decodeFlowObject(encType, data);
 
             ExecutableFlow exFlow =
                 ExecutableFlow.createExecutableFlowFromObject(flowObj);
+            exFlow.setExecutionId(id);
             execFlows.add(exFlow);
           } catch (IOException e) {
             throw new SQLException("Error retrieving flow data " + id, e);
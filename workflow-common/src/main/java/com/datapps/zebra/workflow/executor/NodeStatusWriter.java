@@ -0,0 +1,331 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.executor;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind of the execution_jobs rows written as the jobs change status.
+ *
+ * The writes of a job attempt are coalesced, only its last state is written when the pending
+ * writes are flushed. They are flushed by a single thread every few milliseconds, or as soon as
+ * a batch is full, all the rows of a flush being written by one batch. The reads of the jobs and
+ * the update of a finished flow flush the pending writes first, so the final state of the jobs
+ * is stored before the one of their flow.
+ *
+ * When a flush fails, the rows are kept and the next flushes of the thread back off
+ * exponentially until one succeeds. The failure is logged once per outage.
+ *
+ * With an interval of 0 the rows are written right away, one by one. Once the writer is closed,
+ * the later rows are written right away too.
+ */
+class NodeStatusWriter {
+
+  private static final Logger logger = Logger.getLogger(NodeStatusWriter.class);
+  private static final long MIN_RETRY_DELAY_MS = 100;
+  private static final long MAX_RETRY_DELAY_MS = 30 * 1000;
+
+  private final BatchWriter batchWriter;
+  private final int batchSize;
+  private final long flushIntervalMs;
+  // serializes the flushes so that the writes of a job attempt are applied in order
+  private final Object flushLock = new Object();
+  // flushes failed in a row and when the flushing thread tries again, guarded by flushLock
+  private int failedFlushes = 0;
+  private boolean failureLogged = false;
+  private long retryDelayMs = 0;
+  private long retryTimeMs = 0;
+  // the fields below are guarded by this
+  private Map<List<Object>, NodeWrite> pending = new LinkedHashMap<>();
+  private ScheduledExecutorService scheduler;
+  private boolean closed = false;
+
+  NodeStatusWriter(final BatchWriter batchWriter, final int batchSize,
+      final long flushIntervalMs) {
+    this.batchWriter = batchWriter;
+    this.batchSize = batchSize;
+    this.flushIntervalMs = flushIntervalMs;
+  }
+
+  void write(final NodeWrite write) throws ExecutorManagerException {
+    if (this.flushIntervalMs <= 0) {
+      if (!this.batchWriter.write(Collections.singletonList(write)).isEmpty()) {
+        throw new ExecutorManagerException("Error writing job " + write.getJobId()
+            + " of execution " + write.getExecId());
+      }
+      return;
+    }
+
+    final boolean closed;
+    synchronized (this) {
+      this.pending.merge(write.getKey(), write, NodeWrite::then);
+      closed = this.closed;
+      if (!closed) {
+        if (this.scheduler == null) {
+          this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "Node-status-writer");
+            thread.setDaemon(true);
+            return thread;
+          });
+          this.scheduler.scheduleWithFixedDelay(this::flushQuietly, this.flushIntervalMs,
+              this.flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (this.pending.size() >= this.batchSize) {
+          this.scheduler.execute(this::flushQuietly);
+        }
+      }
+    }
+    if (closed) {
+      // after the pending writes of the same job, which the flushes keep in order
+      flush();
+    }
+  }
+
+  /**
+   * Writes all the pending writes. The writes that couldn't be written are kept to be written
+   * by the next flush, which fails then.
+   */
+  void flush() throws ExecutorManagerException {
+    synchronized (this.flushLock) {
+      final List<NodeWrite> batch;
+      synchronized (this) {
+        if (this.pending.isEmpty()) {
+          return;
+        }
+        batch = new ArrayList<>(this.pending.values());
+        this.pending = new LinkedHashMap<>();
+      }
+
+      final List<NodeWrite> failed;
+      try {
+        failed = this.batchWriter.write(batch);
+      } catch (final ExecutorManagerException | RuntimeException e) {
+        keep(batch);
+        backOff();
+        throw e;
+      }
+      if (!failed.isEmpty()) {
+        keep(failed);
+        backOff();
+        throw new ExecutorManagerException(
+            "Error writing " + failed.size() + " of " + batch.size() + " jobs");
+      }
+      if (this.failedFlushes > 0) {
+        logger.info("Wrote the status of the jobs after " + this.failedFlushes
+            + " failed flushes");
+        this.failedFlushes = 0;
+        this.failureLogged = false;
+        this.retryDelayMs = 0;
+        this.retryTimeMs = 0;
+      }
+    }
+  }
+
+  private void backOff() {
+    this.failedFlushes++;
+    this.retryDelayMs = this.retryDelayMs == 0
+        ? Math.max(this.flushIntervalMs, MIN_RETRY_DELAY_MS)
+        : Math.min(this.retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+    this.retryTimeMs = System.currentTimeMillis() + this.retryDelayMs;
+  }
+
+  /**
+   * Stops the flushing thread and writes the pending writes. The later writes are written right
+   * away.
+   */
+  void close() throws ExecutorManagerException {
+    final ScheduledExecutorService scheduler;
+    synchronized (this) {
+      this.closed = true;
+      scheduler = this.scheduler;
+      this.scheduler = null;
+    }
+    if (scheduler != null) {
+      scheduler.shutdown();
+    }
+    flush();
+  }
+
+  private synchronized void keep(final List<NodeWrite> writes) {
+    for (final NodeWrite write : writes) {
+      this.pending.merge(write.getKey(), write, (newer, older) -> older.then(newer));
+    }
+  }
+
+  synchronized int getPendingCount() {
+    return this.pending.size();
+  }
+
+  int getFailedFlushes() {
+    synchronized (this.flushLock) {
+      return this.failedFlushes;
+    }
+  }
+
+  private void flushQuietly() {
+    synchronized (this.flushLock) {
+      if (System.currentTimeMillis() < this.retryTimeMs) {
+        return;
+      }
+      try {
+        flush();
+      } catch (final Exception e) {
+        if (!this.failureLogged) {
+          this.failureLogged = true;
+          logger.error("Error writing the status of the jobs, retrying with a backoff of up to "
+              + MAX_RETRY_DELAY_MS + " ms", e);
+        } else {
+          logger.debug("Error writing the status of the jobs, retrying in " + this.retryDelayMs
+              + " ms", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the rows of a batch.
+   */
+  interface BatchWriter {
+
+    /**
+     * @return the writes which weren't written and can be retried
+     */
+    List<NodeWrite> write(List<NodeWrite> writes) throws ExecutorManagerException;
+  }
+
+  /**
+   * State of a job attempt to write, taken when the job changes status.
+   */
+  static class NodeWrite {
+
+    private final int execId;
+    private final int projectId;
+    private final int version;
+    private final String flowPath;
+    private final String jobId;
+    private final int attempt;
+    private final long startTime;
+    private final long endTime;
+    private final Status status;
+    private final byte[] inputParams;
+    private final byte[] outputParams;
+    // whether the row doesn't exist yet
+    private final boolean insert;
+
+    NodeWrite(final ExecutableNode node, final boolean insert, final byte[] inputParams,
+        final byte[] outputParams) {
+      final ExecutableFlow flow = node.getExecutableFlow();
+      this.execId = flow.getExecutionId();
+      this.projectId = flow.getProjectId();
+      this.version = flow.getVersion();
+      this.flowPath = node.getParentFlow().getFlowPath();
+      this.jobId = node.getId();
+      this.attempt = node.getAttempt();
+      this.startTime = node.getStartTime();
+      this.endTime = node.getEndTime();
+      this.status = node.getStatus();
+      this.insert = insert;
+      this.inputParams = inputParams;
+      this.outputParams = outputParams;
+    }
+
+    private NodeWrite(final NodeWrite state, final boolean insert, final byte[] inputParams) {
+      this.execId = state.execId;
+      this.projectId = state.projectId;
+      this.version = state.version;
+      this.flowPath = state.flowPath;
+      this.jobId = state.jobId;
+      this.attempt = state.attempt;
+      this.startTime = state.startTime;
+      this.endTime = state.endTime;
+      this.status = state.status;
+      this.outputParams = state.outputParams;
+      this.insert = insert;
+      this.inputParams = inputParams;
+    }
+
+    /**
+     * @return the write of this state followed by the next one
+     */
+    NodeWrite then(final NodeWrite next) {
+      return new NodeWrite(next, this.insert || next.insert,
+          next.inputParams != null ? next.inputParams : this.inputParams);
+    }
+
+    List<Object> getKey() {
+      return Arrays.asList(this.execId, this.flowPath, this.jobId, this.attempt);
+    }
+
+    int getExecId() {
+      return this.execId;
+    }
+
+    int getProjectId() {
+      return this.projectId;
+    }
+
+    int getVersion() {
+      return this.version;
+    }
+
+    String getFlowPath() {
+      return this.flowPath;
+    }
+
+    String getJobId() {
+      return this.jobId;
+    }
+
+    int getAttempt() {
+      return this.attempt;
+    }
+
+    long getStartTime() {
+      return this.startTime;
+    }
+
+    long getEndTime() {
+      return this.endTime;
+    }
+
+    Status getStatus() {
+      return this.status;
+    }
+
+    byte[] getInputParams() {
+      return this.inputParams;
+    }
+
+    byte[] getOutputParams() {
+      return this.outputParams;
+    }
+
+    boolean isInsert() {
+      return this.insert;
+    }
+  }
+}
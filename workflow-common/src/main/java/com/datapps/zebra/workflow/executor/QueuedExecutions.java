@@ -3,35 +3,70 @@ package com.datapps.zebra.workflow.executor;
 import com.datapps.zebra.workflow.utils.Pair;
 import org.apache.log4j.Logger;
 
+import java.util.AbstractCollection;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.concurrent.BlockingQueue;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <pre>
  * Composite data structure to represent non-dispatched flows in webserver.
- * This data structure wraps a blocking queue and a concurrent hashmap.
+ * This data structure wraps a concurrent skip list ordered by priority and
+ * fair share, and a concurrent hashmap to look up flows by execution id.
+ *
+ * Fair share: every queued flow is tagged with a virtual start time. A new
+ * flow starts after the later of the queue's virtual clock and the last flow
+ * queued by the same project or the same user, and costs 1/weight of a unit.
+ * Within a priority flows are taken in tag order, so a project bulk
+ * submitting thousands of flows is interleaved with other projects instead
+ * of starving them. Priorities are always honoured first. The last tag of a
+ * project or user is forgotten once none of its flows are queued, its next
+ * flow then starts at the virtual clock.
  * </pre>
  */
 public class QueuedExecutions {
 
   private static final Logger logger = Logger.getLogger(QueuedExecutions.class);
+  /* virtual time consumed by one flow of a project with weight 1 */
+  private static final long FAIR_SHARE_UNIT = 1000;
   final long capacity;
 
   /* map to easily access queued flows */
-  final private ConcurrentHashMap<Integer, Pair<ExecutionReference, ExecutableFlow>> queuedFlowMap;
+  final private ConcurrentHashMap<Integer, QueuedEntry> queuedFlowMap;
   /* actual queue */
-  final private BlockingQueue<Pair<ExecutionReference, ExecutableFlow>> queuedFlowList;
+  final private ConcurrentSkipListSet<QueuedEntry> queuedFlowList;
+  /* number of entries fetchHead may take, lets fetchHead block on an empty queue */
+  final private Semaphore available;
+  /* fair share tag of the last flow taken from the queue */
+  final private AtomicLong virtualTime;
+  /* fair share state of the projects and users with queued flows, only changed in compute */
+  final private ConcurrentHashMap<String, Owner> projectOwners;
+  final private ConcurrentHashMap<String, Owner> userOwners;
+  final private ConcurrentHashMap<String, Double> projectWeights;
+  /* wait time of flows taken from the queue, per project */
+  final private ConcurrentHashMap<String, WaitTime> projectWaitTimes;
+  /* read only view of the queued (reference, flow) pairs */
+  final private Collection<Pair<ExecutionReference, ExecutableFlow>> entriesView;
 
   public QueuedExecutions(final long capacity) {
     this.capacity = capacity;
-    this.queuedFlowMap =
-        new ConcurrentHashMap<>();
-    this.queuedFlowList =
-        new PriorityBlockingQueue<>(10,
-            new ExecutableFlowPriorityComparator());
+    this.queuedFlowMap = new ConcurrentHashMap<>();
+    this.queuedFlowList = new ConcurrentSkipListSet<>();
+    this.available = new Semaphore(0);
+    this.virtualTime = new AtomicLong();
+    this.projectOwners = new ConcurrentHashMap<>();
+    this.userOwners = new ConcurrentHashMap<>();
+    this.projectWeights = new ConcurrentHashMap<>();
+    this.projectWaitTimes = new ConcurrentHashMap<>();
+    this.entriesView = new EntriesView();
   }
 
   /**
@@ -40,20 +75,56 @@ public class QueuedExecutions {
    */
   public Pair<ExecutionReference, ExecutableFlow> fetchHead()
       throws InterruptedException {
-    final Pair<ExecutionReference, ExecutableFlow> pair = this.queuedFlowList.take();
-    if (pair != null && pair.getFirst() != null) {
-      this.queuedFlowMap.remove(pair.getFirst().getExecId());
+    while (true) {
+      this.available.acquire();
+      final QueuedEntry entry = pollEntry();
+      if (entry != null) {
+        return entry.pair;
+      }
     }
-    return pair;
+  }
+
+  /**
+   * Take up to maxFlows flows from the head of the queue. Blocks until at
+   * least one flow is available, the rest are only taken if already queued.
+   */
+  public List<Pair<ExecutionReference, ExecutableFlow>> fetchHeads(final int maxFlows)
+      throws InterruptedException {
+    final List<Pair<ExecutionReference, ExecutableFlow>> heads = new ArrayList<>();
+    heads.add(fetchHead());
+    while (heads.size() < maxFlows && this.available.tryAcquire()) {
+      final QueuedEntry entry = pollEntry();
+      if (entry != null) {
+        heads.add(entry.pair);
+      }
+    }
+    return heads;
+  }
+
+  /* Take the head entry once a permit was acquired, null if the permit was stale */
+  private QueuedEntry pollEntry() {
+    final QueuedEntry entry = this.queuedFlowList.pollFirst();
+    // entry may have been concurrently dequeued, its permit is then stale
+    if (entry != null && this.queuedFlowMap.remove(entry.execId, entry)) {
+      this.virtualTime.accumulateAndGet(entry.tag, Math::max);
+      releaseOwners(entry.projectKey, entry.userKey);
+      this.projectWaitTimes.computeIfAbsent(entry.projectKey, k -> new WaitTime())
+          .record(System.currentTimeMillis() - entry.waitingSince);
+      return entry;
+    }
+    return null;
   }
 
   /**
    * Helper method to have a single point of deletion in the queued flows
    */
   public void dequeue(final int executionId) {
-    if (this.queuedFlowMap.containsKey(executionId)) {
-      this.queuedFlowList.remove(this.queuedFlowMap.get(executionId));
-      this.queuedFlowMap.remove(executionId);
+    final QueuedEntry entry = this.queuedFlowMap.remove(executionId);
+    if (entry != null) {
+      releaseOwners(entry.projectKey, entry.userKey);
+      if (this.queuedFlowList.remove(entry)) {
+        this.available.tryAcquire();
+      }
     }
   }
 
@@ -66,10 +137,7 @@ public class QueuedExecutions {
    * @param ref
    *          reference to be enqueued
    * @throws ExecutorManagerException
-   *           case 1: if blocking queue put method fails due to
-   *           InterruptedException
-   *           case 2: if there already an element with
-   *           same execution Id
+   *           if there already an element with same execution Id
    * </pre>
    */
   public void enqueue(final ExecutableFlow exflow, final ExecutionReference ref)
@@ -79,16 +147,45 @@ public class QueuedExecutions {
       throw new ExecutorManagerException(errMsg);
     }
 
-    final Pair<ExecutionReference, ExecutableFlow> pair =
-        new Pair<>(ref, exflow);
-    try {
-      this.queuedFlowMap.put(exflow.getExecutionId(), pair);
-      this.queuedFlowList.put(pair);
-    } catch (final InterruptedException e) {
-      final String errMsg = "Failed to insert flow " + exflow.getExecutionId();
-      logger.error(errMsg, e);
+    final String projectKey = getProjectKey(exflow);
+    final String userKey = exflow.getSubmitUser();
+    insert(exflow, ref, projectKey, userKey, nextFairShareTag(projectKey, userKey));
+  }
+
+  /**
+   * <pre>
+   * Puts back a flow taken from the queue which couldn't be dispatched. The
+   * flow was already charged to its project and user when first queued, it is
+   * tagged with the queue's virtual clock so that it is taken again before the
+   * flows queued after it, without delaying the next flows of its owners.
+   *
+   * @throws ExecutorManagerException
+   *           if there already an element with same execution Id
+   * </pre>
+   */
+  public void requeue(final ExecutableFlow exflow, final ExecutionReference ref)
+      throws ExecutorManagerException {
+    final String projectKey = getProjectKey(exflow);
+    final String userKey = exflow.getSubmitUser();
+    acquireOwner(this.projectOwners, projectKey);
+    if (userKey != null) {
+      acquireOwner(this.userOwners, userKey);
+    }
+    insert(exflow, ref, projectKey, userKey, this.virtualTime.get());
+  }
+
+  /* The owners of the flow must have been acquired, they are released if it can't be queued */
+  private void insert(final ExecutableFlow exflow, final ExecutionReference ref,
+      final String projectKey, final String userKey, final long tag)
+      throws ExecutorManagerException {
+    final QueuedEntry entry = new QueuedEntry(new Pair<>(ref, exflow), projectKey, userKey, tag);
+    if (this.queuedFlowMap.putIfAbsent(exflow.getExecutionId(), entry) != null) {
+      releaseOwners(projectKey, userKey);
+      final String errMsg = "Flow already in queue " + exflow.getExecutionId();
       throw new ExecutorManagerException(errMsg);
     }
+    this.queuedFlowList.add(entry);
+    this.available.release();
   }
 
   /**
@@ -98,10 +195,7 @@ public class QueuedExecutions {
    * @param collection
    *
    * @throws ExecutorManagerException
-   *           case 1: if blocking queue put method fails due to
-   *           InterruptedException
-   *           case 2: if there already an element with
-   *           same execution Id
+   *           if there already an element with same execution Id
    * </pre>
    */
   public void enqueueAll(
@@ -116,7 +210,7 @@ public class QueuedExecutions {
    * Returns a read only collection of all the queued (flows, reference) pairs
    */
   public Collection<Pair<ExecutionReference, ExecutableFlow>> getAllEntries() {
-    return Collections.unmodifiableCollection(this.queuedFlowMap.values());
+    return this.entriesView;
   }
 
   /**
@@ -130,10 +224,8 @@ public class QueuedExecutions {
    * Fetch flow for an execution. Returns null, if execution not in queue
    */
   public ExecutableFlow getFlow(final int executionId) {
-    if (hasExecution(executionId)) {
-      return this.queuedFlowMap.get(executionId).getSecond();
-    }
-    return null;
+    final QueuedEntry entry = this.queuedFlowMap.get(executionId);
+    return entry == null ? null : entry.pair.getSecond();
   }
 
   /**
@@ -141,17 +233,15 @@ public class QueuedExecutions {
    * queue
    */
   public ExecutionReference getReference(final int executionId) {
-    if (hasExecution(executionId)) {
-      return this.queuedFlowMap.get(executionId).getFirst();
-    }
-    return null;
+    final QueuedEntry entry = this.queuedFlowMap.get(executionId);
+    return entry == null ? null : entry.pair.getFirst();
   }
 
   /**
    * Size of the queue
    */
   public long size() {
-    return this.queuedFlowList.size();
+    return this.queuedFlowMap.size();
   }
 
   /**
@@ -172,8 +262,220 @@ public class QueuedExecutions {
    * Empties queue by dequeuing all the elements
    */
   public void clear() {
-    for (final Pair<ExecutionReference, ExecutableFlow> pair : this.queuedFlowMap.values()) {
-      dequeue(pair.getFirst().getExecId());
+    for (final Integer executionId : this.queuedFlowMap.keySet()) {
+      dequeue(executionId);
+    }
+  }
+
+  /**
+   * Set the fair share weight of a project. A project with weight 2 gets
+   * twice as many of the dispatch slots of a priority as a project with
+   * weight 1, when both have flows queued.
+   */
+  public void setProjectWeight(final String projectName, final double weight) {
+    if (!(weight > 0)) {
+      throw new IllegalArgumentException(
+          "Queue weight of project " + projectName + " must be positive, was " + weight);
+    }
+    logger.info("Setting queue weight of project " + projectName + " to " + weight);
+    this.projectWeights.put(projectName, weight);
+  }
+
+  /**
+   * Number of queued flows per project name
+   */
+  public Map<String, Integer> getQueueDepthByProject() {
+    final Map<String, Integer> depths = new TreeMap<>();
+    for (final QueuedEntry entry : this.queuedFlowMap.values()) {
+      depths.merge(entry.projectKey, 1, Integer::sum);
+    }
+    return depths;
+  }
+
+  /**
+   * Wait time in millisecond of the longest waiting queued flow per project name
+   */
+  public Map<String, Long> getMaxQueueWaitTimeByProject() {
+    final long now = System.currentTimeMillis();
+    final Map<String, Long> waitTimes = new TreeMap<>();
+    for (final QueuedEntry entry : this.queuedFlowMap.values()) {
+      waitTimes.merge(entry.projectKey, now - entry.waitingSince, Math::max);
+    }
+    return waitTimes;
+  }
+
+  /**
+   * Average wait time in millisecond of flows taken from the queue, per project name
+   */
+  public Map<String, Long> getAverageDispatchWaitTimeByProject() {
+    final Map<String, Long> waitTimes = new TreeMap<>();
+    for (final Map.Entry<String, WaitTime> entry : this.projectWaitTimes.entrySet()) {
+      waitTimes.put(entry.getKey(), entry.getValue().average());
+    }
+    return waitTimes;
+  }
+
+  /**
+   * Tag a new flow: start after the queue's clock and the owners' previous flows. The flow is
+   * charged to its project and user atomically, the user is always updated within the
+   * project's compute so concurrent submissions of either owner get distinct tags.
+   */
+  private long nextFairShareTag(final String projectKey, final String userKey) {
+    final double weight = this.projectWeights.getOrDefault(projectKey, 1.0);
+    final long cost = Math.max(1, Math.round(FAIR_SHARE_UNIT / weight));
+    final long clock = this.virtualTime.get();
+    return this.projectOwners.compute(projectKey, (key, current) -> {
+      final Owner project = current != null ? current : new Owner();
+      final long start = Math.max(clock, project.tag);
+      project.tag = userKey != null ? chargeUser(userKey, start, cost) : start + cost;
+      project.queued++;
+      return project;
+    }).tag;
+  }
+
+  /* @return the tag of the flow, starting no earlier than start and the user's previous flow */
+  private long chargeUser(final String userKey, final long start, final long cost) {
+    return this.userOwners.compute(userKey, (key, current) -> {
+      final Owner user = current != null ? current : new Owner();
+      user.tag = Math.max(start, user.tag) + cost;
+      user.queued++;
+      return user;
+    }).tag;
+  }
+
+  private static void acquireOwner(final ConcurrentHashMap<String, Owner> owners,
+      final String key) {
+    owners.compute(key, (k, current) -> {
+      final Owner owner = current != null ? current : new Owner();
+      owner.queued++;
+      return owner;
+    });
+  }
+
+  private void releaseOwners(final String projectKey, final String userKey) {
+    releaseOwner(this.projectOwners, projectKey);
+    if (userKey != null) {
+      releaseOwner(this.userOwners, userKey);
+    }
+  }
+
+  /* Drops the owner once none of its flows are queued */
+  private static void releaseOwner(final ConcurrentHashMap<String, Owner> owners,
+      final String key) {
+    owners.computeIfPresent(key, (k, owner) -> --owner.queued > 0 ? owner : null);
+  }
+
+  /**
+   * Number of projects and users with fair share state, for tests
+   */
+  int getFairShareOwnerCount() {
+    return this.projectOwners.size() + this.userOwners.size();
+  }
+
+  private static String getProjectKey(final ExecutableFlow exflow) {
+    return exflow.getProjectName() != null ? exflow.getProjectName()
+        : String.valueOf(exflow.getProjectId());
+  }
+
+  /**
+   * <pre>
+   * Queue element. Sorting order is determined by:-
+   * 1. descending order of priority
+   * 2. if same priority, ascending order of fair share tag
+   * 3. if same tag, ascending order of update time
+   * 4. if same update time, ascending order of execution id
+   * Sort keys are captured at insertion as the skip list requires them to be stable.
+   * </pre>
+   */
+  private static final class QueuedEntry implements Comparable<QueuedEntry> {
+
+    final Pair<ExecutionReference, ExecutableFlow> pair;
+    final int execId;
+    final int priority;
+    final long tag;
+    final long updateTime;
+    final long waitingSince;
+    final String projectKey;
+    final String userKey;
+
+    QueuedEntry(final Pair<ExecutionReference, ExecutableFlow> pair, final String projectKey,
+        final String userKey, final long tag) {
+      final ExecutableFlow exflow = pair.getSecond();
+      this.pair = pair;
+      this.execId = exflow.getExecutionId();
+      this.priority = ExecutableFlowPriorityComparator.getPriority(exflow);
+      this.tag = tag;
+      this.updateTime = exflow.getUpdateTime();
+      this.waitingSince =
+          exflow.getSubmitTime() > 0 ? exflow.getSubmitTime() : System.currentTimeMillis();
+      this.projectKey = projectKey;
+      this.userKey = userKey;
+    }
+
+    @Override
+    public int compareTo(final QueuedEntry other) {
+      int diff = Integer.compare(other.priority, this.priority);
+      if (diff == 0) {
+        diff = Long.compare(this.tag, other.tag);
+      }
+      if (diff == 0) {
+        diff = Long.compare(this.updateTime, other.updateTime);
+      }
+      if (diff == 0) {
+        diff = Integer.compare(this.execId, other.execId);
+      }
+      return diff;
+    }
+  }
+
+  /* Fair share state of a project or a user, only accessed in the compute of its key */
+  private static final class Owner {
+
+    /* tag of the last flow charged */
+    long tag;
+    /* number of queued flows */
+    int queued;
+  }
+
+  private static final class WaitTime {
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder count = new LongAdder();
+
+    void record(final long waitTime) {
+      this.total.add(waitTime);
+      this.count.increment();
+    }
+
+    long average() {
+      final long n = this.count.sum();
+      return n == 0 ? 0 : this.total.sum() / n;
+    }
+  }
+
+  private final class EntriesView extends
+      AbstractCollection<Pair<ExecutionReference, ExecutableFlow>> {
+
+    @Override
+    public Iterator<Pair<ExecutionReference, ExecutableFlow>> iterator() {
+      final Iterator<QueuedEntry> entries = QueuedExecutions.this.queuedFlowMap.values()
+          .iterator();
+      return new Iterator<Pair<ExecutionReference, ExecutableFlow>>() {
+        @Override
+        public boolean hasNext() {
+          return entries.hasNext();
+        }
+
+        @Override
+        public Pair<ExecutionReference, ExecutableFlow> next() {
+          return entries.next().pair;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return QueuedExecutions.this.queuedFlowMap.size();
     }
   }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.executor.selector;
+
+import com.datapps.zebra.workflow.executor.ExecutableFlow;
+import com.datapps.zebra.workflow.executor.Executor;
+import com.datapps.zebra.workflow.executor.ExecutorInfo;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <pre>
+ * Ranked snapshot of the active executors, used to dispatch a batch of flows.
+ * Executors are scored once with the ExecutorComparator when the snapshot is
+ * taken, best first. Each assignment is then accounted locally on a private
+ * copy of the executor statistics (remaining flow capacity, number of
+ * assigned flows, last dispatched time) and only the assigned executor is
+ * re-ranked, so selecting an executor costs O(log n) comparisons instead of a
+ * full filter and compare pass per flow.
+ * NOTE: the ExecutorFilter is still evaluated per flow, but only until the
+ *       first executor passing it is found.
+ * </pre>
+ */
+public class ExecutorSnapshot {
+
+  private static final Logger logger = Logger.getLogger(ExecutorSnapshot.class);
+
+  private final ExecutorFilter filter;
+  private final Comparator<Executor> comparator;
+  /* local copies of the executors, best first */
+  private final List<Executor> ranked;
+  /* local copy id to the executor handed to the snapshot */
+  private final Map<Integer, Executor> executorsById;
+
+  /**
+   * @param executors executors to be ranked, they are copied and never modified
+   * @param filter filter to apply per flow, may be null
+   * @param comparator comparator to rank the executors, natural order is used if null
+   */
+  public ExecutorSnapshot(final Collection<Executor> executors, final ExecutorFilter filter,
+      final ExecutorComparator comparator) {
+    this.filter = filter;
+    if (comparator != null) {
+      this.comparator = comparator;
+    } else {
+      logger.debug("executor comparator is not specified, natural order will be used.");
+      this.comparator = Comparator.naturalOrder();
+    }
+    this.ranked = new ArrayList<>(executors.size());
+    this.executorsById = new HashMap<>();
+    for (final Executor executor : executors) {
+      final Executor copy =
+          new Executor(executor.getId(), executor.getHost(), executor.getPort(),
+              executor.isActive());
+      copy.setExecutorInfo(copyOf(executor.getExecutorInfo()));
+      this.executorsById.put(executor.getId(), executor);
+      insert(copy);
+    }
+  }
+
+  /**
+   * Number of executors in the snapshot which are not excluded
+   */
+  public synchronized int getCandidateCount(final Set<Executor> excluded) {
+    int size = 0;
+    for (final Executor executor : this.executorsById.values()) {
+      if (!excluded.contains(executor)) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Pick the best executor for the flow and account the assignment locally.
+   *
+   * @param excluded executors which must not be selected, e.g. because dispatching to them failed
+   * @return the executor (as handed to the snapshot), null if none passes the filter
+   */
+  public synchronized Executor select(final ExecutableFlow flow, final Set<Executor> excluded) {
+    for (int i = 0; i < this.ranked.size(); i++) {
+      final Executor candidate = this.ranked.get(i);
+      final Executor executor = this.executorsById.get(candidate.getId());
+      if (excluded.contains(executor)) {
+        continue;
+      }
+      if (this.filter == null || this.filter.filterTarget(candidate, flow)) {
+        this.ranked.remove(i);
+        assign(candidate);
+        insert(candidate);
+        logger.debug(String.format("candidate selected %s", candidate));
+        return executor;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Account a flow assigned to an executor outside of {@link #select}, e.g. a user specified one
+   */
+  public synchronized void recordAssignment(final Executor executor) {
+    for (int i = 0; i < this.ranked.size(); i++) {
+      final Executor candidate = this.ranked.get(i);
+      if (candidate.getId() == executor.getId()) {
+        this.ranked.remove(i);
+        assign(candidate);
+        insert(candidate);
+        return;
+      }
+    }
+  }
+
+  /* same bookkeeping an executor does when it accepts a flow */
+  private static void assign(final Executor executor) {
+    final ExecutorInfo info = executor.getExecutorInfo();
+    if (info != null) {
+      info.setRemainingFlowCapacity(info.getRemainingFlowCapacity() - 1);
+      info.setNumberOfAssignedFlows(info.getNumberOfAssignedFlows() + 1);
+      info.setLastDispatchedTime(System.currentTimeMillis());
+    }
+  }
+
+  /* binary insertion keeping the best executor first */
+  private void insert(final Executor executor) {
+    int low = 0;
+    int high = this.ranked.size();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.comparator.compare(this.ranked.get(mid), executor) >= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    this.ranked.add(low, executor);
+  }
+
+  private static ExecutorInfo copyOf(final ExecutorInfo info) {
+    if (info == null) {
+      return null;
+    }
+    return new ExecutorInfo(info.getRemainingMemoryPercent(), info.getRemainingMemoryInMB(),
+        info.getRemainingFlowCapacity(), info.getLastDispatchedTime(), info.getCpuUsage(),
+        info.getNumberOfAssignedFlows());
+  }
+}
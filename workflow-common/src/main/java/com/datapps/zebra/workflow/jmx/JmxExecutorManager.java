@@ -74,6 +74,21 @@ public class JmxExecutorManager implements JmxExecutorManagerMBean {
     return this.manager.getQueuedFlowIds();
   }
 
+  @Override
+  public String getQueuedFlowsPerProject() {
+    return this.manager.getQueuedFlowDepthByProject().toString();
+  }
+
+  @Override
+  public String getQueueMaxWaitTimePerProject() {
+    return this.manager.getQueuedFlowMaxWaitTimeByProject().toString();
+  }
+
+  @Override
+  public String getQueueAverageWaitTimePerProject() {
+    return this.manager.getQueuedFlowAverageWaitTimeByProject().toString();
+  }
+
   @Override
   public String getQueueProcessorThreadState() {
     return this.manager.getQueueProcessorThreadState().toString();
@@ -47,6 +47,15 @@ public interface JmxExecutorManagerMBean {
   @DisplayName("OPERATION: getQueuedFlows")
   public String getQueuedFlows();
 
+  @DisplayName("OPERATION: getQueuedFlowsPerProject")
+  public String getQueuedFlowsPerProject();
+
+  @DisplayName("OPERATION: getQueueMaxWaitTimePerProject")
+  public String getQueueMaxWaitTimePerProject();
+
+  @DisplayName("OPERATION: getQueueAverageWaitTimePerProject")
+  public String getQueueAverageWaitTimePerProject();
+
   @DisplayName("OPERATION: getQueueProcessorThreadState")
   public String getQueueProcessorThreadState();
 
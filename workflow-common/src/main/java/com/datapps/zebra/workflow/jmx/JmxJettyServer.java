@@ -16,17 +16,28 @@
 
 package com.datapps.zebra.workflow.jmx;
 
+import com.datapps.zebra.workflow.server.RequestLimitFilter;
 import org.mortbay.jetty.Connector;
 import org.mortbay.jetty.Server;
+import org.mortbay.thread.QueuedThreadPool;
 
 public class JmxJettyServer implements JmxJettyServerMBean {
 
   private final Server server;
   private final Connector connector;
+  private final RequestLimitFilter requestLimitFilter;
 
   public JmxJettyServer(final Server server) {
+    this(server, null);
+  }
+
+  /**
+   * @param requestLimitFilter filter limiting the long running requests, may be null
+   */
+  public JmxJettyServer(final Server server, final RequestLimitFilter requestLimitFilter) {
     this.server = server;
     this.connector = server.getConnectors()[0];
+    this.requestLimitFilter = requestLimitFilter;
   }
 
   @Override
@@ -54,6 +65,52 @@ public class JmxJettyServer implements JmxJettyServerMBean {
     return this.server.getThreadPool().getIdleThreads();
   }
 
+  @Override
+  public int getMaxThreads() {
+    if (this.server.getThreadPool() instanceof QueuedThreadPool) {
+      return ((QueuedThreadPool) this.server.getThreadPool()).getMaxThreads();
+    }
+    return -1;
+  }
+
+  @Override
+  public int getThreadPoolQueueSize() {
+    if (this.server.getThreadPool() instanceof QueuedThreadPool) {
+      return ((QueuedThreadPool) this.server.getThreadPool()).getQueueSize();
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean isLowOnThreads() {
+    return this.server.getThreadPool().isLowOnThreads();
+  }
+
+  @Override
+  public String getConnectorType() {
+    return this.connector.getClass().getSimpleName();
+  }
+
+  @Override
+  public int getLimitedRequestsRunning() {
+    return this.requestLimitFilter == null ? 0 : this.requestLimitFilter.getRunningRequests();
+  }
+
+  @Override
+  public int getLimitedRequestsWaiting() {
+    return this.requestLimitFilter == null ? 0 : this.requestLimitFilter.getWaitingRequests();
+  }
+
+  @Override
+  public long getLimitedRequestsSuspended() {
+    return this.requestLimitFilter == null ? 0 : this.requestLimitFilter.getSuspendedCount();
+  }
+
+  @Override
+  public long getLimitedRequestsRejected() {
+    return this.requestLimitFilter == null ? 0 : this.requestLimitFilter.getRejectedCount();
+  }
+
   @Override
   public String getHost() {
     return this.connector.getHost();
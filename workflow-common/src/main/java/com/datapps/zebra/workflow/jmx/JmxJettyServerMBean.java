@@ -33,6 +33,30 @@ public interface JmxJettyServerMBean {
   @DisplayName("OPERATION: getNumIdleThreads")
   public int getNumIdleThreads();
 
+  @DisplayName("OPERATION: getMaxThreads")
+  public int getMaxThreads();
+
+  @DisplayName("OPERATION: getThreadPoolQueueSize")
+  public int getThreadPoolQueueSize();
+
+  @DisplayName("OPERATION: isLowOnThreads")
+  public boolean isLowOnThreads();
+
+  @DisplayName("OPERATION: getConnectorType")
+  public String getConnectorType();
+
+  @DisplayName("OPERATION: getLimitedRequestsRunning")
+  public int getLimitedRequestsRunning();
+
+  @DisplayName("OPERATION: getLimitedRequestsWaiting")
+  public int getLimitedRequestsWaiting();
+
+  @DisplayName("OPERATION: getLimitedRequestsSuspended")
+  public long getLimitedRequestsSuspended();
+
+  @DisplayName("OPERATION: getLimitedRequestsRejected")
+  public long getLimitedRequestsRejected();
+
   @DisplayName("OPERATION: getHost")
   public String getHost();
 
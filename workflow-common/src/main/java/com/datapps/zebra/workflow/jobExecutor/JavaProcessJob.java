@@ -16,6 +16,9 @@
 
 package com.datapps.zebra.workflow.jobExecutor;
 
+import com.datapps.zebra.workflow.jobExecutor.utils.process.AzkabanProcess;
+import com.datapps.zebra.workflow.jobExecutor.utils.process.AzkabanProcessBuilder;
+import com.datapps.zebra.workflow.jobExecutor.utils.process.PooledJavaProcess;
 import com.datapps.zebra.workflow.project.DirectoryFlowLoader;
 import com.datapps.zebra.workflow.server.AzkabanServer;
 import com.datapps.zebra.workflow.utils.Pair;
@@ -25,6 +28,7 @@ import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class JavaProcessJob extends ProcessJob {
@@ -37,6 +41,8 @@ public class JavaProcessJob extends ProcessJob {
   public static final String MAIN_ARGS = "main.args";
   public static final String JVM_PARAMS = "jvm.args";
   public static final String GLOBAL_JVM_PARAMS = "global.jvm.args";
+  // runs the main class in a pooled JVM instead of a new one, in the job or the jobtype props
+  public static final String JVM_POOL_ENABLED = "jvm.pool.enabled";
 
   public static final String DEFAULT_INITIAL_MEMORY_SIZE = "64M";
   public static final String DEFAULT_MAX_MEMORY_SIZE = "256M";
@@ -55,6 +61,32 @@ public class JavaProcessJob extends ProcessJob {
     return list;
   }
 
+  /**
+   * Uses a pooled JVM when enabled. The pooled JVM runs as the Azkaban user, so jobs executed as
+   * another user always get their own JVM.
+   */
+  @Override
+  protected AzkabanProcess buildProcess(final AzkabanProcessBuilder builder) {
+    final boolean poolEnabled = getJobProps().getBoolean(JVM_POOL_ENABLED,
+        getSysProps().getBoolean(JVM_POOL_ENABLED, false));
+    if (!poolEnabled || getSysProps().getBoolean(EXECUTE_AS_USER, false)) {
+      return super.buildProcess(builder);
+    }
+
+    final List<String> jvmOptions = new ArrayList<>();
+    jvmOptions.add(JAVA_COMMAND);
+    jvmOptions.addAll(Arrays.asList(partitionCommandLine(getJVMArguments())));
+    jvmOptions.add("-Xms" + getInitialMemorySize());
+    jvmOptions.add("-Xmx" + getMaxMemorySize());
+    // the classpath is unquoted like it is on the command line
+    final String classPath =
+        String.join(" ", partitionCommandLine(createArguments(getClassPaths(), ":")));
+    info("Running " + getJavaClass() + " in a pooled JVM");
+    return new PooledJavaProcess(jvmOptions, Arrays.asList(classPath.split(":")), getJavaClass(),
+        Arrays.asList(partitionCommandLine(getMainArguments())), builder.getEnv(),
+        builder.getWorkingDir(), getSysProps(), getLog());
+  }
+
   protected String createCommandLine() {
     String command = JAVA_COMMAND + " ";
     command += getJVMArguments() + " ";
@@ -24,6 +24,7 @@ import com.datapps.zebra.workflow.metrics.CommonMetrics;
 import com.datapps.zebra.workflow.utils.Pair;
 import com.datapps.zebra.workflow.utils.Props;
 import com.datapps.zebra.workflow.utils.SystemMemoryInfo;
+import com.datapps.zebra.workflow.utils.SystemMemoryInfo.MemoryReservation;
 import org.apache.log4j.Logger;
 
 import java.io.File;
@@ -50,6 +51,8 @@ public class ProcessJob extends AbstractProcessJob {
   private final CommonMetrics commonMetrics;
   private volatile AzkabanProcess process;
   private volatile boolean killed = false;
+  // memory held until the process exits
+  private volatile MemoryReservation memoryReservation;
 
   public ProcessJob(final String jobId, final Props sysProps,
       final Props jobProps, final Logger log) {
@@ -128,54 +131,58 @@ public class ProcessJob extends AbstractProcessJob {
       final Pair<Long, Long> memPair = getProcMemoryRequirement();
       final long xms = memPair.getFirst();
       final long xmx = memPair.getSecond();
-      // retry backoff in ms
       final String oomMsg = String
           .format("Cannot request memory (Xms %d kb, Xmx %d kb) from system for job %s",
               xms, xmx, getId());
-      int attempt;
-      boolean isMemGranted = true;
 
       //todo HappyRay: move to proper Guice after this class is refactored.
       final SystemMemoryInfo memInfo = SERVICE_PROVIDER.getInstance(SystemMemoryInfo.class);
-      for (attempt = 1; attempt <= Constants.MEMORY_CHECK_RETRY_LIMIT; attempt++) {
-        isMemGranted = memInfo.canSystemGrantMemory(xmx);
-        if (isMemGranted) {
-          info(String.format("Memory granted for job %s", getId()));
-          if (attempt > 1) {
-            this.commonMetrics.decrementOOMJobWaitCount();
-          }
-          break;
-        }
-        if (attempt < Constants.MEMORY_CHECK_RETRY_LIMIT) {
-          info(String.format(oomMsg + ", sleep for %s secs and retry, attempt %s of %s",
-              TimeUnit.MILLISECONDS.toSeconds(
-                  Constants.MEMORY_CHECK_INTERVAL_MS), attempt,
-              Constants.MEMORY_CHECK_RETRY_LIMIT));
-          if (attempt == 1) {
-            this.commonMetrics.incrementOOMJobWaitCount();
-          }
-          synchronized (this) {
+      final MemoryReservation reservation = memInfo.reserveMemory(xmx);
+      this.memoryReservation = reservation;
+      if (!reservation.isGranted()) {
+        final long maxWaitMs =
+            Constants.MEMORY_CHECK_INTERVAL_MS * Constants.MEMORY_CHECK_RETRY_LIMIT;
+        info(String.format(oomMsg + ", waiting up to %s secs for memory to be released",
+            TimeUnit.MILLISECONDS.toSeconds(maxWaitMs)));
+        this.commonMetrics.incrementOOMJobWaitCount();
+        final long deadline = System.currentTimeMillis() + maxWaitMs;
+        try {
+          while (!reservation.isGranted() && !this.killed
+              && System.currentTimeMillis() < deadline) {
             try {
-              this.wait(Constants.MEMORY_CHECK_INTERVAL_MS);
+              reservation.awaitGranted(deadline - System.currentTimeMillis());
             } catch (final InterruptedException e) {
               info(String
-                  .format("Job %s interrupted while waiting for memory check retry", getId()));
+                  .format("Job %s interrupted while waiting for memory", getId()));
             }
           }
-          if (this.killed) {
-            this.commonMetrics.decrementOOMJobWaitCount();
-            info(String.format("Job %s was killed while waiting for memory check retry", getId()));
-            return;
-          }
+        } finally {
+          this.commonMetrics.decrementOOMJobWaitCount();
+        }
+        if (this.killed) {
+          reservation.close();
+          info(String.format("Job %s was killed while waiting for memory", getId()));
+          return;
+        }
+        if (!reservation.isGranted()) {
+          reservation.close();
+          handleError(oomMsg, null);
         }
       }
+      info(String.format("Memory granted for job %s", getId()));
+    }
 
-      if (!isMemGranted) {
-        this.commonMetrics.decrementOOMJobWaitCount();
-        handleError(oomMsg, null);
+    try {
+      runCommands();
+    } finally {
+      final MemoryReservation reservation = this.memoryReservation;
+      if (reservation != null) {
+        reservation.close();
       }
     }
+  }
 
+  private void runCommands() throws Exception {
     List<String> commands = null;
     try {
       commands = getCommandList();
@@ -251,7 +258,7 @@ public class ProcessJob extends AbstractProcessJob {
       this.logJobProperties();
 
       boolean success = false;
-      this.process = builder.build();
+      this.process = buildProcess(builder);
       try {
         if (!this.killed) {
           this.process.run();
@@ -339,6 +346,13 @@ public class ProcessJob extends AbstractProcessJob {
     return new Pair<>(0L, 0L);
   }
 
+  /**
+   * Creates the process running one of the commands
+   */
+  protected AzkabanProcess buildProcess(final AzkabanProcessBuilder builder) {
+    return builder.build();
+  }
+
   protected void handleError(final String errorMsg, final Exception e) throws Exception {
     error(errorMsg);
     if (e != null) {
@@ -360,10 +374,11 @@ public class ProcessJob extends AbstractProcessJob {
 
   @Override
   public void cancel() throws InterruptedException {
-    // in case the job is waiting
-    synchronized (this) {
-      this.killed = true;
-      this.notify();
+    this.killed = true;
+    // in case the job is waiting for memory
+    final MemoryReservation reservation = this.memoryReservation;
+    if (reservation != null && !reservation.isGranted()) {
+      reservation.close();
     }
 
     if (this.process == null) {
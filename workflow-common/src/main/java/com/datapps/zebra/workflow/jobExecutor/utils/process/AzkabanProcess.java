@@ -16,7 +16,6 @@
 
 package com.datapps.zebra.workflow.jobExecutor.utils.process;
 
-import com.datapps.zebra.workflow.utils.LogGobbler;
 import com.google.common.base.Joiner;
 import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Level;
@@ -24,9 +23,7 @@ import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.lang.reflect.Field;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -35,8 +32,8 @@ import java.util.concurrent.TimeUnit;
 /**
  * An improved version of java.lang.Process.
  *
- * Output is read by separate threads to avoid deadlock and logged to log4j
- * loggers.
+ * Output is read by the shared {@link ProcessOutputPump} threads to avoid deadlock and logged to
+ * log4j loggers. Stderr is redirected to stdout.
  */
 public class AzkabanProcess {
 
@@ -88,28 +85,11 @@ public class AzkabanProcess {
     builder.directory(new File(this.workingDir));
     builder.environment().putAll(this.env);
     builder.redirectErrorStream(true);
-    this.process = builder.start();
+    started(builder.start());
     try {
-      this.processId = processId(this.process);
-      if (this.processId == 0) {
-        this.logger.debug("Spawned thread with unknown process id");
-      } else {
-        this.logger.debug("Spawned thread with process id " + this.processId);
-      }
-
-      this.startupLatch.countDown();
 
-      final LogGobbler outputGobbler =
-          new LogGobbler(
-              new InputStreamReader(this.process.getInputStream(), StandardCharsets.UTF_8),
-              this.logger, Level.INFO, 30);
-      final LogGobbler errorGobbler =
-          new LogGobbler(
-              new InputStreamReader(this.process.getErrorStream(), StandardCharsets.UTF_8),
-              this.logger, Level.ERROR, 30);
-
-      outputGobbler.start();
-      errorGobbler.start();
+      final ProcessOutputPump.Drain output = ProcessOutputPump.getInstance()
+          .register(this.process.getInputStream(), this.logger, Level.INFO, 30);
       int exitCode = -1;
       try {
         exitCode = this.process.waitFor();
@@ -117,19 +97,19 @@ public class AzkabanProcess {
         this.logger.info("Process interrupted. Exit code is " + exitCode, e);
       }
 
-      this.completeLatch.countDown();
+      completed();
 
       // try to wait for everything to get logged out before exiting
-      outputGobbler.awaitCompletion(5000);
-      errorGobbler.awaitCompletion(5000);
+      output.awaitCompletion(5000);
 
       if (exitCode != 0) {
-        final String output =
+        // stderr is redirected to stdout and always empty
+        final String recentOutput =
             new StringBuilder().append("Stdout:\n")
-                .append(outputGobbler.getRecentLog()).append("\n\n")
-                .append("Stderr:\n").append(errorGobbler.getRecentLog())
+                .append(output.getRecentLog()).append("\n\n")
+                .append("Stderr:\n")
                 .append("\n").toString();
-        throw new ProcessFailureException(exitCode, output);
+        throw new ProcessFailureException(exitCode, recentOutput);
       }
 
     } finally {
@@ -139,6 +119,29 @@ public class AzkabanProcess {
     }
   }
 
+  /**
+   * Marks this process as started, the process may run on behalf of several AzkabanProcesses
+   */
+  void started(final Process process) {
+    this.process = process;
+    this.processId = processId(process);
+    if (this.processId == 0) {
+      this.logger.debug("Spawned thread with unknown process id");
+    } else {
+      this.logger.debug("Spawned thread with process id " + this.processId);
+    }
+
+    this.startupLatch.countDown();
+  }
+
+  void completed() {
+    this.completeLatch.countDown();
+  }
+
+  Logger getLogger() {
+    return this.logger;
+  }
+
   /**
    * Await the completion of this process
    *
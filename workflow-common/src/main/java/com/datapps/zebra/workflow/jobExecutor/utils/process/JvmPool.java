@@ -0,0 +1,455 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.jobExecutor.utils.process;
+
+import com.datapps.zebra.workflow.utils.Props;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of started JVMs running {@link JvmPoolWorker}, to run the main class of Java jobs
+ * without paying the JVM startup each time.
+ *
+ * Workers are keyed by their JVM options, by the working directory of the jobs they run, which is
+ * the one the JVM is started in, and by the classpath of the jobs, a worker only runs one job at
+ * a time. Relative paths and the processes started by a job thus resolve against its working
+ * directory like in a forked JVM. Taking the last idle worker of a key starts another one in the
+ * background so that the next job of the same kind finds a warm JVM. Workers are retired after
+ * a number of jobs, when they ask for it and when they stay idle for too long.
+ *
+ * What the JVM itself writes to its stdout and stderr, like the output of the processes a job
+ * starts with inherited streams or writes to {@link java.io.FileDescriptor#out}, is logged to the
+ * logger of the job while it runs and to the pool logger otherwise.
+ *
+ * The number of idle workers and the idle timeout are read from the executor props. The number of
+ * jobs per worker and the heap ratio a worker retires above are read from the jobtype props, with
+ * the executor props as defaults.
+ */
+public class JvmPool {
+
+  // idle workers kept per key, executor props
+  public static final String MAX_IDLE_PER_KEY = "jvm.pool.max.idle.per.key";
+  // time after which an idle worker is retired, executor props
+  public static final String IDLE_TIMEOUT_MS = "jvm.pool.idle.timeout.ms";
+  // jobs run by a worker before it is retired, jobtype or executor props
+  public static final String MAX_JOBS_PER_WORKER = "jvm.pool.max.jobs.per.worker";
+  // ratio of the max heap still used after a GC above which a worker retires, jobtype or
+  // executor props
+  public static final String RETIRE_HEAP_RATIO = "jvm.pool.retire.heap.ratio";
+
+  private static final Logger logger = Logger.getLogger(JvmPool.class);
+
+  private static final int DEFAULT_MAX_IDLE_PER_KEY = 2;
+  private static final long DEFAULT_IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+  private static final int DEFAULT_MAX_JOBS_PER_WORKER = 100;
+  private static final double DEFAULT_RETIRE_HEAP_RATIO = 0.7;
+  private static final int STARTUP_TIMEOUT_MS = 60 * 1000;
+  private static final int TOKEN_LENGTH = 36;
+  private static final long OUTPUT_WAIT_MS = 1000;
+
+  private static JvmPool instance;
+
+  private final int maxIdlePerKey;
+  private final long idleTimeoutMs;
+  private final int maxJobsPerWorker;
+  private final double retireHeapRatio;
+  // key -> idle workers, most recently used first, guarded by this
+  private final Map<String, Deque<Worker>> idle = new HashMap<>();
+  // key -> workers being started in the background, guarded by this
+  private final Map<String, Integer> starting = new HashMap<>();
+  private final ScheduledExecutorService background =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "azk-jvm-pool");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  JvmPool(final Props props) {
+    this.maxIdlePerKey = props.getInt(MAX_IDLE_PER_KEY, DEFAULT_MAX_IDLE_PER_KEY);
+    this.idleTimeoutMs = props.getLong(IDLE_TIMEOUT_MS, DEFAULT_IDLE_TIMEOUT_MS);
+    this.maxJobsPerWorker = props.getInt(MAX_JOBS_PER_WORKER, DEFAULT_MAX_JOBS_PER_WORKER);
+    this.retireHeapRatio = props.getDouble(RETIRE_HEAP_RATIO, DEFAULT_RETIRE_HEAP_RATIO);
+    this.background.scheduleWithFixedDelay(this::retireIdleWorkers, 1, 1, TimeUnit.MINUTES);
+  }
+
+  /**
+   * Creates the pool with the settings of the executor props. It must be called before the first
+   * pooled job is run, later calls have no effect.
+   */
+  public static synchronized void initialize(final Props props) {
+    if (instance != null) {
+      logger.info("Already initialized");
+      return;
+    }
+    instance = new JvmPool(props);
+  }
+
+  /**
+   * Returns the pool, created with the default settings when the executor didn't initialize it.
+   */
+  public static synchronized JvmPool getInstance() {
+    if (instance == null) {
+      instance = new JvmPool(new Props());
+    }
+    return instance;
+  }
+
+  private static String getWorkerClassPath() throws IOException {
+    try {
+      return new File(JvmPoolWorker.class.getProtectionDomain().getCodeSource().getLocation()
+          .toURI()).getPath();
+    } catch (final URISyntaxException e) {
+      throw new IOException("Unable to locate the pooled JVM classes", e);
+    }
+  }
+
+  /**
+   * Takes an idle worker for the key or starts one.
+   *
+   * @param jvmOptions the java command and its options, without the classpath and main class
+   * @param workingDir the working directory of the jobs run by the worker
+   * @param classPathKey the classpath of the jobs run by the worker
+   * @param jobTypeProps the props the worker settings are read from before the executor ones
+   */
+  public Worker acquire(final List<String> jvmOptions, final String workingDir,
+      final String classPathKey, final Props jobTypeProps) throws IOException {
+    final int maxJobs = jobTypeProps.getInt(MAX_JOBS_PER_WORKER, this.maxJobsPerWorker);
+    final double retireRatio = jobTypeProps.getDouble(RETIRE_HEAP_RATIO, this.retireHeapRatio);
+    final File directory = new File(workingDir).getAbsoluteFile();
+    // workers only run the jobs they were started for
+    final String key = String.join(" ", jvmOptions) + " | " + directory + " | " + classPathKey
+        + " | " + maxJobs + " | " + retireRatio;
+    Worker worker = null;
+    synchronized (this) {
+      final Deque<Worker> workers = this.idle.get(key);
+      while (worker == null && workers != null && !workers.isEmpty()) {
+        worker = workers.pollFirst();
+        if (!worker.isAlive()) {
+          shutdown(worker);
+          worker = null;
+        }
+      }
+      if ((workers == null || workers.isEmpty()) && !this.starting.containsKey(key)) {
+        this.starting.put(key, 1);
+        this.background.execute(
+            () -> prestart(key, jvmOptions, directory, maxJobs, retireRatio));
+      }
+    }
+    return worker != null ? worker : start(key, jvmOptions, directory, maxJobs, retireRatio);
+  }
+
+  /**
+   * Gives a worker back once its job has ended
+   *
+   * @param reusable whether the worker ended the job cleanly and can run another one
+   */
+  public void release(final Worker worker, final boolean reusable) {
+    if (reusable && worker.jobCount < worker.maxJobs && worker.isAlive()) {
+      synchronized (this) {
+        final Deque<Worker> workers =
+            this.idle.computeIfAbsent(worker.key, k -> new ArrayDeque<>());
+        if (workers.size() < this.maxIdlePerKey) {
+          worker.lastUsed = System.currentTimeMillis();
+          workers.addFirst(worker);
+          return;
+        }
+      }
+    }
+    shutdown(worker);
+  }
+
+  private void shutdown(final Worker worker) {
+    // the worker exits once its connection is closed
+    IOUtils.closeQuietly(worker.socket);
+    final Runnable destroy = () -> {
+      if (worker.process.isAlive()) {
+        worker.process.destroy();
+      }
+      worker.output.awaitCompletion(0);
+    };
+    if (this.background.isShutdown()) {
+      destroy.run();
+    } else {
+      this.background.schedule(destroy, 5, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Shuts down the idle workers and stops starting new ones
+   */
+  void close() {
+    final List<Worker> workers = new ArrayList<>();
+    synchronized (this) {
+      for (final Deque<Worker> keyWorkers : this.idle.values()) {
+        workers.addAll(keyWorkers);
+      }
+      this.idle.clear();
+    }
+    for (final Worker worker : workers) {
+      shutdown(worker);
+    }
+    this.background.shutdown();
+  }
+
+  synchronized int getIdleCount() {
+    int count = 0;
+    for (final Deque<Worker> workers : this.idle.values()) {
+      count += workers.size();
+    }
+    return count;
+  }
+
+  private void prestart(final String key, final List<String> jvmOptions, final File directory,
+      final int maxJobs, final double retireRatio) {
+    Worker worker = null;
+    try {
+      worker = start(key, jvmOptions, directory, maxJobs, retireRatio);
+    } catch (final IOException e) {
+      logger.warn("Unable to start a pooled JVM for " + key, e);
+    } finally {
+      synchronized (this) {
+        this.starting.remove(key);
+      }
+    }
+    if (worker != null) {
+      release(worker, true);
+    }
+  }
+
+  private Worker start(final String key, final List<String> jvmOptions, final File directory,
+      final int maxJobs, final double retireRatio) throws IOException {
+    final List<String> command = new ArrayList<>(jvmOptions);
+    final String javaVersion = System.getProperty("java.specification.version");
+    if (!javaVersion.startsWith("1.")) {
+      // the worker sets the job environment variables through the map behind System.getenv()
+      command.add("--add-opens=java.base/java.util=ALL-UNNAMED");
+      if (Integer.parseInt(javaVersion) >= 12) {
+        // the worker traps System.exit() with a security manager, refused by default from 18 on
+        command.add("-Djava.security.manager=allow");
+      }
+    }
+    // the token is passed in the environment, the command line is visible to all the users
+    final String token = UUID.randomUUID().toString();
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      server.setSoTimeout(STARTUP_TIMEOUT_MS);
+      command.add("-cp");
+      command.add(getWorkerClassPath());
+      command.add(JvmPoolWorker.class.getName());
+      command.add(String.valueOf(server.getLocalPort()));
+      command.add(String.valueOf(retireRatio));
+
+      final ProcessBuilder builder = new ProcessBuilder(command);
+      builder.directory(directory);
+      builder.environment().put(JvmPoolWorker.TOKEN_ENV, token);
+      builder.redirectErrorStream(true);
+      final Process process = builder.start();
+      final ProcessOutputPump.Drain output = ProcessOutputPump.getInstance()
+          .register(process.getInputStream(), logger, Level.INFO, 30);
+
+      Socket socket = null;
+      try {
+        socket = server.accept();
+        // a connection which isn't the worker fails the start, the port is never accepted on again
+        socket.setSoTimeout(STARTUP_TIMEOUT_MS);
+        final Worker worker = new Worker(key, maxJobs, process, output, socket);
+        if (worker.in.readInt() != TOKEN_LENGTH) {
+          throw new IOException("Unexpected connection to the pooled JVM port");
+        }
+        final byte[] received = new byte[TOKEN_LENGTH];
+        worker.in.readFully(received);
+        if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), received)) {
+          throw new IOException("Unexpected connection to the pooled JVM port");
+        }
+        socket.setSoTimeout(0);
+        logger.info("Started pooled JVM " + key);
+        return worker;
+      } catch (final IOException e) {
+        IOUtils.closeQuietly(socket);
+        process.destroy();
+        output.awaitCompletion(1000);
+        if (e instanceof SocketTimeoutException) {
+          throw new IOException("Pooled JVM didn't start: " + output.getRecentLog(), e);
+        }
+        throw e;
+      }
+    }
+  }
+
+  private void retireIdleWorkers() {
+    final long oldest = System.currentTimeMillis() - this.idleTimeoutMs;
+    final List<Worker> retired = new ArrayList<>();
+    synchronized (this) {
+      final Iterator<Deque<Worker>> keys = this.idle.values().iterator();
+      while (keys.hasNext()) {
+        final Deque<Worker> workers = keys.next();
+        final Iterator<Worker> iter = workers.iterator();
+        while (iter.hasNext()) {
+          final Worker worker = iter.next();
+          if (worker.lastUsed < oldest || !worker.isAlive()) {
+            iter.remove();
+            retired.add(worker);
+          }
+        }
+        if (workers.isEmpty()) {
+          keys.remove();
+        }
+      }
+    }
+    for (final Worker worker : retired) {
+      shutdown(worker);
+    }
+  }
+
+  /**
+   * A started JVM, used by one job at a time
+   */
+  public static class Worker {
+
+    private final String key;
+    private final int maxJobs;
+    private final Process process;
+    // output of the JVM itself, the jobs output goes through the socket
+    private final ProcessOutputPump.Drain output;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private int jobCount = 0;
+    private long lastUsed;
+    private boolean retireRequested = false;
+
+    private Worker(final String key, final int maxJobs, final Process process,
+        final ProcessOutputPump.Drain output, final Socket socket) throws IOException {
+      this.key = key;
+      this.maxJobs = maxJobs;
+      this.process = process;
+      this.output = output;
+      this.socket = socket;
+      this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    Process getProcess() {
+      return this.process;
+    }
+
+    boolean isAlive() {
+      return this.process.isAlive() && !this.socket.isClosed();
+    }
+
+    boolean isRetireRequested() {
+      return this.retireRequested;
+    }
+
+    /**
+     * Logs the output of the JVM itself to the logger of the job it runs, or to the pool logger
+     * when null
+     */
+    void setJobLogger(final Logger jobLogger) {
+      this.output.setLogger(jobLogger != null ? jobLogger : logger);
+    }
+
+    /**
+     * Waits for what the JVM itself wrote during the job to be logged
+     */
+    void awaitOutput() {
+      this.output.awaitPumped(OUTPUT_WAIT_MS);
+    }
+
+    /**
+     * Sends a job to the worker
+     *
+     * @param workingDir directory the relative classpath entries are resolved against
+     */
+    void submit(final String mainClass, final String workingDir, final List<String> classPath,
+        final List<String> args, final Map<String, String> env) throws IOException {
+      this.jobCount++;
+      this.out.write(JvmPoolWorker.RUN);
+      JvmPoolWorker.writeString(this.out, mainClass);
+      this.out.writeInt(classPath.size());
+      for (final String entry : classPath) {
+        final File file = new File(entry);
+        JvmPoolWorker.writeString(this.out,
+            file.isAbsolute() ? entry : new File(workingDir, entry).getPath());
+      }
+      this.out.writeInt(args.size());
+      for (final String arg : args) {
+        JvmPoolWorker.writeString(this.out, arg);
+      }
+      this.out.writeInt(env.size() * 2);
+      for (final Map.Entry<String, String> entry : env.entrySet()) {
+        JvmPoolWorker.writeString(this.out, entry.getKey());
+        JvmPoolWorker.writeString(this.out, entry.getValue());
+      }
+      this.out.flush();
+    }
+
+    /**
+     * Writes the output of the job to the drain until it ends
+     *
+     * @return the exit code of the job
+     * @throws IOException if the worker died before the end of the job
+     */
+    int awaitExit(final ProcessOutputPump.Drain output) throws IOException {
+      byte[] buffer = new byte[8192];
+      while (true) {
+        final int frame = this.in.read();
+        if (frame == JvmPoolWorker.OUTPUT) {
+          final int length = this.in.readInt();
+          if (length > buffer.length) {
+            buffer = new byte[length];
+          }
+          this.in.readFully(buffer, 0, length);
+          output.write(buffer, 0, length);
+        } else if (frame == JvmPoolWorker.EXIT) {
+          final int exitCode = this.in.readInt();
+          this.retireRequested = this.in.readBoolean();
+          return exitCode;
+        } else if (frame == -1) {
+          throw new IOException("Pooled JVM ended during the job");
+        } else {
+          throw new IOException("Unexpected message from the pooled JVM " + frame);
+        }
+      }
+    }
+  }
+}
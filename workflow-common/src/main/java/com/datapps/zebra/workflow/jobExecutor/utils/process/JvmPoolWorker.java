@@ -0,0 +1,487 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.jobExecutor.utils.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Main class of the pooled JVMs started by {@link JvmPool}.
+ *
+ * The worker connects back to the executor and then runs the jobs it is sent one after the
+ * other. Each job gets a fresh class loader over its classpath whose parent only sees the JDK,
+ * its environment variables and system properties, and System.out/err which are sent back to the
+ * executor. The worker is started in the working directory of its jobs. System.exit() is trapped and reported as the exit code of the job. A
+ * job ends like a JVM would: when its last non-daemon thread ends or when it calls exit.
+ *
+ * Once a job has called exit, its threads fail every permission check and their output is
+ * dropped, so a job catching the exception thrown by exit can't go on touching files, sockets or
+ * processes. The worker retires when such threads are still alive after the job.
+ *
+ * The worker asks to be retired when threads of the job are still alive afterwards or when the
+ * heap stays above the given ratio of its maximum after a GC. It exits when the connection is
+ * closed.
+ *
+ * Only depends on the JDK, the rest of the Azkaban classpath isn't available to it.
+ */
+public class JvmPoolWorker {
+
+  // executor -> worker
+  static final int RUN = 'R';
+  // worker -> executor
+  static final int OUTPUT = 'O';
+  static final int EXIT = 'X';
+  // environment variable holding the token the worker connects with
+  static final String TOKEN_ENV = "AZKABAN_JVM_POOL_TOKEN";
+
+  private static final long LEFTOVER_THREADS_WAIT_MS = 1000;
+  private static final long POLL_MS = 20;
+
+  private static volatile Job currentJob;
+  // the last job which called exit, its threads are not allowed to do anything else
+  private static volatile Job exitedJob;
+
+  private final DataInputStream in;
+  private final DataOutputStream out;
+  private final double retireRatio;
+  private int jobCount = 0;
+
+  private JvmPoolWorker(final DataInputStream in, final DataOutputStream out,
+      final double retireRatio) {
+    this.in = in;
+    this.out = out;
+    this.retireRatio = retireRatio;
+  }
+
+  /**
+   * Arguments: executor port, heap ratio above which the worker retires. The token is read from
+   * the {@link #TOKEN_ENV} environment variable.
+   */
+  public static void main(final String[] args) throws Exception {
+    final String token = System.getenv(TOKEN_ENV);
+    if (token == null) {
+      System.err.println("Error: " + TOKEN_ENV + " isn't set");
+      System.exit(1);
+    }
+    try {
+      // not passed on to the jobs
+      writableEnvironment().remove(TOKEN_ENV);
+    } catch (final ReflectiveOperationException | RuntimeException e) {
+      System.err.println("Unable to clear " + TOKEN_ENV + ": " + e);
+    }
+
+    final Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+    final DataInputStream in = new DataInputStream(
+        new BufferedInputStream(socket.getInputStream()));
+    final DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(socket.getOutputStream()));
+    writeString(out, token);
+    out.flush();
+
+    try {
+      System.setSecurityManager(new ExitTrap());
+    } catch (final UnsupportedOperationException | SecurityException e) {
+      // System.exit() then ends the worker, the executor reads the exit code of the process
+      System.err.println("Unable to trap System.exit(), jobs calling it end the worker: " + e);
+    }
+
+    final JvmPoolWorker worker = new JvmPoolWorker(in, out, Double.parseDouble(args[1]));
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      final Job job = currentJob;
+      if (job != null) {
+        job.flush();
+      }
+    }));
+    try {
+      worker.serve();
+    } finally {
+      Runtime.getRuntime().halt(0);
+    }
+  }
+
+  static void writeString(final DataOutputStream out, final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(final DataInputStream in) throws IOException {
+    final byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static List<String> readStrings(final DataInputStream in) throws IOException {
+    final int count = in.readInt();
+    final List<String> values = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+
+  /**
+   * Returns the map backing System.getenv(), which ProcessBuilder copies too
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, String> writableEnvironment() throws ReflectiveOperationException {
+    final Map<String, String> env = System.getenv();
+    final Field field = env.getClass().getDeclaredField("m");
+    field.setAccessible(true);
+    return (Map<String, String>) field.get(env);
+  }
+
+  private static void replaceAll(final Map<String, String> target,
+      final Map<String, String> values) {
+    target.keySet().retainAll(values.keySet());
+    target.putAll(values);
+  }
+
+  private static URL[] toUrls(final List<String> classPath) throws IOException {
+    final List<URL> urls = new ArrayList<>();
+    for (final String entry : classPath) {
+      if (entry.endsWith("*")) {
+        // same as the java launcher: all the jars of the directory
+        final File[] jars = new File(entry.substring(0, entry.length() - 1)).listFiles();
+        if (jars != null) {
+          for (final File jar : jars) {
+            if (jar.getName().endsWith(".jar") || jar.getName().endsWith(".JAR")) {
+              urls.add(jar.toURI().toURL());
+            }
+          }
+        }
+      } else {
+        urls.add(new File(entry).toURI().toURL());
+      }
+    }
+    return urls.toArray(new URL[urls.size()]);
+  }
+
+  private void serve() throws IOException {
+    int request;
+    while ((request = this.in.read()) == RUN) {
+      final String mainClass = readString(this.in);
+      final List<String> classPath = readStrings(this.in);
+      final List<String> args = readStrings(this.in);
+      final List<String> envEntries = readStrings(this.in);
+      final Map<String, String> env = new HashMap<>();
+      for (int i = 0; i + 1 < envEntries.size(); i += 2) {
+        env.put(envEntries.get(i), envEntries.get(i + 1));
+      }
+
+      final Job job = new Job(++this.jobCount);
+      final int exitCode = job.run(mainClass, classPath, args, env);
+      final boolean retire = job.hasLeftoverThreads() || job.broken
+          || isHeapTooLarge();
+      // what went to the streams of the JVM is in its pipe before the executor reads the exit
+      System.out.flush();
+      System.err.flush();
+      synchronized (this.out) {
+        job.closed = true;
+        this.out.write(EXIT);
+        this.out.writeInt(exitCode);
+        this.out.writeBoolean(retire);
+        this.out.flush();
+      }
+      if (retire) {
+        return;
+      }
+    }
+    if (request != -1) {
+      throw new IOException("Unexpected request " + request);
+    }
+  }
+
+  private boolean isHeapTooLarge() {
+    final Runtime runtime = Runtime.getRuntime();
+    if (runtime.totalMemory() - runtime.freeMemory() < this.retireRatio * runtime.maxMemory()) {
+      return false;
+    }
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory() >= this.retireRatio * runtime.maxMemory();
+  }
+
+  private static class ExitTrapped extends SecurityException {
+
+    private ExitTrapped(final int status) {
+      super("System.exit(" + status + ") trapped by the pooled JVM");
+    }
+  }
+
+  /**
+   * Turns System.exit() into an exception, and fails whatever the threads of a job do after it
+   */
+  private static class ExitTrap extends SecurityManager {
+
+    @Override
+    public void checkPermission(final Permission perm) {
+      checkNotExited();
+    }
+
+    @Override
+    public void checkPermission(final Permission perm, final Object context) {
+      checkNotExited();
+    }
+
+    private void checkNotExited() {
+      final Job job = exitedJob;
+      if (job != null && job.isJobThread(Thread.currentThread())) {
+        throw new ExitTrapped(job.exitStatus);
+      }
+    }
+
+    @Override
+    public void checkExit(final int status) {
+      final Job job = currentJob;
+      if (job != null) {
+        job.exit(status);
+        throw new ExitTrapped(status);
+      }
+    }
+  }
+
+  /**
+   * Threads of a job, exceptions of System.exit() unwinding them aren't reported
+   */
+  private static class JobThreadGroup extends ThreadGroup {
+
+    private JobThreadGroup(final String name) {
+      super(name);
+    }
+
+    @Override
+    public void uncaughtException(final Thread t, final Throwable e) {
+      if (!(e instanceof ExitTrapped)) {
+        super.uncaughtException(t, e);
+      }
+    }
+  }
+
+  /**
+   * One run of a main class
+   */
+  private class Job {
+
+    private final ThreadGroup group;
+    private volatile Integer exitStatus = null;
+    private volatile boolean mainFailed = false;
+    private volatile boolean closed = false;
+    // the worker state couldn't be set up for the job
+    private boolean broken = false;
+    private PrintStream stdout;
+    private PrintStream stderr;
+
+    private Job(final int number) {
+      this.group = new JobThreadGroup("job-" + number);
+    }
+
+    private synchronized void exit(final int status) {
+      if (this.exitStatus == null) {
+        // what was written before exit is sent, nothing after
+        flush();
+        this.exitStatus = status;
+        exitedJob = this;
+      }
+    }
+
+    private boolean isJobThread(final Thread thread) {
+      final ThreadGroup threadGroup = thread.getThreadGroup();
+      return threadGroup != null && this.group.parentOf(threadGroup);
+    }
+
+    private void flush() {
+      if (this.stdout != null) {
+        this.stdout.flush();
+        this.stderr.flush();
+      }
+    }
+
+    private int run(final String mainClass, final List<String> classPath,
+        final List<String> args, final Map<String, String> env) throws IOException {
+      final Properties savedProperties = (Properties) System.getProperties().clone();
+      final PrintStream savedOut = System.out;
+      final PrintStream savedErr = System.err;
+      Map<String, String> environment = null;
+      Map<String, String> savedEnvironment = null;
+
+      final OutputStream output = new FrameOutputStream(this);
+      this.stdout = new PrintStream(new BufferedOutputStream(output, 8192), true);
+      this.stderr = new PrintStream(new BufferedOutputStream(output, 8192), true);
+      System.setOut(this.stdout);
+      System.setErr(this.stderr);
+      currentJob = this;
+      try (URLClassLoader loader = new URLClassLoader(toUrls(classPath),
+          ClassLoader.getSystemClassLoader().getParent())) {
+        try {
+          environment = writableEnvironment();
+          savedEnvironment = new HashMap<>(environment);
+          environment.putAll(env);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+          System.err.println("Error: the pooled JVM is unable to set the job environment: " + e);
+          this.broken = true;
+          return 1;
+        }
+
+        final Thread main = new Thread(this.group,
+            () -> invokeMain(loader, mainClass, args.toArray(new String[args.size()])), "main");
+        main.setContextClassLoader(loader);
+        main.start();
+        awaitEnd();
+        return this.exitStatus != null ? this.exitStatus : (this.mainFailed ? 1 : 0);
+      } finally {
+        currentJob = null;
+        flush();
+        System.setOut(savedOut);
+        System.setErr(savedErr);
+        System.setProperties(savedProperties);
+        if (savedEnvironment != null) {
+          replaceAll(environment, savedEnvironment);
+        }
+      }
+    }
+
+    private void invokeMain(final ClassLoader loader, final String mainClass,
+        final String[] args) {
+      final Method main;
+      try {
+        main = Class.forName(mainClass, true, loader).getMethod("main", String[].class);
+      } catch (final ClassNotFoundException | NoClassDefFoundError e) {
+        System.err.println("Error: Could not find or load main class " + mainClass);
+        this.mainFailed = true;
+        return;
+      } catch (final NoSuchMethodException e) {
+        System.err.println("Error: Main method not found in class " + mainClass
+            + ", please define the main method as:\n   public static void main(String[] args)");
+        this.mainFailed = true;
+        return;
+      }
+      if (!Modifier.isStatic(main.getModifiers())) {
+        System.err.println("Error: Main method is not static in class " + mainClass
+            + ", please define the main method as:\n   public static void main(String[] args)");
+        this.mainFailed = true;
+        return;
+      }
+
+      try {
+        main.invoke(null, (Object) args);
+      } catch (final InvocationTargetException e) {
+        if (!(e.getCause() instanceof ExitTrapped)) {
+          System.err.print("Exception in thread \"main\" ");
+          e.getCause().printStackTrace();
+          this.mainFailed = true;
+        }
+      } catch (final IllegalAccessException e) {
+        System.err.println("Error: Main method not accessible in class " + mainClass);
+        this.mainFailed = true;
+      }
+    }
+
+    /**
+     * Waits for an exit or for all the non-daemon threads of the job to end
+     */
+    private void awaitEnd() {
+      while (this.exitStatus == null && hasLiveThreads(false)) {
+        sleep();
+      }
+    }
+
+    private boolean hasLeftoverThreads() {
+      final long end = System.currentTimeMillis() + LEFTOVER_THREADS_WAIT_MS;
+      while (hasLiveThreads(true)) {
+        if (System.currentTimeMillis() > end) {
+          return true;
+        }
+        sleep();
+      }
+      return false;
+    }
+
+    private boolean hasLiveThreads(final boolean includeDaemons) {
+      final Thread[] threads = new Thread[this.group.activeCount() + 8];
+      final int count = this.group.enumerate(threads, true);
+      for (int i = 0; i < count; i++) {
+        if (threads[i].isAlive() && (includeDaemons || !threads[i].isDaemon())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void sleep() {
+      try {
+        Thread.sleep(POLL_MS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Sends what a job writes to System.out/err, dropped once the job has ended or called exit
+   */
+  private class FrameOutputStream extends OutputStream {
+
+    private final Job job;
+
+    private FrameOutputStream(final Job job) {
+      this.job = job;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return;
+      }
+      final DataOutputStream out = JvmPoolWorker.this.out;
+      synchronized (out) {
+        if (this.job.closed || this.job.exitStatus != null) {
+          return;
+        }
+        out.write(OUTPUT);
+        out.writeInt(len);
+        out.write(b, off, len);
+        out.flush();
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.jobExecutor.utils.process;
+
+import com.datapps.zebra.workflow.utils.Props;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the main class of a Java job in a JVM of the {@link JvmPool} instead of a new one.
+ *
+ * The process id is the one of the pooled JVM, so killing the job kills that JVM, and the job
+ * fails with its exit code exactly as a forked JVM would. The pooled JVM runs in the working
+ * directory of the job. The output is logged the same way, including what the job's own processes
+ * write to inherited streams, and a non zero exit code throws the same
+ * {@link ProcessFailureException}.
+ */
+public class PooledJavaProcess extends AzkabanProcess {
+
+  private final JvmPool pool;
+  private final Props jobTypeProps;
+  private final List<String> jvmOptions;
+  private final List<String> classPath;
+  private final String mainClass;
+  private final List<String> args;
+  private final Map<String, String> env;
+  private final String workingDir;
+
+  /**
+   * @param jvmOptions the java command and its options, without the classpath
+   * @param jobTypeProps the props the pool settings of the job type are read from
+   */
+  public PooledJavaProcess(final List<String> jvmOptions, final List<String> classPath,
+      final String mainClass, final List<String> args, final Map<String, String> env,
+      final String workingDir, final Props jobTypeProps, final Logger logger) {
+    this(JvmPool.getInstance(), jvmOptions, classPath, mainClass, args, env, workingDir,
+        jobTypeProps, logger);
+  }
+
+  PooledJavaProcess(final JvmPool pool, final List<String> jvmOptions,
+      final List<String> classPath, final String mainClass, final List<String> args,
+      final Map<String, String> env, final String workingDir, final Props jobTypeProps,
+      final Logger logger) {
+    super(commandLine(jvmOptions, classPath, mainClass, args), env, workingDir, logger);
+    this.pool = pool;
+    this.jobTypeProps = jobTypeProps;
+    this.jvmOptions = jvmOptions;
+    this.classPath = classPath;
+    this.mainClass = mainClass;
+    this.args = args;
+    this.env = env;
+    this.workingDir = workingDir;
+  }
+
+  private static List<String> commandLine(final List<String> jvmOptions,
+      final List<String> classPath, final String mainClass, final List<String> args) {
+    final List<String> command = new ArrayList<>(jvmOptions);
+    command.add("-cp");
+    command.add(String.join(":", classPath));
+    command.add(mainClass);
+    command.addAll(args);
+    return command;
+  }
+
+  @Override
+  public void run() throws IOException {
+    if (this.isStarted() || this.isComplete()) {
+      throw new IllegalStateException("The process can only be used once.");
+    }
+
+    final JvmPool.Worker worker = this.pool.acquire(this.jvmOptions, this.workingDir,
+        String.join(":", this.classPath), this.jobTypeProps);
+    started(worker.getProcess());
+    worker.setJobLogger(getLogger());
+
+    final ProcessOutputPump.Drain output =
+        ProcessOutputPump.createDrain(getLogger(), Level.INFO, 30);
+    boolean reusable = false;
+    int exitCode = -1;
+    try {
+      worker.submit(this.mainClass, this.workingDir, this.classPath, this.args, this.env);
+      exitCode = worker.awaitExit(output);
+      reusable = !worker.isRetireRequested();
+    } catch (final IOException e) {
+      // the pooled JVM was killed or crashed, its exit code is the one of the job
+      try {
+        exitCode = worker.getProcess().waitFor();
+      } catch (final InterruptedException ie) {
+        getLogger().info("Process interrupted. Exit code is " + exitCode, ie);
+      }
+    } finally {
+      worker.awaitOutput();
+      worker.setJobLogger(null);
+      completed();
+      output.close();
+      this.pool.release(worker, reusable);
+    }
+
+    if (exitCode != 0) {
+      // stderr is sent along stdout by the pooled JVM
+      final String recentOutput =
+          new StringBuilder().append("Stdout:\n")
+              .append(output.getRecentLog()).append("\n\n")
+              .append("Stderr:\n")
+              .append("\n").toString();
+      throw new ProcessFailureException(exitCode, recentOutput);
+    }
+  }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.jobExecutor.utils.process;
+
+import com.datapps.zebra.workflow.utils.Props;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains the output of all the child processes with a few shared threads instead of one
+ * reader thread per stream.
+ *
+ * Process pipes can't be selected on, so each pump thread polls its streams and only reads
+ * what is available, which never blocks. A thread sleeps for a few milliseconds once none of
+ * its streams had anything to read. The output is split into lines which are logged to the
+ * job's logger, the last bytes are kept for the error message of a failed process.
+ */
+public class ProcessOutputPump {
+
+  // number of pump threads, read from the executor props
+  public static final String PUMP_THREADS = "executor.process.output.pump.threads";
+  private static final int DEFAULT_PUMP_THREADS = 4;
+  private static final Logger logger = Logger.getLogger(ProcessOutputPump.class);
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+  private static final long IDLE_SLEEP_MS = 20;
+  private static final int TAIL_BYTES = 16 * 1024;
+
+  private static ProcessOutputPump instance;
+
+  private final Pump[] pumps;
+  private final AtomicInteger nextPump = new AtomicInteger();
+
+  ProcessOutputPump(final int threads) {
+    this.pumps = new Pump[threads];
+    for (int i = 0; i < threads; i++) {
+      this.pumps[i] = new Pump("azk-process-output-" + i);
+      this.pumps[i].start();
+    }
+  }
+
+  /**
+   * Creates the shared pump with the number of threads set in the executor props. It must be
+   * called before the first process is started, later calls have no effect.
+   */
+  public static synchronized void initialize(final Props props) {
+    if (instance != null) {
+      logger.info("Already initialized");
+      return;
+    }
+    instance = new ProcessOutputPump(props.getInt(PUMP_THREADS, DEFAULT_PUMP_THREADS));
+  }
+
+  /**
+   * Returns the shared pump, created with the default number of threads when the executor
+   * didn't initialize it.
+   */
+  public static synchronized ProcessOutputPump getInstance() {
+    if (instance == null) {
+      instance = new ProcessOutputPump(DEFAULT_PUMP_THREADS);
+    }
+    return instance;
+  }
+
+  /**
+   * Starts draining a process output stream. Each line is logged at the given level.
+   *
+   * @param tailLines number of lines returned by {@link Drain#getRecentLog()}
+   */
+  public Drain register(final InputStream input, final Logger logger, final Level level,
+      final int tailLines) {
+    final Drain drain = new Drain(input, logger, level, tailLines);
+    final int index = Math.floorMod(this.nextPump.getAndIncrement(), this.pumps.length);
+    this.pumps[index].add(drain);
+    return drain;
+  }
+
+  /**
+   * Creates a drain the caller writes the output to itself, with {@link Drain#write(byte[], int,
+   * int)} and {@link Drain#close()}, for output which doesn't come from a process stream.
+   */
+  static Drain createDrain(final Logger logger, final Level level, final int tailLines) {
+    return new Drain(null, logger, level, tailLines);
+  }
+
+  /**
+   * The output of one stream
+   */
+  public static class Drain {
+
+    private final InputStream input;
+    private volatile Logger logger;
+    private final Level level;
+    private final int tailLines;
+    private final CountDownLatch completion = new CountDownLatch(1);
+    private final ByteRingBuffer tail = new ByteRingBuffer(TAIL_BYTES);
+    // bytes of the current line not terminated yet, only used by the pump thread
+    private byte[] partial = new byte[256];
+    private int partialLength = 0;
+    private volatile boolean processExited = false;
+    private boolean drainedOnce = false;
+    // calls of pump() which returned, only incremented by the pump thread
+    private volatile long pumpCount = 0;
+
+    private Drain(final InputStream input, final Logger logger, final Level level,
+        final int tailLines) {
+      this.input = input;
+      this.logger = logger;
+      this.level = level;
+      this.tailLines = tailLines;
+    }
+
+    /**
+     * Reads what is available without blocking
+     *
+     * @return whether anything was read
+     */
+    private boolean pump(final byte[] buffer) throws IOException {
+      try {
+        return read(buffer);
+      } finally {
+        this.pumpCount++;
+      }
+    }
+
+    private boolean read(final byte[] buffer) throws IOException {
+      final int available = this.input.available();
+      if (available <= 0) {
+        if (this.processExited) {
+          // the JDK drains the pipe into the stream when the process exits, an empty stream
+          // twice in a row after the exit means everything was read
+          if (this.drainedOnce) {
+            complete();
+          }
+          this.drainedOnce = true;
+        }
+        return false;
+      }
+
+      final int read = this.input.read(buffer, 0, Math.min(available, buffer.length));
+      if (read < 0) {
+        complete();
+        return false;
+      }
+      this.drainedOnce = false;
+      write(buffer, 0, read);
+      return true;
+    }
+
+    /**
+     * Logs the complete lines of the given output, only called by one thread at a time
+     */
+    void write(final byte[] bytes, final int offset, final int length) {
+      this.tail.write(bytes, offset, length);
+      int lineStart = offset;
+      for (int i = offset; i < offset + length; i++) {
+        if (bytes[i] == '\n') {
+          appendPartial(bytes, lineStart, i - lineStart);
+          logPartial();
+          lineStart = i + 1;
+        }
+      }
+      appendPartial(bytes, lineStart, offset + length - lineStart);
+    }
+
+    /**
+     * Logs the last unterminated line, once all the output was written
+     */
+    void close() {
+      complete();
+    }
+
+    private void appendPartial(final byte[] bytes, final int offset, final int length) {
+      if (this.partialLength + length > this.partial.length) {
+        this.partial = Arrays.copyOf(this.partial,
+            Math.max(this.partial.length * 2, this.partialLength + length));
+      }
+      System.arraycopy(bytes, offset, this.partial, this.partialLength, length);
+      this.partialLength += length;
+    }
+
+    private void logPartial() {
+      int length = this.partialLength;
+      if (length > 0 && this.partial[length - 1] == '\r') {
+        length--;
+      }
+      if (this.logger != null) {
+        this.logger.log(this.level, new String(this.partial, 0, length, StandardCharsets.UTF_8));
+      }
+      this.partialLength = 0;
+    }
+
+    private void complete() {
+      if (this.partialLength > 0) {
+        logPartial();
+      }
+      this.completion.countDown();
+    }
+
+    private void fail(final IOException e) {
+      if (this.logger != null && !this.processExited) {
+        this.logger.error("Error reading from logging stream:", e);
+      }
+      this.completion.countDown();
+    }
+
+    private boolean isComplete() {
+      return this.completion.getCount() == 0;
+    }
+
+    /**
+     * Tells the pump that the process exited, then waits for the remaining output to be logged
+     */
+    public void awaitCompletion(final long waitMs) {
+      this.processExited = true;
+      try {
+        this.completion.await(waitMs, TimeUnit.MILLISECONDS);
+      } catch (final InterruptedException e) {
+        if (this.logger != null) {
+          this.logger.info("I/O thread interrupted.", e);
+        }
+      }
+    }
+
+    /**
+     * Logs the lines read from now on to another logger
+     */
+    void setLogger(final Logger logger) {
+      this.logger = logger;
+    }
+
+    /**
+     * Waits for what was written to the stream so far to be logged, while the process goes on
+     */
+    void awaitPumped(final long waitMs) {
+      final long end = System.currentTimeMillis() + waitMs;
+      try {
+        while (this.input.available() > 0 && !isComplete()) {
+          if (System.currentTimeMillis() > end) {
+            return;
+          }
+          Thread.sleep(IDLE_SLEEP_MS);
+        }
+        // the bytes the pump was reading when the stream became empty are logged by the end of
+        // its next call
+        final long pumped = this.pumpCount + 2;
+        while (this.pumpCount < pumped && !isComplete() && System.currentTimeMillis() <= end) {
+          Thread.sleep(IDLE_SLEEP_MS / 4);
+        }
+      } catch (final IOException e) {
+        // the stream is closed, the pump completes the drain
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Returns the last lines of the output
+     */
+    public String getRecentLog() {
+      final byte[] bytes = this.tail.toByteArray();
+      final String[] lines = new String(bytes, StandardCharsets.UTF_8).split("\r?\n");
+      // the first line may have been cut when the buffer wrapped
+      final int first = Math.max(this.tail.hasWrapped() ? 1 : 0, lines.length - this.tailLines);
+      final StringBuilder recent = new StringBuilder();
+      for (int i = first; i < lines.length; i++) {
+        if (i > first) {
+          recent.append(System.getProperty("line.separator"));
+        }
+        recent.append(lines[i]);
+      }
+      return recent.toString();
+    }
+  }
+
+  /**
+   * Fixed size buffer keeping the last bytes written to it
+   */
+  static class ByteRingBuffer {
+
+    private final byte[] bytes;
+    private int end = 0;
+    private boolean wrapped = false;
+
+    ByteRingBuffer(final int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    synchronized void write(final byte[] data, int offset, int length) {
+      if (length >= this.bytes.length) {
+        offset += length - this.bytes.length;
+        length = this.bytes.length;
+      }
+      final int first = Math.min(length, this.bytes.length - this.end);
+      System.arraycopy(data, offset, this.bytes, this.end, first);
+      System.arraycopy(data, offset + first, this.bytes, 0, length - first);
+      if (this.end + length >= this.bytes.length) {
+        this.wrapped = true;
+      }
+      this.end = (this.end + length) % this.bytes.length;
+    }
+
+    synchronized boolean hasWrapped() {
+      return this.wrapped;
+    }
+
+    synchronized byte[] toByteArray() {
+      if (!this.wrapped) {
+        return Arrays.copyOf(this.bytes, this.end);
+      }
+      final byte[] copy = new byte[this.bytes.length];
+      System.arraycopy(this.bytes, this.end, copy, 0, this.bytes.length - this.end);
+      System.arraycopy(this.bytes, 0, copy, this.bytes.length - this.end, this.end);
+      return copy;
+    }
+  }
+
+  private static class Pump extends Thread {
+
+    private final Queue<Drain> added = new ConcurrentLinkedQueue<>();
+    private final List<Drain> drains = new ArrayList<>();
+    private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+
+    private Pump(final String name) {
+      super(name);
+      setDaemon(true);
+    }
+
+    private void add(final Drain drain) {
+      this.added.add(drain);
+      LockSupport.unpark(this);
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Drain drain;
+        while ((drain = this.added.poll()) != null) {
+          this.drains.add(drain);
+        }
+
+        boolean progressed = false;
+        final Iterator<Drain> iter = this.drains.iterator();
+        while (iter.hasNext()) {
+          final Drain next = iter.next();
+          try {
+            progressed |= next.pump(this.buffer);
+          } catch (final IOException e) {
+            next.fail(e);
+          } catch (final RuntimeException e) {
+            // never let a failing logger stop the output of the other processes
+            next.fail(new IOException(e));
+          }
+          if (next.isComplete()) {
+            iter.remove();
+          }
+        }
+
+        if (!progressed) {
+          LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(IDLE_SLEEP_MS));
+        }
+      }
+    }
+  }
+}
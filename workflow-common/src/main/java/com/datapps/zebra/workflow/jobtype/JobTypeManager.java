@@ -25,11 +25,14 @@ import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class JobTypeManager {
 
@@ -327,37 +330,39 @@ public class JobTypeManager {
             jobProps, jobType));
       }
 
-      Props pluginJobProps = pluginSet.getPluginJobProps(jobType);
       // For default jobtypes, even though they don't have pluginJobProps configured,
       // they still need to load properties from common.properties file if it's present
       // because common.properties file is global to all jobtypes.
-      if (pluginJobProps == null) {
-        pluginJobProps = pluginSet.getCommonPluginJobProps();
-      }
-      if (pluginJobProps != null) {
-        for (final String k : pluginJobProps.getKeySet()) {
-          if (!jobProps.containsKey(k)) {
-            jobProps.put(k, pluginJobProps.get(k));
-          }
+      for (final Map.Entry<String, String> entry :
+          pluginSet.getFlattenedPluginJobProps(jobType).entrySet()) {
+        if (!jobProps.containsKey(entry.getKey())) {
+          jobProps.put(entry.getKey(), entry.getValue());
         }
       }
       jobProps = PropsUtils.resolveProps(jobProps);
 
+      // the plugin loader props were resolved when the plugin was loaded, each job gets its
+      // own copy since the job may modify them
       Props pluginLoadProps = pluginSet.getPluginLoaderProps(jobType);
-      if (pluginLoadProps != null) {
-        pluginLoadProps = PropsUtils.resolveProps(pluginLoadProps);
-      } else {
+      if (pluginLoadProps == null) {
         // pluginSet.getCommonPluginLoadProps() will return null if there is no plugins directory.
         // hence assigning default Props() if that's the case
         pluginLoadProps = pluginSet.getCommonPluginLoadProps();
-        if (pluginLoadProps == null) {
-          pluginLoadProps = new Props();
-        }
       }
+      pluginLoadProps = pluginLoadProps == null ? new Props() : Props.clone(pluginLoadProps);
 
-      job =
-          (Job) Utils.callConstructor(executorClass, jobId, pluginLoadProps,
-              jobProps, logger);
+      final Constructor<? extends Job> constructor = pluginSet.getPluginConstructor(jobType);
+      if (constructor != null) {
+        try {
+          job = constructor.newInstance(jobId, pluginLoadProps, jobProps, logger);
+        } catch (final InvocationTargetException e) {
+          throw e.getCause();
+        }
+      } else {
+        job =
+            (Job) Utils.callConstructor(executorClass, jobId, pluginLoadProps,
+                jobProps, logger);
+      }
     } catch (final Exception e) {
       logger.error("Failed to build job executor for job " + jobId
           + e.getMessage());
@@ -17,9 +17,13 @@ package com.datapps.zebra.workflow.jobtype;
 
 import com.datapps.zebra.workflow.jobExecutor.Job;
 import com.datapps.zebra.workflow.utils.Props;
+import org.apache.log4j.Logger;
 
+import java.lang.reflect.Constructor;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Container for job type plugins
@@ -28,13 +32,18 @@ import java.util.Map;
  * the properties given by default to the plugin.
  *
  * This class is not thread safe, so adding to this class should only be
- * populated and controlled by the JobTypeManager
+ * populated and controlled by the JobTypeManager. The properties must not be
+ * modified once the plugins are loaded, what is derived from them is cached.
  */
 public class JobTypePluginSet {
 
   private final Map<String, Class<? extends Job>> jobToClass;
   private final Map<String, Props> pluginJobPropsMap;
   private final Map<String, Props> pluginLoadPropsMap;
+  private final Map<String, Constructor<? extends Job>> jobToConstructor;
+  // jobtype -> flattened plugin job props, filled on first use
+  private final Map<String, Map<String, String>> flattenedJobPropsMap =
+      new ConcurrentHashMap<>();
 
   private Props commonJobProps;
   private Props commonLoadProps;
@@ -46,6 +55,7 @@ public class JobTypePluginSet {
     this.jobToClass = new HashMap<>();
     this.pluginJobPropsMap = new HashMap<>();
     this.pluginLoadPropsMap = new HashMap<>();
+    this.jobToConstructor = new HashMap<>();
   }
 
   /**
@@ -55,6 +65,7 @@ public class JobTypePluginSet {
     this.jobToClass = new HashMap<>(clone.jobToClass);
     this.pluginJobPropsMap = new HashMap<>(clone.pluginJobPropsMap);
     this.pluginLoadPropsMap = new HashMap<>(clone.pluginLoadPropsMap);
+    this.jobToConstructor = new HashMap<>(clone.jobToConstructor);
     this.commonJobProps = clone.commonJobProps;
     this.commonLoadProps = clone.commonLoadProps;
   }
@@ -71,6 +82,7 @@ public class JobTypePluginSet {
    */
   public void setCommonPluginJobProps(final Props commonJobProps) {
     this.commonJobProps = commonJobProps;
+    this.flattenedJobPropsMap.clear();
   }
 
   /**
@@ -102,6 +114,29 @@ public class JobTypePluginSet {
     return this.pluginJobPropsMap.get(jobTypeName);
   }
 
+  /**
+   * Get the properties given to the plugin as default job properties flattened
+   * into a map, or the common ones if the jobtype has none.
+   */
+  public Map<String, String> getFlattenedPluginJobProps(final String jobTypeName) {
+    return this.flattenedJobPropsMap.computeIfAbsent(jobTypeName, name -> {
+      Props props = getPluginJobProps(name);
+      if (props == null) {
+        props = this.commonJobProps;
+      }
+      return props == null ? Collections.<String, String>emptyMap()
+          : Collections.unmodifiableMap(props.getFlattened());
+    });
+  }
+
+  /**
+   * Gets the (String jobId, Props sysProps, Props jobProps, Logger logger)
+   * constructor of the plugin job runner class, null if it has none.
+   */
+  public Constructor<? extends Job> getPluginConstructor(final String jobTypeName) {
+    return this.jobToConstructor.get(jobTypeName);
+  }
+
   /**
    * Gets the plugin job runner class
    */
@@ -115,6 +150,12 @@ public class JobTypePluginSet {
   public void addPluginClass(final String jobTypeName,
       final Class<? extends Job> jobTypeClass) {
     this.jobToClass.put(jobTypeName, jobTypeClass);
+    try {
+      this.jobToConstructor.put(jobTypeName, jobTypeClass
+          .getConstructor(String.class, Props.class, Props.class, Logger.class));
+    } catch (final NoSuchMethodException e) {
+      this.jobToConstructor.remove(jobTypeName);
+    }
   }
 
   /**
@@ -122,10 +163,11 @@ public class JobTypePluginSet {
    */
   public void addPluginJobProps(final String jobTypeName, final Props props) {
     this.pluginJobPropsMap.put(jobTypeName, props);
+    this.flattenedJobPropsMap.remove(jobTypeName);
   }
 
   /**
-   * Adds plugin load properties used to load the plugin
+   * Adds plugin load properties used to load the plugin, already resolved
    */
   public void addPluginLoadProps(final String jobTypeName, final Props props) {
     this.pluginLoadPropsMap.put(jobTypeName, props);
@@ -23,22 +23,29 @@ import java.util.Date;
  */
 public class InMemoryHistoryNode {
 
-  private final Object value;
-  private final Date date;
+  private final double value;
+  private final long timestamp;
 
   /**
    * Takes snapshot of the metric with a given value
    */
-  public InMemoryHistoryNode(final Object val) {
+  public InMemoryHistoryNode(final double val) {
+    this(val, System.currentTimeMillis());
+  }
+
+  /**
+   * Snapshot of the metric with a given value taken at the given time (in millisecond)
+   */
+  public InMemoryHistoryNode(final double val, final long timestamp) {
     this.value = val;
-    this.date = new Date();
+    this.timestamp = timestamp;
   }
 
-  public Object getValue() {
+  public double getValue() {
     return this.value;
   }
 
   public Date getTimestamp() {
-    return this.date;
+    return new Date(this.timestamp);
   }
 }
@@ -20,11 +20,13 @@ import com.datapps.zebra.workflow.metric.IMetric;
 import com.datapps.zebra.workflow.metric.IMetricEmitter;
 import com.datapps.zebra.workflow.metric.MetricException;
 import com.datapps.zebra.workflow.utils.Props;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.log4j.Logger;
 
-import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
@@ -38,28 +40,34 @@ public class InMemoryMetricEmitter implements IMetricEmitter {
   private static final String INMEMORY_METRIC_NUM_INSTANCES = "azkaban.metric.inmemory.maxinstances";
   private static final String INMEMORY_METRIC_STANDARDDEVIATION_FACTOR =
       "azkaban.metric.inmemory.standardDeviationFactor";
+  private static final String INMEMORY_METRIC_CAPACITY = "azkaban.metric.inmemory.capacity";
   private final double standardDeviationFactor;
+  /**
+   * Maximum number of raw snapshots kept per metric, a week of per-second data by default
+   */
+  private final int capacity;
   /**
    * Data structure to keep track of snapshots
    */
-  protected Map<String, LinkedList<InMemoryHistoryNode>> historyListMapping;
+  protected ConcurrentMap<String, MetricTimeSeries> historyListMapping;
   /**
    * Interval (in millisecond) from today for which we should maintain the in memory snapshots
    */
-  private long timeWindow;
+  private volatile long timeWindow;
   /**
    * Maximum number of snapshots that should be displayed on /stats servlet
    */
-  private long numInstances;
+  private volatile long numInstances;
 
   /**
    * @param azkProps Azkaban Properties
    */
   public InMemoryMetricEmitter(final Props azkProps) {
-    this.historyListMapping = new HashMap<>();
+    this.historyListMapping = new ConcurrentHashMap<>();
     this.timeWindow = azkProps.getLong(INMEMORY_METRIC_REPORTER_WINDOW, 60 * 60 * 24 * 7 * 1000);
     this.numInstances = azkProps.getLong(INMEMORY_METRIC_NUM_INSTANCES, 50);
     this.standardDeviationFactor = azkProps.getDouble(INMEMORY_METRIC_STANDARDDEVIATION_FACTOR, 2);
+    this.capacity = azkProps.getInt(INMEMORY_METRIC_CAPACITY, 60 * 60 * 24 * 7);
   }
 
   /**
@@ -67,7 +75,7 @@ public class InMemoryMetricEmitter implements IMetricEmitter {
    *
    * @param val interval in milli seconds
    */
-  public synchronized void setReportingInterval(final long val) {
+  public void setReportingInterval(final long val) {
     this.timeWindow = val;
   }
 
@@ -87,15 +95,18 @@ public class InMemoryMetricEmitter implements IMetricEmitter {
   @Override
   public void reportMetric(final IMetric<?> metric) throws MetricException {
     final String metricName = metric.getName();
-    if (!this.historyListMapping.containsKey(metricName)) {
-      logger.info("First time capturing metric: " + metricName);
-      this.historyListMapping.put(metricName, new LinkedList<>());
+    final Object value = metric.getValue();
+    if (!(value instanceof Number)) {
+      throw new MetricException("Metric " + metricName + " is not numeric: " + value);
     }
-    synchronized (this.historyListMapping.get(metricName)) {
-      logger.debug("Ingesting metric: " + metricName);
-      this.historyListMapping.get(metricName).add(new InMemoryHistoryNode(metric.getValue()));
-      cleanUsingTime(metricName, this.historyListMapping.get(metricName).peekLast().getTimestamp());
+    MetricTimeSeries series = this.historyListMapping.get(metricName);
+    if (series == null) {
+      logger.info("First time capturing metric: " + metricName);
+      series = this.historyListMapping
+          .computeIfAbsent(metricName, name -> new MetricTimeSeries(this.capacity));
     }
+    logger.debug("Ingesting metric: " + metricName);
+    series.add(System.currentTimeMillis(), ((Number) value).doubleValue(), this.timeWindow);
   }
 
   /**
@@ -109,120 +120,20 @@ public class InMemoryMetricEmitter implements IMetricEmitter {
    */
   public List<InMemoryHistoryNode> getMetrics(final String metricName, final Date from,
       final Date to,
-      final Boolean useStats) throws ClassCastException {
-    final LinkedList<InMemoryHistoryNode> selectedLists = new LinkedList<>();
-    if (this.historyListMapping.containsKey(metricName)) {
-
-      logger.debug("selecting snapshots within time frame");
-      synchronized (this.historyListMapping.get(metricName)) {
-        for (final InMemoryHistoryNode node : this.historyListMapping.get(metricName)) {
-          if (node.getTimestamp().after(from) && node.getTimestamp().before(to)) {
-            selectedLists.add(node);
-          }
-          if (node.getTimestamp().after(to)) {
-            break;
-          }
-        }
-      }
-
-      // selecting nodes if num of nodes > numInstances
-      if (useStats) {
-        statBasedSelectMetricHistory(selectedLists);
-      } else {
-        generalSelectMetricHistory(selectedLists);
-      }
+      final Boolean useStats) {
+    final MetricTimeSeries series = this.historyListMapping.get(metricName);
+    if (series == null) {
+      return Collections.emptyList();
     }
-    cleanUsingTime(metricName, new Date());
-    return selectedLists;
-  }
-
-  /**
-   * filter snapshots using statistically significant points only
-   *
-   * @param selectedLists list of snapshots
-   */
-  private void statBasedSelectMetricHistory(final LinkedList<InMemoryHistoryNode> selectedLists)
-      throws ClassCastException {
-    logger.debug("selecting snapshots which are far away from mean value");
-    final DescriptiveStatistics descStats = getDescriptiveStatistics(selectedLists);
-    final Double mean = descStats.getMean();
-    final Double std = descStats.getStandardDeviation();
-
-    final Iterator<InMemoryHistoryNode> ite = selectedLists.iterator();
-    while (ite.hasNext()) {
-      final InMemoryHistoryNode currentNode = ite.next();
-      final double value = ((Number) currentNode.getValue()).doubleValue();
-      // remove all elements which lies in 95% value band
-      if (value < mean + this.standardDeviationFactor * std
-          && value > mean - this.standardDeviationFactor * std) {
-        ite.remove();
-      }
-    }
-  }
-
-  private DescriptiveStatistics getDescriptiveStatistics(
-      final LinkedList<InMemoryHistoryNode> selectedLists)
-      throws ClassCastException {
-    final DescriptiveStatistics descStats = new DescriptiveStatistics();
-    for (final InMemoryHistoryNode node : selectedLists) {
-      descStats.addValue(((Number) node.getValue()).doubleValue());
-    }
-    return descStats;
-  }
-
-  /**
-   * filter snapshots by evenly selecting points across the interval
-   *
-   * @param selectedLists list of snapshots
-   */
-  private void generalSelectMetricHistory(final LinkedList<InMemoryHistoryNode> selectedLists) {
-    logger.debug("selecting snapshots evenly from across the time interval");
-    if (selectedLists.size() > this.numInstances) {
-      final double step = (double) selectedLists.size() / this.numInstances;
-      long nextIndex = 0, currentIndex = 0, numSelectedInstances = 1;
-      final Iterator<InMemoryHistoryNode> ite = selectedLists.iterator();
-      while (ite.hasNext()) {
-        ite.next();
-        if (currentIndex == nextIndex) {
-          nextIndex = (long) Math.floor(numSelectedInstances * step + 0.5);
-          numSelectedInstances++;
-        } else {
-          ite.remove();
-        }
-        currentIndex++;
-      }
-    }
-  }
-
-  /**
-   * Remove snapshots to maintain reporting interval
-   *
-   * @param metricName Name of the metric
-   * @param firstAllowedDate End date of the interval
-   */
-  private void cleanUsingTime(final String metricName, final Date firstAllowedDate) {
-    if (this.historyListMapping.containsKey(metricName)
-        && this.historyListMapping.get(metricName) != null) {
-      synchronized (this.historyListMapping.get(metricName)) {
-
-        InMemoryHistoryNode firstNode = this.historyListMapping.get(metricName).peekFirst();
-        long localCopyOfTimeWindow = 0;
-
-        // go ahead for clean up using latest possible value of interval
-        // any interval change will not affect on going clean up
-        synchronized (this) {
-          localCopyOfTimeWindow = this.timeWindow;
-        }
 
-        // removing objects older than Interval time from firstAllowedDate
-        while (firstNode != null
-            && TimeUnit.MILLISECONDS
-            .toMillis(firstAllowedDate.getTime() - firstNode.getTimestamp().getTime())
-            > localCopyOfTimeWindow) {
-          this.historyListMapping.get(metricName).removeFirst();
-          firstNode = this.historyListMapping.get(metricName).peekFirst();
-        }
-      }
+    series.removeOlderThan(System.currentTimeMillis() - this.timeWindow);
+    logger.debug("selecting snapshots within time frame");
+    if (useStats) {
+      logger.debug("selecting snapshots which are far away from mean value");
+      return series.selectOutliers(from.getTime(), to.getTime(), this.standardDeviationFactor);
+    } else {
+      logger.debug("selecting snapshots evenly from across the time interval");
+      return series.selectEvenly(from.getTime(), to.getTime(), this.numInstances);
     }
   }
 
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.metric.inmemoryemitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshots of a single metric: raw samples plus precomputed downsampling tiers.
+ *
+ * Every tier keeps one point per bucket holding the mean of the raw samples that fell in it, so
+ * wide range queries can be answered from a few hundred points instead of every raw sample.
+ * All methods are synchronized on the series.
+ */
+public class MetricTimeSeries {
+
+  /**
+   * Bucket width (in millisecond) of the downsampling tiers, finest first
+   */
+  static final long[] TIER_BUCKETS = {TimeUnit.MINUTES.toMillis(1), TimeUnit.HOURS.toMillis(1)};
+
+  /**
+   * A tier is used for evenly spaced selection only if it still has this many times more points
+   * than requested, so that downsampling never becomes visible in the /stats graphs
+   */
+  private static final int TIER_OVERSAMPLING = 4;
+
+  private final TimeSeriesRingBuffer raw;
+  private final TimeSeriesRingBuffer[] tiers;
+  private final long[] tierCounts;
+
+  public MetricTimeSeries(final int capacity) {
+    this.raw = new TimeSeriesRingBuffer(capacity);
+    this.tiers = new TimeSeriesRingBuffer[TIER_BUCKETS.length];
+    this.tierCounts = new long[TIER_BUCKETS.length];
+    for (int i = 0; i < TIER_BUCKETS.length; i++) {
+      this.tiers[i] = new TimeSeriesRingBuffer(capacity);
+    }
+  }
+
+  /**
+   * Record a sample and drop everything older than timeWindow relative to it
+   */
+  public synchronized void add(final long timestamp, final double value, final long timeWindow) {
+    this.raw.add(timestamp, value);
+    for (int i = 0; i < this.tiers.length; i++) {
+      final TimeSeriesRingBuffer tier = this.tiers[i];
+      final long bucket = timestamp - timestamp % TIER_BUCKETS[i];
+      if (!tier.isEmpty() && tier.lastTimestamp() == bucket) {
+        // running mean of the bucket which is still being filled
+        this.tierCounts[i]++;
+        final double mean = tier.valueAt(tier.size() - 1);
+        tier.setLastValue(mean + (value - mean) / this.tierCounts[i]);
+      } else {
+        tier.add(bucket, value);
+        this.tierCounts[i] = 1;
+      }
+    }
+    removeOlderThan(timestamp - timeWindow);
+  }
+
+  /**
+   * Drop all samples (raw and downsampled) older than the given timestamp
+   */
+  public synchronized void removeOlderThan(final long timestamp) {
+    this.raw.removeOlderThan(timestamp);
+    for (final TimeSeriesRingBuffer tier : this.tiers) {
+      tier.removeOlderThan(timestamp);
+    }
+  }
+
+  public synchronized int size() {
+    return this.raw.size();
+  }
+
+  /**
+   * Select at most numInstances points evenly spread over the open interval (from, to). Reads
+   * from the coarsest tier which still has enough resolution for the request.
+   */
+  public synchronized List<InMemoryHistoryNode> selectEvenly(final long from, final long to,
+      final long numInstances) {
+    TimeSeriesRingBuffer source = this.raw;
+    int start = this.raw.upperBound(from);
+    int end = this.raw.lowerBound(to);
+    for (final TimeSeriesRingBuffer tier : this.tiers) {
+      if (end - start <= numInstances * TIER_OVERSAMPLING) {
+        break;
+      }
+      source = tier;
+      start = tier.upperBound(from);
+      end = tier.lowerBound(to);
+    }
+
+    final int count = Math.max(end - start, 0);
+    if (count <= numInstances) {
+      return toNodes(source, start, end);
+    }
+
+    final List<InMemoryHistoryNode> selected = new ArrayList<>((int) numInstances + 1);
+    final double step = (double) count / numInstances;
+    long numSelectedInstances = 0;
+    long nextIndex = 0;
+    while (nextIndex < count) {
+      final int index = start + (int) nextIndex;
+      selected.add(new InMemoryHistoryNode(source.valueAt(index), source.timestampAt(index)));
+      numSelectedInstances++;
+      nextIndex = (long) Math.floor(numSelectedInstances * step + 0.5);
+    }
+    return selected;
+  }
+
+  /**
+   * Select raw points of the open interval (from, to) lying outside of mean +/- factor * std
+   */
+  public synchronized List<InMemoryHistoryNode> selectOutliers(final long from, final long to,
+      final double standardDeviationFactor) {
+    final int start = this.raw.upperBound(from);
+    final int end = this.raw.lowerBound(to);
+    final List<InMemoryHistoryNode> selected = new ArrayList<>();
+    if (start >= end) {
+      return selected;
+    }
+
+    // single pass (Welford) mean and sample standard deviation over the primitive arrays
+    double mean = 0;
+    double m2 = 0;
+    long n = 0;
+    for (int i = start; i < end; i++) {
+      final double value = this.raw.valueAt(i);
+      n++;
+      final double delta = value - mean;
+      mean += delta / n;
+      m2 += delta * (value - mean);
+    }
+    final double std = n > 1 ? Math.sqrt(m2 / (n - 1)) : 0;
+
+    for (int i = start; i < end; i++) {
+      final double value = this.raw.valueAt(i);
+      // skip all elements which lies in 95% value band
+      if (!(value < mean + standardDeviationFactor * std
+          && value > mean - standardDeviationFactor * std)) {
+        selected.add(new InMemoryHistoryNode(value, this.raw.timestampAt(i)));
+      }
+    }
+    return selected;
+  }
+
+  private static List<InMemoryHistoryNode> toNodes(final TimeSeriesRingBuffer source,
+      final int start, final int end) {
+    final List<InMemoryHistoryNode> nodes = new ArrayList<>(Math.max(end - start, 0));
+    for (int i = start; i < end; i++) {
+      nodes.add(new InMemoryHistoryNode(source.valueAt(i), source.timestampAt(i)));
+    }
+    return nodes;
+  }
+}
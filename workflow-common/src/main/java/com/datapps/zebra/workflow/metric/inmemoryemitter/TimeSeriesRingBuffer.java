@@ -0,0 +1,184 @@
+/*
+ * Copyright 2012 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.metric.inmemoryemitter;
+
+/**
+ * Fixed capacity ring buffer of (timestamp, value) samples stored in primitive arrays.
+ *
+ * Samples are expected to be appended in non decreasing timestamp order, which lets range
+ * lookups use binary search. Backing arrays start small and grow up to the capacity; once full,
+ * the oldest sample is overwritten. Not thread safe, callers synchronize externally.
+ */
+public class TimeSeriesRingBuffer {
+
+  private static final int INITIAL_SIZE = 1024;
+
+  private final int capacity;
+  private long[] timestamps;
+  private double[] values;
+  private int head;
+  private int size;
+
+  /**
+   * @param capacity maximum number of samples kept before the oldest is overwritten
+   */
+  public TimeSeriesRingBuffer(final int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+    }
+    this.capacity = capacity;
+    final int initialSize = Math.min(capacity, INITIAL_SIZE);
+    this.timestamps = new long[initialSize];
+    this.values = new double[initialSize];
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public int capacity() {
+    return this.capacity;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Append a sample, overwriting the oldest one when the buffer is full
+   */
+  public void add(final long timestamp, final double value) {
+    if (this.size == this.timestamps.length) {
+      if (this.size < this.capacity) {
+        grow();
+      } else {
+        this.timestamps[this.head] = timestamp;
+        this.values[this.head] = value;
+        this.head = (this.head + 1) % this.timestamps.length;
+        return;
+      }
+    }
+    final int slot = (this.head + this.size) % this.timestamps.length;
+    this.timestamps[slot] = timestamp;
+    this.values[slot] = value;
+    this.size++;
+  }
+
+  /**
+   * Overwrite the value of the newest sample
+   */
+  public void setLastValue(final double value) {
+    if (this.size == 0) {
+      throw new IllegalStateException("Buffer is empty");
+    }
+    this.values[physical(this.size - 1)] = value;
+  }
+
+  /**
+   * Timestamp of the sample at logical index (0 is the oldest sample)
+   */
+  public long timestampAt(final int index) {
+    return this.timestamps[physical(index)];
+  }
+
+  /**
+   * Value of the sample at logical index (0 is the oldest sample)
+   */
+  public double valueAt(final int index) {
+    return this.values[physical(index)];
+  }
+
+  public long lastTimestamp() {
+    return timestampAt(this.size - 1);
+  }
+
+  /**
+   * Drop every sample whose timestamp is strictly lower than the given one
+   *
+   * @return number of samples dropped
+   */
+  public int removeOlderThan(final long timestamp) {
+    final int dropped = lowerBound(timestamp);
+    if (dropped == this.size) {
+      clear();
+    } else if (dropped > 0) {
+      this.head = physical(dropped);
+      this.size -= dropped;
+    }
+    return dropped;
+  }
+
+  /**
+   * Logical index of the first sample whose timestamp is &gt;= the given one, or size() if none
+   */
+  public int lowerBound(final long timestamp) {
+    int low = 0;
+    int high = this.size;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (timestampAt(mid) < timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Logical index of the first sample whose timestamp is &gt; the given one, or size() if none
+   */
+  public int upperBound(final long timestamp) {
+    int low = 0;
+    int high = this.size;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (timestampAt(mid) <= timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  public void clear() {
+    this.head = 0;
+    this.size = 0;
+  }
+
+  private int physical(final int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Index " + index + ", size " + this.size);
+    }
+    return (this.head + index) % this.timestamps.length;
+  }
+
+  private void grow() {
+    final int newLength = (int) Math.min((long) this.timestamps.length * 2, this.capacity);
+    final long[] newTimestamps = new long[newLength];
+    final double[] newValues = new double[newLength];
+    final int firstPart = Math.min(this.size, this.timestamps.length - this.head);
+    System.arraycopy(this.timestamps, this.head, newTimestamps, 0, firstPart);
+    System.arraycopy(this.values, this.head, newValues, 0, firstPart);
+    System.arraycopy(this.timestamps, 0, newTimestamps, firstPart, this.size - firstPart);
+    System.arraycopy(this.values, 0, newValues, firstPart, this.size - firstPart);
+    this.timestamps = newTimestamps;
+    this.values = newValues;
+    this.head = 0;
+  }
+}
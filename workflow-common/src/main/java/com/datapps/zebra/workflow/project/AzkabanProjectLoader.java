@@ -46,6 +46,8 @@ import static java.util.Objects.requireNonNull;
 class AzkabanProjectLoader {
 
   private static final Logger log = LoggerFactory.getLogger(AzkabanProjectLoader.class);
+  // key of the report holding the duration of each upload phase
+  static final String UPLOAD_TIMING_REPORT = "Upload timing";
 
   private final Props props;
 
@@ -76,6 +78,8 @@ class AzkabanProjectLoader {
       final File archive, final String fileType, final User uploader, final Props additionalProps)
       throws ProjectManagerException {
     log.info("Uploading files to " + project.getName());
+    final StringBuilder timings = new StringBuilder();
+    long phaseStart = System.currentTimeMillis();
 
     // Unzip.
     File file = null;
@@ -118,11 +122,13 @@ class AzkabanProjectLoader {
     // synchronization between uploads. Since we're already reloading the XML
     // config file and creating validator objects for each upload, this does
     // not add too much additional overhead.
+    phaseStart = recordPhase(timings, "unzip", phaseStart);
     final ValidatorManager validatorManager = new XmlValidatorManager(prop);
     log.info("Validating project " + archive.getName()
         + " using the registered validators "
         + validatorManager.getValidatorsInfo().toString());
     final Map<String, ValidationReport> reports = validatorManager.validate(project, file);
+    phaseStart = recordPhase(timings, "validation", phaseStart);
     ValidationStatus status = ValidationStatus.PASS;
     for (final Entry<String, ValidationReport> report : reports.entrySet()) {
       if (report.getValue().getStatus().compareTo(status) > 0) {
@@ -157,9 +163,11 @@ class AzkabanProjectLoader {
       }
 
       this.storageManager.uploadProject(project, newVersion, archive, uploader);
+      phaseStart = recordPhase(timings, "storage", phaseStart);
 
       log.info("Uploading flow to db " + archive.getName());
       this.projectLoader.uploadFlows(project, newVersion, flows.values());
+      phaseStart = recordPhase(timings, flows.size() + " flows", phaseStart);
       log.info("Changing project versions " + archive.getName());
       this.projectLoader.changeProjectVersion(project, newVersion,
           uploader.getUserId());
@@ -167,8 +175,10 @@ class AzkabanProjectLoader {
       log.info("Uploading Job properties");
       this.projectLoader.uploadProjectProperties(project, new ArrayList<>(
           jobProps.values()));
+      phaseStart = recordPhase(timings, jobProps.size() + " job properties", phaseStart);
       log.info("Uploading Props properties");
       this.projectLoader.uploadProjectProperties(project, propProps);
+      phaseStart = recordPhase(timings, propProps.size() + " properties", phaseStart);
     }
 
     log.info("Uploaded project files. Cleaning up temp files.");
@@ -188,10 +198,27 @@ class AzkabanProjectLoader {
 
     // Clean up storage
     this.storageManager.cleanupProjectArtifacts(project.getId());
+    recordPhase(timings, "cleanup", phaseStart);
 
+    log.info("Upload of " + project.getName() + " version " + project.getVersion() + " took "
+        + timings);
+    final ValidationReport timingReport = new ValidationReport();
+    timingReport.addInfoMsg("Upload timings: " + timings);
+    reports.put(UPLOAD_TIMING_REPORT, timingReport);
     return reports;
   }
 
+  /* appends the duration of an upload phase, returns the start of the next one */
+  private static long recordPhase(final StringBuilder timings, final String phase,
+      final long phaseStart) {
+    final long now = System.currentTimeMillis();
+    if (timings.length() > 0) {
+      timings.append(", ");
+    }
+    timings.append(phase).append(": ").append(now - phaseStart).append(" ms");
+    return now;
+  }
+
   private File unzipFile(final File archiveFile) throws IOException {
     final ZipFile zipfile = new ZipFile(archiveFile);
     final File unzipped = Utils.createTempDir(this.tempDir);
@@ -30,6 +30,7 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 public class DirectoryFlowLoader implements ProjectValidator {
 
@@ -37,6 +38,8 @@ public class DirectoryFlowLoader implements ProjectValidator {
   public static final String MAX_XMS_DEFAULT = "1G";
   public static final String JOB_MAX_XMX = "job.max.Xmx";
   public static final String MAX_XMX_DEFAULT = "2G";
+  // parse the project files on the fork join pool, true by default
+  public static final String PARALLEL_PARSE = "project.flow.parallel.parse";
   private static final DirFilter DIR_FILTER = new DirFilter();
   private static final String PROPERTY_SUFFIX = ".properties";
   private static final String JOB_SUFFIX = ".job";
@@ -124,8 +127,10 @@ public class DirectoryFlowLoader implements ProjectValidator {
     this.rootNodes = new HashSet<>();
     this.flowDependencies = new HashMap<>();
 
-    // Load all the props files and create the Node objects
-    loadProjectFromDir(baseDirectory.getPath(), baseDirectory, null);
+    // Parse all the props files in parallel, then create the Node objects
+    final Map<File, ParsedFile> parsedFiles =
+        this.props.getBoolean(PARALLEL_PARSE, true) ? parseFiles(baseDirectory) : null;
+    loadProjectFromDir(baseDirectory.getPath(), baseDirectory, null, parsedFiles);
 
     jobPropertiesCheck(project);
 
@@ -140,14 +145,46 @@ public class DirectoryFlowLoader implements ProjectValidator {
 
   }
 
-  private void loadProjectFromDir(final String base, final File dir, Props parent) {
+  /**
+   * Reads and parses every .properties and .job file of the project on the fork join pool. The
+   * files are parsed without parents, these are only known once the directories are walked in
+   * order.
+   */
+  private Map<File, ParsedFile> parseFiles(final File baseDirectory) {
+    final List<File> files = new ArrayList<>();
+    collectFiles(baseDirectory, files);
+    return files.parallelStream()
+        .collect(Collectors.toConcurrentMap(file -> file, ParsedFile::new));
+  }
+
+  private void collectFiles(final File dir, final List<File> files) {
+    files.addAll(Arrays.asList(dir.listFiles(new SuffixFilter(PROPERTY_SUFFIX))));
+    files.addAll(Arrays.asList(dir.listFiles(new SuffixFilter(JOB_SUFFIX))));
+    for (final File subDir : dir.listFiles(DIR_FILTER)) {
+      collectFiles(subDir, files);
+    }
+  }
+
+  /**
+   * @return the props of the file, parsed now when the files weren't parsed in parallel
+   */
+  private static Props readProps(final Map<File, ParsedFile> parsedFiles, final Props parent,
+      final File file) throws IOException {
+    if (parsedFiles == null) {
+      return new Props(parent, file);
+    }
+    return parsedFiles.get(file).getProps(parent);
+  }
+
+  private void loadProjectFromDir(final String base, final File dir, Props parent,
+      final Map<File, ParsedFile> parsedFiles) {
     final File[] propertyFiles = dir.listFiles(new SuffixFilter(PROPERTY_SUFFIX));
     Arrays.sort(propertyFiles);
 
     for (final File file : propertyFiles) {
       final String relative = getRelativeFilePath(base, file.getPath());
       try {
-        parent = new Props(parent, file);
+        parent = readProps(parsedFiles, parent, file);
         parent.setSource(relative);
 
         final FlowProps flowProps = new FlowProps(parent);
@@ -173,7 +210,7 @@ public class DirectoryFlowLoader implements ProjectValidator {
             this.jobPropsMap.remove(jobName);
             this.nodeMap.remove(jobName);
           } else {
-            final Props prop = new Props(parent, file);
+            final Props prop = readProps(parsedFiles, parent, file);
             final String relative = getRelativeFilePath(base, file.getPath());
             prop.setSource(relative);
 
@@ -207,7 +244,7 @@ public class DirectoryFlowLoader implements ProjectValidator {
 
     final File[] subDirs = dir.listFiles(DIR_FILTER);
     for (final File file : subDirs) {
-      loadProjectFromDir(base, file, parent);
+      loadProjectFromDir(base, file, parent, parsedFiles);
     }
   }
 
@@ -463,6 +500,38 @@ public class DirectoryFlowLoader implements ProjectValidator {
     return report;
   }
 
+  /**
+   * A props file parsed without parent, or the error reading it
+   */
+  private static class ParsedFile {
+
+    private final Props props;
+    private final IOException error;
+
+    private ParsedFile(final File file) {
+      Props props = null;
+      IOException error = null;
+      try {
+        props = new Props(null, file);
+      } catch (final IOException e) {
+        error = e;
+      }
+      this.props = props;
+      this.error = error;
+    }
+
+    /**
+     * Same as new Props(parent, file)
+     */
+    private Props getProps(final Props parent) throws IOException {
+      if (this.error != null) {
+        throw this.error;
+      }
+      this.props.setParent(parent);
+      return this.props;
+    }
+  }
+
   private static class DirFilter implements FileFilter {
 
     @Override
@@ -158,7 +158,9 @@ class JdbcProjectHandlerSet {
         try {
           // Convoluted way to inflate strings. Should find common package or
           // helper function.
-          if (encType == EncodingType.GZIP) {
+          if (encType == EncodingType.BINARY) {
+            flowObj = BinaryObjectCodec.decode(dataBytes);
+          } else if (encType == EncodingType.GZIP) {
             // Decompress the sucker.
             final String jsonString = GZIPUtils.unGzipString(dataBytes, "UTF-8");
             flowObj = JSONUtils.parseJSONFromString(jsonString);
@@ -185,6 +187,16 @@ class JdbcProjectHandlerSet {
     public static String SELECT_PROJECT_PROPERTIES =
         "SELECT project_id, version, name, modified_time, encoding_type, property FROM project_properties WHERE project_id=? AND version=?";
 
+    public static String SELECT_PROJECT_PROPERTIES_BY_SUFFIX =
+        "SELECT project_id, version, name, modified_time, encoding_type, property FROM project_properties WHERE project_id=? AND version=? AND name LIKE ?";
+
+    /**
+     * Returns the LIKE pattern of the names ending with the suffix, wildcards in it are escaped
+     */
+    public static String suffixPattern(final String suffix) {
+      return "%" + suffix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     @Override
     public List<Pair<String, Props>> handle(final ResultSet rs) throws SQLException {
       if (!rs.next()) {
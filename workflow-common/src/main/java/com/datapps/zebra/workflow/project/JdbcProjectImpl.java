@@ -33,6 +33,7 @@ import org.apache.log4j.Logger;
 import java.io.*;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.datapps.zebra.workflow.project.JdbcProjectHandlerSet.*;
 
@@ -47,14 +48,24 @@ public class JdbcProjectImpl implements ProjectLoader {
   private static final Logger logger = Logger.getLogger(JdbcProjectImpl.class);
 
   private static final int CHUCK_SIZE = 1024 * 1024 * 10;
+  // rows sent per JDBC batch when uploading the flows and properties of a project
+  private static final int UPLOAD_BATCH_SIZE = 100;
+  private static final String INSERT_FLOW =
+      "INSERT INTO project_flows (project_id, version, flow_id, modified_time, encoding_type, json) values (?,?,?,?,?,?)";
+  private static final String INSERT_PROPERTIES =
+      "INSERT INTO project_properties (project_id, version, name, modified_time, encoding_type, property) values (?,?,?,?,?,?)";
   private final DatabaseOperator dbOperator;
   private final File tempDir;
   private final EncodingType defaultEncodingType = EncodingType.GZIP;
+  // encoding of the flow blobs, binary once all the servers can read it
+  private final EncodingType flowEncodingType;
 
   @Inject
   public JdbcProjectImpl(final Props props, final DatabaseOperator databaseOperator) {
 
     this.dbOperator = databaseOperator;
+    this.flowEncodingType = EncodingType.valueOf(
+        props.getString("flow.encoding.type", EncodingType.GZIP.name()).toUpperCase());
     this.tempDir = new File(props.getString("project.temp.dir", "temp"));
     if (!this.tempDir.exists()) {
       if (this.tempDir.mkdirs()) {
@@ -661,23 +672,69 @@ public class JdbcProjectImpl implements ProjectLoader {
 
   @Override
   public void uploadFlows(final Project project, final int version, final Collection<Flow> flows) throws ProjectManagerException {
-    // We do one at a time instead of batch... because well, the batch could be
-    // large.
-    logger.info("Uploading flows");
+    logger.info("Uploading " + flows.size() + " flows");
+    final EncodingType encType = this.flowEncodingType;
+    final long modifiedTime = System.currentTimeMillis();
+    final List<Object[]> rows;
     try {
-      for (final Flow flow : flows) {
-        uploadFlow(project, version, flow, this.defaultEncodingType);
-      }
+      // serializing and compressing is cpu bound, spread it over the cores
+      rows = flows.parallelStream()
+          .map(flow -> new Object[]{project.getId(), version, flow.getId(), modifiedTime,
+              encType.getNumVal(), encodeFlow(flow, encType)})
+          .collect(Collectors.toList());
+    } catch (final UncheckedIOException e) {
+      throw new ProjectManagerException("Flow Upload failed.", e.getCause());
+    }
+
+    try {
+      batchInsert(INSERT_FLOW, rows);
+    } catch (final SQLException e) {
+      logger.error("Error inserting flows", e);
+      throw new ProjectManagerException("Error inserting flows of project " + project.getName(), e);
+    }
+  }
+
+  private byte[] encodeFlow(final Flow flow, final EncodingType encType) {
+    try {
+      final byte[] data = encodeFlowData(flow, encType);
+      logger.debug("Flow upload " + flow.getId() + " is byte size " + data.length);
+      return data;
     } catch (final IOException e) {
-      throw new ProjectManagerException("Flow Upload failed.", e);
+      throw new UncheckedIOException(e);
     }
   }
 
+  private byte[] encodeFlowData(final Flow flow, final EncodingType encType) throws IOException {
+    if (encType == EncodingType.BINARY) {
+      return BinaryObjectCodec.encode(flow.toObject());
+    }
+    return convertJsonToBytes(encType, JSONUtils.toJSON(flow.toObject()));
+  }
+
+  /**
+   * Inserts all rows in one transaction, sent in batches of {@link #UPLOAD_BATCH_SIZE} rows so a
+   * single batch never gets too large.
+   */
+  private void batchInsert(final String insert, final List<Object[]> rows) throws SQLException {
+    if (rows.isEmpty()) {
+      return;
+    }
+    final SQLTransaction<Integer> insertRows = transOperator -> {
+      for (int from = 0; from < rows.size(); from += UPLOAD_BATCH_SIZE) {
+        final List<Object[]> batch =
+            rows.subList(from, Math.min(rows.size(), from + UPLOAD_BATCH_SIZE));
+        transOperator.batch(insert, batch.toArray(new Object[batch.size()][]));
+      }
+      return rows.size();
+    };
+    this.dbOperator.transaction(insertRows);
+  }
+
   @Override
   public void uploadFlow(final Project project, final int version, final Flow flow) throws ProjectManagerException {
     logger.info("Uploading flow " + flow.getId());
     try {
-      uploadFlow(project, version, flow, this.defaultEncodingType);
+      uploadFlow(project, version, flow, this.flowEncodingType);
     } catch (final IOException e) {
       throw new ProjectManagerException("Flow Upload failed.", e);
     }
@@ -687,14 +744,13 @@ public class JdbcProjectImpl implements ProjectLoader {
   public void updateFlow(final Project project, final int version, final Flow flow) throws ProjectManagerException {
     logger.info("Uploading flow " + flow.getId());
     try {
-      final String json = JSONUtils.toJSON(flow.toObject());
-      final byte[] data = convertJsonToBytes(this.defaultEncodingType, json);
+      final byte[] data = encodeFlowData(flow, this.flowEncodingType);
       logger.info("Flow upload " + flow.getId() + " is byte size " + data.length);
       final String UPDATE_FLOW =
           "UPDATE project_flows SET encoding_type=?,json=? WHERE project_id=? AND version=? AND flow_id=?";
       try {
         this.dbOperator
-            .update(UPDATE_FLOW, this.defaultEncodingType.getNumVal(), data, project.getId(), version, flow.getId());
+            .update(UPDATE_FLOW, this.flowEncodingType.getNumVal(), data, project.getId(), version, flow.getId());
       } catch (final SQLException e) {
         logger.error("Error inserting flow", e);
         throw new ProjectManagerException("Error inserting flow " + flow.getId(), e);
@@ -706,12 +762,9 @@ public class JdbcProjectImpl implements ProjectLoader {
 
   private void uploadFlow(final Project project, final int version, final Flow flow, final EncodingType encType)
       throws ProjectManagerException, IOException {
-    final String json = JSONUtils.toJSON(flow.toObject());
-    final byte[] data = convertJsonToBytes(encType, json);
+    final byte[] data = encodeFlowData(flow, encType);
 
     logger.info("Flow upload " + flow.getId() + " is byte size " + data.length);
-    final String INSERT_FLOW =
-        "INSERT INTO project_flows (project_id, version, flow_id, modified_time, encoding_type, json) values (?,?,?,?,?,?)";
     try {
       this.dbOperator.update(INSERT_FLOW, project.getId(), version, flow.getId(), System.currentTimeMillis(),
           encType.getNumVal(), data);
@@ -743,12 +796,32 @@ public class JdbcProjectImpl implements ProjectLoader {
 
   @Override
   public void uploadProjectProperties(final Project project, final List<Props> properties) throws ProjectManagerException {
-    for (final Props props : properties) {
-      try {
-        uploadProjectProperty(project, props.getSource(), props);
-      } catch (final IOException e) {
-        throw new ProjectManagerException("Error uploading project property file", e);
-      }
+    final int version = project.getVersion();
+    final long modifiedTime = System.currentTimeMillis();
+    final List<Object[]> rows;
+    try {
+      rows = properties.parallelStream()
+          .map(props -> new Object[]{project.getId(), version, props.getSource(), modifiedTime,
+              this.defaultEncodingType.getNumVal(), encodeProps(props)})
+          .collect(Collectors.toList());
+    } catch (final UncheckedIOException e) {
+      throw new ProjectManagerException("Error uploading project property file", e.getCause());
+    }
+
+    try {
+      batchInsert(INSERT_PROPERTIES, rows);
+    } catch (final SQLException e) {
+      throw new ProjectManagerException(
+          "Error uploading project properties into " + project.getName() + " version " + version,
+          e);
+    }
+  }
+
+  private byte[] encodeProps(final Props props) {
+    try {
+      return getBytes(props);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
     }
   }
 
@@ -787,9 +860,6 @@ public class JdbcProjectImpl implements ProjectLoader {
 
   private void uploadProjectProperty(final Project project, final String name, final Props props)
       throws ProjectManagerException, IOException {
-    final String INSERT_PROPERTIES =
-        "INSERT INTO project_properties (project_id, version, name, modified_time, encoding_type, property) values (?,?,?,?,?,?)";
-
     final byte[] propsData = getBytes(props);
     try {
       this.dbOperator.update(INSERT_PROPERTIES, project.getId(), project.getVersion(), name, System.currentTimeMillis(),
@@ -857,6 +927,26 @@ public class JdbcProjectImpl implements ProjectLoader {
     }
   }
 
+  @Override
+  public Map<String, Props> fetchProjectPropertiesWithSuffix(final int projectId, final int version,
+      final String suffix) throws ProjectManagerException {
+    try {
+      final List<Pair<String, Props>> properties = this.dbOperator.query(
+          ProjectPropertiesResultsHandler.SELECT_PROJECT_PROPERTIES_BY_SUFFIX,
+          new ProjectPropertiesResultsHandler(), projectId, version,
+          ProjectPropertiesResultsHandler.suffixPattern(suffix));
+      final HashMap<String, Props> props = new HashMap<>();
+      for (final Pair<String, Props> pair : properties) {
+        props.put(pair.getFirst(), pair.getSecond());
+      }
+      return props;
+    } catch (final SQLException e) {
+      logger.error("Error fetching " + suffix + " properties, project id " + projectId + " version "
+          + version, e);
+      throw new ProjectManagerException("Error fetching properties", e);
+    }
+  }
+
   @Override
   public void cleanOlderProjectVersion(final int projectId, final int version) throws ProjectManagerException {
     final String DELETE_FLOW = "DELETE FROM project_flows WHERE project_id=? AND version<?";
@@ -1290,6 +1290,32 @@ public class JdbcProjectLoader extends AbstractJdbcLoader implements
     }
   }
 
+  @Override
+  public Map<String, Props> fetchProjectPropertiesWithSuffix(final int projectId,
+      final int version, final String suffix) throws ProjectManagerException {
+    final QueryRunner runner = createQueryRunner();
+
+    final ProjectPropertiesResultsHandler handler =
+        new ProjectPropertiesResultsHandler();
+    try {
+      final List<Pair<String, Props>> properties =
+          runner.query(
+              ProjectPropertiesResultsHandler.SELECT_PROJECT_PROPERTIES_BY_SUFFIX,
+              handler, projectId, version,
+              JdbcProjectHandlerSet.ProjectPropertiesResultsHandler.suffixPattern(suffix));
+
+      final HashMap<String, Props> props = new HashMap<>();
+      for (final Pair<String, Props> pair : properties) {
+        props.put(pair.getFirst(), pair.getSecond());
+      }
+      return props;
+    } catch (final SQLException e) {
+      logger.error("Error fetching " + suffix + " properties, project id " + projectId
+          + " version " + version, e);
+      throw new ProjectManagerException("Error fetching properties", e);
+    }
+  }
+
   private Connection getConnection() throws ProjectManagerException {
     Connection connection = null;
     try {
@@ -1435,7 +1461,9 @@ public class JdbcProjectLoader extends AbstractJdbcLoader implements
         try {
           // Convoluted way to inflate strings. Should find common package or
           // helper function.
-          if (encType == EncodingType.GZIP) {
+          if (encType == EncodingType.BINARY) {
+            flowObj = BinaryObjectCodec.decode(dataBytes);
+          } else if (encType == EncodingType.GZIP) {
             // Decompress the sucker.
             final String jsonString = GZIPUtils.unGzipString(dataBytes, "UTF-8");
             flowObj = JSONUtils.parseJSONFromString(jsonString);
@@ -1465,6 +1493,9 @@ public class JdbcProjectLoader extends AbstractJdbcLoader implements
     private static final String SELECT_PROJECT_PROPERTIES =
         "SELECT project_id, version, name, modified_time, encoding_type, property FROM project_properties WHERE project_id=? AND version=?";
 
+    private static final String SELECT_PROJECT_PROPERTIES_BY_SUFFIX =
+        "SELECT project_id, version, name, modified_time, encoding_type, property FROM project_properties WHERE project_id=? AND version=? AND name LIKE ?";
+
     @Override
     public List<Pair<String, Props>> handle(final ResultSet rs) throws SQLException {
       if (!rs.next()) {
@@ -41,6 +41,8 @@ public class Project {
   private String lastModifiedUser;
   private String source;
   private Map<String, Flow> flows = null;
+  // when set, the flows are loaded on demand instead of being held by the project
+  private volatile FlowLoader flowLoader = null;
   private Map<String, Object> metadata = new HashMap<>();
 
   public Project(final int id, final String name) {
@@ -100,29 +102,47 @@ public class Project {
   }
 
   public Flow getFlow(final String flowId) {
-    if (this.flows == null) {
+    final Map<String, Flow> flows = getFlowMap();
+    if (flows == null) {
       return null;
     }
 
-    return this.flows.get(flowId);
+    return flows.get(flowId);
   }
 
   public Map<String, Flow> getFlowMap() {
+    final FlowLoader loader = this.flowLoader;
+    if (loader != null) {
+      return loader.loadFlows(this);
+    }
     return this.flows;
   }
 
   public List<Flow> getFlows() {
+    final Map<String, Flow> flows = getFlowMap();
     List<Flow> retFlow = null;
-    if (this.flows != null) {
-      retFlow = new ArrayList<>(this.flows.values());
+    if (flows != null) {
+      retFlow = new ArrayList<>(flows.values());
     } else {
       retFlow = new ArrayList<>();
     }
     return retFlow;
   }
 
+  /**
+   * Sets the flows of the project, replacing any flow loader.
+   */
   public void setFlows(final Map<String, Flow> flows) {
     this.flows = flows;
+    this.flowLoader = null;
+  }
+
+  /**
+   * Loads the flows on demand from now on, the project no longer holds them.
+   */
+  public void setFlowLoader(final FlowLoader flowLoader) {
+    this.flowLoader = flowLoader;
+    this.flows = null;
   }
 
   public Permission getCollectivePermission(final User user) {
@@ -444,4 +464,12 @@ public class Project {
   public void setVersion(final int version) {
     this.version = version;
   }
+
+  /**
+   * Provides the flows of the current version of a project
+   */
+  public interface FlowLoader {
+
+    Map<String, Flow> loadFlows(Project project);
+  }
 }
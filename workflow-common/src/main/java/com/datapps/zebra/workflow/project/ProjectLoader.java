@@ -189,6 +189,13 @@ public interface ProjectLoader {
   Map<String, Props> fetchProjectProperties(int projectId, int version)
       throws ProjectManagerException;
 
+  /**
+   * Fetch the project properties whose name ends with the given suffix, without reading the
+   * other ones. Returns an empty map when there are none.
+   */
+  Map<String, Props> fetchProjectPropertiesWithSuffix(int projectId, int version, String suffix)
+      throws ProjectManagerException;
+
   /**
    * Cleans all project versions less tha
    */
@@ -23,10 +23,13 @@ import com.datapps.zebra.workflow.project.validator.ValidatorConfigs;
 import com.datapps.zebra.workflow.project.validator.XmlValidatorManager;
 import com.datapps.zebra.workflow.storage.StorageManager;
 import com.datapps.zebra.workflow.user.Permission;
-import com.datapps.zebra.workflow.user.Permission.Type;
 import com.datapps.zebra.workflow.user.User;
+import com.datapps.zebra.workflow.utils.Pair;
 import com.datapps.zebra.workflow.utils.Props;
 import com.datapps.zebra.workflow.utils.PropsUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.apache.log4j.Logger;
@@ -35,8 +38,11 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -51,10 +57,20 @@ public class ProjectManager {
   private final ProjectLoader projectLoader;
   private final Props props;
   private final boolean creatorDefaultPermissions;
+  private final boolean lazyFlowLoading;
+  // project id to the version and flows of that version, only used with lazy flow loading
+  private final Cache<Integer, Pair<Integer, Map<String, Flow>>> flowCache;
   private final ConcurrentHashMap<Integer, Project> projectsById =
       new ConcurrentHashMap<>();
   private final ConcurrentHashMap<String, Project> projectsByName =
       new ConcurrentHashMap<>();
+  // users and groups to the projects they can read
+  private final ProjectPermissionIndex permissionIndex = new ProjectPermissionIndex();
+  // lower cased project names, searched by the plain text queries
+  private final ConcurrentHashMap<Integer, String> lowerCaseNames = new ConcurrentHashMap<>();
+  // compiled project name searches
+  private final Cache<String, Predicate<Project>> nameMatchers =
+      CacheBuilder.newBuilder().maximumSize(1000).build();
 
   @Inject
   public ProjectManager(final AzkabanProjectLoader azkabanProjectLoader,
@@ -67,6 +83,14 @@ public class ProjectManager {
 
     this.creatorDefaultPermissions =
         props.getBoolean("creator.default.proxy", true);
+    this.lazyFlowLoading = props.getBoolean("project.flow.lazy.load", true);
+    // weighted by number of flow nodes, soft values let the GC reclaim flows under pressure
+    this.flowCache = CacheBuilder.newBuilder()
+        .maximumWeight(props.getLong("project.flow.cache.max.nodes", 1000000L))
+        .<Integer, Pair<Integer, Map<String, Flow>>>weigher(
+            (projectId, flows) -> flowWeight(flows.getSecond()))
+        .softValues()
+        .build();
 
     // The prop passed to XmlValidatorManager is used to initialize all the
     // validators
@@ -89,29 +113,73 @@ public class ProjectManager {
       throw new RuntimeException("Could not load projects from store.", e);
     }
     for (final Project proj : projects) {
-      this.projectsByName.put(proj.getName(), proj);
-      this.projectsById.put(proj.getId(), proj);
+      addActiveProject(proj);
     }
 
     for (final Project proj : projects) {
-      loadAllProjectFlows(proj);
+      if (this.lazyFlowLoading) {
+        proj.setFlowLoader(this::loadProjectFlows);
+      } else {
+        proj.setFlows(fetchProjectFlows(proj));
+      }
     }
   }
 
-  private void loadAllProjectFlows(final Project project) {
+  private Map<String, Flow> fetchProjectFlows(final Project project) {
     try {
       final List<Flow> flows = this.projectLoader.fetchAllProjectFlows(project);
       final Map<String, Flow> flowMap = new HashMap<>();
       for (final Flow flow : flows) {
         flowMap.put(flow.getId(), flow);
       }
-
-      project.setFlows(flowMap);
+      return flowMap;
     } catch (final ProjectManagerException e) {
       throw new RuntimeException("Could not load projects flows from store.", e);
     }
   }
 
+  /**
+   * Flow loader of the active projects, fetches the flows of the current project version on
+   * first access.
+   */
+  private Map<String, Flow> loadProjectFlows(final Project project) {
+    final int version = project.getVersion();
+    final Pair<Integer, Map<String, Flow>> cached;
+    try {
+      cached = this.flowCache.get(project.getId(),
+          () -> new Pair<>(version, fetchProjectFlows(project)));
+    } catch (final ExecutionException | UncheckedExecutionException e) {
+      throw new RuntimeException("Could not load projects flows from store.", e.getCause());
+    }
+    if (cached.getFirst() == version) {
+      return cached.getSecond();
+    }
+
+    // a new version was uploaded since the flows were cached, or the caller holds an older
+    // version than the cached one, whose flows are returned without replacing the newer ones
+    final Map<String, Flow> flows = fetchProjectFlows(project);
+    cacheProjectFlows(project.getId(), version, flows);
+    return flows;
+  }
+
+  /**
+   * Caches the flows of a project version unless the flows of a newer version are cached.
+   */
+  private void cacheProjectFlows(final int projectId, final int version,
+      final Map<String, Flow> flows) {
+    final Pair<Integer, Map<String, Flow>> loaded = new Pair<>(version, flows);
+    this.flowCache.asMap().merge(projectId, loaded,
+        (current, candidate) -> current.getFirst() > version ? current : candidate);
+  }
+
+  private static int flowWeight(final Map<String, Flow> flows) {
+    int weight = 1;
+    for (final Flow flow : flows.values()) {
+      weight += flow.getNodes().size();
+    }
+    return weight;
+  }
+
   public List<String> getProjectNames() {
     return new ArrayList<>(this.projectsByName.keySet());
   }
@@ -120,52 +188,72 @@ public class ProjectManager {
     return this.props;
   }
 
-  public List<Project> getUserProjects(final User user) {
-    final ArrayList<Project> array = new ArrayList<>();
-    for (final Project project : this.projectsById.values()) {
-      final Permission perm = project.getUserPermission(user);
+  private void addActiveProject(final Project project) {
+    this.projectsByName.put(project.getName(), project);
+    this.projectsById.put(project.getId(), project);
+    this.lowerCaseNames.put(project.getId(), project.getName().toLowerCase(Locale.ROOT));
+    this.permissionIndex.index(project);
+  }
 
-      if (perm != null
-          && (perm.isPermissionSet(Type.ADMIN) || perm
-          .isPermissionSet(Type.READ))) {
+  private List<Project> getActiveProjects(final Iterable<Integer> projectIds,
+      final Predicate<Project> filter) {
+    final List<Project> array = new ArrayList<>();
+    for (final Integer projectId : projectIds) {
+      final Project project = this.projectsById.get(projectId);
+      // the project may have been removed since the ids were read
+      if (project != null && filter.test(project)) {
         array.add(project);
       }
     }
     return array;
   }
 
-  public List<Project> getGroupProjects(final User user) {
-    final List<Project> array = new ArrayList<>();
-    for (final Project project : this.projectsById.values()) {
-      if (project.hasGroupPermission(user, Type.READ)) {
-        array.add(project);
+  /**
+   * Returns a case insensitive matcher of project names for a search pattern, null if the pattern
+   * is invalid. Plain text searches are matched against the lower cased names without a regex.
+   */
+  private Predicate<Project> getNameMatcher(final String regexPattern) {
+    Predicate<Project> matcher = this.nameMatchers.getIfPresent(regexPattern);
+    if (matcher != null) {
+      return matcher;
+    }
+
+    if (regexPattern.matches("[a-zA-Z0-9_-]*")) {
+      final String lowerCaseName = regexPattern.toLowerCase(Locale.ROOT);
+      matcher = project -> {
+        final String name = this.lowerCaseNames.get(project.getId());
+        return name != null && name.contains(lowerCaseName);
+      };
+    } else {
+      final Pattern pattern;
+      try {
+        pattern = Pattern.compile(regexPattern, Pattern.CASE_INSENSITIVE);
+      } catch (final PatternSyntaxException e) {
+        logger.error("Bad regex pattern " + regexPattern);
+        return null;
       }
+      matcher = project -> pattern.matcher(project.getName()).find();
     }
-    return array;
+    this.nameMatchers.put(regexPattern, matcher);
+    return matcher;
   }
 
-  public List<Project> getUserProjectsByRegex(final User user, final String regexPattern) {
-    final List<Project> array = new ArrayList<>();
-    final Pattern pattern;
-    try {
-      pattern = Pattern.compile(regexPattern, Pattern.CASE_INSENSITIVE);
-    } catch (final PatternSyntaxException e) {
-      logger.error("Bad regex pattern " + regexPattern);
-      return array;
-    }
+  public List<Project> getUserProjects(final User user) {
+    return getActiveProjects(this.permissionIndex.getUserProjectIds(user.getUserId()),
+        project -> true);
+  }
 
-    for (final Project project : this.projectsById.values()) {
-      final Permission perm = project.getUserPermission(user);
+  public List<Project> getGroupProjects(final User user) {
+    return getActiveProjects(this.permissionIndex.getGroupProjectIds(user.getGroups()),
+        project -> true);
+  }
 
-      if (perm != null
-          && (perm.isPermissionSet(Type.ADMIN) || perm
-          .isPermissionSet(Type.READ))) {
-        if (pattern.matcher(project.getName()).find()) {
-          array.add(project);
-        }
-      }
+  public List<Project> getUserProjectsByRegex(final User user, final String regexPattern) {
+    final Predicate<Project> matcher = getNameMatcher(regexPattern);
+    if (matcher == null) {
+      return new ArrayList<>();
     }
-    return array;
+    return getActiveProjects(this.permissionIndex.getUserProjectIds(user.getUserId()), matcher);
   }
 
   public List<Project> getProjects() {
@@ -173,20 +261,11 @@ public class ProjectManager {
   }
 
   public List<Project> getProjectsByRegex(final String regexPattern) {
-    final List<Project> allProjects = new ArrayList<>();
-    final Pattern pattern;
-    try {
-      pattern = Pattern.compile(regexPattern, Pattern.CASE_INSENSITIVE);
-    } catch (final PatternSyntaxException e) {
-      logger.error("Bad regex pattern " + regexPattern);
-      return allProjects;
-    }
-    for (final Project project : getProjects()) {
-      if (pattern.matcher(project.getName()).find()) {
-        allProjects.add(project);
-      }
+    final Predicate<Project> matcher = getNameMatcher(regexPattern);
+    if (matcher == null) {
+      return new ArrayList<>();
     }
-    return allProjects;
+    return getActiveProjects(this.projectsById.keySet(), matcher);
   }
 
   /**
@@ -270,13 +349,13 @@ public class ProjectManager {
         + creator.getUserId());
     final Project newProject =
         this.projectLoader.createNewProject(projectName, description, creator);
-    this.projectsByName.put(newProject.getName(), newProject);
-    this.projectsById.put(newProject.getId(), newProject);
+    addActiveProject(newProject);
 
     if (this.creatorDefaultPermissions) {
       // Add permission to project
       this.projectLoader.updatePermission(newProject, creator.getUserId(),
           new Permission(Permission.Type.ADMIN), false);
+      this.permissionIndex.index(newProject);
 
       // Add proxy user
       newProject.addProxyUser(creator.getUserId());
@@ -321,6 +400,9 @@ public class ProjectManager {
 
     this.projectsByName.remove(project.getName());
     this.projectsById.remove(project.getId());
+    this.lowerCaseNames.remove(project.getId());
+    this.permissionIndex.remove(project.getId());
+    this.flowCache.invalidate(project.getId());
 
     return project;
   }
@@ -403,6 +485,7 @@ public class ProjectManager {
         + " updating permissions for project " + project.getName() + " for "
         + name + " " + perm.toString());
     this.projectLoader.updatePermission(project, name, perm, group);
+    this.permissionIndex.index(project);
     if (group) {
       this.projectLoader.postEvent(project, EventType.GROUP_PERMISSION,
           modifier.getUserId(), "Permission for group " + name + " set to "
@@ -420,6 +503,7 @@ public class ProjectManager {
         + " removing permissions for project " + project.getName() + " for "
         + name);
     this.projectLoader.removePermission(project, name, group);
+    this.permissionIndex.index(project);
     if (group) {
       this.projectLoader.postEvent(project, EventType.GROUP_PERMISSION,
           modifier.getUserId(), "Permission for group " + name + " removed.");
@@ -451,8 +535,17 @@ public class ProjectManager {
   public Map<String, ValidationReport> uploadProject(final Project project,
       final File archive, final String fileType, final User uploader, final Props additionalProps)
       throws ProjectManagerException {
-    return this.azkabanProjectLoader
+    final Map<String, ValidationReport> reports = this.azkabanProjectLoader
         .uploadProject(project, archive, fileType, uploader, additionalProps);
+    if (this.lazyFlowLoading) {
+      // the flows of the new version were set on the project, hand them over to the cache
+      final Map<String, Flow> flows = project.getFlowMap();
+      if (flows != null) {
+        cacheProjectFlows(project.getId(), project.getVersion(), flows);
+      }
+      project.setFlowLoader(this::loadProjectFlows);
+    }
+    return reports;
   }
 
   public void updateFlow(final Project project, final Flow flow)
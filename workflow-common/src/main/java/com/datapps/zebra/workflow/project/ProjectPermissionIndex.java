@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.project;
+
+import com.datapps.zebra.workflow.user.Permission;
+import com.datapps.zebra.workflow.user.Permission.Type;
+import com.datapps.zebra.workflow.utils.Pair;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Inverted index from users and groups to the ids of the projects they can read, i.e. on which
+ * they have the READ or ADMIN permission.
+ *
+ * A project is re-indexed as a whole whenever its permissions change, which only costs the
+ * number of permissions of that project. Lookups never touch the projects themselves. Writes
+ * are serialized, reads are lock free and may observe a project being re-indexed.
+ */
+class ProjectPermissionIndex {
+
+  private final ConcurrentHashMap<String, NavigableSet<Integer>> projectsByUser =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, NavigableSet<Integer>> projectsByGroup =
+      new ConcurrentHashMap<>();
+  // users and groups each project is currently indexed under, guarded by this
+  private final Map<Integer, Pair<Set<String>, Set<String>>> indexedKeys = new HashMap<>();
+
+  private static boolean canRead(final Permission perm) {
+    return perm != null && (perm.isPermissionSet(Type.ADMIN) || perm.isPermissionSet(Type.READ));
+  }
+
+  private static Set<String> readers(final Collection<Pair<String, Permission>> permissions) {
+    final Set<String> readers = new HashSet<>();
+    for (final Pair<String, Permission> perm : permissions) {
+      if (canRead(perm.getSecond())) {
+        readers.add(perm.getFirst());
+      }
+    }
+    return readers;
+  }
+
+  private static void add(final Map<String, NavigableSet<Integer>> index,
+      final Set<String> keys, final int projectId) {
+    for (final String key : keys) {
+      index.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>()).add(projectId);
+    }
+  }
+
+  private static void remove(final Map<String, NavigableSet<Integer>> index,
+      final Set<String> keys, final int projectId) {
+    for (final String key : keys) {
+      index.computeIfPresent(key, (k, ids) -> {
+        ids.remove(projectId);
+        return ids.isEmpty() ? null : ids;
+      });
+    }
+  }
+
+  /**
+   * (Re)indexes a project from its current user and group permissions
+   */
+  public synchronized void index(final Project project) {
+    final int projectId = project.getId();
+    final Set<String> users = readers(project.getUserPermissions());
+    final Set<String> groups = readers(project.getGroupPermissions());
+
+    final Pair<Set<String>, Set<String>> previous = this.indexedKeys.get(projectId);
+    if (previous != null) {
+      remove(this.projectsByUser, diff(previous.getFirst(), users), projectId);
+      remove(this.projectsByGroup, diff(previous.getSecond(), groups), projectId);
+    }
+    add(this.projectsByUser, users, projectId);
+    add(this.projectsByGroup, groups, projectId);
+    this.indexedKeys.put(projectId, new Pair<>(users, groups));
+  }
+
+  public synchronized void remove(final int projectId) {
+    final Pair<Set<String>, Set<String>> previous = this.indexedKeys.remove(projectId);
+    if (previous != null) {
+      remove(this.projectsByUser, previous.getFirst(), projectId);
+      remove(this.projectsByGroup, previous.getSecond(), projectId);
+    }
+  }
+
+  private static Set<String> diff(final Set<String> from, final Set<String> minus) {
+    final Set<String> diff = new HashSet<>(from);
+    diff.removeAll(minus);
+    return diff;
+  }
+
+  /**
+   * Ids of the projects the user can read through a user permission, in ascending order
+   */
+  public Set<Integer> getUserProjectIds(final String userId) {
+    final Set<Integer> ids = this.projectsByUser.get(userId);
+    return ids == null ? Collections.emptySet() : ids;
+  }
+
+  /**
+   * Ids of the projects any of the groups can read, in ascending order
+   */
+  public Set<Integer> getGroupProjectIds(final Collection<String> groups) {
+    final Set<Integer> ids = new TreeSet<>();
+    for (final String group : groups) {
+      final Set<Integer> groupIds = this.projectsByGroup.get(group);
+      if (groupIds != null) {
+        ids.addAll(groupIds);
+      }
+    }
+    return ids;
+  }
+}
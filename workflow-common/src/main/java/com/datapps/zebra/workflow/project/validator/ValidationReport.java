@@ -51,6 +51,15 @@ public class ValidationReport {
     return msg;
   }
 
+  /**
+   * Add an information message which is not associated with warning or error messages
+   */
+  public void addInfoMsg(final String msg) {
+    if (msg != null) {
+      this._infoMsgs.add(msg);
+    }
+  }
+
   /**
    * Add an information message associated with warning messages
    */
@@ -29,4 +29,9 @@ public interface ScheduleLoader {
   public void updateNextExecTime(Schedule s) throws ScheduleManagerException;
 
   public List<Schedule> loadUpdatedSchedules() throws ScheduleManagerException;
+
+  /**
+   * Cheap check whether {@link #loadUpdatedSchedules()} would return anything
+   */
+  public boolean hasUpdatedSchedules();
 }
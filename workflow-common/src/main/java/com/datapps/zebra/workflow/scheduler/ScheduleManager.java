@@ -30,9 +30,12 @@ import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * The ScheduleManager stores and executes the schedule. It uses a single thread
@@ -50,10 +53,13 @@ public class ScheduleManager implements TriggerAgent {
       .forPattern("MM-dd-yyyy HH:mm:ss:SSS");
   private final ScheduleLoader loader;
 
+  // indexes are only written under the manager lock, reads are lock free
   private final Map<Integer, Schedule> scheduleIDMap =
-      new LinkedHashMap<>();
+      new ConcurrentSkipListMap<>();
   private final Map<Pair<Integer, String>, Schedule> scheduleIdentityPairMap =
-      new LinkedHashMap<>();
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<Integer, Map<String, Schedule>> scheduleProjectMap =
+      new ConcurrentHashMap<>();
 
   /**
    * Give the schedule manager a loader class that will properly load the
@@ -73,13 +79,18 @@ public class ScheduleManager implements TriggerAgent {
   }
 
   // only do this when using external runner
-  private synchronized void updateLocal() throws ScheduleManagerException {
-    final List<Schedule> updates = this.loader.loadUpdatedSchedules();
-    for (final Schedule s : updates) {
-      if (s.getStatus().equals(TriggerStatus.EXPIRED.toString())) {
-        onScheduleExpire(s);
-      } else {
-        internalSchedule(s);
+  private void updateLocal() throws ScheduleManagerException {
+    if (!this.loader.hasUpdatedSchedules()) {
+      return;
+    }
+    synchronized (this) {
+      final List<Schedule> updates = this.loader.loadUpdatedSchedules();
+      for (final Schedule s : updates) {
+        if (s.getStatus().equals(TriggerStatus.EXPIRED.toString())) {
+          onScheduleExpire(s);
+        } else {
+          internalSchedule(s);
+        }
       }
     }
   }
@@ -101,13 +112,27 @@ public class ScheduleManager implements TriggerAgent {
    * Retrieves a copy of the list of schedules.
    *
    */
-  public synchronized List<Schedule> getSchedules()
+  public List<Schedule> getSchedules()
       throws ScheduleManagerException {
 
     updateLocal();
     return new ArrayList<>(this.scheduleIDMap.values());
   }
 
+  /**
+   * Returns the schedules of all flows of a project
+   *
+   */
+  public List<Schedule> getSchedulesByProject(final int projectId)
+      throws ScheduleManagerException {
+    updateLocal();
+    final Map<String, Schedule> schedules = this.scheduleProjectMap.get(projectId);
+    if (schedules == null) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(schedules.values());
+  }
+
   /**
    * Returns the scheduled flow for the flow name
    *
@@ -140,6 +165,7 @@ public class ScheduleManager implements TriggerAgent {
     final Schedule schedule = this.scheduleIdentityPairMap.get(identityPairMap);
     if (schedule != null) {
       this.scheduleIdentityPairMap.remove(identityPairMap);
+      removeFromProjectIndex(schedule);
     }
 
     this.scheduleIDMap.remove(sched.getScheduleId());
@@ -210,6 +236,15 @@ public class ScheduleManager implements TriggerAgent {
   private synchronized void internalSchedule(final Schedule s) {
     this.scheduleIDMap.put(s.getScheduleId(), s);
     this.scheduleIdentityPairMap.put(s.getScheduleIdentityPair(), s);
+    this.scheduleProjectMap.computeIfAbsent(s.getProjectId(), id -> new ConcurrentHashMap<>())
+        .put(s.getFlowName(), s);
+  }
+
+  private void removeFromProjectIndex(final Schedule s) {
+    this.scheduleProjectMap.computeIfPresent(s.getProjectId(), (id, schedules) -> {
+      schedules.remove(s.getFlowName());
+      return schedules.isEmpty() ? null : schedules;
+    });
   }
 
   /**
@@ -25,8 +25,11 @@ import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class TriggerBasedScheduleLoader implements ScheduleLoader {
 
@@ -37,12 +40,19 @@ public class TriggerBasedScheduleLoader implements ScheduleLoader {
 
   private final String triggerSource;
 
-  private long lastUpdateTime = -1;
+  // schedule triggers modified since the last load, published by the TriggerManager
+  private final Queue<Trigger> changeLog = new ConcurrentLinkedQueue<>();
+  private volatile boolean initialLoadDone = false;
 
   @Inject
   public TriggerBasedScheduleLoader(final TriggerManager triggerManager) {
     this.triggerManager = triggerManager;
     this.triggerSource = ScheduleManager.SIMPLE_TIME_TRIGGER;
+    this.triggerManager.addTriggerUpdateListener(t -> {
+      if (this.triggerSource.equals(t.getSource())) {
+        this.changeLog.add(t);
+      }
+    });
   }
 
   private Trigger scheduleToTrigger(final Schedule s) {
@@ -195,20 +205,38 @@ public class TriggerBasedScheduleLoader implements ScheduleLoader {
 
   }
 
+  @Override
+  public boolean hasUpdatedSchedules() {
+    return !this.initialLoadDone || !this.changeLog.isEmpty();
+  }
+
+  /**
+   * The first call loads every schedule trigger, later calls only convert the triggers published
+   * in the change log since the previous call.
+   */
   @Override
   public synchronized List<Schedule> loadUpdatedSchedules()
       throws ScheduleManagerException {
-    final List<Trigger> triggers;
-    try {
-      triggers =
-          this.triggerManager.getTriggerUpdates(this.triggerSource, this.lastUpdateTime);
-    } catch (final TriggerManagerException e) {
-      e.printStackTrace();
-      throw new ScheduleManagerException(e);
+    // the same trigger may have been published several times, keep the latest position
+    final Map<Integer, Trigger> triggers = new LinkedHashMap<>();
+    if (!this.initialLoadDone) {
+      for (final Trigger t : this.triggerManager.getTriggers(this.triggerSource)) {
+        triggers.put(t.getTriggerId(), t);
+      }
+      this.initialLoadDone = true;
     }
-    final List<Schedule> schedules = new ArrayList<>();
-    for (final Trigger t : triggers) {
-      this.lastUpdateTime = Math.max(this.lastUpdateTime, t.getLastModifyTime());
+    Trigger changed;
+    while ((changed = this.changeLog.poll()) != null) {
+      triggers.remove(changed.getTriggerId());
+      // skip triggers removed since they were published
+      final Trigger current = this.triggerManager.getTrigger(changed.getTriggerId());
+      if (current != null) {
+        triggers.put(current.getTriggerId(), current);
+      }
+    }
+
+    final List<Schedule> schedules = new ArrayList<>(triggers.size());
+    for (final Trigger t : triggers.values()) {
       final Schedule s = triggerToSchedule(t);
       schedules.add(s);
       logger.info("loaded schedule for "
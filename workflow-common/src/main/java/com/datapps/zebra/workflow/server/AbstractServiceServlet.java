@@ -17,7 +17,7 @@
 package com.datapps.zebra.workflow.server;
 
 import com.datapps.zebra.workflow.Constants;
-import org.codehaus.jackson.map.ObjectMapper;
+import com.datapps.zebra.workflow.utils.JSONUtils;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -25,7 +25,6 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.OutputStream;
 
 public class AbstractServiceServlet extends HttpServlet {
 
@@ -48,9 +47,7 @@ public class AbstractServiceServlet extends HttpServlet {
   protected void writeJSON(final HttpServletResponse resp, final Object obj)
       throws IOException {
     resp.setContentType(JSON_MIME_TYPE);
-    final ObjectMapper mapper = new ObjectMapper();
-    final OutputStream stream = resp.getOutputStream();
-    mapper.writeValue(stream, obj);
+    JSONUtils.toJSON(resp.getOutputStream(), generator -> generator.writeObject(obj));
   }
 
   public boolean hasParam(final HttpServletRequest request, final String param) {
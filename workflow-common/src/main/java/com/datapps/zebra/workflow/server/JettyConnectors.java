@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.server;
+
+import com.datapps.zebra.workflow.utils.Props;
+import org.apache.log4j.Logger;
+import org.mortbay.jetty.AbstractConnector;
+import org.mortbay.jetty.bio.SocketConnector;
+import org.mortbay.jetty.nio.SelectChannelConnector;
+import org.mortbay.jetty.security.SslSelectChannelConnector;
+import org.mortbay.jetty.security.SslSocketConnector;
+
+import java.util.List;
+
+/**
+ * Creates the Jetty connectors of the web and executor servers.
+ *
+ * The settings of a server share a prefix, "jetty" for the web server and "executor" for the
+ * executor server:
+ * <prefix>.connector.nio - use the selector based connectors (default true), idle keep-alive
+ * connections then hold no thread
+ * <prefix>.connector.stats - collect the connector statistics (default true)
+ * <prefix>.keystore, <prefix>.password, <prefix>.keypassword, <prefix>.truststore,
+ * <prefix>.trustpassword, <prefix>.excludeCipherSuites - the SSL settings
+ */
+public final class JettyConnectors {
+
+  private static final Logger logger = Logger.getLogger(JettyConnectors.class);
+
+  private JettyConnectors() {
+  }
+
+  /**
+   * @return a plain http connector listening on the given port
+   */
+  public static AbstractConnector createConnector(final Props props, final String prefix,
+      final int port, final int headerBufferSize) {
+    final boolean useNio = useNio(props, prefix);
+    final AbstractConnector connector =
+        useNio ? new SelectChannelConnector() : new SocketConnector();
+    return configure(props, prefix, connector, port, headerBufferSize);
+  }
+
+  /**
+   * @return an https connector listening on the given port
+   */
+  public static AbstractConnector createSslConnector(final Props props, final String prefix,
+      final int port, final int headerBufferSize) {
+    final List<String> cipherSuitesToExclude = props
+        .getStringList(prefix + ".excludeCipherSuites");
+    logger.info("Excluded Cipher Suites: " + String.valueOf(cipherSuitesToExclude));
+    final String[] excludeCipherSuites =
+        cipherSuitesToExclude != null && !cipherSuitesToExclude.isEmpty()
+            ? cipherSuitesToExclude.toArray(new String[0]) : null;
+
+    final AbstractConnector connector;
+    if (useNio(props, prefix)) {
+      final SslSelectChannelConnector sslConnector = new SslSelectChannelConnector();
+      sslConnector.setKeystore(props.getString(prefix + ".keystore"));
+      sslConnector.setPassword(props.getString(prefix + ".password"));
+      sslConnector.setKeyPassword(props.getString(prefix + ".keypassword"));
+      sslConnector.setTruststore(props.getString(prefix + ".truststore"));
+      sslConnector.setTrustPassword(props.getString(prefix + ".trustpassword"));
+      if (excludeCipherSuites != null) {
+        sslConnector.setExcludeCipherSuites(excludeCipherSuites);
+      }
+      connector = sslConnector;
+    } else {
+      final SslSocketConnector sslConnector = new SslSocketConnector();
+      sslConnector.setKeystore(props.getString(prefix + ".keystore"));
+      sslConnector.setPassword(props.getString(prefix + ".password"));
+      sslConnector.setKeyPassword(props.getString(prefix + ".keypassword"));
+      sslConnector.setTruststore(props.getString(prefix + ".truststore"));
+      sslConnector.setTrustPassword(props.getString(prefix + ".trustpassword"));
+      if (excludeCipherSuites != null) {
+        sslConnector.setExcludeCipherSuites(excludeCipherSuites);
+      }
+      connector = sslConnector;
+    }
+    return configure(props, prefix, connector, port, headerBufferSize);
+  }
+
+  private static boolean useNio(final Props props, final String prefix) {
+    final boolean useNio = props.getBoolean(prefix + ".connector.nio", true);
+    logger.info("Setting up " + (useNio ? "NIO" : "blocking") + " connector");
+    return useNio;
+  }
+
+  private static AbstractConnector configure(final Props props, final String prefix,
+      final AbstractConnector connector, final int port, final int headerBufferSize) {
+    final boolean isStatsOn = props.getBoolean(prefix + ".connector.stats", true);
+    logger.info("Setting up connector with stats on: " + isStatsOn);
+    connector.setPort(port);
+    connector.setStatsOn(isStatsOn);
+    connector.setHeaderBufferSize(headerBufferSize);
+    return connector;
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.server;
+
+import org.apache.log4j.Logger;
+import org.mortbay.util.ajax.Continuation;
+import org.mortbay.util.ajax.ContinuationSupport;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of concurrent long running requests (log fetches, etc.) selected by the
+ * value of a request parameter.
+ *
+ * Requests over the limit are suspended with a Jetty continuation. With the NIO
+ * SelectChannelConnector a suspended request does not hold a thread, it is redispatched once a
+ * running request hands over its slot or the suspend timeout expires. With the blocking
+ * connectors the continuation simply waits on the calling thread. Requests still waiting at the
+ * timeout are answered with 503.
+ */
+public class RequestLimitFilter implements Filter {
+
+  private static final Logger logger = Logger.getLogger(RequestLimitFilter.class);
+  private static final String SUSPENDED_ATTR = RequestLimitFilter.class.getName() + ".suspended";
+
+  private final String paramName;
+  private final Set<String> limitedValues;
+  private final int maxRequests;
+  private final long suspendMs;
+  private final Semaphore permits;
+  private final Queue<Continuation> waiting = new ConcurrentLinkedQueue<>();
+  private final AtomicLong suspendedCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  /**
+   * @param paramName request parameter selecting the limited requests, e.g. "ajax"
+   * @param limitedValues values of the parameter which are limited
+   * @param maxRequests maximum number of limited requests running at the same time
+   * @param suspendMs how long a request waits for a slot before being rejected
+   */
+  public RequestLimitFilter(final String paramName, final Set<String> limitedValues,
+      final int maxRequests, final long suspendMs) {
+    if (maxRequests <= 0) {
+      throw new IllegalArgumentException("maxRequests must be positive, was " + maxRequests);
+    }
+    this.paramName = paramName;
+    this.limitedValues = new HashSet<>(limitedValues);
+    this.maxRequests = maxRequests;
+    this.suspendMs = suspendMs;
+    this.permits = new Semaphore(maxRequests);
+  }
+
+  @Override
+  public void init(final FilterConfig filterConfig) throws ServletException {
+    logger.info("Limiting " + this.paramName + " " + this.limitedValues + " to "
+        + this.maxRequests + " concurrent requests");
+  }
+
+  @Override
+  public void doFilter(final ServletRequest request, final ServletResponse response,
+      final FilterChain chain) throws IOException, ServletException {
+    if (!this.limitedValues.contains(request.getParameter(this.paramName))) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    final boolean accepted;
+    if (request.getAttribute(SUSPENDED_ATTR) == null) {
+      accepted = acquire((HttpServletRequest) request);
+    } else {
+      // redispatched by the NIO connector after a resume or a timeout
+      accepted = onWakeUp(
+          ContinuationSupport.getContinuation((HttpServletRequest) request, null));
+    }
+
+    if (!accepted) {
+      this.rejectedCount.incrementAndGet();
+      ((HttpServletResponse) response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+          "Too many concurrent requests, please retry later.");
+      return;
+    }
+
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      release();
+    }
+  }
+
+  private boolean acquire(final HttpServletRequest request) {
+    if (this.permits.tryAcquire()) {
+      return true;
+    }
+
+    request.setAttribute(SUSPENDED_ATTR, Boolean.TRUE);
+    final Continuation continuation = ContinuationSupport.getContinuation(request, null);
+    this.waiting.add(continuation);
+    // a slot may have been freed before the continuation was queued
+    if (this.permits.tryAcquire()) {
+      if (!this.waiting.remove(continuation)) {
+        // a slot was also handed over to this request
+        this.permits.release();
+      }
+      return true;
+    }
+
+    this.suspendedCount.incrementAndGet();
+    // NIO: throws a RetryRequest releasing the thread, the request comes back through doFilter.
+    // BIO: blocks until resumed or expired.
+    continuation.suspend(this.suspendMs);
+    return onWakeUp(continuation);
+  }
+
+  private boolean onWakeUp(final Continuation continuation) {
+    if (this.waiting.remove(continuation)) {
+      // expired while still queued
+      return this.permits.tryAcquire();
+    }
+    // polled by a finishing request which handed its slot over
+    return true;
+  }
+
+  private void release() {
+    final Continuation next = this.waiting.poll();
+    if (next != null) {
+      next.resume();
+    } else {
+      this.permits.release();
+    }
+  }
+
+  @Override
+  public void destroy() {
+  }
+
+  public int getMaxRequests() {
+    return this.maxRequests;
+  }
+
+  /**
+   * Number of limited requests currently running
+   */
+  public int getRunningRequests() {
+    return this.maxRequests - this.permits.availablePermits();
+  }
+
+  /**
+   * Number of limited requests currently waiting for a slot
+   */
+  public int getWaitingRequests() {
+    return this.waiting.size();
+  }
+
+  /**
+   * Total number of limited requests which had to be suspended
+   */
+  public long getSuspendedCount() {
+    return this.suspendedCount.get();
+  }
+
+  /**
+   * Total number of limited requests rejected after waiting for a slot
+   */
+  public long getRejectedCount() {
+    return this.rejectedCount.get();
+  }
+}
@@ -12,6 +12,7 @@ import org.apache.log4j.Logger;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.PriorityBlockingQueue;
 
 import static java.util.Objects.requireNonNull;
@@ -30,6 +31,7 @@ public class TriggerManager extends EventHandler implements
   private final ActionTypeLoader actionTypeLoader;
   private final TriggerLoader triggerLoader;
   private final LocalTriggerJMX jmxStats = new LocalTriggerJMX();
+  private final List<TriggerUpdateListener> updateListeners = new CopyOnWriteArrayList<>();
   private long lastRunnerThreadCheckTime = -1;
   private long runnerThreadIdleTime = -1;
   private String scannerStage = "";
@@ -101,6 +103,7 @@ public class TriggerManager extends EventHandler implements
       this.runnerThread.addTrigger(t);
       triggerIdMap.put(t.getTriggerId(), t);
     }
+    publishUpdate(t);
   }
 
   public void removeTrigger(final int id) throws TriggerManagerException {
@@ -120,6 +123,7 @@ public class TriggerManager extends EventHandler implements
       this.runnerThread.addTrigger(t);
       triggerIdMap.put(t.getTriggerId(), t);
     }
+    publishUpdate(t);
   }
 
   public void removeTrigger(final Trigger t) throws TriggerManagerException {
@@ -144,6 +148,7 @@ public class TriggerManager extends EventHandler implements
     return this.checkerTypeLoader.getSupportedCheckers();
   }
 
+  @Override
   public Trigger getTrigger(final int triggerId) {
     synchronized (this.syncObj) {
       return triggerIdMap.get(triggerId);
@@ -153,6 +158,7 @@ public class TriggerManager extends EventHandler implements
   public void expireTrigger(final int triggerId) {
     final Trigger t = getTrigger(triggerId);
     t.setStatus(TriggerStatus.EXPIRED);
+    publishUpdate(t);
   }
 
   @Override
@@ -218,6 +224,21 @@ public class TriggerManager extends EventHandler implements
     return this.jmxStats;
   }
 
+  @Override
+  public void addTriggerUpdateListener(final TriggerUpdateListener listener) {
+    this.updateListeners.add(listener);
+  }
+
+  private void publishUpdate(final Trigger t) {
+    for (final TriggerUpdateListener listener : this.updateListeners) {
+      try {
+        listener.triggerUpdated(t);
+      } catch (final Exception e) {
+        logger.error("Failed to publish update of trigger " + t.getTriggerId(), e);
+      }
+    }
+  }
+
   @Override
   public void registerCheckerType(final String name,
                                   final Class<? extends ConditionChecker> checker) {
@@ -353,6 +374,7 @@ public class TriggerManager extends EventHandler implements
       } catch (final TriggerLoaderException e) {
         throw new TriggerManagerException(e);
       }
+      publishUpdate(t);
     }
 
     private void onTriggerPause(final Trigger t) throws TriggerManagerException {
@@ -374,6 +396,7 @@ public class TriggerManager extends EventHandler implements
       } catch (final TriggerLoaderException e) {
         throw new TriggerManagerException(e);
       }
+      publishUpdate(t);
     }
 
     private class TriggerComparator implements Comparator<Trigger> {
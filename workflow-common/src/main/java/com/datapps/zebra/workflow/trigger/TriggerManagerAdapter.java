@@ -37,6 +37,8 @@ public interface TriggerManagerAdapter {
 
   public List<Trigger> getTriggers(String trigegerSource);
 
+  public Trigger getTrigger(int triggerId);
+
   public void start() throws TriggerManagerException;
 
   public void shutdown();
@@ -49,6 +51,16 @@ public interface TriggerManagerAdapter {
 
   public TriggerJMX getJMX();
 
+  /**
+   * Register a listener notified every time a trigger is inserted or modified
+   */
+  public void addTriggerUpdateListener(TriggerUpdateListener listener);
+
+  public interface TriggerUpdateListener {
+
+    public void triggerUpdated(Trigger t);
+  }
+
   public interface TriggerJMX {
 
     public long getLastRunnerThreadCheckTime();
@@ -36,6 +36,8 @@ public class SlaChecker implements ConditionChecker {
   private final SlaOption slaOption;
   private final int execId;
   private final ExecutorLoader executorLoader;
+  // live flow held by the local FlowRunner, null if the flow has to be fetched from the db
+  private final ExecutableFlow runningFlow;
   private long checkTime = -1;
 
   //todo chengren311: move this class to executor module when all existing triggers in db are expired
@@ -43,9 +45,21 @@ public class SlaChecker implements ConditionChecker {
     this.id = id;
     this.slaOption = slaOption;
     this.execId = execId;
+    this.runningFlow = null;
     this.executorLoader = ServiceProvider.SERVICE_PROVIDER.getInstance(ExecutorLoader.class);
   }
 
+  /**
+   * Checker reading the in-memory flow of a local FlowRunner instead of fetching it from the db
+   */
+  public SlaChecker(final String id, final SlaOption slaOption, final ExecutableFlow flow) {
+    this.id = id;
+    this.slaOption = slaOption;
+    this.execId = flow.getExecutionId();
+    this.runningFlow = flow;
+    this.executorLoader = null;
+  }
+
   public static SlaChecker createFromJson(final Object obj) throws Exception {
     return createFromJson((HashMap<String, Object>) obj);
   }
@@ -207,26 +221,24 @@ public class SlaChecker implements ConditionChecker {
     return Boolean.FALSE;
   }
 
+  private ExecutableFlow fetchFlow() throws ExecutorManagerException {
+    if (this.runningFlow != null) {
+      return this.runningFlow;
+    }
+    return this.executorLoader.fetchExecutableFlow(this.execId);
+  }
+
   // return true to trigger sla action
   @Override
   public Object eval() {
     logger.info("Checking sla for execution " + this.execId);
-    final ExecutableFlow flow;
-    try {
-      flow = this.executorLoader.fetchExecutableFlow(this.execId);
-    } catch (final ExecutorManagerException e) {
-      logger.error("Can't get executable flow.", e);
-      e.printStackTrace();
-      // something wrong, send out alerts
-      return Boolean.TRUE;
-    }
-    return isSlaMissed(flow);
+    return isSlaFailed();
   }
 
   public Object isSlaFailed() {
     final ExecutableFlow flow;
     try {
-      flow = this.executorLoader.fetchExecutableFlow(this.execId);
+      flow = fetchFlow();
     } catch (final ExecutorManagerException e) {
       logger.error("Can't get executable flow.", e);
       // something wrong, send out alerts
@@ -238,7 +250,7 @@ public class SlaChecker implements ConditionChecker {
   public Object isSlaPassed() {
     final ExecutableFlow flow;
     try {
-      flow = this.executorLoader.fetchExecutableFlow(this.execId);
+      flow = fetchFlow();
     } catch (final ExecutorManagerException e) {
       logger.error("Can't get executable flow.", e);
       // something wrong, send out alerts
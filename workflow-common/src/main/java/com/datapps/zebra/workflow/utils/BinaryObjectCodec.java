@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary encoding of the object trees built by the toObject() methods, such as the ones
+ * of ExecutableFlow and Flow, used in place of gzipped JSON.
+ *
+ * Each string is written once, the next occurrences, like the field names repeated for every
+ * node and the node ids and types, refer to its index. Integers are written as zigzag varints.
+ * The body is deflated at the fastest level after a header made of a magic number and the
+ * version of the format.
+ *
+ * Decoding gives the same tree as parsing the JSON would: ordered maps, lists, strings,
+ * booleans, doubles, and Integer or Long depending on the value.
+ */
+public class BinaryObjectCodec {
+
+  public static final int VERSION = 1;
+
+  private static final int MAGIC = 0xA2B0;
+
+  private static final int NULL = 0;
+  private static final int FALSE = 1;
+  private static final int TRUE = 2;
+  private static final int INT = 3;
+  private static final int LONG = 4;
+  private static final int DOUBLE = 5;
+  private static final int STRING = 6;
+  private static final int STRING_REF = 7;
+  private static final int LIST = 8;
+  private static final int MAP = 9;
+
+  private BinaryObjectCodec() {
+  }
+
+  public static byte[] encode(final Object obj) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream header = new DataOutputStream(bytes);
+    header.writeShort(MAGIC);
+    header.writeByte(VERSION);
+
+    final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new DeflaterOutputStream(bytes, deflater), 8192))) {
+      new Writer(out).write(obj);
+    } finally {
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @return true if the data has been encoded by this codec
+   */
+  public static boolean isEncoded(final byte[] data) {
+    return data.length >= 3 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF)) == MAGIC;
+  }
+
+  public static Object decode(final byte[] data) throws IOException {
+    if (!isEncoded(data)) {
+      throw new IOException("Data isn't binary encoded");
+    }
+    if (data[2] != VERSION) {
+      throw new IOException("Unsupported binary encoding version " + data[2]);
+    }
+
+    final Inflater inflater = new Inflater(true);
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new InflaterInputStream(new ByteArrayInputStream(data, 3, data.length - 3), inflater),
+        8192))) {
+      return new Reader(in).read();
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static class Writer {
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    private Writer(final DataOutputStream out) {
+      this.out = out;
+    }
+
+    private void write(final Object obj) throws IOException {
+      if (obj == null) {
+        this.out.writeByte(NULL);
+      } else if (obj instanceof String) {
+        writeString((String) obj);
+      } else if (obj instanceof Boolean) {
+        this.out.writeByte((Boolean) obj ? TRUE : FALSE);
+      } else if (obj instanceof Integer || obj instanceof Long || obj instanceof Short
+          || obj instanceof Byte) {
+        final long value = ((Number) obj).longValue();
+        // same types as the JSON parser gives back
+        this.out.writeByte(value == (int) value ? INT : LONG);
+        writeVarLong(value << 1 ^ value >> 63);
+      } else if (obj instanceof Number) {
+        this.out.writeByte(DOUBLE);
+        this.out.writeDouble(((Number) obj).doubleValue());
+      } else if (obj instanceof Map) {
+        final Map<?, ?> map = (Map<?, ?>) obj;
+        this.out.writeByte(MAP);
+        writeVarLong(map.size());
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+          writeString(String.valueOf(entry.getKey()));
+          write(entry.getValue());
+        }
+      } else if (obj instanceof Collection) {
+        final Collection<?> list = (Collection<?>) obj;
+        this.out.writeByte(LIST);
+        writeVarLong(list.size());
+        for (final Object value : list) {
+          write(value);
+        }
+      } else {
+        throw new IllegalArgumentException(
+            "Unsupported type for binary encoding " + obj.getClass().getName());
+      }
+    }
+
+    private void writeString(final String value) throws IOException {
+      final Integer index = this.strings.get(value);
+      if (index != null) {
+        this.out.writeByte(STRING_REF);
+        writeVarLong(index);
+        return;
+      }
+      this.strings.put(value, this.strings.size());
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      this.out.writeByte(STRING);
+      writeVarLong(bytes.length);
+      this.out.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+      while ((value & ~0x7FL) != 0) {
+        this.out.writeByte((int) (value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      this.out.writeByte((int) value);
+    }
+  }
+
+  private static class Reader {
+
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+
+    private Reader(final DataInputStream in) {
+      this.in = in;
+    }
+
+    private Object read() throws IOException {
+      final int tag = this.in.read();
+      switch (tag) {
+        case NULL:
+          return null;
+        case FALSE:
+          return Boolean.FALSE;
+        case TRUE:
+          return Boolean.TRUE;
+        case INT:
+          return (int) readZigZag();
+        case LONG:
+          return readZigZag();
+        case DOUBLE:
+          return this.in.readDouble();
+        case STRING:
+        case STRING_REF:
+          return readString(tag);
+        case LIST: {
+          final int size = readSize();
+          final List<Object> list = new ArrayList<>(size);
+          for (int i = 0; i < size; i++) {
+            list.add(read());
+          }
+          return list;
+        }
+        case MAP: {
+          final int size = readSize();
+          final Map<String, Object> map = new LinkedHashMap<>();
+          for (int i = 0; i < size; i++) {
+            final String key = readString(this.in.read());
+            map.put(key, read());
+          }
+          return map;
+        }
+        case -1:
+          throw new EOFException("Binary encoded data is truncated");
+        default:
+          throw new IOException("Unknown binary encoding tag " + tag);
+      }
+    }
+
+    private String readString(final int tag) throws IOException {
+      if (tag == STRING_REF) {
+        final int index = readSize();
+        if (index >= this.strings.size()) {
+          throw new IOException("Unknown string reference " + index);
+        }
+        return this.strings.get(index);
+      } else if (tag != STRING) {
+        throw new IOException("Expected a string, found tag " + tag);
+      }
+      final byte[] bytes = new byte[readSize()];
+      this.in.readFully(bytes);
+      final String value = new String(bytes, StandardCharsets.UTF_8);
+      this.strings.add(value);
+      return value;
+    }
+
+    private long readZigZag() throws IOException {
+      final long value = readVarLong();
+      return value >>> 1 ^ -(value & 1);
+    }
+
+    private int readSize() throws IOException {
+      final long size = readVarLong();
+      if (size < 0 || size > Integer.MAX_VALUE) {
+        throw new IOException("Invalid size " + size);
+      }
+      return (int) size;
+    }
+
+    private long readVarLong() throws IOException {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final int b = this.in.readUnsignedByte();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed varint");
+    }
+  }
+}
@@ -16,20 +16,28 @@
 
 package com.datapps.zebra.workflow.utils;
 
-import org.codehaus.jackson.JsonFactory;
-import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.ObjectWriter;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 public class JSONUtils {
 
+  /**
+   * Shared by all the calls, the mapper is thread safe once configured and reuses its
+   * serializers and the buffers of its factory.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+
   /**
    * The constructor. Cannot construct this class.
    */
@@ -41,14 +49,11 @@ public class JSONUtils {
   }
 
   public static String toJSON(final Object obj, final boolean prettyPrint) {
-    final ObjectMapper mapper = new ObjectMapper();
-
     try {
       if (prettyPrint) {
-        final ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
-        return writer.writeValueAsString(obj);
+        return PRETTY_WRITER.writeValueAsString(obj);
       }
-      return mapper.writeValueAsString(obj);
+      return MAPPER.writeValueAsString(obj);
     } catch (final Exception e) {
       throw new RuntimeException(e);
     }
@@ -60,14 +65,12 @@ public class JSONUtils {
 
   public static void toJSON(final Object obj, final OutputStream stream,
       final boolean prettyPrint) {
-    final ObjectMapper mapper = new ObjectMapper();
     try {
       if (prettyPrint) {
-        final ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
-        writer.writeValue(stream, obj);
+        PRETTY_WRITER.writeValue(stream, obj);
         return;
       }
-      mapper.writeValue(stream, obj);
+      MAPPER.writeValue(stream, obj);
     } catch (final Exception e) {
       throw new RuntimeException(e);
     }
@@ -88,6 +91,27 @@ public class JSONUtils {
     }
   }
 
+  /**
+   * Writes json to the stream with a generator, for the responses that are worth writing
+   * field by field instead of building the map of the whole response first. Values that aren't
+   * simple types can still be written with {@link JsonGenerator#writeObject(Object)}. The stream
+   * is closed once written.
+   */
+  public static void toJSON(final OutputStream stream, final JsonStreamWriter writer)
+      throws IOException {
+    final JsonGenerator generator = createJsonGenerator(stream);
+    try {
+      writer.write(generator);
+    } finally {
+      generator.close();
+    }
+  }
+
+  public static JsonGenerator createJsonGenerator(final OutputStream stream)
+      throws IOException {
+    return MAPPER.getJsonFactory().createJsonGenerator(stream, JsonEncoding.UTF8);
+  }
+
   public static Object parseJSONFromStringQuiet(final String json) {
     try {
       return parseJSONFromString(json);
@@ -98,70 +122,73 @@ public class JSONUtils {
   }
 
   public static Object parseJSONFromString(final String json) throws IOException {
-    final ObjectMapper mapper = new ObjectMapper();
-    final JsonFactory factory = new JsonFactory();
-    final JsonParser parser = factory.createJsonParser(json);
-    final JsonNode node = mapper.readTree(parser);
-
-    return toObjectFromJSONNode(node);
+    return parseJSON(MAPPER.getJsonFactory().createJsonParser(json));
   }
 
   public static Object parseJSONFromFile(final File file) throws IOException {
-    final ObjectMapper mapper = new ObjectMapper();
-    final JsonFactory factory = new JsonFactory();
-    final JsonParser parser = factory.createJsonParser(file);
-    final JsonNode node = mapper.readTree(parser);
-
-    return toObjectFromJSONNode(node);
+    final JsonParser parser = MAPPER.getJsonFactory().createJsonParser(file);
+    try {
+      return parseJSON(parser);
+    } finally {
+      parser.close();
+    }
   }
 
   public static Object parseJSONFromReader(final Reader reader) throws IOException {
-    final ObjectMapper mapper = new ObjectMapper();
-    final JsonFactory factory = new JsonFactory();
-    final JsonParser parser = factory.createJsonParser(reader);
-    final JsonNode node = mapper.readTree(parser);
+    return parseJSON(MAPPER.getJsonFactory().createJsonParser(reader));
+  }
 
-    return toObjectFromJSONNode(node);
+  /**
+   * Reads the next value straight from the tokens, without building the tree of json nodes
+   * first. Objects are read as HashMaps, arrays as ArrayLists and numbers as Integer, Long or
+   * Double.
+   */
+  private static Object parseJSON(final JsonParser parser) throws IOException {
+    final JsonToken token = parser.nextToken();
+    return token == null ? null : readValue(parser, token);
   }
 
-  private static Object toObjectFromJSONNode(final JsonNode node) {
-    if (node.isObject()) {
-      final HashMap<String, Object> obj = new HashMap<>();
-      final Iterator<String> iter = node.getFieldNames();
-      while (iter.hasNext()) {
-        final String fieldName = iter.next();
-        final JsonNode subNode = node.get(fieldName);
-        final Object subObj = toObjectFromJSONNode(subNode);
-        obj.put(fieldName, subObj);
+  private static Object readValue(final JsonParser parser, final JsonToken token)
+      throws IOException {
+    if (token == null) {
+      throw new EOFException("Unexpected end of json input");
+    }
+    switch (token) {
+      case START_OBJECT: {
+        final Map<String, Object> obj = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          final String fieldName = parser.getCurrentName();
+          obj.put(fieldName, readValue(parser, parser.nextToken()));
+        }
+        return obj;
       }
-
-      return obj;
-    } else if (node.isArray()) {
-      final ArrayList<Object> array = new ArrayList<>();
-      final Iterator<JsonNode> iter = node.getElements();
-      while (iter.hasNext()) {
-        final JsonNode element = iter.next();
-        final Object subObject = toObjectFromJSONNode(element);
-        array.add(subObject);
+      case START_ARRAY: {
+        final List<Object> array = new ArrayList<>();
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+          array.add(readValue(parser, element));
+        }
+        return array;
       }
-      return array;
-    } else if (node.isTextual()) {
-      return node.asText();
-    } else if (node.isNumber()) {
-      if (node.isInt()) {
-        return node.asInt();
-      } else if (node.isLong()) {
-        return node.asLong();
-      } else if (node.isDouble()) {
-        return node.asDouble();
-      } else {
-        System.err.println("ERROR What is this!? " + node.getNumberType());
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+        switch (parser.getNumberType()) {
+          case INT:
+            return parser.getIntValue();
+          case LONG:
+            return parser.getLongValue();
+          default:
+            return parser.getBigIntegerValue();
+        }
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      default:
         return null;
-      }
-    } else if (node.isBoolean()) {
-      return node.asBoolean();
-    } else {
-      return null;
     }
   }
 
@@ -266,4 +293,13 @@ public class JSONUtils {
 
     return false;
   }
+
+  /**
+   * Writes a json value with the generator given
+   */
+  @FunctionalInterface
+  public interface JsonStreamWriter {
+
+    void write(JsonGenerator generator) throws IOException;
+  }
 }
@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
@@ -24,6 +25,10 @@ class OsMemoryUtil {
   // This file is used by Linux. It doesn't exist on Mac for example.
   private static final String MEM_INFO_FILE = "/proc/meminfo";
 
+  // cgroup of the executor process, and where the cgroup v2 hierarchy is mounted
+  private static final String SELF_CGROUP_FILE = "/proc/self/cgroup";
+  private static final String CGROUP_V2_ROOT = "/sys/fs/cgroup";
+
   private static final ImmutableSet<String> MEM_KEYS = ImmutableSet
       .of("MemFree", "Buffers", "Cached", "SwapFree");
 
@@ -34,23 +39,114 @@ class OsMemoryUtil {
    * this memory check.
    */
   long getOsTotalFreeMemorySize() {
+    final List<String> lines = readMemInfo();
+    return lines == null ? 0 : getOsTotalFreeMemorySizeFromStrings(lines);
+  }
+
+  /**
+   * @return the size of the physical memory of the OS in kB. 0 if there is an error or the OS
+   * doesn't support this memory check.
+   */
+  long getOsTotalMemorySize() {
+    final List<String> lines = readMemInfo();
+    if (lines != null) {
+      for (final String line : lines) {
+        if (line.startsWith("MemTotal")) {
+          return parseMemoryLine(line);
+        }
+      }
+    }
+    return 0;
+  }
+
+  private List<String> readMemInfo() {
     if (!Files.isRegularFile(Paths.get(MEM_INFO_FILE))) {
       // Mac doesn't support /proc/meminfo for example.
-      return 0;
+      return null;
     }
 
-    final List<String> lines;
     // The file /proc/meminfo is assumed to contain only ASCII characters.
     // The assumption is that the file is not too big. So it is simpler to read the whole file
     // into memory.
     try {
-      lines = Files.readAllLines(Paths.get(MEM_INFO_FILE), StandardCharsets.UTF_8);
+      return Files.readAllLines(Paths.get(MEM_INFO_FILE), StandardCharsets.UTF_8);
     } catch (final IOException e) {
       final String errMsg = "Failed to open mem info file: " + MEM_INFO_FILE;
       logger.error(errMsg, e);
-      return 0;
+      return null;
+    }
+  }
+
+  /**
+   * Reads the cgroup v2 memory limit of the executor, which is lower than the OS memory in a
+   * container for example.
+   *
+   * @return the memory.max and memory.current in kB of the most constrained cgroup containing
+   * the executor, null if there is no cgroup v2 memory limit.
+   */
+  Pair<Long, Long> getCgroupMemory() {
+    final Path selfCgroup = Paths.get(SELF_CGROUP_FILE);
+    if (!Files.isRegularFile(selfCgroup)) {
+      return null;
     }
-    return getOsTotalFreeMemorySizeFromStrings(lines);
+    try {
+      return getCgroupMemory(Paths.get(CGROUP_V2_ROOT),
+          Files.readAllLines(selfCgroup, StandardCharsets.UTF_8));
+    } catch (final IOException e) {
+      logger.error("Failed to read the cgroup file: " + SELF_CGROUP_FILE, e);
+      return null;
+    }
+  }
+
+  /**
+   * @param root where the cgroup v2 hierarchy is mounted
+   * @param selfCgroupLines text lines from /proc/self/cgroup
+   * @return the memory.max and memory.current in kB of the cgroup with the least memory left
+   * among the cgroup of the process and its parents, null if none of them has a limit.
+   */
+  Pair<Long, Long> getCgroupMemory(final Path root, final List<String> selfCgroupLines)
+      throws IOException {
+    String cgroup = null;
+    for (final String line : selfCgroupLines) {
+      // cgroup v2 is the hierarchy 0 without controllers, e.g. "0::/system.slice/azkaban"
+      if (line.startsWith("0::")) {
+        cgroup = line.substring(3).trim();
+      }
+    }
+    if (cgroup == null) {
+      return null;
+    }
+
+    Pair<Long, Long> tightest = null;
+    // the root cgroup has no limit, a process in a container may also see its own cgroup as /
+    for (Path dir = root.resolve(cgroup.replaceFirst("^/+", "")).normalize();
+        dir != null && dir.startsWith(root); dir = dir.getParent()) {
+      final Path maxFile = dir.resolve("memory.max");
+      final Path currentFile = dir.resolve("memory.current");
+      if (!Files.isRegularFile(maxFile) || !Files.isRegularFile(currentFile)) {
+        continue;
+      }
+      final String max = readFirstLine(maxFile);
+      if ("max".equals(max)) {
+        continue;
+      }
+      try {
+        final long maxKb = Long.parseLong(max) / 1024;
+        final long currentKb = Long.parseLong(readFirstLine(currentFile)) / 1024;
+        if (tightest == null
+            || maxKb - currentKb < tightest.getFirst() - tightest.getSecond()) {
+          tightest = new Pair<>(maxKb, currentKb);
+        }
+      } catch (final NumberFormatException e) {
+        logger.error("Failed to parse the cgroup memory files in " + dir);
+      }
+    }
+    return tightest;
+  }
+
+  private String readFirstLine(final Path file) throws IOException {
+    final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    return lines.isEmpty() ? "" : lines.get(0).trim();
   }
 
   /**
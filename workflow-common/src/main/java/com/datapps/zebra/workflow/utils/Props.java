@@ -16,6 +16,8 @@
 
 package com.datapps.zebra.workflow.utils;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.apache.log4j.Logger;
 
 import java.io.*;
@@ -26,10 +28,20 @@ import java.util.*;
 /**
  * Hashmap implementation of a hierarchitical properties with helpful converter
  * functions and Exception throwing. This class is not threadsafe.
+ *
+ * Clones share the local maps of the original chain, a map is copied the first time either side
+ * modifies it. Keys are interned since the same few keys are repeated in every job's Props.
+ * Cloning only reads the source besides marking its maps shared, so a Props which is no longer
+ * modified, like the plugin props, can be cloned from several threads.
  */
 public class Props {
 
-  private final Map<String, String> _current;
+  private static final Interner<String> KEY_INTERNER = Interners.newWeakInterner();
+
+  private Map<String, String> _current;
+  // true when _current may be referenced by another Props and must be copied before a write,
+  // volatile since clones made by other threads set it on the source
+  private volatile boolean _currentShared = false;
   private Props _parent;
   private String source = null;
 
@@ -144,6 +156,7 @@ public class Props {
   }
 
   /**
+   * Copies the chain, the copies share the local maps until one of them is modified.
    *
    * @param source
    * @return
@@ -154,13 +167,28 @@ public class Props {
       priorNodeCopy = copyNext(source.getParent());
     }
     final Props dest = new Props(priorNodeCopy);
-    for (final String key : source.localKeySet()) {
-      dest.put(key, source.get(key));
-    }
+    source._currentShared = true;
+    dest._current = source._current;
+    dest._currentShared = true;
 
     return dest;
   }
 
+  /**
+   * Returns the local map, copied first if it is shared with a clone
+   */
+  private Map<String, String> writableCurrent() {
+    if (this._currentShared) {
+      this._current = new HashMap<>(this._current);
+      this._currentShared = false;
+    }
+    return this._current;
+  }
+
+  private String putLocalValue(final String key, final String value) {
+    return writableCurrent().put(KEY_INTERNER.intern(key), value);
+  }
+
   /**
    *
    * @param inputStream
@@ -189,15 +217,24 @@ public class Props {
    * Clear the current Props, but leaves the parent untouched.
    */
   public void clearLocal() {
-    this._current.clear();
+    if (this._currentShared) {
+      this._current = new HashMap<>();
+      this._currentShared = false;
+    } else {
+      this._current.clear();
+    }
   }
 
   /**
    * Check key in current Props then search in parent
    */
   public boolean containsKey(final Object k) {
-    return this._current.containsKey(k)
-        || (this._parent != null && this._parent.containsKey(k));
+    for (Props props = this; props != null; props = props._parent) {
+      if (props._current.containsKey(k)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -212,20 +249,36 @@ public class Props {
    * Return value if available in current Props otherwise return from parent
    */
   public String get(final Object key) {
-    if (this._current.containsKey(key)) {
-      return this._current.get(key);
-    } else if (this._parent != null) {
-      return this._parent.get(key);
-    } else {
-      return null;
+    for (Props props = this; props != null; props = props._parent) {
+      final String value = props._current.get(key);
+      if (value != null || props._current.containsKey(key)) {
+        return value;
+      }
     }
+    return null;
   }
 
   /**
-   * Get the key set from the current Props
+   * Get an unmodifiable view of the key set of the current Props
    */
   public Set<String> localKeySet() {
-    return this._current.keySet();
+    // reads _current on every call since a write may replace a shared map
+    return new AbstractSet<String>() {
+      @Override
+      public Iterator<String> iterator() {
+        return Collections.unmodifiableSet(Props.this._current.keySet()).iterator();
+      }
+
+      @Override
+      public int size() {
+        return Props.this._current.size();
+      }
+
+      @Override
+      public boolean contains(final Object key) {
+        return Props.this._current.containsKey(key);
+      }
+    };
   }
 
   /**
@@ -250,7 +303,7 @@ public class Props {
    * this Props.
    */
   public String put(final String key, final String value) {
-    return this._current.put(key, value);
+    return putLocalValue(key, value);
   }
 
   /**
@@ -265,7 +318,7 @@ public class Props {
    */
   public void put(final Properties properties) {
     for (final String propName : properties.stringPropertyNames()) {
-      this._current.put(propName, properties.getProperty(propName));
+      putLocalValue(propName, properties.getProperty(propName));
     }
   }
 
@@ -273,21 +326,21 @@ public class Props {
    * Put integer
    */
   public String put(final String key, final Integer value) {
-    return this._current.put(key, value.toString());
+    return putLocalValue(key, value.toString());
   }
 
   /**
    * Put Long. Stores as String.
    */
   public String put(final String key, final Long value) {
-    return this._current.put(key, value.toString());
+    return putLocalValue(key, value.toString());
   }
 
   /**
    * Put Double. Stores as String.
    */
   public String put(final String key, final Double value) {
-    return this._current.put(key, value.toString());
+    return putLocalValue(key, value.toString());
   }
 
   /**
@@ -329,7 +382,7 @@ public class Props {
    * Remove only the local value of key s, and not the parents.
    */
   public String removeLocal(final Object s) {
-    return this._current.remove(s);
+    return writableCurrent().remove(s);
   }
 
   /**
@@ -714,9 +767,9 @@ public class Props {
         this._parent.getMapByPrefix(prefix);
 
     // when there is a conflict, value from the child takes the priority.
-    for (final String key : this.localKeySet()) {
-      if (key.startsWith(prefix)) {
-        values.put(key.substring(prefix.length()), get(key));
+    for (final Map.Entry<String, String> entry : this._current.entrySet()) {
+      if (entry.getKey().startsWith(prefix)) {
+        values.put(entry.getKey().substring(prefix.length()), entry.getValue());
       }
     }
     return values;
@@ -36,6 +36,8 @@ import java.util.regex.Pattern;
 public class PropsUtils {
 
   private static final Logger logger = Logger.getLogger(PropsUtils.class);
+  // expressions are created without a cache, the engine itself is safe to share
+  private static final JexlEngine JEXL = new JexlEngine();
   private static final Pattern VARIABLE_REPLACEMENT_PATTERN = Pattern
       .compile("\\$\\{([a-zA-Z_.0-9]+)\\}");
 
@@ -152,9 +154,17 @@ public class PropsUtils {
 
     final Props resolvedProps = new Props();
 
-    final LinkedHashSet<String> visitedVariables = new LinkedHashSet<>();
+    // resolve against a single level snapshot so that every lookup is one hash probe instead of
+    // a walk up the parent chain
+    final Map<String, String> flattened = new HashMap<>();
     for (final String key : props.getKeySet()) {
-      String value = props.get(key);
+      flattened.put(key, props.get(key));
+    }
+
+    final LinkedHashSet<String> visitedVariables = new LinkedHashSet<>();
+    for (final Map.Entry<String, String> entry : flattened.entrySet()) {
+      final String key = entry.getKey();
+      String value = entry.getValue();
       if (value == null) {
         logger.warn("Null value in props for key '" + key + "'. Replacing with empty string.");
         value = "";
@@ -162,7 +172,7 @@ public class PropsUtils {
 
       visitedVariables.add(key);
       final String replacedValue =
-          resolveVariableReplacement(value, props, visitedVariables);
+          resolveVariableReplacement(value, flattened, visitedVariables);
       visitedVariables.clear();
 
       resolvedProps.put(key, replacedValue);
@@ -177,8 +187,11 @@ public class PropsUtils {
     return resolvedProps;
   }
 
-  private static String resolveVariableReplacement(final String value, final Props props,
-      final LinkedHashSet<String> visitedVariables) {
+  private static String resolveVariableReplacement(final String value,
+      final Map<String, String> props, final LinkedHashSet<String> visitedVariables) {
+    if (!value.contains("${")) {
+      return value;
+    }
     final StringBuffer buffer = new StringBuffer();
     int startIndex = 0;
 
@@ -222,8 +235,10 @@ public class PropsUtils {
   }
 
   private static String resolveVariableExpression(final String value) {
-    final JexlEngine jexl = new JexlEngine();
-    return resolveVariableExpression(value, value.length(), jexl);
+    if (!value.contains("$(")) {
+      return value;
+    }
+    return resolveVariableExpression(value, value.length(), JEXL);
   }
 
   /**
@@ -1,8 +1,14 @@
 package com.datapps.zebra.workflow.utils;
 
+import com.datapps.zebra.workflow.Constants;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
 
 /**
  * This class is used to maintain system memory information. Processes utilizing
@@ -10,16 +16,32 @@ import org.slf4j.LoggerFactory;
  * memory to proceed the operation.
  *
  * Memory information is obtained from /proc/meminfo, so only Unix/Linux like system
- * will support this class.
+ * will support this class. When the executor runs in a cgroup v2 with a memory limit, the
+ * memory left in the cgroup is used when it is lower.
+ *
+ * Processes reserve their memory through {@link #reserveMemory(long)} and keep the
+ * reservation until they exit, so that processes which haven't grown to their Xmx yet are
+ * accounted for. Waiting reservations are granted in order as long as they fit, a reservation
+ * which doesn't fit is passed by the later ones which do, at most {@link #MAX_HEAD_SKIPS} times
+ * before they wait for it. Reservations of no memory are always granted. Waiting processes are
+ * woken when memory is released.
  *
  * All the memory size used in this function is in KB.
  */
+@Singleton
 public class SystemMemoryInfo {
 
   private static final org.slf4j.Logger logger = LoggerFactory.getLogger(SystemMemoryInfo.class);
   private static final long LOW_MEM_THRESHOLD = 3L * 1024L * 1024L; //3 GB
+  // times the first waiting reservation can be passed by later ones
+  static final int MAX_HEAD_SKIPS = 3;
   private final OsMemoryUtil util;
 
+  // Xmx of the processes holding a reservation, guarded by this
+  private long reservedMemory = 0;
+  // guarded by this
+  private final Deque<MemoryReservation> waitingReservations = new ArrayDeque<>();
+
   @Inject
   public SystemMemoryInfo(final OsMemoryUtil util) {
     this.util = util;
@@ -33,7 +55,14 @@ public class SystemMemoryInfo {
    * request.
    */
   public boolean canSystemGrantMemory(final long xmx) {
-    final long freeMemSize = this.util.getOsTotalFreeMemorySize();
+    long freeMemSize = this.util.getOsTotalFreeMemorySize();
+    final Pair<Long, Long> cgroupMemory = this.util.getCgroupMemory();
+    if (cgroupMemory != null) {
+      final long cgroupFreeMemSize = cgroupMemory.getFirst() - cgroupMemory.getSecond();
+      if (freeMemSize == 0 || cgroupFreeMemSize < freeMemSize) {
+        freeMemSize = cgroupFreeMemSize;
+      }
+    }
     if (freeMemSize == 0) {
       // Fail open.
       // On the platforms that don't support the mem info file, the returned size will be 0.
@@ -48,4 +77,155 @@ public class SystemMemoryInfo {
     }
     return true;
   }
+
+  /**
+   * Reserves memory for a process. The reservation is granted right away when the memory is
+   * available and the first waiting reservation hasn't been passed too often already, otherwise
+   * it waits.
+   *
+   * @param xmx Xmx for the process
+   * @return the reservation, to be closed when the process exits
+   */
+  public synchronized MemoryReservation reserveMemory(final long xmx) {
+    final MemoryReservation reservation = new MemoryReservation(xmx);
+    this.waitingReservations.addLast(reservation);
+    grantWaitingReservations();
+    return reservation;
+  }
+
+  /**
+   * @return the Xmx of the processes holding a reservation
+   */
+  public synchronized long getReservedMemory() {
+    return this.reservedMemory;
+  }
+
+  /**
+   * @return the memory reservations can share, the cgroup memory limit or the OS memory. 0 if
+   * unknown.
+   */
+  private long getMemoryCapacity() {
+    final Pair<Long, Long> cgroupMemory = this.util.getCgroupMemory();
+    if (cgroupMemory != null) {
+      return cgroupMemory.getFirst();
+    }
+    return this.util.getOsTotalMemorySize();
+  }
+
+  private boolean canGrantReservation(final long xmx) {
+    final long capacity = getMemoryCapacity();
+    if (capacity > 0 && this.reservedMemory > 0
+        && this.reservedMemory + xmx > capacity - LOW_MEM_THRESHOLD) {
+      logger.info(String.format(
+          "Reserved memory plus Xmx (%d + %d kb) is more than the memory (%d kb) minus low mem "
+              + "threshold (%d kb), memory request declined.",
+          this.reservedMemory, xmx, capacity, LOW_MEM_THRESHOLD));
+      return false;
+    }
+    return canSystemGrantMemory(xmx);
+  }
+
+  private void grantWaitingReservations() {
+    boolean granted = false;
+    // the first reservation which doesn't fit
+    MemoryReservation head = null;
+    final Iterator<MemoryReservation> iter = this.waitingReservations.iterator();
+    while (iter.hasNext()) {
+      final MemoryReservation reservation = iter.next();
+      if (reservation.xmx > 0) {
+        if (head != null && head.skips >= MAX_HEAD_SKIPS) {
+          // only reservations of no memory get ahead of it now
+          continue;
+        }
+        if (!canGrantReservation(reservation.xmx)) {
+          if (head == null) {
+            head = reservation;
+          }
+          continue;
+        }
+        if (head != null) {
+          head.skips++;
+        }
+      }
+      iter.remove();
+      reservation.state = MemoryReservation.State.GRANTED;
+      this.reservedMemory += reservation.xmx;
+      granted = true;
+    }
+    if (granted) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Memory reserved for a process
+   */
+  public class MemoryReservation implements AutoCloseable {
+
+    private final long xmx;
+    // guarded by the SystemMemoryInfo
+    private State state = State.WAITING;
+    // times a later reservation was granted while this one waited, guarded by the
+    // SystemMemoryInfo
+    private int skips = 0;
+
+    private MemoryReservation(final long xmx) {
+      this.xmx = xmx;
+    }
+
+    public boolean isGranted() {
+      synchronized (SystemMemoryInfo.this) {
+        return this.state == State.GRANTED;
+      }
+    }
+
+    /**
+     * Waits for the reservation to be granted. Memory freed by other processes doesn't wake
+     * the waiting reservations, so the first one checks again every {@link
+     * Constants#MEMORY_CHECK_INTERVAL_MS}.
+     *
+     * @return false if the reservation wasn't granted within the timeout or was closed
+     */
+    public boolean awaitGranted(final long timeoutMs) throws InterruptedException {
+      final long deadline = System.currentTimeMillis() + timeoutMs;
+      synchronized (SystemMemoryInfo.this) {
+        while (this.state == State.WAITING) {
+          final long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) {
+            return false;
+          }
+          SystemMemoryInfo.this.wait(Math.min(remaining, Constants.MEMORY_CHECK_INTERVAL_MS));
+          if (this.state == State.WAITING
+              && SystemMemoryInfo.this.waitingReservations.peekFirst() == this) {
+            grantWaitingReservations();
+          }
+        }
+        return this.state == State.GRANTED;
+      }
+    }
+
+    /**
+     * Releases the memory, or gives up waiting for it
+     */
+    @Override
+    public void close() {
+      synchronized (SystemMemoryInfo.this) {
+        if (this.state == State.GRANTED) {
+          SystemMemoryInfo.this.reservedMemory -= this.xmx;
+        } else if (this.state == State.WAITING) {
+          SystemMemoryInfo.this.waitingReservations.remove(this);
+        }
+        if (this.state != State.CLOSED) {
+          this.state = State.CLOSED;
+          // wakes a waiting awaitGranted() of this reservation too
+          SystemMemoryInfo.this.notifyAll();
+          grantWaitingReservations();
+        }
+      }
+    }
+
+    private enum State {
+      WAITING, GRANTED, CLOSED
+    }
+  }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.executor;
+
+import com.datapps.zebra.workflow.flow.Flow;
+import com.datapps.zebra.workflow.flow.Node;
+import com.datapps.zebra.workflow.metrics.MetricsManager;
+import com.datapps.zebra.workflow.project.Project;
+import com.datapps.zebra.workflow.utils.Props;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.*;
+
+public class CachingExecutorLoaderTest {
+
+  private MockExecutorLoader loader;
+  private Props props;
+
+  @Before
+  public void setUp() {
+    this.loader = spy(new MockExecutorLoader());
+    this.props = new Props();
+  }
+
+  private ExecutableFlow createFlow(final int execId, final Status status) throws Exception {
+    final Flow flow = new Flow("flow" + execId);
+    final Node node = new Node("job1");
+    node.setType("noop");
+    flow.addNode(node);
+    final ExecutableFlow exFlow = new ExecutableFlow(new Project(1, "test"), flow);
+    exFlow.setExecutionId(execId);
+    exFlow.setStatus(status);
+    this.loader.uploadExecutableFlow(exFlow);
+    return exFlow;
+  }
+
+  private CachingExecutorLoader createCachingLoader() {
+    return new CachingExecutorLoader(this.loader, this.props,
+        new MetricsManager(new MetricRegistry()));
+  }
+
+  @Test
+  public void testFinishedFlowIsCached() throws Exception {
+    createFlow(1, Status.SUCCEEDED);
+    final CachingExecutorLoader cachingLoader = createCachingLoader();
+
+    final ExecutableFlow first = cachingLoader.fetchExecutableFlow(1);
+    first.getExecutableNode("job1").setStatus(Status.FAILED);
+    final ExecutableFlow second = cachingLoader.fetchExecutableFlow(1);
+
+    verify(this.loader, times(1)).fetchExecutableFlow(1);
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals(Status.SUCCEEDED, second.getStatus());
+    Assert.assertEquals(Status.READY, second.getExecutableNode("job1").getStatus());
+    Assert.assertEquals(0.5, cachingLoader.getHitRatio(), 0.001);
+    Assert.assertTrue(cachingLoader.getCachedBytes() > 0);
+  }
+
+  @Test
+  public void testUpdateInvalidatesFlow() throws Exception {
+    final ExecutableFlow flow = createFlow(1, Status.SUCCEEDED);
+    final CachingExecutorLoader cachingLoader = createCachingLoader();
+
+    cachingLoader.fetchExecutableFlow(1);
+    flow.setStatus(Status.FAILED);
+    cachingLoader.updateExecutableFlow(flow);
+
+    Assert.assertEquals(Status.FAILED, cachingLoader.fetchExecutableFlow(1).getStatus());
+    verify(this.loader, times(2)).fetchExecutableFlow(1);
+  }
+
+  @Test
+  public void testActiveFlowExpires() throws Exception {
+    createFlow(1, Status.RUNNING);
+    this.props.put("executor.flow.cache.active.ttl.ms", 0);
+    final CachingExecutorLoader cachingLoader = createCachingLoader();
+
+    cachingLoader.fetchExecutableFlow(1);
+    cachingLoader.fetchExecutableFlow(1);
+
+    verify(this.loader, times(2)).fetchExecutableFlow(1);
+    Assert.assertEquals(0, cachingLoader.getCachedBytes());
+  }
+
+  @Test
+  public void testCacheSizeIsBounded() throws Exception {
+    for (int execId = 1; execId <= 10; execId++) {
+      createFlow(execId, Status.SUCCEEDED);
+    }
+    final CachingExecutorLoader unbounded = createCachingLoader();
+    unbounded.fetchExecutableFlow(1);
+    final long flowBytes = unbounded.getCachedBytes();
+
+    this.props.put("executor.flow.cache.max.bytes", flowBytes * 8);
+    final CachingExecutorLoader cachingLoader = createCachingLoader();
+    for (int execId = 1; execId <= 10; execId++) {
+      cachingLoader.fetchExecutableFlow(execId);
+    }
+
+    Assert.assertTrue(cachingLoader.getCachedBytes() > 0);
+    Assert.assertTrue(cachingLoader.getCachedBytes() <= flowBytes * 8);
+  }
+}
@@ -401,6 +401,103 @@ public class ExecutableFlowTest {
     Assert.assertNull(updateObject.get("nodes"));
   }
 
+  @Test
+  public void testExecutorFlowUpdatesSinceChangeSequence() throws Exception {
+    final Flow flow = this.project.getFlow("jobe");
+    final ExecutableFlow exFlow = new ExecutableFlow(this.project, flow);
+    exFlow.setExecutionId(101);
+
+    final Object obj = exFlow.toObject();
+    final ExecutableFlow copyFlow = ExecutableFlow.createExecutableFlowFromObject(
+        JSONUtils.parseJSONFromString(JSONUtils.toJSON(obj)));
+    Assert.assertEquals(-1, copyFlow.getAppliedChangeSequence());
+
+    final ExecutableNode jobe = exFlow.getExecutableNode("jobe");
+    final ExecutableFlowBase jobb =
+        (ExecutableFlowBase) (exFlow.getExecutableNode("jobb"));
+    final ExecutableNode jobbInnerFlowA = jobb.getExecutableNode("innerJobA");
+
+    final long time = System.currentTimeMillis();
+    jobe.setStatus(Status.DISABLED);
+    jobe.setUpdateTime(time);
+    Map<String, Object> updateObject = exFlow.toUpdateObjectSince(0);
+    Assert.assertEquals(1, ((List) (updateObject.get("nodes"))).size());
+    Assert.assertEquals(101, updateObject.get(ExecutableFlow.EXECUTIONID_PARAM));
+    copyFlow.applyUpdateObject(
+        (Map<String, Object>) JSONUtils.parseJSONFromString(JSONUtils.toJSON(updateObject)));
+    Assert.assertEquals(exFlow.getChangeSequence(), copyFlow.getAppliedChangeSequence());
+    Assert.assertEquals(Status.DISABLED, copyFlow.getExecutableNode("jobe").getStatus());
+
+    // nothing changed since the applied update
+    updateObject = exFlow.toUpdateObjectSince(copyFlow.getAppliedChangeSequence());
+    Assert.assertNull(updateObject.get("nodes"));
+
+    // a change in an embedded flow ships the embedded flow with only the changed node
+    jobbInnerFlowA.setStatus(Status.DISABLED);
+    jobbInnerFlowA.setUpdateTime(time + 1);
+    updateObject = exFlow.toUpdateObjectSince(copyFlow.getAppliedChangeSequence());
+    final List<Map<String, Object>> nodes = (List<Map<String, Object>>) updateObject.get("nodes");
+    Assert.assertEquals(1, nodes.size());
+    Assert.assertEquals("jobb", nodes.get(0).get(ExecutableNode.ID_PARAM));
+    Assert.assertEquals(1, ((List) nodes.get(0).get("nodes")).size());
+    copyFlow.applyUpdateObject(
+        (Map<String, Object>) JSONUtils.parseJSONFromString(JSONUtils.toJSON(updateObject)));
+    testEquals(exFlow, copyFlow);
+  }
+
+  @Test
+  public void testConcurrentChangesAreNotLostByPoller() throws Exception {
+    final Flow flow = this.project.getFlow("jobe");
+    final ExecutableFlow exFlow = new ExecutableFlow(this.project, flow);
+    exFlow.setExecutionId(102);
+    final ExecutableFlow copyFlow = ExecutableFlow.createExecutableFlowFromObject(
+        JSONUtils.parseJSONFromString(JSONUtils.toJSON(exFlow.toObject())));
+
+    // one writer per job, including the jobs of an embedded flow
+    final List<ExecutableNode> jobs = new ArrayList<>();
+    for (final ExecutableNode node : exFlow.getExecutableNodes()) {
+      if (node instanceof ExecutableFlowBase) {
+        jobs.addAll(((ExecutableFlowBase) node).getExecutableNodes());
+      } else {
+        jobs.add(node);
+      }
+    }
+    final List<Thread> writers = new ArrayList<>();
+    for (final ExecutableNode job : jobs) {
+      final Thread writer = new Thread(() -> {
+        for (int i = 1; i <= 2000; i++) {
+          job.setUpdateTime(i);
+        }
+      });
+      writers.add(writer);
+      writer.start();
+    }
+
+    // polls the changes since the last applied sequence while the jobs change
+    boolean writing = true;
+    while (writing) {
+      writing = false;
+      for (final Thread writer : writers) {
+        writing |= writer.isAlive();
+      }
+      final Map<String, Object> updateObject =
+          exFlow.toUpdateObjectSince(copyFlow.getAppliedChangeSequence());
+      copyFlow.applyUpdateObject(
+          (Map<String, Object>) JSONUtils.parseJSONFromString(JSONUtils.toJSON(updateObject)));
+    }
+    for (final Thread writer : writers) {
+      writer.join();
+    }
+
+    // the poll after the writers stopped is the last one, no change may have been skipped
+    Assert.assertEquals(exFlow.getChangeSequence(), copyFlow.getAppliedChangeSequence());
+    Assert.assertTrue(exFlow.getChangeSequence() >= jobs.size() * 2000L);
+    for (final ExecutableNode job : jobs) {
+      Assert.assertEquals(job.getNestedId(), 2000,
+          copyFlow.getExecutableNodePath(job.getNestedId()).getUpdateTime());
+    }
+  }
+
   private void assertNotNull(final ExecutableNode... nodes) {
     for (final ExecutableNode node : nodes) {
       Assert.assertNotNull(node);
@@ -0,0 +1,85 @@
+package com.datapps.zebra.workflow.executor;
+
+import com.datapps.zebra.workflow.executor.selector.ExecutorComparator;
+import com.datapps.zebra.workflow.executor.selector.ExecutorFilter;
+import com.datapps.zebra.workflow.executor.selector.ExecutorSnapshot;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ExecutorSnapshotTest {
+
+  private final List<Executor> executors = new ArrayList<>();
+  private final ExecutableFlow flow = new ExecutableFlow();
+  private ExecutorFilter filter;
+  private ExecutorComparator comparator;
+
+  @Before
+  public void setUp() {
+    this.executors.clear();
+    this.executors.add(new Executor(1, "host1", 80, true));
+    this.executors.add(new Executor(2, "host2", 80, true));
+    this.executors.get(0)
+        .setExecutorInfo(new ExecutorInfo(99.9, 14095, 2, System.currentTimeMillis(), 50, 0));
+    this.executors.get(1)
+        .setExecutorInfo(new ExecutorInfo(99.9, 14095, 1, System.currentTimeMillis(), 50, 0));
+
+    this.filter = new ExecutorFilter(Collections.singletonList("StaticRemainingFlowSize"));
+    final Map<String, Integer> comparatorMap = new HashMap<>();
+    comparatorMap.put("NumberOfAssignedFlowComparator", 1);
+    this.comparator = new ExecutorComparator(comparatorMap);
+  }
+
+  /* Test assignments are accounted locally until every executor is full */
+  @Test
+  public void testSelectAccountsAssignments() {
+    final ExecutorSnapshot snapshot =
+        new ExecutorSnapshot(this.executors, this.filter, this.comparator);
+
+    Assert.assertEquals(this.executors.get(0),
+        snapshot.select(this.flow, Collections.<Executor>emptySet()));
+    final Set<Executor> selected = new HashSet<>();
+    selected.add(snapshot.select(this.flow, Collections.<Executor>emptySet()));
+    selected.add(snapshot.select(this.flow, Collections.<Executor>emptySet()));
+    Assert.assertEquals(new HashSet<>(this.executors), selected);
+    Assert.assertNull(snapshot.select(this.flow, Collections.<Executor>emptySet()));
+
+    // the executors handed to the snapshot are never modified
+    Assert.assertEquals(2, this.executors.get(0).getExecutorInfo().getRemainingFlowCapacity());
+    Assert.assertEquals(1, this.executors.get(1).getExecutorInfo().getRemainingFlowCapacity());
+  }
+
+  /* Test excluded executors are skipped */
+  @Test
+  public void testSelectSkipsExcluded() {
+    final ExecutorSnapshot snapshot =
+        new ExecutorSnapshot(this.executors, this.filter, this.comparator);
+    final Set<Executor> failed = new HashSet<>();
+    failed.add(this.executors.get(0));
+
+    Assert.assertEquals(1, snapshot.getCandidateCount(failed));
+    Assert.assertEquals(this.executors.get(1), snapshot.select(this.flow, failed));
+    Assert.assertNull(snapshot.select(this.flow, failed));
+  }
+
+  /* Test user specified assignments are accounted as well */
+  @Test
+  public void testRecordAssignment() {
+    final ExecutorSnapshot snapshot =
+        new ExecutorSnapshot(this.executors, this.filter, this.comparator);
+    snapshot.recordAssignment(this.executors.get(0));
+    snapshot.recordAssignment(this.executors.get(0));
+
+    Assert.assertEquals(this.executors.get(1),
+        snapshot.select(this.flow, Collections.<Executor>emptySet()));
+    Assert.assertNull(snapshot.select(this.flow, Collections.<Executor>emptySet()));
+  }
+}
@@ -29,6 +29,7 @@ import com.codahale.metrics.MetricRegistry;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.dbutils.QueryRunner;
 import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.log4j.Logger;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.junit.*;
@@ -41,9 +42,15 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class JdbcExecutorLoaderTest {
   /* Directory with serialized description of test flows */
@@ -59,6 +66,7 @@ public class JdbcExecutorLoaderTest {
   private static final Duration RECENTLY_FINISHED_LIFETIME = Duration.ofMinutes(1);
   private static final Duration FLOW_FINISHED_TIME = Duration.ofMinutes(2);
   private static boolean testDBExists;
+  private final Logger log = Logger.getLogger(JdbcExecutorLoaderTest.class);
 
   @BeforeClass
   public static void setupDB() {
@@ -248,6 +256,56 @@ public class JdbcExecutorLoaderTest {
         new HashSet<>(fetchFlow.getEndNodes()));
   }
 
+  /*
+   * Submissions per second at increasing number of concurrent submitters, each submission getting
+   * a distinct execution id which is stored
+   */
+  @Test
+  public void testConcurrentUploadExecutionFlows() throws Exception {
+    if (!isTestSetup()) {
+      return;
+    }
+    final ExecutorLoader loader = createLoader();
+    final int flowsPerSubmitter = 20;
+    for (final int submitters : new int[]{1, 8, 64}) {
+      final ExecutorService pool = Executors.newFixedThreadPool(submitters);
+      final List<Future<List<Integer>>> futures = new ArrayList<>();
+      final long start = System.nanoTime();
+      for (int i = 0; i < submitters; i++) {
+        futures.add(pool.submit(() -> {
+          final List<Integer> ids = new ArrayList<>();
+          for (int j = 0; j < flowsPerSubmitter; j++) {
+            final ExecutableFlow flow = TestUtils.createExecutableFlow("exectest1", "exec1");
+            loader.uploadExecutableFlow(flow);
+            ids.add(flow.getExecutionId());
+          }
+          return ids;
+        }));
+      }
+      final Set<Integer> ids = new HashSet<>();
+      for (final Future<List<Integer>> future : futures) {
+        ids.addAll(future.get());
+      }
+      final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      pool.shutdown();
+
+      Assert.assertEquals(submitters * flowsPerSubmitter, ids.size());
+      this.log.info(String.format("%d submitters: %d submissions in %d ms (%.1f/s)",
+          submitters, ids.size(), elapsedMs, ids.size() * 1000.0 / Math.max(elapsedMs, 1)));
+      for (final int execId : ids) {
+        final ExecutableFlow fetchFlow = loader.fetchExecutableFlow(execId);
+        Assert.assertNotNull(fetchFlow);
+        Assert.assertEquals(execId, fetchFlow.getExecutionId());
+      }
+    }
+
+    final ExecutableFlow flow = TestUtils.createExecutableFlow("exectest1", "exec1");
+    loader.uploadExecutableFlow(flow);
+    final ExecutableFlow fetchFlow = loader.fetchExecutableFlow(flow.getExecutionId());
+    Assert.assertEquals(flow.getExecutionId(), fetchFlow.getExecutionId());
+    Assert.assertEquals(Status.PREPARING, fetchFlow.getStatus());
+  }
+
   @Test
   public void testUpdateExecutionFlows() throws Exception {
     if (!isTestSetup()) {
@@ -331,6 +389,34 @@ public class JdbcExecutorLoaderTest {
 
   }
 
+  @Test
+  public void testFetchExecutionJobsProps() throws Exception {
+    if (!isTestSetup()) {
+      return;
+    }
+
+    final ExecutorLoader loader = createLoader();
+    final ExecutableFlow flow = createExecutableFlow(10, "exec1");
+    loader.uploadExecutableFlow(flow);
+
+    final Props props = new Props();
+    props.put("test", "test2");
+    final ExecutableNode node = flow.getExecutableNode("job10");
+    node.setStartTime(System.currentTimeMillis());
+    loader.uploadExecutableNode(node, props);
+    final Props outputProps = new Props();
+    outputProps.put("hello", "output");
+    node.setOutputProps(outputProps);
+    node.setEndTime(System.currentTimeMillis());
+    loader.updateExecutableNode(node);
+
+    final ExecutionJobsProps jobsProps = loader.fetchExecutionJobsProps(flow.getExecutionId());
+    Assert.assertEquals(Collections.singleton("job10"), jobsProps.getJobIds());
+    Assert.assertEquals("test2", jobsProps.getInputProps("job10").get("test"));
+    Assert.assertEquals("output", jobsProps.getOutputProps("job10").get("hello"));
+    Assert.assertNull(jobsProps.getInputProps("job11"));
+  }
+
   /* Test exception when unassigning an missing execution */
   @Test
   public void testUnassignExecutorException() throws ExecutorManagerException,
@@ -253,6 +253,12 @@ public class MockExecutorLoader implements ExecutorLoader {
     return null;
   }
 
+  @Override
+  public ExecutionJobsProps fetchExecutionJobsProps(final int execId)
+      throws ExecutorManagerException {
+    return new ExecutionJobsProps(execId);
+  }
+
   @Override
   public List<ExecutableJobInfo> fetchJobInfoAttempts(final int execId, final String jobId)
       throws ExecutorManagerException {
@@ -267,6 +273,10 @@ public class MockExecutorLoader implements ExecutorLoader {
     return 0;
   }
 
+  @Override
+  public void shutdown() {
+  }
+
   @Override
   public List<ExecutableFlow> fetchFlowHistory(final int projectId, final String flowId,
       final int skip, final int num, final Status status) throws ExecutorManagerException {
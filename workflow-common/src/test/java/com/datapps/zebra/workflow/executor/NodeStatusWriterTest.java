@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.executor;
+
+import com.datapps.zebra.workflow.executor.NodeStatusWriter.NodeWrite;
+import com.datapps.zebra.workflow.flow.Flow;
+import com.datapps.zebra.workflow.flow.Node;
+import com.datapps.zebra.workflow.project.Project;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NodeStatusWriterTest {
+
+  private final List<List<NodeWrite>> batches = new ArrayList<>();
+  private ExecutableFlow flow;
+
+  @Before
+  public void setUp() {
+    final Flow flow = new Flow("flow");
+    for (int i = 1; i <= 3; i++) {
+      final Node node = new Node("job" + i);
+      node.setType("noop");
+      flow.addNode(node);
+    }
+    this.flow = new ExecutableFlow(new Project(1, "test"), flow);
+    this.flow.setExecutionId(1);
+  }
+
+  private synchronized List<NodeWrite> record(final List<NodeWrite> writes) {
+    this.batches.add(writes);
+    return Collections.emptyList();
+  }
+
+  @Test
+  public void testWritesOfAJobAreCoalesced() throws Exception {
+    final NodeStatusWriter writer = new NodeStatusWriter(this::record, 100, 60000);
+    final ExecutableNode node = this.flow.getExecutableNode("job1");
+    final byte[] input = new byte[]{1};
+    final byte[] output = new byte[]{2};
+
+    writer.write(new NodeWrite(node, true, input, null));
+    node.setStatus(Status.RUNNING);
+    writer.write(new NodeWrite(node, false, null, null));
+    node.setStatus(Status.SUCCEEDED);
+    writer.write(new NodeWrite(node, false, null, output));
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job2"), true, null, null));
+    Assert.assertEquals(2, writer.getPendingCount());
+
+    writer.flush();
+    Assert.assertEquals(1, this.batches.size());
+    final List<NodeWrite> batch = this.batches.get(0);
+    Assert.assertEquals(2, batch.size());
+    final NodeWrite write = batch.get(0);
+    Assert.assertEquals("job1", write.getJobId());
+    Assert.assertTrue(write.isInsert());
+    Assert.assertEquals(Status.SUCCEEDED, write.getStatus());
+    Assert.assertSame(input, write.getInputParams());
+    Assert.assertSame(output, write.getOutputParams());
+
+    // nothing left to write
+    writer.flush();
+    Assert.assertEquals(1, this.batches.size());
+  }
+
+  @Test
+  public void testFullBatchIsFlushed() throws Exception {
+    final CountDownLatch written = new CountDownLatch(1);
+    final NodeStatusWriter writer = new NodeStatusWriter(writes -> {
+      record(writes);
+      written.countDown();
+      return Collections.emptyList();
+    }, 2, 60000);
+
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job1"), true, null, null));
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job2"), true, null, null));
+
+    Assert.assertTrue(written.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(2, this.batches.get(0).size());
+  }
+
+  @Test
+  public void testWritesAreFlushedPeriodically() throws Exception {
+    final CountDownLatch written = new CountDownLatch(1);
+    final NodeStatusWriter writer = new NodeStatusWriter(writes -> {
+      record(writes);
+      written.countDown();
+      return Collections.emptyList();
+    }, 100, 5);
+
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job1"), true, null, null));
+
+    Assert.assertTrue(written.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(0, writer.getPendingCount());
+  }
+
+  @Test
+  public void testWriteThrough() throws Exception {
+    final NodeStatusWriter writer = new NodeStatusWriter(this::record, 100, 0);
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job1"), true, null, null));
+
+    Assert.assertEquals(1, this.batches.size());
+    Assert.assertEquals(0, writer.getPendingCount());
+  }
+
+  @Test
+  public void testFailedBatchIsKept() throws Exception {
+    final boolean[] fail = {true};
+    final NodeStatusWriter writer = new NodeStatusWriter(writes -> {
+      if (fail[0]) {
+        throw new ExecutorManagerException("DB is down");
+      }
+      return record(writes);
+    }, 100, 60000);
+    final ExecutableNode node = this.flow.getExecutableNode("job1");
+
+    writer.write(new NodeWrite(node, true, null, null));
+    try {
+      writer.flush();
+      Assert.fail("Expecting the flush to fail");
+    } catch (final ExecutorManagerException e) {
+      // expected
+    }
+    node.setStatus(Status.FAILED);
+    writer.write(new NodeWrite(node, false, null, null));
+
+    fail[0] = false;
+    writer.flush();
+    final NodeWrite write = this.batches.get(0).get(0);
+    Assert.assertTrue(write.isInsert());
+    Assert.assertEquals(Status.FAILED, write.getStatus());
+  }
+
+  @Test
+  public void testFailedFlushesBackOff() throws Exception {
+    final AtomicBoolean fail = new AtomicBoolean(true);
+    final AtomicInteger attempts = new AtomicInteger();
+    final NodeStatusWriter writer = new NodeStatusWriter(writes -> {
+      attempts.incrementAndGet();
+      if (fail.get()) {
+        throw new ExecutorManagerException("DB is down");
+      }
+      return record(writes);
+    }, 100, 1);
+
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job1"), true, null, null));
+    Thread.sleep(500);
+    // retried after 100, 200 ms... instead of every millisecond
+    Assert.assertTrue(attempts.get() + " attempts", attempts.get() <= 4);
+    Assert.assertEquals(attempts.get(), writer.getFailedFlushes());
+
+    fail.set(false);
+    final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+    while (writer.getFailedFlushes() > 0) {
+      Assert.assertTrue(System.currentTimeMillis() < end);
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(0, writer.getPendingCount());
+    Assert.assertEquals(1, this.batches.size());
+  }
+
+  @Test
+  public void testRowsHandedBackAreKept() throws Exception {
+    final ExecutableNode failing = this.flow.getExecutableNode("job2");
+    final NodeStatusWriter writer = new NodeStatusWriter(writes -> {
+      final List<NodeWrite> failed = new ArrayList<>();
+      final List<NodeWrite> written = new ArrayList<>();
+      for (final NodeWrite write : writes) {
+        if (write.getJobId().equals(failing.getId())) {
+          failed.add(write);
+        } else {
+          written.add(write);
+        }
+      }
+      record(written);
+      return failed;
+    }, 100, 60000);
+
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job1"), true, null, null));
+    writer.write(new NodeWrite(failing, true, null, null));
+    try {
+      writer.flush();
+      Assert.fail("Expecting the flush to fail");
+    } catch (final ExecutorManagerException e) {
+      // expected
+    }
+    // only the row handed back is written again
+    Assert.assertEquals(1, writer.getPendingCount());
+    Assert.assertEquals("job1", this.batches.get(0).get(0).getJobId());
+  }
+
+  @Test
+  public void testCloseWritesThePendingWrites() throws Exception {
+    final NodeStatusWriter writer = new NodeStatusWriter(this::record, 100, 60000);
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job1"), true, null, null));
+    Assert.assertTrue(this.batches.isEmpty());
+
+    writer.close();
+    Assert.assertEquals(1, this.batches.size());
+    Assert.assertEquals(0, writer.getPendingCount());
+
+    // the later writes are written right away
+    writer.write(new NodeWrite(this.flow.getExecutableNode("job2"), true, null, null));
+    Assert.assertEquals(2, this.batches.size());
+    Assert.assertEquals(0, writer.getPendingCount());
+  }
+}
@@ -11,8 +11,13 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class QueuedExecutionsTest {
 
@@ -26,12 +31,16 @@ public class QueuedExecutionsTest {
    */
   private Pair<ExecutionReference, ExecutableFlow> createExecutablePair(
       final String flowName, final int execId) throws IOException {
+    return createExecutablePair(flowName, execId, new Project(1, "flow"));
+  }
+
+  private Pair<ExecutionReference, ExecutableFlow> createExecutablePair(
+      final String flowName, final int execId, final Project project) throws IOException {
     final File jsonFlowFile = getFlowDir(flowName);
     final HashMap<String, Object> flowObj =
         (HashMap<String, Object>) JSONUtils.parseJSONFromFile(jsonFlowFile);
 
     final Flow flow = Flow.flowFromObject(flowObj);
-    final Project project = new Project(1, "flow");
     final HashMap<String, Flow> flowMap = new HashMap<>();
     flowMap.put(flow.getId(), flow);
     project.setFlows(flowMap);
@@ -201,4 +210,149 @@ public class QueuedExecutionsTest {
           queue.getReference(pair.getFirst().getExecId()));
     }
   }
+
+  /* Test a project bulk submitting flows does not starve other projects */
+  @Test
+  public void testFetchHeadFairAcrossProjects() throws IOException,
+      ExecutorManagerException, InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(10);
+    final Project backfill = new Project(1, "backfill");
+    final Project other = new Project(2, "other");
+    for (int execId = 1; execId <= 3; execId++) {
+      final Pair<ExecutionReference, ExecutableFlow> pair =
+          createExecutablePair("exec1", execId, backfill);
+      queue.enqueue(pair.getSecond(), pair.getFirst());
+    }
+    final Pair<ExecutionReference, ExecutableFlow> otherPair =
+        createExecutablePair("exec2", 4, other);
+    queue.enqueue(otherPair.getSecond(), otherPair.getFirst());
+
+    Assert.assertEquals(1, queue.fetchHead().getFirst().getExecId());
+    Assert.assertEquals(4, queue.fetchHead().getFirst().getExecId());
+    Assert.assertEquals(2, queue.fetchHead().getFirst().getExecId());
+    Assert.assertEquals(3, queue.fetchHead().getFirst().getExecId());
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /* Test a flow put back after a failed dispatch is not charged to its project again */
+  @Test
+  public void testRequeueDoesNotChargeAgain() throws IOException,
+      ExecutorManagerException, InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(10);
+    final Project backfill = new Project(1, "backfill");
+    for (int execId = 1; execId <= 2; execId++) {
+      final Pair<ExecutionReference, ExecutableFlow> pair =
+          createExecutablePair("exec1", execId, backfill);
+      queue.enqueue(pair.getSecond(), pair.getFirst());
+    }
+    final Pair<ExecutionReference, ExecutableFlow> otherPair =
+        createExecutablePair("exec2", 3, new Project(2, "other"));
+    queue.enqueue(otherPair.getSecond(), otherPair.getFirst());
+
+    final Pair<ExecutionReference, ExecutableFlow> head = queue.fetchHead();
+    Assert.assertEquals(1, head.getFirst().getExecId());
+    queue.requeue(head.getSecond(), head.getFirst());
+    Assert.assertEquals(3, queue.size());
+
+    Assert.assertEquals(1, queue.fetchHead().getFirst().getExecId());
+    Assert.assertEquals(3, queue.fetchHead().getFirst().getExecId());
+    Assert.assertEquals(2, queue.fetchHead().getFirst().getExecId());
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /* Test priority still wins over fair share */
+  @Test
+  public void testFetchHeadHonoursPriority() throws IOException,
+      ExecutorManagerException, InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(10);
+    final Pair<ExecutionReference, ExecutableFlow> low =
+        createExecutablePair("exec1", 1, new Project(2, "other"));
+    final Pair<ExecutionReference, ExecutableFlow> high =
+        createExecutablePair("exec2", 2, new Project(1, "backfill"));
+    final ExecutionOptions options = new ExecutionOptions();
+    options.addAllFlowParameters(
+        Collections.singletonMap(ExecutionOptions.FLOW_PRIORITY, "10"));
+    high.getSecond().setExecutionOptions(options);
+
+    queue.enqueue(low.getSecond(), low.getFirst());
+    queue.enqueue(high.getSecond(), high.getFirst());
+    Assert.assertEquals(high, queue.fetchHead());
+    Assert.assertEquals(low, queue.fetchHead());
+  }
+
+  /* Test per project queue depth */
+  @Test
+  public void testQueueDepthByProject() throws IOException, ExecutorManagerException {
+    final QueuedExecutions queue = new QueuedExecutions(10);
+    queue.enqueueAll(getDummyData());
+    final Pair<ExecutionReference, ExecutableFlow> pair =
+        createExecutablePair("exec1", 3, new Project(2, "other"));
+    queue.enqueue(pair.getSecond(), pair.getFirst());
+
+    Assert.assertEquals(Integer.valueOf(2), queue.getQueueDepthByProject().get("flow"));
+    Assert.assertEquals(Integer.valueOf(1), queue.getQueueDepthByProject().get("other"));
+    queue.dequeue(3);
+    Assert.assertNull(queue.getQueueDepthByProject().get("other"));
+  }
+  /* Test concurrent submissions of a project are charged one after the other */
+  @Test
+  public void testConcurrentEnqueueIsFair() throws Exception {
+    final QueuedExecutions queue = new QueuedExecutions(100);
+    final Project backfill = new Project(1, "backfill");
+    final List<Callable<Void>> submissions = new ArrayList<>();
+    for (int execId = 1; execId <= 20; execId++) {
+      final Pair<ExecutionReference, ExecutableFlow> pair =
+          createExecutablePair("exec1", execId, backfill);
+      pair.getSecond().setSubmitUser("user" + execId % 2);
+      submissions.add(() -> {
+        queue.enqueue(pair.getSecond(), pair.getFirst());
+        return null;
+      });
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (final Future<Void> submission : executor.invokeAll(submissions)) {
+        submission.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    final Pair<ExecutionReference, ExecutableFlow> otherPair =
+        createExecutablePair("exec2", 21, new Project(2, "other"));
+    queue.enqueue(otherPair.getSecond(), otherPair.getFirst());
+
+    // the other project is only behind the first flow of the backfill
+    queue.fetchHead();
+    Assert.assertEquals(21, queue.fetchHead().getFirst().getExecId());
+  }
+
+  /* Test the fair share state of projects and users is dropped with their last flow */
+  @Test
+  public void testFairShareStateDroppedWhenQueueEmpties() throws IOException,
+      ExecutorManagerException, InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(10);
+    final List<Pair<ExecutionReference, ExecutableFlow>> dataList = getDummyData();
+    for (final Pair<ExecutionReference, ExecutableFlow> pair : dataList) {
+      pair.getSecond().setSubmitUser("user");
+    }
+    queue.enqueueAll(dataList);
+    Assert.assertEquals(2, queue.getFairShareOwnerCount());
+
+    final Pair<ExecutionReference, ExecutableFlow> head = queue.fetchHead();
+    queue.requeue(head.getSecond(), head.getFirst());
+    queue.fetchHead();
+    Assert.assertEquals(2, queue.getFairShareOwnerCount());
+    queue.dequeue(dataList.get(1).getFirst().getExecId());
+    Assert.assertEquals(0, queue.getFairShareOwnerCount());
+
+    try {
+      queue.enqueue(dataList.get(0).getSecond(), dataList.get(0).getFirst());
+      queue.enqueue(dataList.get(0).getSecond(), dataList.get(0).getFirst());
+      Assert.fail("Flow queued twice");
+    } catch (final ExecutorManagerException e) {
+      // expected
+    }
+    queue.clear();
+    Assert.assertEquals(0, queue.getFairShareOwnerCount());
+  }
 }
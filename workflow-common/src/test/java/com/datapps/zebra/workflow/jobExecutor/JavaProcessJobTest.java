@@ -16,6 +16,7 @@
 
 package com.datapps.zebra.workflow.jobExecutor;
 
+import com.datapps.zebra.workflow.jobExecutor.utils.process.ProcessFailureException;
 import com.datapps.zebra.workflow.utils.Props;
 import org.apache.log4j.Logger;
 import org.junit.*;
@@ -23,7 +24,10 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Date;
+import java.util.List;
 import java.util.Properties;
 
 
@@ -141,4 +145,39 @@ public class JavaProcessJobTest {
       Assert.assertTrue(true);
     }
   }
+
+  @Test
+  public void testJavaJobInPooledJvm() throws Exception {
+    this.props.put(JavaProcessJob.JAVA_CLASS, WordCountLocal.class.getName());
+    this.props.put(JavaProcessJob.JVM_POOL_ENABLED, "true");
+    this.props.put("input", inputFile);
+    this.props.put("classpath", classPaths);
+
+    // the second run is given the JVM started for the first one
+    for (int i = 0; i < 2; i++) {
+      final File output = this.temp.newFile("pooled_output_" + i);
+      this.props.put("output", output.getCanonicalPath());
+      this.job = new JavaProcessJob("testJavaProcess", this.props, this.props, this.log);
+      this.job.run();
+
+      final List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+      Assert.assertTrue(lines.contains("Bookseller\t1"));
+      Assert.assertTrue(lines.contains("bookstores\t2"));
+    }
+  }
+
+  @Test
+  public void testMissingMainClassInPooledJvm() throws Exception {
+    this.props.put(JavaProcessJob.JAVA_CLASS, "com.datapps.zebra.workflow.jobExecutor.NoSuchJob");
+    this.props.put(JavaProcessJob.JVM_POOL_ENABLED, "true");
+    this.props.put("classpath", classPaths);
+
+    try {
+      this.job.run();
+      Assert.fail("The job should have failed");
+    } catch (final RuntimeException e) {
+      Assert.assertTrue(e.getCause() instanceof ProcessFailureException);
+      Assert.assertEquals(1, ((ProcessFailureException) e.getCause()).getExitCode());
+    }
+  }
 }
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.jobExecutor.utils.process;
+
+import com.datapps.zebra.workflow.utils.Props;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the main classes below in pooled JVMs. They only depend on the JDK, like the jobs run by
+ * the pool, and are loaded from the test classes directory.
+ */
+public class JvmPoolTest {
+
+  private final Logger logger = Logger.getLogger(JvmPoolTest.class);
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  private JvmPool pool;
+  private String classPath;
+
+  @Before
+  public void setUp() throws Exception {
+    this.pool = new JvmPool(new Props());
+    this.classPath = new File(JvmPoolTest.class.getProtectionDomain().getCodeSource()
+        .getLocation().toURI()).getPath();
+  }
+
+  @After
+  public void tearDown() {
+    this.pool.close();
+  }
+
+  private PooledJavaProcess createProcess(final Class<?> mainClass,
+      final Map<String, String> env, final String... args) throws IOException {
+    return createProcess(mainClass, this.temp.getRoot(), this.logger, env, args);
+  }
+
+  private PooledJavaProcess createProcess(final Class<?> mainClass, final File workingDir,
+      final Logger logger, final Map<String, String> env, final String... args) {
+    return new PooledJavaProcess(this.pool,
+        Arrays.asList(System.getProperty("java.home") + "/bin/java", "-Xmx64M"),
+        Collections.singletonList(this.classPath), mainClass.getName(), Arrays.asList(args), env,
+        workingDir.getPath(), new Props(), logger);
+  }
+
+  /**
+   * @return the exit code of the job
+   */
+  private static int run(final PooledJavaProcess process) throws IOException {
+    try {
+      process.run();
+      return 0;
+    } catch (final ProcessFailureException e) {
+      return e.getExitCode();
+    }
+  }
+
+  /**
+   * @return the name of the JVM which ran the job
+   */
+  private String runInJvm() throws IOException {
+    final File file = this.temp.newFile();
+    Assert.assertEquals(0,
+        run(createProcess(JvmNameMain.class, Collections.emptyMap(), file.getPath())));
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Waits for the JVM started along the first one to be idle too
+   */
+  private void awaitIdleWorkers(final int count) throws InterruptedException {
+    final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+    while (this.pool.getIdleCount() < count) {
+      Assert.assertTrue("No idle pooled JVMs", System.currentTimeMillis() < end);
+      Thread.sleep(50);
+    }
+  }
+
+  @Test
+  public void testWorkersAreReused() throws Exception {
+    final Set<String> jvms = new HashSet<>();
+    for (int i = 0; i < 4; i++) {
+      jvms.add(runInJvm());
+    }
+    // the JVM of the first job and the one started in the background
+    Assert.assertTrue(jvms.size() <= 2);
+
+    awaitIdleWorkers(2);
+    Assert.assertEquals(runInJvm(), runInJvm());
+  }
+
+  @Test
+  public void testExitIsTrapped() throws Exception {
+    runInJvm();
+    awaitIdleWorkers(2);
+
+    final String jvm = runInJvm();
+    Assert.assertEquals(3, run(createProcess(ExitMain.class, Collections.emptyMap(), "3")));
+    Assert.assertEquals(0, run(createProcess(ExitMain.class, Collections.emptyMap(), "0")));
+    // the JVM is still used after the jobs which called exit
+    Assert.assertEquals(jvm, runInJvm());
+  }
+
+  @Test
+  public void testSwallowedExitEndsTheJob() throws Exception {
+    final File file = new File(this.temp.getRoot(), "after-exit");
+    Assert.assertEquals(4,
+        run(createProcess(SwallowedExitMain.class, Collections.emptyMap(), file.getPath())));
+    Assert.assertFalse(file.exists());
+  }
+
+  @Test
+  public void testKilledJobFails() throws Exception {
+    final PooledJavaProcess process = createProcess(SleepMain.class, Collections.emptyMap());
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<Integer> exitCode = executor.submit(() -> run(process));
+      process.awaitStartup();
+      process.hardKill();
+
+      Assert.assertNotEquals(0, (int) exitCode.get(1, TimeUnit.MINUTES));
+      Assert.assertTrue(process.isComplete());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testEnvironmentAndPropertiesAreRestored() throws Exception {
+    runInJvm();
+    awaitIdleWorkers(2);
+
+    final Map<String, String> env = new HashMap<>();
+    env.put("JVM_POOL_TEST", "first");
+    env.put("JVM_POOL_LEAK", "leaked");
+    Assert.assertEquals(0, run(createProcess(EnvMain.class, env, "first", "leak")));
+
+    // the second job runs in the same JVM and sees none of what the first one set
+    Assert.assertEquals(0, run(createProcess(EnvMain.class,
+        Collections.singletonMap("JVM_POOL_TEST", "second"), "second", "clean")));
+  }
+
+  @Test
+  public void testRelativePathsResolveAgainstTheWorkingDir() throws Exception {
+    final File first = this.temp.newFolder();
+    final File second = this.temp.newFolder();
+    for (final File workingDir : Arrays.asList(first, second, first)) {
+      Assert.assertEquals(0, run(createProcess(RelativePathMain.class, workingDir, this.logger,
+          Collections.emptyMap(), workingDir.getName())));
+    }
+
+    Assert.assertEquals(first.getName() + first.getName(), new String(
+        Files.readAllBytes(new File(first, "relative").toPath()), StandardCharsets.UTF_8));
+    Assert.assertEquals(second.getName(), new String(
+        Files.readAllBytes(new File(second, "relative").toPath()), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testJvmOutputGoesToTheJobLog() throws Exception {
+    final StringWriter log = new StringWriter();
+    final Logger jobLogger = Logger.getLogger("JvmPoolTest.job");
+    jobLogger.addAppender(new WriterAppender(new PatternLayout("%m%n"), log));
+    try {
+      Assert.assertEquals(0, run(createProcess(FileDescriptorMain.class, this.temp.getRoot(),
+          jobLogger, Collections.emptyMap())));
+    } finally {
+      jobLogger.removeAllAppenders();
+    }
+
+    Assert.assertTrue(log.toString(), log.toString().contains("through System.out"));
+    Assert.assertTrue(log.toString(), log.toString().contains("through the file descriptor"));
+  }
+
+  public static class JvmNameMain {
+
+    public static void main(final String[] args) throws IOException {
+      try (FileOutputStream out = new FileOutputStream(args[0])) {
+        out.write(ManagementFactory.getRuntimeMXBean().getName()
+            .getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  public static class ExitMain {
+
+    public static void main(final String[] args) {
+      System.exit(Integer.parseInt(args[0]));
+    }
+  }
+
+  public static class SwallowedExitMain {
+
+    public static void main(final String[] args) {
+      try {
+        System.exit(4);
+      } catch (final Throwable t) {
+        // keeps going like a job catching everything would
+      }
+      try {
+        new FileOutputStream(args[0]).close();
+      } catch (final Throwable t) {
+        // expected
+      }
+    }
+  }
+
+  public static class RelativePathMain {
+
+    public static void main(final String[] args) throws IOException {
+      try (FileOutputStream out = new FileOutputStream("relative", true)) {
+        out.write(args[0].getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  public static class FileDescriptorMain {
+
+    public static void main(final String[] args) throws IOException {
+      System.out.println("through System.out");
+      final FileOutputStream out = new FileOutputStream(FileDescriptor.out);
+      out.write("through the file descriptor\n".getBytes(StandardCharsets.UTF_8));
+      out.flush();
+    }
+  }
+
+  public static class SleepMain {
+
+    public static void main(final String[] args) throws InterruptedException {
+      Thread.sleep(TimeUnit.MINUTES.toMillis(5));
+    }
+  }
+
+  /**
+   * Exits with 2 when the environment or the system properties aren't the expected ones, then
+   * sets a property
+   */
+  public static class EnvMain {
+
+    public static void main(final String[] args) {
+      final boolean leak = "leak".equals(args[1]);
+      if (!args[0].equals(System.getenv("JVM_POOL_TEST"))
+          || leak != (System.getenv("JVM_POOL_LEAK") != null)
+          || System.getenv(JvmPoolWorker.TOKEN_ENV) != null
+          || System.getProperty("jvm.pool.test") != null) {
+        System.exit(2);
+      }
+      System.setProperty("jvm.pool.test", args[0]);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.jobExecutor.utils.process;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ProcessOutputPumpTest {
+
+  @Test
+  public void testRingBufferKeepsLastBytes() {
+    final ProcessOutputPump.ByteRingBuffer buffer = new ProcessOutputPump.ByteRingBuffer(5);
+    buffer.write("abc".getBytes(StandardCharsets.UTF_8), 0, 3);
+    Assert.assertEquals("abc", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    Assert.assertFalse(buffer.hasWrapped());
+
+    buffer.write("defg".getBytes(StandardCharsets.UTF_8), 0, 4);
+    Assert.assertEquals("cdefg", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    Assert.assertTrue(buffer.hasWrapped());
+
+    buffer.write("0123456789".getBytes(StandardCharsets.UTF_8), 0, 10);
+    Assert.assertEquals("56789", new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testProcessOutputIsDrained() throws Exception {
+    final ProcessBuilder builder = new ProcessBuilder("sh", "-c",
+        "for i in $(seq 1 1000); do echo line $i; done; printf last");
+    builder.redirectErrorStream(true);
+    final Process process = builder.start();
+
+    final ProcessOutputPump.Drain drain = ProcessOutputPump.getInstance()
+        .register(process.getInputStream(), Logger.getLogger(ProcessOutputPumpTest.class),
+            Level.INFO, 2);
+    Assert.assertEquals(0, process.waitFor());
+    drain.awaitCompletion(5000);
+
+    Assert.assertEquals("line 1000" + System.getProperty("line.separator") + "last",
+        drain.getRecentLog());
+  }
+}
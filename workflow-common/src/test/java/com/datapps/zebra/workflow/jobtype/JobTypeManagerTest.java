@@ -30,6 +30,7 @@ import org.junit.rules.TemporaryFolder;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Map;
 
 import static com.datapps.zebra.workflow.test.Utils.initServiceProvider;
 import static org.junit.Assert.*;
@@ -319,4 +320,49 @@ public class JobTypeManagerTest {
     assertEquals("3", ntjobProps.get("pluginprops3"));
     assertEquals("pluginprops", ntjobProps.get("commonprop3"));
   }
+
+  /**
+   * Builds many job executors of the same type, which reuse what was derived from the plugin
+   * props when the plugin was loaded
+   */
+  @Test
+  public void testBuildManyJobExecutors() throws Exception {
+    final JobTypePluginSet pluginSet = this.manager.getJobTypePluginSet();
+    // the constructor is found once, when the plugin class is added
+    assertEquals(FakeJavaJob2.class.getConstructor(String.class, Props.class, Props.class,
+        Logger.class), pluginSet.getPluginConstructor("testjob"));
+
+    final Map<String, String> flattened = pluginSet.getFlattenedPluginJobProps("testjob");
+    assertEquals("1", flattened.get("pluginprops1"));
+    assertEquals("pluginprops", flattened.get("commonprop3"));
+    assertNull(flattened.get("commonprivate1"));
+
+    final int jobCount = 10000;
+    final long startMs = System.currentTimeMillis();
+    for (int i = 0; i < jobCount; i++) {
+      final Props jobProps = new Props();
+      jobProps.put("type", "testjob");
+      jobProps.put("test", "test" + i);
+      jobProps.put("pluginprops3", "${test}");
+      final FakeJavaJob2 job =
+          (FakeJavaJob2) this.manager.buildJobExecutor("job" + i, jobProps, this.logger);
+
+      final Props props = job.getJobProps();
+      assertEquals("test" + i, props.get("pluginprops3"));
+      assertEquals("1", props.get("pluginprops1"));
+      assertEquals("pluginprops", props.get("commonprop3"));
+      assertNull(props.get("commonprivate1"));
+
+      // every job gets its own loader props
+      final Props sysProps = job.getSysProps();
+      assertEquals("private3", sysProps.get("commonprivate3"));
+      sysProps.put("testprivate", "modified");
+    }
+    this.logger.info("Built " + jobCount + " job executors in "
+        + (System.currentTimeMillis() - startMs) + " ms");
+
+    // the plugin job props are flattened once and the loader props are left alone
+    assertSame(flattened, pluginSet.getFlattenedPluginJobProps("testjob"));
+    assertEquals("0", pluginSet.getPluginLoaderProps("testjob").get("testprivate"));
+  }
 }
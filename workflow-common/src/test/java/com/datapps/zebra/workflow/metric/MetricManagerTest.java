@@ -82,6 +82,6 @@ public class MetricManagerTest {
         .getMetrics("FakeMetric", from, new Date(), false);
 
     assertEquals("Failed to report metric", 1, nodes.size());
-    assertEquals("Failed to report metric", nodes.get(0).getValue(), 4);
+    assertEquals("Failed to report metric", 4, nodes.get(0).getValue(), 0);
   }
 }
@@ -0,0 +1,87 @@
+package com.datapps.zebra.workflow.metric.inmemoryemitter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class MetricTimeSeriesTest {
+
+  private static final long WEEK = TimeUnit.DAYS.toMillis(7);
+
+  @Test
+  public void ringBufferOverwritesOldestWhenFull() {
+    final TimeSeriesRingBuffer buffer = new TimeSeriesRingBuffer(3);
+    for (int i = 1; i <= 5; i++) {
+      buffer.add(i, i * 10);
+    }
+    assertThat(buffer.size()).isEqualTo(3);
+    assertThat(buffer.timestampAt(0)).isEqualTo(3);
+    assertThat(buffer.valueAt(2)).isEqualTo(50);
+  }
+
+  @Test
+  public void ringBufferGrowsAndSearches() {
+    final TimeSeriesRingBuffer buffer = new TimeSeriesRingBuffer(10000);
+    for (int i = 0; i < 5000; i++) {
+      buffer.add(i * 2, i);
+    }
+    assertThat(buffer.lowerBound(100)).isEqualTo(50);
+    assertThat(buffer.upperBound(100)).isEqualTo(51);
+    assertThat(buffer.lowerBound(101)).isEqualTo(51);
+    assertThat(buffer.removeOlderThan(1000)).isEqualTo(500);
+    assertThat(buffer.timestampAt(0)).isEqualTo(1000);
+    assertThat(buffer.removeOlderThan(Long.MAX_VALUE)).isEqualTo(4500);
+    assertThat(buffer.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void timeWindowDropsOldSamples() {
+    final MetricTimeSeries series = new MetricTimeSeries(100);
+    series.add(1000, 1, 500);
+    series.add(1400, 2, 500);
+    series.add(1600, 3, 500);
+    assertThat(series.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void selectEvenlyUsesRawPointsInOpenInterval() {
+    final MetricTimeSeries series = new MetricTimeSeries(100);
+    for (int i = 0; i < 10; i++) {
+      series.add(i * 1000, i, WEEK);
+    }
+    final List<InMemoryHistoryNode> nodes = series.selectEvenly(0, 9000, 50);
+    assertThat(nodes).hasSize(8);
+    assertThat(nodes.get(0).getValue()).isEqualTo(1);
+    assertThat(nodes.get(7).getTimestamp().getTime()).isEqualTo(8000);
+  }
+
+  @Test
+  public void selectEvenlyLimitsAWeekOfPerSecondData() {
+    final int seconds = (int) TimeUnit.DAYS.toSeconds(7);
+    final MetricTimeSeries series = new MetricTimeSeries(seconds);
+    for (int i = 0; i < seconds; i++) {
+      series.add(i * 1000L, i % 60, WEEK);
+    }
+    assertThat(series.size()).isEqualTo(seconds);
+
+    final List<InMemoryHistoryNode> nodes = series.selectEvenly(-1, seconds * 1000L, 50);
+    assertThat(nodes).hasSize(50);
+    // hourly tier holds the mean of 0..59 repeated
+    assertThat(nodes.get(0).getValue()).isCloseTo(29.5, within(1e-9));
+  }
+
+  @Test
+  public void selectOutliersKeepsPointsOutsideBand() {
+    final MetricTimeSeries series = new MetricTimeSeries(100);
+    for (int i = 0; i < 20; i++) {
+      series.add(i * 1000, 10, WEEK);
+    }
+    series.add(20000, 1000, WEEK);
+    final List<InMemoryHistoryNode> nodes = series.selectOutliers(-1, 30000, 2);
+    assertThat(nodes).hasSize(1);
+    assertThat(nodes.get(0).getValue()).isEqualTo(1000);
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.datapps.zebra.workflow.project;
 
+import com.datapps.zebra.workflow.flow.Flow;
 import com.datapps.zebra.workflow.test.executions.TestExecutions;
 import com.datapps.zebra.workflow.utils.Props;
 import org.apache.log4j.Logger;
@@ -23,7 +24,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
 
 public class DirectoryFlowLoaderTest {
 
@@ -65,4 +69,49 @@ public class DirectoryFlowLoaderTest {
     // Should be 3 errors: jobe->innerFlow, innerFlow->jobe, innerFlow
     Assert.assertEquals(3, loader.getErrors().size());
   }
+
+  @Test
+  public void testParallelParsingMatchesSerialParsing() throws URISyntaxException {
+    final Logger logger = Logger.getLogger(this.getClass());
+    final Props serialProps = new Props();
+    serialProps.put(DirectoryFlowLoader.PARALLEL_PARSE, "false");
+
+    for (final String dir : new String[]{"animal", "embedded", "embedded2", "embedded3",
+        "embedded_bad", "execpropstest", "exectest1", "exectest2", "logtest"}) {
+      final File flowDir = TestExecutions.getFlowDir(dir);
+      final DirectoryFlowLoader parallel = new DirectoryFlowLoader(new Props(), logger);
+      parallel.loadProjectFlow(this.project, flowDir);
+      final DirectoryFlowLoader serial = new DirectoryFlowLoader(serialProps, logger);
+      serial.loadProjectFlow(this.project, flowDir);
+
+      Assert.assertEquals(dir, serial.getErrors(), parallel.getErrors());
+
+      final Map<String, Flow> flows = serial.getFlowMap();
+      Assert.assertEquals(dir, flows.keySet(), parallel.getFlowMap().keySet());
+      for (final Flow flow : flows.values()) {
+        Assert.assertEquals(dir + " " + flow.getId(), flow.toObject(),
+            parallel.getFlowMap().get(flow.getId()).toObject());
+      }
+
+      final Map<String, Props> jobProps = serial.getJobProps();
+      Assert.assertEquals(dir, jobProps.keySet(), parallel.getJobProps().keySet());
+      for (final Map.Entry<String, Props> job : jobProps.entrySet()) {
+        assertSameProps(dir + " " + job.getKey(), job.getValue(),
+            parallel.getJobProps().get(job.getKey()));
+      }
+
+      final List<Props> props = serial.getProps();
+      Assert.assertEquals(dir, props.size(), parallel.getProps().size());
+      for (int i = 0; i < props.size(); i++) {
+        assertSameProps(dir + " " + props.get(i).getSource(), props.get(i),
+            parallel.getProps().get(i));
+      }
+    }
+  }
+
+  private static void assertSameProps(final String message, final Props expected,
+      final Props actual) {
+    Assert.assertEquals(message, expected.getSource(), actual.getSource());
+    Assert.assertEquals(message, expected.getFlattened(), actual.getFlattened());
+  }
 }
@@ -328,6 +328,32 @@ public class JdbcProjectImplTest {
     Assert.assertEquals(propsMap.get("source2").get("keyaaa"), "valueaaa");
   }
 
+  @Test
+  public void testFetchProjectPropertiesWithSuffix() throws Exception {
+    final Props override = new Props();
+    override.setSource("job1.jor");
+    override.put("command", "echo override");
+
+    final Props jobProps = new Props();
+    jobProps.setSource("job1.job");
+    jobProps.put("command", "echo job");
+
+    // _ matches any character in LIKE, it must not here
+    final Props lookalike = new Props();
+    lookalike.setSource("job2xjor");
+
+    createThreeProjects();
+    final Project project = this.loader.fetchProjectByName("mytestProject");
+    this.loader.uploadProjectProperties(project, Arrays.asList(override, jobProps, lookalike));
+
+    final Map<String, Props> propsMap = this.loader
+        .fetchProjectPropertiesWithSuffix(project.getId(), project.getVersion(), ".jor");
+    Assert.assertEquals(propsMap.keySet(), Collections.singleton("job1.jor"));
+    Assert.assertEquals(propsMap.get("job1.jor").get("command"), "echo override");
+    Assert.assertTrue(this.loader
+        .fetchProjectPropertiesWithSuffix(project.getId(), project.getVersion(), "_jor").isEmpty());
+  }
+
   @Test
   public void cleanOlderProjectVersion() throws Exception {
     createThreeProjects();
@@ -202,6 +202,19 @@ public class MockProjectLoader implements ProjectLoader {
     return propertyMap;
   }
 
+  @Override
+  public Map<String, Props> fetchProjectPropertiesWithSuffix(final int projectId,
+      final int version, final String suffix) throws ProjectManagerException {
+    final Map<String, Props> propertyMap = new HashMap<>();
+    for (final Map.Entry<String, Props> entry :
+        fetchProjectProperties(projectId, version).entrySet()) {
+      if (entry.getKey().endsWith(suffix)) {
+        propertyMap.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return propertyMap;
+  }
+
   @Override
   public void cleanOlderProjectVersion(final int projectId, final int version)
       throws ProjectManagerException {
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.project;
+
+import com.datapps.zebra.workflow.flow.Flow;
+import com.datapps.zebra.workflow.storage.StorageManager;
+import com.datapps.zebra.workflow.utils.Props;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProjectManagerTest {
+
+  private static final int ID = 107;
+
+  private ProjectLoader projectLoader;
+  private Project project;
+  private Props props;
+
+  @Before
+  public void setUp() throws Exception {
+    this.props = new Props();
+    this.projectLoader = mock(ProjectLoader.class);
+    this.project = new Project(ID, "project1");
+    this.project.setActive(true);
+    this.project.setVersion(1);
+    when(this.projectLoader.fetchAllActiveProjects())
+        .thenReturn(Collections.singletonList(this.project));
+    // each version has a single flow named after it
+    when(this.projectLoader.fetchAllProjectFlows(any(Project.class))).thenAnswer(
+        invocation -> Collections.singletonList(
+            new Flow("flow" + ((Project) invocation.getArguments()[0]).getVersion())));
+  }
+
+  private ProjectManager createProjectManager() {
+    return new ProjectManager(mock(AzkabanProjectLoader.class), this.projectLoader,
+        mock(StorageManager.class), this.props);
+  }
+
+  @Test
+  public void testFlowsAreLoadedOnFirstAccess() throws Exception {
+    final ProjectManager manager = createProjectManager();
+    verify(this.projectLoader, never()).fetchAllProjectFlows(any(Project.class));
+
+    final Project loaded = manager.getProject(ID);
+    Assert.assertNotNull(loaded.getFlow("flow1"));
+    Assert.assertEquals(1, loaded.getFlows().size());
+    verify(this.projectLoader, times(1)).fetchAllProjectFlows(any(Project.class));
+  }
+
+  @Test
+  public void testEagerLoading() throws Exception {
+    this.props.put("project.flow.lazy.load", "false");
+    final ProjectManager manager = createProjectManager();
+    verify(this.projectLoader, times(1)).fetchAllProjectFlows(any(Project.class));
+
+    Assert.assertNotNull(manager.getProject(ID).getFlow("flow1"));
+    verify(this.projectLoader, times(1)).fetchAllProjectFlows(any(Project.class));
+  }
+
+  @Test
+  public void testNewVersionReloadsFlows() throws Exception {
+    final ProjectManager manager = createProjectManager();
+    final Project loaded = manager.getProject(ID);
+    Assert.assertNotNull(loaded.getFlow("flow1"));
+
+    loaded.setVersion(2);
+    Assert.assertNotNull(loaded.getFlow("flow2"));
+    Assert.assertNull(loaded.getFlow("flow1"));
+    Assert.assertNotNull(loaded.getFlow("flow2"));
+    verify(this.projectLoader, times(2)).fetchAllProjectFlows(any(Project.class));
+  }
+
+  @Test
+  public void testOlderVersionDoesNotReplaceNewerFlows() throws Exception {
+    final ProjectManager manager = createProjectManager();
+    final Project loaded = manager.getProject(ID);
+    loaded.setVersion(2);
+    Assert.assertNotNull(loaded.getFlow("flow2"));
+
+    // a reader still on the previous version gets its own flows
+    loaded.setVersion(1);
+    Assert.assertNotNull(loaded.getFlow("flow1"));
+    verify(this.projectLoader, times(2)).fetchAllProjectFlows(any(Project.class));
+
+    // and the flows of the newer version stay cached
+    loaded.setVersion(2);
+    Assert.assertNotNull(loaded.getFlow("flow2"));
+    verify(this.projectLoader, times(2)).fetchAllProjectFlows(any(Project.class));
+  }
+
+  @Test
+  public void testEvictedFlowsAreReloaded() throws Exception {
+    // every entry is over the weight bound and evicted right away, as soft values are when the
+    // GC reclaims them
+    this.props.put("project.flow.cache.max.nodes", "0");
+    final ProjectManager manager = createProjectManager();
+    final Project loaded = manager.getProject(ID);
+
+    Assert.assertNotNull(loaded.getFlow("flow1"));
+    Assert.assertNotNull(loaded.getFlow("flow1"));
+    verify(this.projectLoader, times(2)).fetchAllProjectFlows(any(Project.class));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.project;
+
+import com.datapps.zebra.workflow.user.Permission;
+import com.datapps.zebra.workflow.user.Permission.Type;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectPermissionIndexTest {
+
+  @Test
+  public void testUserProjects() {
+    final ProjectPermissionIndex index = new ProjectPermissionIndex();
+    final Project admin = new Project(1, "admin");
+    admin.setUserPermission("user1", new Permission(Type.ADMIN));
+    final Project reader = new Project(2, "reader");
+    reader.setUserPermission("user1", new Permission(Type.READ));
+    final Project executeOnly = new Project(3, "executeOnly");
+    executeOnly.setUserPermission("user1", new Permission(Type.EXECUTE));
+    index.index(admin);
+    index.index(reader);
+    index.index(executeOnly);
+
+    assertThat(index.getUserProjectIds("user1")).containsExactly(1, 2);
+    assertThat(index.getUserProjectIds("user2")).isEmpty();
+  }
+
+  @Test
+  public void testReindexOnPermissionChange() {
+    final ProjectPermissionIndex index = new ProjectPermissionIndex();
+    final Project project = new Project(1, "project");
+    project.setUserPermission("user1", new Permission(Type.READ));
+    index.index(project);
+
+    project.removeUserPermission("user1");
+    project.setUserPermission("user2", new Permission(Type.ADMIN));
+    index.index(project);
+    assertThat(index.getUserProjectIds("user1")).isEmpty();
+    assertThat(index.getUserProjectIds("user2")).containsExactly(1);
+
+    index.remove(1);
+    assertThat(index.getUserProjectIds("user2")).isEmpty();
+  }
+
+  @Test
+  public void testGroupProjects() {
+    final ProjectPermissionIndex index = new ProjectPermissionIndex();
+    final Project first = new Project(1, "first");
+    first.setGroupPermission("group1", new Permission(Type.READ));
+    final Project second = new Project(2, "second");
+    second.setGroupPermission("group1", new Permission(Type.READ));
+    second.setGroupPermission("group2", new Permission(Type.ADMIN));
+    index.index(second);
+    index.index(first);
+
+    assertThat(index.getGroupProjectIds(Arrays.asList("group1", "group2")))
+        .containsExactly(1, 2);
+    assertThat(index.getGroupProjectIds(Collections.singletonList("group2")))
+        .containsExactly(2);
+    assertThat(index.getGroupProjectIds(Collections.singletonList("group3"))).isEmpty();
+  }
+}
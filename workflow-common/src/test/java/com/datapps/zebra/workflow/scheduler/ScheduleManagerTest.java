@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.scheduler;
+
+import com.datapps.zebra.workflow.executor.ExecutionOptions;
+import com.datapps.zebra.workflow.trigger.TriggerStatus;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.joda.time.ReadablePeriod;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ScheduleManagerTest {
+
+  private MockScheduleLoader loader;
+  private ScheduleManager manager;
+
+  @Before
+  public void setUp() {
+    this.loader = new MockScheduleLoader();
+    this.manager = new ScheduleManager(this.loader);
+  }
+
+  private Schedule scheduleFlow(final int projectId, final String flowName,
+      final ReadablePeriod period) {
+    final long firstSchedTime = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+    return this.manager.scheduleFlow(-1, projectId, "project" + projectId, flowName,
+        TriggerStatus.READY.toString(), firstSchedTime, Long.MAX_VALUE, DateTimeZone.UTC, period,
+        System.currentTimeMillis(), firstSchedTime, System.currentTimeMillis(), "testUser",
+        new ExecutionOptions(), Collections.emptyList());
+  }
+
+  private static List<String> flowNames(final List<Schedule> schedules) {
+    final List<String> names = new ArrayList<>();
+    for (final Schedule s : schedules) {
+      names.add(s.getFlowName());
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  @Test
+  public void testProjectIndexOnInsertUpdateAndRemove() throws Exception {
+    final Schedule flowA = scheduleFlow(1, "flowA", Days.ONE);
+    final Schedule flowB = scheduleFlow(1, "flowB", Days.ONE);
+    scheduleFlow(2, "flowC", null);
+
+    Assert.assertEquals(3, this.loader.inserted.size());
+    Assert.assertEquals(Collections.singletonList("flowC"),
+        flowNames(this.manager.getSchedulesByProject(2)));
+    Assert.assertEquals(2, this.manager.getSchedulesByProject(1).size());
+
+    // scheduling the same flow again updates its schedule in place
+    final Schedule updated = scheduleFlow(1, "flowA", Days.TWO);
+    Assert.assertEquals(1, this.loader.updated.size());
+    Assert.assertEquals(flowA.getScheduleId(), updated.getScheduleId());
+    Assert.assertEquals(2, this.manager.getSchedulesByProject(1).size());
+    Assert.assertSame(updated, this.manager.getSchedule(1, "flowA"));
+    Assert.assertTrue(this.manager.getSchedulesByProject(1).contains(updated));
+    Assert.assertFalse(this.manager.getSchedulesByProject(1).contains(flowA));
+
+    this.manager.removeSchedule(updated);
+    Assert.assertEquals(Collections.singletonList("flowB"),
+        flowNames(this.manager.getSchedulesByProject(1)));
+    Assert.assertNull(this.manager.getSchedule(updated.getScheduleId()));
+
+    this.manager.removeSchedule(flowB);
+    Assert.assertTrue(this.manager.getSchedulesByProject(1).isEmpty());
+    Assert.assertEquals(1, this.manager.getSchedules().size());
+    Assert.assertEquals(2, this.loader.removed.size());
+  }
+
+  @Test
+  public void testUnknownProjectHasNoSchedules() throws Exception {
+    scheduleFlow(1, "flowA", Days.ONE);
+    Assert.assertTrue(this.manager.getSchedulesByProject(42).isEmpty());
+  }
+
+  @Test
+  public void testUpdatesFromTheLoaderAreIndexed() throws Exception {
+    final Schedule loaded = new Schedule(7, 3, "project3", "flowD",
+        TriggerStatus.READY.toString(), 0, Long.MAX_VALUE, DateTimeZone.UTC, Days.ONE, 0, 0, 0,
+        "testUser", new ExecutionOptions(), Collections.emptyList(), null);
+    this.loader.updates.add(loaded);
+
+    Assert.assertSame(loaded, this.manager.getSchedule(7));
+    Assert.assertSame(loaded, this.manager.getSchedule(3, "flowD"));
+    Assert.assertEquals(Collections.singletonList(loaded), this.manager.getSchedulesByProject(3));
+    Assert.assertEquals(1, this.loader.loadCount);
+
+    // an expired schedule is dropped from all the indexes
+    final Schedule expired = new Schedule(7, 3, "project3", "flowD",
+        TriggerStatus.EXPIRED.toString(), 0, Long.MAX_VALUE, DateTimeZone.UTC, Days.ONE, 0, 0, 0,
+        "testUser", new ExecutionOptions(), Collections.emptyList(), null);
+    this.loader.updates.add(expired);
+
+    Assert.assertTrue(this.manager.getSchedulesByProject(3).isEmpty());
+    Assert.assertNull(this.manager.getSchedule(7));
+    Assert.assertNull(this.manager.getSchedule(3, "flowD"));
+    Assert.assertEquals(2, this.loader.loadCount);
+  }
+
+  @Test
+  public void testNoUpdatesReturnsWithoutLoadingOrLocking() throws Exception {
+    final Schedule flowA = scheduleFlow(1, "flowA", Days.ONE);
+
+    final ExecutorService reader = Executors.newSingleThreadExecutor();
+    try {
+      // the manager lock is held by another thread, the reads must not wait for it
+      synchronized (this.manager) {
+        final Future<Schedule> byId = reader.submit(() ->
+            this.manager.getSchedule(flowA.getScheduleId()));
+        final Future<List<Schedule>> byProject = reader.submit(() ->
+            this.manager.getSchedulesByProject(1));
+        Assert.assertSame(flowA, byId.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, byProject.get(10, TimeUnit.SECONDS).size());
+      }
+    } finally {
+      reader.shutdownNow();
+    }
+    Assert.assertEquals(0, this.loader.loadCount);
+  }
+
+  /**
+   * In memory loader handing out the schedules queued in {@link #updates}.
+   */
+  private static class MockScheduleLoader implements ScheduleLoader {
+
+    private final List<Schedule> inserted = new ArrayList<>();
+    private final List<Schedule> updated = new ArrayList<>();
+    private final List<Schedule> removed = new ArrayList<>();
+    private final List<Schedule> updates = Collections.synchronizedList(new ArrayList<>());
+    private volatile int loadCount = 0;
+    private int nextId = 1;
+
+    @Override
+    public void insertSchedule(final Schedule s) {
+      s.setScheduleId(this.nextId++);
+      this.inserted.add(s);
+    }
+
+    @Override
+    public void updateSchedule(final Schedule s) {
+      this.updated.add(s);
+    }
+
+    @Override
+    public void removeSchedule(final Schedule s) {
+      this.removed.add(s);
+    }
+
+    @Override
+    public void updateNextExecTime(final Schedule s) {
+    }
+
+    @Override
+    public List<Schedule> loadUpdatedSchedules() {
+      this.loadCount++;
+      synchronized (this.updates) {
+        final List<Schedule> loaded = new ArrayList<>(this.updates);
+        this.updates.clear();
+        return loaded;
+      }
+    }
+
+    @Override
+    public boolean hasUpdatedSchedules() {
+      return !this.updates.isEmpty();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.scheduler;
+
+import com.datapps.zebra.workflow.executor.ExecutionOptions;
+import com.datapps.zebra.workflow.executor.ExecutorManager;
+import com.datapps.zebra.workflow.trigger.MockTriggerLoader;
+import com.datapps.zebra.workflow.trigger.TriggerManager;
+import com.datapps.zebra.workflow.trigger.TriggerStatus;
+import com.datapps.zebra.workflow.utils.Props;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+public class TriggerBasedScheduleLoaderTest {
+
+  private TriggerManager triggerManager;
+  private TriggerBasedScheduleLoader loader;
+
+  @Before
+  public void setUp() throws Exception {
+    this.triggerManager = new TriggerManager(new Props(), new MockTriggerLoader(),
+        mock(ExecutorManager.class));
+    this.loader = new TriggerBasedScheduleLoader(this.triggerManager);
+  }
+
+  @After
+  public void tearDown() {
+    this.triggerManager.shutdown();
+  }
+
+  private Schedule createSchedule(final String flowName) {
+    final long firstSchedTime = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+    return new Schedule(-1, 1, "project", flowName, TriggerStatus.READY.toString(),
+        firstSchedTime, Long.MAX_VALUE, DateTimeZone.UTC, Days.ONE, System.currentTimeMillis(),
+        firstSchedTime, System.currentTimeMillis(), "testUser", new ExecutionOptions(),
+        Collections.emptyList(), null);
+  }
+
+  private static Schedule find(final List<Schedule> schedules, final int scheduleId) {
+    for (final Schedule s : schedules) {
+      if (s.getScheduleId() == scheduleId) {
+        return s;
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void testHasUpdatedSchedulesTracksTheChangeLog() throws Exception {
+    // the initial load is always pending
+    Assert.assertTrue(this.loader.hasUpdatedSchedules());
+    this.loader.loadUpdatedSchedules();
+    Assert.assertFalse(this.loader.hasUpdatedSchedules());
+
+    final Schedule schedule = createSchedule("flowA");
+    this.loader.insertSchedule(schedule);
+    Assert.assertTrue(this.loader.hasUpdatedSchedules());
+
+    final List<Schedule> updates = this.loader.loadUpdatedSchedules();
+    Assert.assertEquals(1, updates.size());
+    Assert.assertEquals(schedule.getScheduleId(), updates.get(0).getScheduleId());
+    Assert.assertEquals("flowA", updates.get(0).getFlowName());
+    Assert.assertFalse(this.loader.hasUpdatedSchedules());
+    Assert.assertTrue(this.loader.loadUpdatedSchedules().isEmpty());
+  }
+
+  @Test
+  public void testRepeatedUpdatesAreLoadedOnce() throws Exception {
+    this.loader.loadUpdatedSchedules();
+
+    final Schedule schedule = createSchedule("flowA");
+    this.loader.insertSchedule(schedule);
+    this.loader.updateSchedule(schedule);
+    this.loader.updateSchedule(schedule);
+
+    final List<Schedule> updates = this.loader.loadUpdatedSchedules();
+    Assert.assertEquals(1, updates.size());
+    Assert.assertNotNull(find(updates, schedule.getScheduleId()));
+  }
+
+  @Test
+  public void testExpiredAndRemovedSchedules() throws Exception {
+    this.loader.loadUpdatedSchedules();
+
+    final Schedule expiring = createSchedule("flowA");
+    final Schedule removed = createSchedule("flowB");
+    this.loader.insertSchedule(expiring);
+    this.loader.insertSchedule(removed);
+    this.loader.loadUpdatedSchedules();
+
+    this.triggerManager.expireTrigger(expiring.getScheduleId());
+    this.loader.updateSchedule(removed);
+    this.loader.removeSchedule(removed);
+    Assert.assertTrue(this.loader.hasUpdatedSchedules());
+
+    // the removed trigger is skipped, the expired one is handed over with its status
+    final List<Schedule> updates = this.loader.loadUpdatedSchedules();
+    Assert.assertEquals(1, updates.size());
+    Assert.assertEquals(TriggerStatus.EXPIRED.toString(),
+        find(updates, expiring.getScheduleId()).getStatus());
+    Assert.assertFalse(this.loader.hasUpdatedSchedules());
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for RequestLimitFilter. Without a Jetty NIO request the continuations block the
+ * calling thread, which exercises the same hand over logic.
+ */
+public class RequestLimitFilterTest {
+
+  private static HttpServletRequest createRequest(final String ajax) {
+    final HttpServletRequest request = mock(HttpServletRequest.class);
+    final Map<String, Object> attributes = new HashMap<>();
+    when(request.getParameter("ajax")).thenReturn(ajax);
+    when(request.getAttribute(anyString()))
+        .thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+    doAnswer(invocation -> attributes.put((String) invocation.getArguments()[0],
+        invocation.getArguments()[1])).when(request).setAttribute(anyString(), any());
+    return request;
+  }
+
+  @Test
+  public void testUnlimitedRequestsPassThrough() throws Exception {
+    final RequestLimitFilter filter = new RequestLimitFilter("ajax",
+        Collections.singleton("fetchExecFlowLogs"), 1, 0);
+    final FilterChain chain = mock(FilterChain.class);
+    final HttpServletRequest request = createRequest("fetchexecflowupdate");
+    final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    filter.doFilter(request, response, chain);
+    verify(chain).doFilter(request, response);
+    Assert.assertEquals(0, filter.getRunningRequests());
+  }
+
+  @Test
+  public void testWaitingRequestGetsSlotHandedOver() throws Exception {
+    final RequestLimitFilter filter = new RequestLimitFilter("ajax",
+        Collections.singleton("fetchExecFlowLogs"), 1, 10 * 1000L);
+    final CountDownLatch firstRunning = new CountDownLatch(1);
+    final CountDownLatch finishFirst = new CountDownLatch(1);
+    final FilterChain blockingChain = (request, response) -> {
+      firstRunning.countDown();
+      try {
+        finishFirst.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    final FilterChain secondChain = mock(FilterChain.class);
+    final HttpServletResponse secondResponse = mock(HttpServletResponse.class);
+
+    final ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      final Future<?> first = pool.submit(() -> {
+        filter.doFilter(createRequest("fetchExecFlowLogs"), mock(HttpServletResponse.class),
+            blockingChain);
+        return null;
+      });
+      Assert.assertTrue(firstRunning.await(10, TimeUnit.SECONDS));
+      Assert.assertEquals(1, filter.getRunningRequests());
+
+      final Future<?> second = pool.submit(() -> {
+        filter.doFilter(createRequest("fetchExecFlowLogs"), secondResponse, secondChain);
+        return null;
+      });
+      while (filter.getWaitingRequests() == 0) {
+        Thread.sleep(10);
+      }
+
+      finishFirst.countDown();
+      first.get(10, TimeUnit.SECONDS);
+      second.get(10, TimeUnit.SECONDS);
+    } finally {
+      pool.shutdownNow();
+    }
+
+    verify(secondChain).doFilter(any(), any());
+    verify(secondResponse, never()).sendError(anyInt(), anyString());
+    Assert.assertEquals(1, filter.getSuspendedCount());
+    Assert.assertEquals(0, filter.getRejectedCount());
+    Assert.assertEquals(0, filter.getRunningRequests());
+  }
+
+  @Test
+  public void testWaitingRequestRejectedAfterTimeout() throws Exception {
+    final RequestLimitFilter filter = new RequestLimitFilter("ajax",
+        Collections.singleton("fetchExecFlowLogs"), 1, 50);
+    final FilterChain chain = mock(FilterChain.class);
+    final HttpServletResponse response = mock(HttpServletResponse.class);
+    final FilterChain nestedChain = (request, resp) ->
+        filter.doFilter(createRequest("fetchExecFlowLogs"), response, chain);
+
+    // the second request arrives while the first one holds the only slot
+    filter.doFilter(createRequest("fetchExecFlowLogs"), mock(HttpServletResponse.class),
+        nestedChain);
+
+    verify(chain, never()).doFilter(any(), any());
+    verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+        "Too many concurrent requests, please retry later.");
+    Assert.assertEquals(1, filter.getRejectedCount());
+    Assert.assertEquals(0, filter.getRunningRequests());
+    Assert.assertEquals(0, filter.getWaitingRequests());
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.utils;
+
+import com.datapps.zebra.workflow.executor.ExecutableFlow;
+import com.datapps.zebra.workflow.executor.Status;
+import com.datapps.zebra.workflow.flow.Edge;
+import com.datapps.zebra.workflow.flow.Flow;
+import com.datapps.zebra.workflow.flow.Node;
+import com.datapps.zebra.workflow.project.Project;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class BinaryObjectCodecTest {
+
+  private static Flow createFlow(final int numNodes) {
+    final Flow flow = new Flow("codec-test");
+    for (int i = 0; i < numNodes; i++) {
+      final Node node = new Node("job" + i);
+      node.setType(i % 2 == 0 ? "command" : "java");
+      node.setJobSource("job" + i + ".job");
+      flow.addNode(node);
+      if (i > 0) {
+        flow.addEdge(new Edge("job" + (i - 1), "job" + i));
+      }
+    }
+    flow.initialize();
+    return flow;
+  }
+
+  private static ExecutableFlow createExecutableFlow(final int numNodes) {
+    final ExecutableFlow exFlow = new ExecutableFlow(new Project(1, "test"), createFlow(numNodes));
+    exFlow.setExecutionId(101);
+    exFlow.setStatus(Status.RUNNING);
+    exFlow.setStartTime(System.currentTimeMillis());
+    exFlow.getExecutableNode("job0").setStatus(Status.SUCCEEDED);
+    exFlow.getExecutableNode("job0").setEndTime(System.currentTimeMillis());
+    return exFlow;
+  }
+
+  @Test
+  public void testDecodesAsJson() throws IOException {
+    final Map<String, Object> obj = new HashMap<>();
+    obj.put("string", "h\u00e9llo");
+    obj.put("int", -1);
+    obj.put("long", Long.MAX_VALUE);
+    obj.put("longInIntRange", 5L);
+    obj.put("double", 0.25);
+    obj.put("boolean", true);
+    obj.put("null", null);
+    obj.put("list", Arrays.asList("a", "b", "a", 3));
+    obj.put("map", new HashMap<>(obj));
+
+    final Object json = JSONUtils.parseJSONFromString(JSONUtils.toJSON(obj));
+    Assert.assertEquals(json, BinaryObjectCodec.decode(BinaryObjectCodec.encode(obj)));
+  }
+
+  @Test
+  public void testExecutableFlowRoundTrip() throws IOException {
+    final ExecutableFlow exFlow = createExecutableFlow(200);
+    final Object obj = exFlow.toObject();
+    final byte[] data = BinaryObjectCodec.encode(obj);
+    Assert.assertTrue(BinaryObjectCodec.isEncoded(data));
+
+    final Object decodedObj = BinaryObjectCodec.decode(data);
+    Assert.assertEquals(JSONUtils.parseJSONFromString(JSONUtils.toJSON(obj)), decodedObj);
+    final ExecutableFlow decoded = ExecutableFlow.createExecutableFlowFromObject(decodedObj);
+    Assert.assertEquals(Status.SUCCEEDED, decoded.getExecutableNode("job0").getStatus());
+
+    final byte[] gzipJson =
+        GZIPUtils.gzipBytes(JSONUtils.toJSON(obj).getBytes(StandardCharsets.UTF_8));
+    Assert.assertTrue("binary " + data.length + " gzip " + gzipJson.length,
+        data.length < gzipJson.length);
+  }
+
+  @Test
+  public void testFlowRoundTrip() throws IOException {
+    final Flow flow = createFlow(50);
+    final Object decodedObj = BinaryObjectCodec.decode(BinaryObjectCodec.encode(flow.toObject()));
+    Assert.assertEquals(JSONUtils.parseJSONFromString(JSONUtils.toJSON(flow.toObject())),
+        decodedObj);
+    final Flow decoded = Flow.flowFromObject(decodedObj);
+    Assert.assertEquals(50, decoded.getNodes().size());
+    Assert.assertEquals("java", decoded.getNode("job1").getType());
+  }
+
+  @Test
+  public void testLegacyDataIsNotBinary() throws IOException {
+    final byte[] json = "{\"id\":\"flow\"}".getBytes(StandardCharsets.UTF_8);
+    Assert.assertFalse(BinaryObjectCodec.isEncoded(json));
+    Assert.assertFalse(BinaryObjectCodec.isEncoded(GZIPUtils.gzipBytes(json)));
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedData() throws IOException {
+    final byte[] data = BinaryObjectCodec.encode(createExecutableFlow(10).toObject());
+    BinaryObjectCodec.decode(Arrays.copyOf(data, data.length / 2));
+  }
+}
@@ -19,9 +19,14 @@ package com.datapps.zebra.workflow.utils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class JsonUtilsTest {
@@ -70,4 +75,52 @@ public class JsonUtilsTest {
     checkInAndOut(test, result);
   }
 
+  @Test
+  public void testParseTypes() throws IOException {
+    final Map<String, Object> result = (Map<String, Object>) JSONUtils.parseJSONFromString(
+        "{\"int\":1,\"long\":5000000000,\"double\":0.5,\"string\":\"a\","
+            + "\"boolean\":true,\"null\":null,\"list\":[1,{\"a\":[]}]}");
+
+    Assert.assertEquals(Integer.valueOf(1), result.get("int"));
+    Assert.assertEquals(Long.valueOf(5000000000L), result.get("long"));
+    Assert.assertEquals(Double.valueOf(0.5), result.get("double"));
+    Assert.assertEquals("a", result.get("string"));
+    Assert.assertEquals(Boolean.TRUE, result.get("boolean"));
+    Assert.assertTrue(result.containsKey("null"));
+    Assert.assertNull(result.get("null"));
+    final Map<String, Object> nested = new HashMap<>();
+    nested.put("a", Arrays.asList());
+    Assert.assertEquals(Arrays.asList(1, nested), result.get("list"));
+  }
+
+  @Test
+  public void testParseBigInteger() throws IOException {
+    final List<Object> result =
+        (List<Object>) JSONUtils.parseJSONFromString("[12345678901234567890]");
+    Assert.assertEquals(new BigInteger("12345678901234567890"), result.get(0));
+  }
+
+  @Test(expected = IOException.class)
+  public void testParseTruncated() throws IOException {
+    JSONUtils.parseJSONFromString("{\"list\":[1,2");
+  }
+
+  @Test
+  public void testStreamWriter() throws IOException {
+    final Map<String, Object> obj = new HashMap<>();
+    obj.put("id", "job1");
+    obj.put("attempts", Arrays.asList(1, 2));
+
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    JSONUtils.toJSON(stream, generator -> {
+      generator.writeStartObject();
+      generator.writeStringField("id", "job1");
+      generator.writeObjectField("attempts", Arrays.asList(1, 2));
+      generator.writeEndObject();
+    });
+
+    Assert.assertEquals(obj, JSONUtils.parseJSONFromString(
+        new String(stream.toByteArray(), StandardCharsets.UTF_8)));
+    Assert.assertEquals(obj, JSONUtils.parseJSONFromString(JSONUtils.toJSON(obj, true)));
+  }
 }
@@ -1,6 +1,8 @@
 package com.datapps.zebra.workflow.utils;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -10,11 +12,14 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 
 public class OsMemoryUtilTest {
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
   private final OsMemoryUtil util = new OsMemoryUtil();
 
   @Test
@@ -68,4 +73,32 @@ public class OsMemoryUtilTest {
     final long size = this.util.parseMemoryLine(line);
     assertEquals(0, size);
   }
+
+  @Test
+  public void getCgroupMemoryOfMostConstrainedCgroup() throws Exception {
+    final Path root = this.temp.getRoot().toPath();
+    writeCgroup(root.resolve("azkaban.slice"), "8589934592", "4294967296");
+    writeCgroup(root.resolve("azkaban.slice/executor"), "max", "1073741824");
+
+    final Pair<Long, Long> memory = this.util.getCgroupMemory(root,
+        Arrays.asList("1:name=systemd:/azkaban.slice/executor", "0::/azkaban.slice/executor"));
+    assertEquals(new Pair<>(8L * 1024 * 1024, 4L * 1024 * 1024), memory);
+  }
+
+  @Test
+  public void getCgroupMemoryWithoutLimit() throws Exception {
+    final Path root = this.temp.getRoot().toPath();
+    writeCgroup(root.resolve("executor"), "max", "1073741824");
+
+    assertNull(this.util.getCgroupMemory(root, Collections.singletonList("0::/executor")));
+    // cgroup v1 only
+    assertNull(this.util.getCgroupMemory(root, Collections.singletonList("4:memory:/executor")));
+  }
+
+  private void writeCgroup(final Path dir, final String max, final String current)
+      throws Exception {
+    Files.createDirectories(dir);
+    Files.write(dir.resolve("memory.max"), Collections.singletonList(max));
+    Files.write(dir.resolve("memory.current"), Collections.singletonList(current));
+  }
 }
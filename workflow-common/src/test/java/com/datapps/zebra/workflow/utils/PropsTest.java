@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PropsTest {
+
+  @Test
+  public void testCloneIsIndependent() {
+    final Props parent = new Props();
+    parent.put("shared", "parent");
+    parent.put("overridden", "parent");
+    final Props props = new Props(parent);
+    props.put("overridden", "child");
+    props.put("removed", "child");
+
+    final Props clone = Props.clone(props);
+    Assert.assertEquals(props, clone);
+
+    clone.put("overridden", "clone");
+    clone.removeLocal("removed");
+    clone.getParent().put("shared", "clone");
+    Assert.assertEquals("child", props.get("overridden"));
+    Assert.assertEquals("child", props.get("removed"));
+    Assert.assertEquals("parent", props.get("shared"));
+    Assert.assertEquals("clone", clone.get("overridden"));
+    Assert.assertNull(clone.get("removed"));
+    Assert.assertEquals("clone", clone.get("shared"));
+
+    props.clearLocal();
+    Assert.assertEquals("clone", clone.get("overridden"));
+    Assert.assertEquals("parent", props.get("overridden"));
+  }
+
+  @Test
+  public void testLocalNullValueHidesParent() {
+    final Props parent = new Props();
+    parent.put("key", "parent");
+    final Props props = new Props(parent);
+    props.put("key", (String) null);
+
+    Assert.assertTrue(props.containsKey("key"));
+    Assert.assertNull(props.get("key"));
+    Assert.assertFalse(props.containsKey("missing"));
+  }
+
+  @Test
+  public void testCloneFromManyThreads() throws Exception {
+    final Props props = new Props();
+    props.put("key", "original");
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Callable<Props>> clones = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        clones.add(() -> Props.clone(props));
+      }
+      final List<Future<Props>> futures = executor.invokeAll(clones);
+
+      // the map shared with the clones made by the other threads is copied before the write
+      props.put("key", "modified");
+      for (final Future<Props> clone : futures) {
+        Assert.assertEquals("original", clone.get().get("key"));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLocalKeySetIsAnUnmodifiableView() {
+    final Props props = new Props();
+    props.put("first", "1");
+    final Set<String> keys = props.localKeySet();
+
+    try {
+      keys.remove("first");
+      Assert.fail("The local key set can be modified");
+    } catch (final UnsupportedOperationException e) {
+      // expected
+    }
+
+    // the view follows the map which replaces the one shared with the clone
+    final Props clone = Props.clone(props);
+    props.put("second", "2");
+    Assert.assertTrue(keys.contains("second"));
+    Assert.assertEquals(2, keys.size());
+    Assert.assertEquals(1, clone.localKeySet().size());
+  }
+}
@@ -2,6 +2,7 @@ package com.datapps.zebra.workflow.utils;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -43,4 +44,87 @@ public class SystemMemoryInfoTest {
     final boolean isGranted = memInfo.canSystemGrantMemory(xmx);
     assertTrue("Memory check failed. Should fail open", isGranted);
   }
+
+  @Test
+  public void notGrantedIfCgroupMemoryAvailableLessThanMinimal() throws Exception {
+    final OsMemoryUtil memUtil = mock(OsMemoryUtil.class);
+    when(memUtil.getOsTotalFreeMemorySize()).thenReturn(10L * GB_UNIT);
+    when(memUtil.getCgroupMemory()).thenReturn(new Pair<>(8L * GB_UNIT, 4L * GB_UNIT));
+    final SystemMemoryInfo memInfo = new SystemMemoryInfo(memUtil);
+    assertFalse(memInfo.canSystemGrantMemory(2 * GB_UNIT));
+  }
+
+  private static SystemMemoryInfo createTenGbMemoryInfo() {
+    final OsMemoryUtil memUtil = mock(OsMemoryUtil.class);
+    when(memUtil.getOsTotalFreeMemorySize()).thenReturn(20L * GB_UNIT);
+    when(memUtil.getOsTotalMemorySize()).thenReturn(10L * GB_UNIT);
+    return new SystemMemoryInfo(memUtil);
+  }
+
+  @Test
+  public void reservationsAreGrantedWhenReleased() throws Exception {
+    final SystemMemoryInfo memInfo = createTenGbMemoryInfo();
+
+    final SystemMemoryInfo.MemoryReservation first = memInfo.reserveMemory(4 * GB_UNIT);
+    assertTrue(first.isGranted());
+    // 4 GB reserved, 4 GB more would leave less than the 3 GB threshold of the 10 GB
+    final SystemMemoryInfo.MemoryReservation second = memInfo.reserveMemory(4 * GB_UNIT);
+    assertFalse(second.isGranted());
+    assertFalse(second.awaitGranted(10));
+    assertEquals(4 * GB_UNIT, memInfo.getReservedMemory());
+
+    first.close();
+    assertTrue(second.awaitGranted(10));
+    assertEquals(4 * GB_UNIT, memInfo.getReservedMemory());
+
+    second.close();
+    assertEquals(0, memInfo.getReservedMemory());
+  }
+
+  @Test
+  public void smallerReservationsPassAWaitingOneABoundedNumberOfTimes() throws Exception {
+    final SystemMemoryInfo memInfo = createTenGbMemoryInfo();
+    final SystemMemoryInfo.MemoryReservation first = memInfo.reserveMemory(4 * GB_UNIT);
+    final SystemMemoryInfo.MemoryReservation waiting = memInfo.reserveMemory(4 * GB_UNIT);
+    assertFalse(waiting.isGranted());
+
+    // reservations which fit get ahead of the waiting one
+    for (int i = 0; i < SystemMemoryInfo.MAX_HEAD_SKIPS; i++) {
+      assertTrue(memInfo.reserveMemory(1).isGranted());
+    }
+    // until it has been passed too often
+    final SystemMemoryInfo.MemoryReservation small = memInfo.reserveMemory(1);
+    assertFalse(small.isGranted());
+    // reservations of no memory are always granted
+    assertTrue(memInfo.reserveMemory(0).isGranted());
+    assertEquals(4 * GB_UNIT + SystemMemoryInfo.MAX_HEAD_SKIPS, memInfo.getReservedMemory());
+
+    first.close();
+    assertTrue(waiting.isGranted());
+    assertTrue(small.isGranted());
+    assertEquals(4 * GB_UNIT + SystemMemoryInfo.MAX_HEAD_SKIPS + 1,
+        memInfo.getReservedMemory());
+  }
+
+  @Test
+  public void closedReservationStopsWaiting() throws Exception {
+    final OsMemoryUtil memUtil = mock(OsMemoryUtil.class);
+    when(memUtil.getOsTotalFreeMemorySize()).thenReturn(4L * GB_UNIT);
+    final SystemMemoryInfo memInfo = new SystemMemoryInfo(memUtil);
+
+    final SystemMemoryInfo.MemoryReservation reservation = memInfo.reserveMemory(2 * GB_UNIT);
+    assertFalse(reservation.isGranted());
+    final Thread closer = new Thread(() -> {
+      try {
+        Thread.sleep(100);
+      } catch (final InterruptedException e) {
+        // closes right away
+      }
+      reservation.close();
+    });
+    closer.start();
+    assertFalse(reservation.awaitGranted(60 * 1000));
+    closer.join();
+    assertEquals(0, memInfo.getReservedMemory());
+  }
 }
@@ -65,6 +65,16 @@ public interface DatabaseTransOperator {
    */
   int update(String updateClause, Object... params) throws SQLException;
 
+  /**
+   * Executes the statement once per row of params as a single JDBC batch.
+   *
+   * @param updateClause
+   * @param params one array of parameters per execution
+   * @return the number of rows updated per execution
+   * @throws SQLException
+   */
+  int[] batch(String updateClause, Object[][] params) throws SQLException;
+
   /**
    * @return the JDBC connection associated with this operator.
    */
@@ -90,6 +90,18 @@ class DatabaseTransOperatorImpl implements DatabaseTransOperator {
     }
   }
 
+  @Override
+  public int[] batch(final String updateClause, final Object[][] params) throws SQLException {
+    try {
+      return this.queryRunner.batch(this.conn, updateClause, params);
+    } catch (final SQLException ex) {
+      //RETRY Logic should be implemented here if needed.
+      throw ex;
+    } finally {
+      // Note: CAN NOT CLOSE CONNECTION HERE.
+    }
+  }
+
   @Override
   public Connection getConnection() {
     return this.conn;
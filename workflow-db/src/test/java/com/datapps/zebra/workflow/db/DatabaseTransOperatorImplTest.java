@@ -17,6 +17,8 @@
 package com.datapps.zebra.workflow.db;
 
 import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -24,10 +26,12 @@ import org.junit.Test;
 // todo kunkun-tang: complete this test.
 public class DatabaseTransOperatorImplTest {
 
+  private DatabaseTransOperator operator;
+
   @Before
   public void setUp() throws Exception {
     final AzkabanDataSource datasource = new AzDBTestUtility.EmbeddedH2BasicDataSource();
-    final DatabaseTransOperator operator = new DatabaseTransOperatorImpl(new QueryRunner(),
+    this.operator = new DatabaseTransOperatorImpl(new QueryRunner(),
         datasource.getConnection());
   }
 
@@ -40,4 +44,17 @@ public class DatabaseTransOperatorImplTest {
   @Test
   public void testUpdate() throws Exception {
   }
+
+  @Test
+  public void testBatch() throws Exception {
+    this.operator.update("CREATE TABLE batch_test (id INT)");
+    final int[] res = this.operator.batch("INSERT INTO batch_test VALUES (?)",
+        new Object[][]{{1}, {2}, {3}});
+    Assert.assertArrayEquals(new int[]{1, 1, 1}, res);
+
+    final Long count = this.operator.query("SELECT COUNT(*) FROM batch_test",
+        new ScalarHandler<>());
+    Assert.assertEquals(3L, count.longValue());
+    this.operator.update("DROP TABLE batch_test");
+  }
 }
@@ -18,7 +18,7 @@
 package com.datapps.zebra.workflow.execapp;
 
 import com.datapps.zebra.workflow.executor.ExecutorLoader;
-import com.datapps.zebra.workflow.executor.JdbcExecutorLoader;
+import com.datapps.zebra.workflow.executor.CachingExecutorLoader;
 import com.google.inject.AbstractModule;
 import com.google.inject.Scopes;
 
@@ -32,7 +32,7 @@ public class AzkabanExecServerModule extends AbstractModule {
 
   @Override
   protected void configure() {
-    bind(ExecutorLoader.class).to(JdbcExecutorLoader.class);
+    bind(ExecutorLoader.class).to(CachingExecutorLoader.class);
     bind(AzkabanExecutorServer.class).in(Scopes.SINGLETON);
     bind(TriggerManager.class).in(Scopes.SINGLETON);
     bind(FlowRunnerManager.class).in(Scopes.SINGLETON);
@@ -22,16 +22,21 @@ import com.datapps.zebra.workflow.execapp.event.JobCallbackManager;
 import com.datapps.zebra.workflow.execapp.jmx.JmxFlowRunnerManager;
 import com.datapps.zebra.workflow.execapp.jmx.JmxJobMBeanManager;
 import com.datapps.zebra.workflow.execapp.metric.*;
+import com.datapps.zebra.workflow.executor.ConnectorParams;
 import com.datapps.zebra.workflow.executor.Executor;
 import com.datapps.zebra.workflow.executor.ExecutorLoader;
 import com.datapps.zebra.workflow.executor.ExecutorManagerException;
 import com.datapps.zebra.workflow.jmx.JmxJettyServer;
+import com.datapps.zebra.workflow.jobExecutor.utils.process.JvmPool;
+import com.datapps.zebra.workflow.jobExecutor.utils.process.ProcessOutputPump;
 import com.datapps.zebra.workflow.metric.IMetricEmitter;
 import com.datapps.zebra.workflow.metric.MetricException;
 import com.datapps.zebra.workflow.metric.MetricReportManager;
 import com.datapps.zebra.workflow.metric.inmemoryemitter.InMemoryMetricEmitter;
 import com.datapps.zebra.workflow.metrics.MetricsManager;
 import com.datapps.zebra.workflow.server.AzkabanServer;
+import com.datapps.zebra.workflow.server.JettyConnectors;
+import com.datapps.zebra.workflow.server.RequestLimitFilter;
 import com.datapps.zebra.workflow.utils.Props;
 import com.datapps.zebra.workflow.utils.StdOutErrRedirect;
 import com.datapps.zebra.workflow.utils.Utils;
@@ -41,9 +46,12 @@ import com.google.inject.Injector;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.joda.time.DateTimeZone;
+import org.mortbay.jetty.AbstractConnector;
 import org.mortbay.jetty.Connector;
+import org.mortbay.jetty.Handler;
 import org.mortbay.jetty.Server;
 import org.mortbay.jetty.servlet.Context;
+import org.mortbay.jetty.servlet.FilterHolder;
 import org.mortbay.jetty.servlet.ServletHolder;
 import org.mortbay.thread.QueuedThreadPool;
 
@@ -58,6 +66,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -85,6 +95,8 @@ public class AzkabanExecutorServer {
   private final MetricsManager metricsManager;
   private final Props props;
   private final Server server;
+  // bounds the concurrent log and attachment fetches of the web servers
+  private RequestLimitFilter requestLimitFilter;
 
   private final ArrayList<ObjectName> registeredMBeans = new ArrayList<>();
   private MBeanServer mbeanServer;
@@ -103,6 +115,8 @@ public class AzkabanExecutorServer {
     this.server = createJettyServer(props);
 
     JmxJobMBeanManager.getInstance().initialize(props);
+    ProcessOutputPump.initialize(props);
+    JvmPool.initialize(props);
 
     // make sure this happens before
     configureJobCallback(props);
@@ -238,28 +252,28 @@ public class AzkabanExecutorServer {
      * The Jetty server automatically finds an unused port when the port number is set to zero
      * TODO: This is using a highly outdated version of jetty [year 2010]. needs to be updated.
      */
-    final Server server = new Server(props.getInt("executor.port", 0));
+    final Server server = new Server();
+    final AbstractConnector serverConnector = JettyConnectors.createConnector(props, "executor",
+        props.getInt("executor.port", 0),
+        props.getInt("jetty.headerBufferSize", DEFAULT_HEADER_BUFFER_SIZE));
+    server.addConnector(serverConnector);
+    logger.info(String.format("Jetty connector name: %s, header buffer size: %d",
+        serverConnector.getName(), serverConnector.getHeaderBufferSize()));
+
     final QueuedThreadPool httpThreadPool = new QueuedThreadPool(maxThreads);
     server.setThreadPool(httpThreadPool);
 
-    final boolean isStatsOn = props.getBoolean("executor.connector.stats", true);
-    logger.info("Setting up connector with stats on: " + isStatsOn);
-
-    for (final Connector connector : server.getConnectors()) {
-      connector.setStatsOn(isStatsOn);
-      logger.info(String.format(
-          "Jetty connector name: %s, default header buffer size: %d",
-          connector.getName(), connector.getHeaderBufferSize()));
-      connector.setHeaderBufferSize(props.getInt("jetty.headerBufferSize",
-          DEFAULT_HEADER_BUFFER_SIZE));
-      logger.info(String.format(
-          "Jetty connector name: %s, (if) new header buffer size: %d",
-          connector.getName(), connector.getHeaderBufferSize()));
-    }
-
     final Context root = new Context(server, "/", Context.SESSIONS);
     root.setMaxFormContentSize(MAX_FORM_CONTENT_SIZE);
 
+    final List<String> limitedActions = props.getStringList("executor.limited.actions",
+        Arrays.asList(ConnectorParams.LOG_ACTION, ConnectorParams.ATTACHMENTS_ACTION));
+    this.requestLimitFilter = new RequestLimitFilter(ConnectorParams.ACTION_PARAM,
+        new HashSet<>(limitedActions),
+        props.getInt("executor.limited.maxRequests", Math.max(1, maxThreads / 2)),
+        props.getLong("executor.limited.suspendMs", 30 * 1000L));
+    root.addFilter(new FilterHolder(this.requestLimitFilter), "/executor", Handler.DEFAULT);
+
     root.addServlet(new ServletHolder(new ExecutorServlet()), "/executor");
     root.addServlet(new ServletHolder(new JMXHttpServlet()), "/jmx");
     root.addServlet(new ServletHolder(new StatsServlet()), "/stats");
@@ -414,7 +428,7 @@ public class AzkabanExecutorServer {
     logger.info("Registering MBeans...");
     this.mbeanServer = ManagementFactory.getPlatformMBeanServer();
 
-    registerMbean("executorJetty", new JmxJettyServer(this.server));
+    registerMbean("executorJetty", new JmxJettyServer(this.server, this.requestLimitFilter));
     registerMbean("flowRunnerManager", new JmxFlowRunnerManager(this.runnerManager));
     registerMbean("jobJMXMBean", JmxJobMBeanManager.getInstance());
 
@@ -556,6 +570,11 @@ public class AzkabanExecutorServer {
     this.server.stop();
     this.server.destroy();
     getFlowRunnerManager().shutdownNow();
+    try {
+      this.executionLoader.shutdown();
+    } catch (final ExecutorManagerException e) {
+      logger.error("Error writing the pending job statuses", e);
+    }
     close();
   }
 }
@@ -25,7 +25,6 @@ import com.datapps.zebra.workflow.utils.FileIOUtils.LogData;
 import com.datapps.zebra.workflow.utils.JSONUtils;
 import com.google.common.base.Preconditions;
 import org.apache.log4j.Logger;
-import org.codehaus.jackson.map.ObjectMapper;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -33,7 +32,6 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -70,9 +68,7 @@ public class ExecutorServlet extends HttpServlet implements ConnectorParams {
   protected void writeJSON(final HttpServletResponse resp, final Object obj)
       throws IOException {
     resp.setContentType(JSON_MIME_TYPE);
-    final ObjectMapper mapper = new ObjectMapper();
-    final OutputStream stream = resp.getOutputStream();
-    mapper.writeValue(stream, obj);
+    JSONUtils.toJSON(resp.getOutputStream(), generator -> generator.writeObject(obj));
   }
 
   @Override
@@ -94,6 +90,11 @@ public class ExecutorServlet extends HttpServlet implements ConnectorParams {
         } else if (action.equals(RELOAD_JOBTYPE_PLUGINS_ACTION)) {
           logger.info("Reloading Jobtype plugins");
           handleReloadJobTypePlugins(respMap);
+        } else if (action.equals(INVALIDATE_JOB_OVERRIDES_ACTION)) {
+          final int projectId = Integer.parseInt(getParam(req, PROJECT_ID_PARAM));
+          logger.info("Invalidating job overrides of project " + projectId);
+          this.flowRunnerManager.invalidateJobOverrides(projectId);
+          respMap.put(STATUS_PARAM, RESPONSE_SUCCESS);
         } else if (action.equals(ACTIVATE)) {
           logger.warn("Setting ACTIVE flag to true");
           setActive(true, respMap);
@@ -244,10 +245,16 @@ public class ExecutorServlet extends HttpServlet implements ConnectorParams {
     final ArrayList<Object> execIDList =
         (ArrayList<Object>) JSONUtils.parseJSONFromString(getParam(req,
             EXEC_ID_LIST_PARAM));
+    final ArrayList<Object> changeSequenceList = hasParam(req, CHANGE_SEQUENCE_LIST_PARAM)
+        ? (ArrayList<Object>) JSONUtils.parseJSONFromString(getParam(req,
+        CHANGE_SEQUENCE_LIST_PARAM))
+        : null;
 
     final ArrayList<Object> updateList = new ArrayList<>();
     for (int i = 0; i < execIDList.size(); ++i) {
       final long updateTime = JSONUtils.getLongFromObject(updateTimesList.get(i));
+      final long changeSequence = changeSequenceList == null ? -1
+          : JSONUtils.getLongFromObject(changeSequenceList.get(i));
       final int execId = (Integer) execIDList.get(i);
 
       final ExecutableFlowBase flow = this.flowRunnerManager.getExecutableFlow(execId);
@@ -259,7 +266,12 @@ public class ExecutorServlet extends HttpServlet implements ConnectorParams {
         continue;
       }
 
-      if (flow.getUpdateTime() > updateTime) {
+      if (changeSequence >= 0) {
+        // only the nodes changed since the caller's last update are visited
+        if (flow.getUpdateTime() > updateTime || flow.getChangeSequence() > changeSequence) {
+          updateList.add(flow.toUpdateObjectSince(changeSequence));
+        }
+      } else if (flow.getUpdateTime() > updateTime) {
         updateList.add(flow.toUpdateObject(updateTime));
       }
     }
@@ -50,14 +50,23 @@ public class FlowPreparer {
 
   private final Map<Pair<Integer, Integer>, ProjectVersion> installedProjects;
   private final StorageManager storageManager;
+  private final JobPropsCache jobPropsCache;
 
   public FlowPreparer(final StorageManager storageManager, final File executionsDir,
       final File projectsDir,
       final Map<Pair<Integer, Integer>, ProjectVersion> installedProjects) {
+    this(storageManager, executionsDir, projectsDir, installedProjects, null);
+  }
+
+  public FlowPreparer(final StorageManager storageManager, final File executionsDir,
+      final File projectsDir,
+      final Map<Pair<Integer, Integer>, ProjectVersion> installedProjects,
+      final JobPropsCache jobPropsCache) {
     this.storageManager = storageManager;
     this.executionsDir = executionsDir;
     this.projectsDir = projectsDir;
     this.installedProjects = installedProjects;
+    this.jobPropsCache = jobPropsCache;
   }
 
   /**
@@ -73,6 +82,7 @@ public class FlowPreparer {
 
       // Setup the project
       setupProject(projectVersion);
+      loadJobProps(projectVersion);
 
       // Create the execution directory
       execDir = createExecDir(flow);
@@ -143,6 +153,21 @@ public class FlowPreparer {
     }
   }
 
+  /**
+   * Fetches the job overrides of the version once for all of its executions. A failure is not
+   * fatal, the overrides are fetched again when the first job runs.
+   */
+  private void loadJobProps(final ProjectVersion pv) {
+    if (this.jobPropsCache == null) {
+      return;
+    }
+    try {
+      this.jobPropsCache.load(pv.getProjectId(), pv.getVersion());
+    } catch (final ProjectManagerException e) {
+      log.warn("Failed to load the job overrides of " + pv, e);
+    }
+  }
+
   private void copyCreateHardlinkDirectory(final File projectDir, final File execDir)
       throws IOException {
     FileIOUtils.createDeepHardlink(projectDir, execDir);
@@ -91,6 +91,7 @@ public class FlowRunner extends EventHandler implements Runnable {
 
   // Watches external flows for execution.
   private FlowWatcher watcher = null;
+  private JobPropsCache jobPropsCache = null;
 
   private Set<String> proxyUsers = null;
   private boolean validateUserProxy;
@@ -149,6 +150,11 @@ public class FlowRunner extends EventHandler implements Runnable {
     return this;
   }
 
+  public FlowRunner setJobPropsCache(final JobPropsCache jobPropsCache) {
+    this.jobPropsCache = jobPropsCache;
+    return this;
+  }
+
   public FlowRunner setNumJobThreads(final int jobs) {
     this.numJobThreads = jobs;
     return this;
@@ -661,9 +667,14 @@ public class FlowRunner extends EventHandler implements Runnable {
 
     // load the override props if any
     try {
-      props =
-          this.projectLoader.fetchProjectProperty(this.flow.getProjectId(),
-              this.flow.getVersion(), node.getId() + ".jor");
+      if (this.jobPropsCache != null) {
+        props = this.jobPropsCache.getJobOverride(this.flow.getProjectId(),
+            this.flow.getVersion(), node.getId());
+      } else {
+        props =
+            this.projectLoader.fetchProjectProperty(this.flow.getProjectId(),
+                this.flow.getVersion(), node.getId() + JobPropsCache.JOB_OVERRIDE_SUFFIX);
+      }
     } catch (final ProjectManagerException e) {
       e.printStackTrace();
       this.logger.error("Error loading job override property for job "
@@ -674,7 +685,12 @@ public class FlowRunner extends EventHandler implements Runnable {
     if (props == null) {
       // if no override prop, load the original one on disk
       try {
-        props = new Props(null, path);
+        if (this.jobPropsCache != null) {
+          props = this.jobPropsCache.getJobSource(this.flow.getProjectId(),
+              this.flow.getVersion(), source, path);
+        } else {
+          props = new Props(null, path);
+        }
       } catch (final IOException e) {
         e.printStackTrace();
         this.logger.error("Error loading job file " + source + " for job "
@@ -1112,7 +1128,7 @@ public class FlowRunner extends EventHandler implements Runnable {
         final TriggerManager triggerManager = ServiceProvider.SERVICE_PROVIDER
             .getInstance(TriggerManager.class);
         triggerManager
-            .addTrigger(FlowRunner.this.flow.getExecutionId(), SlaOption.getJobLevelSLAOptions(
+            .addTrigger(FlowRunner.this.flow, SlaOption.getJobLevelSLAOptions(
                 FlowRunner.this.flow));
       }
     }
@@ -76,12 +76,15 @@ public class FlowRunnerManager implements EventListener,
   private static final String EXECUTOR_THREADPOOL_WORKQUEUE_SIZE = "executor.threadpool.workqueue.size";
   private static final String EXECUTOR_FLOW_THREADS = "executor.flow.threads";
   private static final String FLOW_NUM_JOB_THREADS = "flow.num.job.threads";
+  // how long the job overrides of a version are used before being fetched again
+  private static final String JOB_OVERRIDE_CACHE_TTL_MS = "executor.job.override.cache.ttl.ms";
 
   // recently finished secs to clean up. 1 minute
   private static final int RECENTLY_FINISHED_TIME_TO_LIVE = 60 * 1000;
 
   private static final int DEFAULT_NUM_EXECUTING_FLOWS = 30;
   private static final int DEFAULT_FLOW_NUM_JOB_TREADS = 10;
+  private static final long DEFAULT_JOB_OVERRIDE_CACHE_TTL_MS = 60 * 1000L;
 
   // this map is used to store the flows that have been submitted to
   // the executor service. Once a flow has been submitted, it is either
@@ -97,6 +100,7 @@ public class FlowRunnerManager implements EventListener,
   private final ProjectLoader projectLoader;
   private final JobTypeManager jobtypeManager;
   private final FlowPreparer flowPreparer;
+  private final JobPropsCache jobPropsCache;
   private final TriggerManager triggerManager;
 
 
@@ -158,9 +162,11 @@ public class FlowRunnerManager implements EventListener,
     this.executorService = createExecutorService(this.numThreads);
 
     // Create a flow preparer
+    this.jobPropsCache = new JobPropsCache(projectLoader,
+        props.getLong(JOB_OVERRIDE_CACHE_TTL_MS, DEFAULT_JOB_OVERRIDE_CACHE_TTL_MS));
     this.flowPreparer = new FlowPreparer(storageManager, this.executionDirectory,
         this.projectDirectory,
-        this.installedProjects);
+        this.installedProjects, this.jobPropsCache);
 
     this.executorLoader = executorLoader;
     this.projectLoader = projectLoader;
@@ -341,6 +347,7 @@ public class FlowRunnerManager implements EventListener,
         new FlowRunner(flow, this.executorLoader, this.projectLoader, this.jobtypeManager,
             this.azkabanProps);
     runner.setFlowWatcher(watcher)
+        .setJobPropsCache(this.jobPropsCache)
         .setJobLogSettings(this.jobLogChunkSize, this.jobLogNumFiles)
         .setValidateProxyUser(this.validateProxyUser)
         .setNumJobThreads(numJobThreads).addListener(this);
@@ -475,10 +482,11 @@ public class FlowRunnerManager implements EventListener,
         logger.info("Flow " + flow.getExecutionId()
             + " is finished. Adding it to recently finished flows list.");
         this.runningFlows.remove(flow.getExecutionId());
+        // drop the flow and job level SLAs that can no longer be missed
+        this.triggerManager.cancelTriggers(flow.getExecutionId());
       } else if (event.getType() == Event.Type.FLOW_STARTED) {
         // add flow level SLA checker
-        this.triggerManager
-            .addTrigger(flow.getExecutionId(), SlaOption.getFlowLevelSLAOptions(flow));
+        this.triggerManager.addTrigger(flow, SlaOption.getFlowLevelSLAOptions(flow));
       }
     }
   }
@@ -692,6 +700,13 @@ public class FlowRunnerManager implements EventListener,
     this.jobtypeManager.loadPlugins();
   }
 
+  /**
+   * Drops the cached job overrides of a project after one of them was changed
+   */
+  public void invalidateJobOverrides(final int projectId) {
+    this.jobPropsCache.invalidateOverrides(projectId);
+  }
+
   public int getTotalNumExecutedFlows() {
     return this.executorService.getTotalTasks();
   }
@@ -935,6 +950,8 @@ public class FlowRunnerManager implements EventListener,
               deleteDirectory(version);
               FlowRunnerManager.this.installedProjects.remove(new Pair<>(version
                   .getProjectId(), version.getVersion()));
+              FlowRunnerManager.this.jobPropsCache.remove(version.getProjectId(),
+                  version.getVersion());
             } catch (final IOException e) {
               logger.error(e);
             }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.execapp;
+
+import com.datapps.zebra.workflow.project.ProjectLoader;
+import com.datapps.zebra.workflow.project.ProjectManagerException;
+import com.datapps.zebra.workflow.utils.Pair;
+import com.datapps.zebra.workflow.utils.Props;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor wide cache of the parsed job sources and job override (.jor) properties of the
+ * installed project versions.
+ *
+ * The overrides of a version are fetched with a single query which only reads the .jor
+ * properties when the version is prepared, jobs without an override are remembered as such so
+ * running them costs no database round trip. Concurrent callers missing the same version share
+ * one fetch. Job files never change within a version and are parsed once on first use. Callers get
+ * a clone of the cached Props which they are free to modify.
+ *
+ * The overrides of a project are dropped when one of them is changed through the web server,
+ * all entries of a version are dropped when its installed directory is deleted. As that
+ * notification is best effort, cached overrides are also fetched again once they are older than
+ * the configured time to live.
+ */
+public class JobPropsCache {
+
+  public static final String JOB_OVERRIDE_SUFFIX = ".jor";
+
+  private static final Logger logger = Logger.getLogger(JobPropsCache.class);
+
+  private final ProjectLoader projectLoader;
+  private final long overrideTtlMs;
+  private final ConcurrentMap<Pair<Integer, Integer>, VersionOverrides> overrides =
+      new ConcurrentHashMap<>();
+  // fetches in flight, joined by the callers missing the same version
+  private final ConcurrentMap<Pair<Integer, Integer>, Fetch> fetches = new ConcurrentHashMap<>();
+  // orders the fetches and the invalidations of the overrides
+  private final AtomicLong clock = new AtomicLong();
+  // project id -> clock value of the last invalidation of its overrides
+  private final ConcurrentMap<Integer, Long> invalidations = new ConcurrentHashMap<>();
+  // job source -> parsed job file
+  private final ConcurrentMap<Pair<Integer, Integer>, ConcurrentMap<String, Props>> jobSources =
+      new ConcurrentHashMap<>();
+
+  /**
+   * @param overrideTtlMs how long the fetched overrides of a version are used
+   */
+  public JobPropsCache(final ProjectLoader projectLoader, final long overrideTtlMs) {
+    this.projectLoader = projectLoader;
+    this.overrideTtlMs = overrideTtlMs;
+  }
+
+  /**
+   * Fetches the job overrides of a project version unless they are already cached
+   */
+  public void load(final int projectId, final int version) throws ProjectManagerException {
+    getOverrides(projectId, version);
+  }
+
+  private Map<String, Props> getOverrides(final int projectId, final int version)
+      throws ProjectManagerException {
+    final Pair<Integer, Integer> key = new Pair<>(projectId, version);
+    final VersionOverrides cached = this.overrides.get(key);
+    if (cached != null && isValid(projectId, cached)) {
+      return cached.overrides;
+    }
+
+    // a fetch started before the last invalidation isn't joined, its result is already stale.
+    // The fetch time is taken before the fetch, an invalidation racing with it makes the result
+    // stale right away
+    final Fetch fetch = this.fetches.compute(key,
+        (k, current) -> current != null && isAfterInvalidation(projectId, current.fetchTime)
+            ? current : new Fetch(this.clock.incrementAndGet()));
+    if (!fetch.started.compareAndSet(false, true)) {
+      return fetch.await(projectId, version);
+    }
+
+    try {
+      final VersionOverrides fetched = new VersionOverrides(fetchOverrides(projectId, version),
+          fetch.fetchTime, System.currentTimeMillis());
+      this.overrides.merge(key, fetched,
+          (current, candidate) -> current.fetchTime > candidate.fetchTime ? current : candidate);
+      fetch.result.complete(fetched.overrides);
+      return fetched.overrides;
+    } catch (final RuntimeException e) {
+      fetch.result.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.fetches.remove(key, fetch);
+    }
+  }
+
+  private boolean isAfterInvalidation(final int projectId, final long fetchTime) {
+    final Long invalidationTime = this.invalidations.get(projectId);
+    return invalidationTime == null || fetchTime > invalidationTime;
+  }
+
+  private boolean isValid(final int projectId, final VersionOverrides cached) {
+    return isAfterInvalidation(projectId, cached.fetchTime)
+        && System.currentTimeMillis() - cached.loadTimeMs < this.overrideTtlMs;
+  }
+
+  private Map<String, Props> fetchOverrides(final int projectId, final int version)
+      throws ProjectManagerException {
+    final Map<String, Props> versionOverrides = new HashMap<>();
+    final Map<String, Props> properties = this.projectLoader
+        .fetchProjectPropertiesWithSuffix(projectId, version, JOB_OVERRIDE_SUFFIX);
+    for (final Map.Entry<String, Props> entry : properties.entrySet()) {
+      final String name = entry.getKey();
+      versionOverrides.put(name.substring(0, name.length() - JOB_OVERRIDE_SUFFIX.length()),
+          entry.getValue());
+    }
+    logger.info("Loaded " + versionOverrides.size() + " job overrides of project " + projectId
+        + " version " + version);
+    return versionOverrides;
+  }
+
+  /**
+   * Returns a copy of the override props of a job, null if the job has none.
+   */
+  public Props getJobOverride(final int projectId, final int version, final String jobId)
+      throws ProjectManagerException {
+    final Props override = getOverrides(projectId, version).get(jobId);
+    return override == null ? null : Props.clone(override);
+  }
+
+  /**
+   * Returns a copy of the parsed job file, the file is only read the first time a job source of
+   * the version is asked for.
+   *
+   * @param source the job source, relative to the project directory
+   * @param file the job file to parse on a miss
+   */
+  public Props getJobSource(final int projectId, final int version, final String source,
+      final File file) throws IOException {
+    final ConcurrentMap<String, Props> versionSources = this.jobSources
+        .computeIfAbsent(new Pair<>(projectId, version), k -> new ConcurrentHashMap<>());
+    Props props = versionSources.get(source);
+    if (props == null) {
+      props = new Props(null, file);
+      versionSources.putIfAbsent(source, props);
+    }
+    return Props.clone(props);
+  }
+
+  /**
+   * Drops the cached overrides of all versions of a project
+   */
+  public void invalidateOverrides(final int projectId) {
+    this.invalidations.put(projectId, this.clock.incrementAndGet());
+    this.overrides.keySet().removeIf(key -> key.getFirst() == projectId);
+  }
+
+  /**
+   * Drops everything cached for a project version
+   */
+  public void remove(final int projectId, final int version) {
+    final Pair<Integer, Integer> key = new Pair<>(projectId, version);
+    this.overrides.remove(key);
+    this.jobSources.remove(key);
+  }
+
+  public int getCachedVersionCount() {
+    return this.overrides.size();
+  }
+
+  /**
+   * A fetch of the overrides of a version, run by the caller which started it
+   */
+  private static class Fetch {
+
+    private final long fetchTime;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CompletableFuture<Map<String, Props>> result = new CompletableFuture<>();
+
+    private Fetch(final long fetchTime) {
+      this.fetchTime = fetchTime;
+    }
+
+    private Map<String, Props> await(final int projectId, final int version)
+        throws ProjectManagerException {
+      try {
+        return this.result.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ProjectManagerException("Interrupted while fetching the job overrides of project "
+            + projectId + " version " + version, e);
+      } catch (final ExecutionException e) {
+        if (e.getCause() instanceof ProjectManagerException) {
+          throw (ProjectManagerException) e.getCause();
+        }
+        throw new ProjectManagerException("Error fetching the job overrides of project "
+            + projectId + " version " + version, e.getCause());
+      }
+    }
+  }
+
+  /**
+   * The overrides of a version and when they were fetched
+   */
+  private static class VersionOverrides {
+
+    // job id -> override props of the job, jobs without an override are absent
+    private final Map<String, Props> overrides;
+    private final long fetchTime;
+    private final long loadTimeMs;
+
+    private VersionOverrides(final Map<String, Props> overrides, final long fetchTime,
+        final long loadTimeMs) {
+      this.overrides = overrides;
+      this.fetchTime = fetchTime;
+      this.loadTimeMs = loadTimeMs;
+    }
+  }
+}
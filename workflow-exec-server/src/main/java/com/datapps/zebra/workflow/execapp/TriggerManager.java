@@ -18,12 +18,14 @@ package com.datapps.zebra.workflow.execapp;
 
 import com.datapps.zebra.workflow.execapp.action.KillExecutionAction;
 import com.datapps.zebra.workflow.execapp.action.KillJobAction;
+import com.datapps.zebra.workflow.executor.ExecutableFlow;
 import com.datapps.zebra.workflow.sla.SlaOption;
 import com.datapps.zebra.workflow.trigger.Condition;
 import com.datapps.zebra.workflow.trigger.ConditionChecker;
 import com.datapps.zebra.workflow.trigger.TriggerAction;
 import com.datapps.zebra.workflow.trigger.builtin.SlaAlertAction;
 import com.datapps.zebra.workflow.trigger.builtin.SlaChecker;
+import com.datapps.zebra.workflow.utils.Pair;
 import com.datapps.zebra.workflow.utils.Utils;
 import com.google.inject.Inject;
 import org.apache.log4j.Logger;
@@ -33,8 +35,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 
@@ -42,19 +45,23 @@ public class TriggerManager {
 
   private static final int SCHEDULED_THREAD_POOL_SIZE = 4;
   private static final Logger logger = Logger.getLogger(TriggerManager.class);
-  private final ScheduledExecutorService scheduledService;
+  private final ScheduledThreadPoolExecutor scheduledService;
+  // pending sla triggers per execution, the expired ones are cancelled as soon as the flow
+  // finishes
+  private final Map<Integer, List<Pair<Trigger, ScheduledFuture<?>>>> scheduledTriggers =
+      new ConcurrentHashMap<>();
 
   @Inject
   public TriggerManager() {
-    this.scheduledService = Executors.newScheduledThreadPool(SCHEDULED_THREAD_POOL_SIZE);
+    this.scheduledService = new ScheduledThreadPoolExecutor(SCHEDULED_THREAD_POOL_SIZE);
+    // drop cancelled triggers from the work queue right away instead of at their deadline
+    this.scheduledService.setRemoveOnCancelPolicy(true);
   }
 
-  private Condition createCondition(final SlaOption sla, final int execId, final String checkerName,
-      final String checkerMethod) {
-    final SlaChecker slaFailChecker = new SlaChecker(checkerName, sla, execId);
+  private Condition createCondition(final SlaChecker slaChecker, final String checkerMethod) {
     final Map<String, ConditionChecker> slaCheckers = new HashMap<>();
-    slaCheckers.put(slaFailChecker.getId(), slaFailChecker);
-    return new Condition(slaCheckers, slaFailChecker.getId() + "." + checkerMethod);
+    slaCheckers.put(slaChecker.getId(), slaChecker);
+    return new Condition(slaCheckers, slaChecker.getId() + "." + checkerMethod);
   }
 
   private List<TriggerAction> createActions(final SlaOption sla, final int execId) {
@@ -84,24 +91,67 @@ public class TriggerManager {
     return actions;
   }
 
-  @SuppressWarnings("FutureReturnValueIgnored")
-  public void addTrigger(final int execId, final List<SlaOption> slaOptions) {
+  /**
+   * Schedule the sla triggers of a flow run by this executor. The checkers read the in-memory
+   * flow, the same checker answers both the trigger and the expire condition.
+   */
+  public void addTrigger(final ExecutableFlow flow, final List<SlaOption> slaOptions) {
     for (final SlaOption sla : slaOptions) {
-      final Condition triggerCond = createCondition(sla, execId, "slaFailChecker", "isSlaFailed()");
+      addTrigger(flow, sla, createActions(sla, flow.getExecutionId()));
+    }
+  }
+
+  void addTrigger(final ExecutableFlow flow, final SlaOption sla,
+      final List<TriggerAction> actions) {
+    final int execId = flow.getExecutionId();
+    final SlaChecker slaChecker = new SlaChecker("slaChecker", sla, flow);
+    final Condition triggerCond = createCondition(slaChecker, "isSlaFailed()");
 
-      // if whole flow finish before violating sla, just expire the checker
-      final Condition expireCond = createCondition(sla, execId, "slaPassChecker", "isSlaPassed()");
+    // if whole flow finish before violating sla, just expire the checker
+    final Condition expireCond = createCondition(slaChecker, "isSlaPassed()");
 
-      final List<TriggerAction> actions = createActions(sla, execId);
-      final Trigger trigger = new Trigger(execId, triggerCond, expireCond, actions);
-      final ReadablePeriod duration = Utils
-          .parsePeriodString((String) sla.getInfo().get(SlaOption.INFO_DURATION));
-      final long durationInMillis = duration.toPeriod().toStandardDuration().getMillis();
+    final Trigger trigger = new Trigger(execId, triggerCond, expireCond, actions);
+    final ReadablePeriod duration = Utils
+        .parsePeriodString((String) sla.getInfo().get(SlaOption.INFO_DURATION));
+    final long durationInMillis = duration.toPeriod().toStandardDuration().getMillis();
+
+    logger.info("Adding sla trigger " + sla.toString() + " to execution " + execId
+        + ", scheduled to trigger in " + durationInMillis / 1000 + " seconds");
+    final ScheduledFuture<?> future =
+        this.scheduledService.schedule(trigger, durationInMillis, TimeUnit.MILLISECONDS);
+    this.scheduledTriggers.compute(execId, (id, triggers) -> {
+      final List<Pair<Trigger, ScheduledFuture<?>>> pending =
+          triggers == null ? new ArrayList<>() : triggers;
+      pending.removeIf(scheduled -> scheduled.getSecond().isDone());
+      pending.add(new Pair<>(trigger, future));
+      return pending;
+    });
+  }
 
-      logger.info("Adding sla trigger " + sla.toString() + " to execution " + execId
-          + ", scheduled to trigger in " + durationInMillis / 1000 + " seconds");
-      this.scheduledService.schedule(trigger, durationInMillis, TimeUnit.MILLISECONDS);
+  /**
+   * Cancel the pending sla triggers of an execution that can no longer fire, called once the
+   * flow is finished. The triggers which aren't expired, like the ones of a flow that had to
+   * succeed but failed, still run at their deadline to do their actions.
+   */
+  public void cancelTriggers(final int execId) {
+    final List<Pair<Trigger, ScheduledFuture<?>>> triggers =
+        this.scheduledTriggers.remove(execId);
+    if (triggers == null) {
+      return;
     }
+    int cancelled = 0;
+    for (final Pair<Trigger, ScheduledFuture<?>> scheduled : triggers) {
+      if (scheduled.getFirst().isTriggerExpired() && scheduled.getSecond().cancel(false)) {
+        cancelled++;
+      }
+    }
+    if (cancelled > 0) {
+      logger.info("Cancelled " + cancelled + " sla trigger(s) of finished execution " + execId);
+    }
+  }
+
+  public int getNumScheduledTriggers() {
+    return this.scheduledService.getQueue().size();
   }
 
   public void shutdown() {
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.execapp.event;
+
+import com.datapps.zebra.workflow.executor.ConnectorParams;
+import com.datapps.zebra.workflow.executor.ExecutableFlow;
+import com.datapps.zebra.workflow.executor.ExecutableFlowBase;
+import com.datapps.zebra.workflow.executor.ExecutableNode;
+import com.datapps.zebra.workflow.executor.ExecutionReference;
+import com.datapps.zebra.workflow.executor.ExecutorApiClient;
+import com.datapps.zebra.workflow.executor.ExecutorLoader;
+import com.datapps.zebra.workflow.executor.ExecutorManagerException;
+import com.datapps.zebra.workflow.executor.Status;
+import com.datapps.zebra.workflow.utils.JSONUtils;
+import com.datapps.zebra.workflow.utils.Pair;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows an execution running on another executor for all the {@link RemoteFlowWatcher}s of
+ * this executor watching it.
+ *
+ * The nodes changed since the previous update are pulled from the executor running the flow,
+ * through the update action the web server uses, so the flow isn't read back from the database
+ * on each check. The database is only used when the watch starts, and when the flow isn't
+ * running on an executor, before it is dispatched and once it has finished. All the monitors
+ * are run by a single thread.
+ */
+class RemoteFlowMonitor {
+
+  private static final Logger logger = Logger.getLogger(RemoteFlowMonitor.class);
+
+  // execution id -> monitor, guarded by the class
+  private static final Map<Integer, RemoteFlowMonitor> monitors = new HashMap<>();
+  private static final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "Remote-flow-watcher");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final int execId;
+  private final ExecutorLoader loader;
+  private final ExecutableFlow flow;
+  private final Set<RemoteFlowWatcher> watchers = new CopyOnWriteArraySet<>();
+  // the fields below are guarded by the class
+  private long checkIntervalMs;
+  private ScheduledFuture<?> future;
+  // only used by the scheduler thread
+  private ExecutionReference reference;
+  private long databaseUpdateTime = 0;
+
+  private RemoteFlowMonitor(final int execId, final ExecutorLoader loader,
+      final ExecutableFlow flow, final long checkIntervalMs) {
+    this.execId = execId;
+    this.loader = loader;
+    this.flow = flow;
+    this.checkIntervalMs = checkIntervalMs;
+  }
+
+  /**
+   * Adds a watcher to the monitor of the execution, starting it if needed.
+   *
+   * @return the monitor, or null if the execution can't be found
+   */
+  static synchronized RemoteFlowMonitor subscribe(final int execId,
+      final ExecutorLoader loader, final long checkIntervalMs, final RemoteFlowWatcher watcher)
+      throws ExecutorManagerException {
+    RemoteFlowMonitor monitor = monitors.get(execId);
+    if (monitor == null) {
+      final ExecutableFlow flow = loader.fetchExecutableFlow(execId);
+      if (flow == null) {
+        return null;
+      }
+      monitor = new RemoteFlowMonitor(execId, loader, flow, checkIntervalMs);
+      monitors.put(execId, monitor);
+      monitor.schedule();
+    } else if (checkIntervalMs < monitor.checkIntervalMs) {
+      monitor.checkIntervalMs = checkIntervalMs;
+      monitor.future.cancel(false);
+      monitor.schedule();
+    }
+    monitor.watchers.add(watcher);
+    return monitor;
+  }
+
+  /**
+   * Removes a watcher, the monitor stops once it has no more watchers.
+   */
+  static synchronized void unsubscribe(final RemoteFlowMonitor monitor,
+      final RemoteFlowWatcher watcher) {
+    monitor.watchers.remove(watcher);
+    if (monitor.watchers.isEmpty() && monitors.get(monitor.execId) == monitor) {
+      monitors.remove(monitor.execId);
+      monitor.future.cancel(false);
+    }
+  }
+
+  static synchronized int getMonitorCount() {
+    return monitors.size();
+  }
+
+  private void schedule() {
+    this.future = scheduler.scheduleWithFixedDelay(this::update, this.checkIntervalMs,
+        this.checkIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  ExecutableFlow getFlow() {
+    return this.flow;
+  }
+
+  private void update() {
+    final List<ExecutableNode> updatedNodes = new ArrayList<>();
+    try {
+      if (!updateFromExecutor(updatedNodes)) {
+        updateFromDatabase(updatedNodes);
+      }
+    } catch (final Exception e) {
+      logger.error("Failed to update the watched execution " + this.execId, e);
+    }
+
+    for (final RemoteFlowWatcher watcher : this.watchers) {
+      for (final ExecutableNode node : updatedNodes) {
+        watcher.handleJobStatusChange(node.getNestedId(), node.getStatus());
+      }
+    }
+
+    if (Status.isStatusFinished(this.flow.getStatus())) {
+      synchronized (RemoteFlowMonitor.class) {
+        // the watchers stop with the flows watching, only the checks end here
+        this.future.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * @return false if the flow isn't running on an executor that can be reached
+   */
+  private boolean updateFromExecutor(final List<ExecutableNode> updatedNodes)
+      throws ExecutorManagerException {
+    if (this.reference == null) {
+      final Pair<ExecutionReference, ExecutableFlow> activeFlow =
+          this.loader.fetchActiveFlowByExecId(this.execId);
+      if (activeFlow == null || activeFlow.getFirst().getExecutor() == null) {
+        return false;
+      }
+      this.reference = activeFlow.getFirst();
+    }
+
+    final Map<String, Object> response;
+    try {
+      final URI uri = ExecutorApiClient.buildUri(this.reference.getHost(),
+          this.reference.getPort(), "/executor", true,
+          new Pair<>(ConnectorParams.ACTION_PARAM, ConnectorParams.UPDATE_ACTION),
+          new Pair<>(ConnectorParams.EXEC_ID_LIST_PARAM,
+              JSONUtils.toJSON(Collections.singletonList(this.execId))),
+          new Pair<>(ConnectorParams.UPDATE_TIME_LIST_PARAM,
+              JSONUtils.toJSON(Collections.singletonList(this.flow.getUpdateTime()))),
+          new Pair<>(ConnectorParams.CHANGE_SEQUENCE_LIST_PARAM,
+              JSONUtils.toJSON(
+                  Collections.singletonList(this.flow.getAppliedChangeSequence()))));
+      response = (Map<String, Object>) JSONUtils.parseJSONFromString(
+          ExecutorApiClient.getInstance().httpGet(uri, null));
+    } catch (final IOException e) {
+      logger.warn("Unable to get the update of execution " + this.execId + " from "
+          + this.reference.getHost() + ":" + this.reference.getPort(), e);
+      this.reference = null;
+      return false;
+    }
+
+    final List<Map<String, Object>> updates =
+        (List<Map<String, Object>>) response.get(ConnectorParams.RESPONSE_UPDATED_FLOWS);
+    if (response.containsKey(ConnectorParams.RESPONSE_ERROR) || updates == null) {
+      this.reference = null;
+      return false;
+    }
+    for (final Map<String, Object> updateData : updates) {
+      if (updateData.containsKey(ConnectorParams.RESPONSE_ERROR)) {
+        // the flow has ended on that executor, its final state is in the database
+        this.reference = null;
+        return false;
+      }
+      this.flow.applyUpdateObject(updateData, updatedNodes);
+    }
+    return true;
+  }
+
+  private void updateFromDatabase(final List<ExecutableNode> updatedNodes)
+      throws ExecutorManagerException {
+    final ExecutableFlow updateFlow = this.loader.fetchExecutableFlow(this.execId);
+    if (updateFlow == null) {
+      return;
+    }
+
+    // The first update applies all the nodes so that the status of the jobs finished before
+    // the watch started is handled, the next ones only the nodes updated since the previous
+    // database update.
+    final Map<String, Object> updateData = updateFlow.toUpdateObject(this.databaseUpdateTime);
+    // the change sequence of the flow read back doesn't match the one of the running flow
+    updateData.remove(ExecutableFlowBase.CHANGE_SEQUENCE_PARAM);
+    this.flow.applyUpdateObject(updateData, updatedNodes);
+
+    this.flow.setStatus(updateFlow.getStatus());
+    this.flow.setEndTime(updateFlow.getEndTime());
+    this.flow.setUpdateTime(updateFlow.getUpdateTime());
+    this.databaseUpdateTime = updateFlow.getUpdateTime();
+  }
+}
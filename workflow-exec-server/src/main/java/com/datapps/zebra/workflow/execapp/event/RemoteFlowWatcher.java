@@ -16,45 +16,35 @@
 
 package com.datapps.zebra.workflow.execapp.event;
 
-import com.datapps.zebra.workflow.executor.*;
-
-import java.util.ArrayList;
-import java.util.Map;
+import com.datapps.zebra.workflow.executor.ExecutorLoader;
+import com.datapps.zebra.workflow.executor.ExecutorManagerException;
 
+/**
+ * Watches an execution running on another executor. The watchers of the same execution share
+ * one {@link RemoteFlowMonitor}, which follows the execution for all of them.
+ */
 public class RemoteFlowWatcher extends FlowWatcher {
 
   private final static long CHECK_INTERVAL_MS = 60 * 1000;
 
-  private int execId;
-  private ExecutorLoader loader;
-  private ExecutableFlow flow;
-  private RemoteUpdaterThread thread;
+  private RemoteFlowMonitor monitor;
   private boolean isShutdown = false;
 
-  // Every minute
-  private long checkIntervalMs = CHECK_INTERVAL_MS;
-
   public RemoteFlowWatcher(final int execId, final ExecutorLoader loader) {
     this(execId, loader, CHECK_INTERVAL_MS);
   }
 
   public RemoteFlowWatcher(final int execId, final ExecutorLoader loader, final long interval) {
     super(execId);
-    this.checkIntervalMs = interval;
 
     try {
-      this.flow = loader.fetchExecutableFlow(execId);
+      this.monitor = RemoteFlowMonitor.subscribe(execId, loader, interval, this);
     } catch (final ExecutorManagerException e) {
       return;
     }
 
-    super.setFlow(this.flow);
-    this.loader = loader;
-    this.execId = execId;
-    if (this.flow != null) {
-      this.thread = new RemoteUpdaterThread();
-      this.thread.setName("Remote-watcher-flow-" + execId);
-      this.thread.start();
+    if (this.monitor != null) {
+      super.setFlow(this.monitor.getFlow());
     }
   }
 
@@ -64,61 +54,10 @@ public class RemoteFlowWatcher extends FlowWatcher {
       return;
     }
     this.isShutdown = true;
-    if (this.thread != null) {
-      this.thread.interrupt();
+    if (this.monitor != null) {
+      RemoteFlowMonitor.unsubscribe(this.monitor, this);
+      this.monitor = null;
     }
     super.unblockAllWatches();
-    this.loader = null;
-    this.flow = null;
-  }
-
-  private class RemoteUpdaterThread extends Thread {
-
-    @Override
-    public void run() {
-      do {
-        ExecutableFlow updateFlow = null;
-        try {
-          updateFlow = RemoteFlowWatcher.this.loader.fetchExecutableFlow(
-              RemoteFlowWatcher.this.execId);
-        } catch (final ExecutorManagerException e) {
-          e.printStackTrace();
-          RemoteFlowWatcher.this.isShutdown = true;
-        }
-
-        long updateTime = 0;
-        if (RemoteFlowWatcher.this.flow == null) {
-          RemoteFlowWatcher.this.flow = updateFlow;
-        } else {
-          final Map<String, Object> updateData =
-              updateFlow.toUpdateObject(updateTime);
-          final ArrayList<ExecutableNode> updatedNodes =
-              new ArrayList<>();
-          RemoteFlowWatcher.this.flow.applyUpdateObject(updateData, updatedNodes);
-
-          RemoteFlowWatcher.this.flow.setStatus(updateFlow.getStatus());
-          RemoteFlowWatcher.this.flow.setEndTime(updateFlow.getEndTime());
-          RemoteFlowWatcher.this.flow.setUpdateTime(updateFlow.getUpdateTime());
-
-          for (final ExecutableNode node : updatedNodes) {
-            handleJobStatusChange(node.getNestedId(), node.getStatus());
-          }
-
-          updateTime = RemoteFlowWatcher.this.flow.getUpdateTime();
-        }
-
-        if (Status.isStatusFinished(RemoteFlowWatcher.this.flow.getStatus())) {
-          RemoteFlowWatcher.this.isShutdown = true;
-        } else {
-          synchronized (this) {
-            try {
-              wait(RemoteFlowWatcher.this.checkIntervalMs);
-            } catch (final InterruptedException e) {
-            }
-          }
-        }
-      } while (!RemoteFlowWatcher.this.isShutdown);
-    }
-
   }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.execapp;
+
+import com.datapps.zebra.workflow.project.ProjectLoader;
+import com.datapps.zebra.workflow.utils.Props;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JobPropsCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ProjectLoader projectLoader;
+  private JobPropsCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    this.projectLoader = mock(ProjectLoader.class);
+    final Map<String, Props> properties = new HashMap<>();
+    final Props override = new Props();
+    override.put("command", "echo override");
+    properties.put("job1.jor", override);
+    when(this.projectLoader.fetchProjectPropertiesWithSuffix(1, 1, ".jor"))
+        .thenReturn(properties);
+    this.cache = new JobPropsCache(this.projectLoader, 60 * 1000L);
+  }
+
+  @Test
+  public void testOverridesAreFetchedOncePerVersion() throws Exception {
+    this.cache.load(1, 1);
+    assertThat(this.cache.getJobOverride(1, 1, "job1").getString("command"))
+        .isEqualTo("echo override");
+    assertThat(this.cache.getJobOverride(1, 1, "job2")).isNull();
+    assertThat(this.cache.getJobOverride(1, 1, "common")).isNull();
+    verify(this.projectLoader, times(1)).fetchProjectPropertiesWithSuffix(1, 1, ".jor");
+
+    this.cache.invalidateOverrides(1);
+    this.cache.getJobOverride(1, 1, "job1");
+    verify(this.projectLoader, times(2)).fetchProjectPropertiesWithSuffix(1, 1, ".jor");
+  }
+
+  @Test
+  public void testExpiredOverridesAreFetchedAgain() throws Exception {
+    this.cache = new JobPropsCache(this.projectLoader, 1);
+    this.cache.load(1, 1);
+    Thread.sleep(20);
+    this.cache.getJobOverride(1, 1, "job1");
+    verify(this.projectLoader, times(2)).fetchProjectPropertiesWithSuffix(1, 1, ".jor");
+  }
+
+  @Test
+  public void testInvalidationDuringFetchIsNotLost() throws Exception {
+    final Props override = new Props();
+    override.put("command", "echo override");
+    final Map<String, Props> properties = new HashMap<>();
+    properties.put("job1.jor", override);
+    final Props updated = new Props();
+    updated.put("command", "echo updated");
+    final Map<String, Props> updatedProperties = new HashMap<>();
+    updatedProperties.put("job1.jor", updated);
+    // the override is changed, and the executor told, while the first fetch is in flight
+    when(this.projectLoader.fetchProjectPropertiesWithSuffix(1, 1, ".jor"))
+        .thenAnswer(invocation -> {
+          this.cache.invalidateOverrides(1);
+          return properties;
+        }).thenReturn(updatedProperties);
+
+    assertThat(this.cache.getJobOverride(1, 1, "job1").getString("command"))
+        .isEqualTo("echo override");
+    assertThat(this.cache.getJobOverride(1, 1, "job1").getString("command"))
+        .isEqualTo("echo updated");
+    assertThat(this.cache.getJobOverride(1, 1, "job1").getString("command"))
+        .isEqualTo("echo updated");
+    verify(this.projectLoader, times(2)).fetchProjectPropertiesWithSuffix(1, 1, ".jor");
+  }
+
+  @Test
+  public void testConcurrentMissesShareOneFetch() throws Exception {
+    final CountDownLatch fetching = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Map<String, Props> properties = new HashMap<>();
+    properties.put("job1.jor", new Props());
+    when(this.projectLoader.fetchProjectPropertiesWithSuffix(1, 1, ".jor"))
+        .thenAnswer(invocation -> {
+          fetching.countDown();
+          release.await();
+          return properties;
+        });
+
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<Props> first = executor.submit(() -> this.cache.getJobOverride(1, 1, "job1"));
+      fetching.await();
+      final AtomicReference<Thread> joining = new AtomicReference<>();
+      final Future<Props> second = executor.submit(() -> {
+        joining.set(Thread.currentThread());
+        return this.cache.getJobOverride(1, 1, "job1");
+      });
+      // the second caller waits for the fetch in flight
+      final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+      while (joining.get() == null || joining.get().getState() != Thread.State.WAITING) {
+        assertThat(System.currentTimeMillis()).isLessThan(end);
+        Thread.sleep(10);
+      }
+      release.countDown();
+
+      assertThat(first.get(1, TimeUnit.MINUTES)).isNotNull();
+      assertThat(second.get(1, TimeUnit.MINUTES)).isNotNull();
+      verify(this.projectLoader, times(1)).fetchProjectPropertiesWithSuffix(1, 1, ".jor");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCopiesAreIndependent() throws Exception {
+    this.cache.getJobOverride(1, 1, "job1").put("command", "changed");
+    assertThat(this.cache.getJobOverride(1, 1, "job1").getString("command"))
+        .isEqualTo("echo override");
+  }
+
+  @Test
+  public void testJobSourceIsParsedOnce() throws Exception {
+    final File jobFile = this.temp.newFile("job1.job");
+    FileUtils.writeStringToFile(jobFile, "type=command\n", StandardCharsets.UTF_8);
+
+    final Props first = this.cache.getJobSource(1, 1, "job1.job", jobFile);
+    first.put("type", "changed");
+    FileUtils.writeStringToFile(jobFile, "type=javaprocess\n", StandardCharsets.UTF_8);
+    assertThat(this.cache.getJobSource(1, 1, "job1.job", jobFile).getString("type"))
+        .isEqualTo("command");
+
+    this.cache.remove(1, 1);
+    assertThat(this.cache.getJobSource(1, 1, "job1.job", jobFile).getString("type"))
+        .isEqualTo("javaprocess");
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.execapp;
+
+import com.datapps.zebra.workflow.executor.ExecutableFlow;
+import com.datapps.zebra.workflow.executor.Status;
+import com.datapps.zebra.workflow.sla.SlaOption;
+import com.datapps.zebra.workflow.trigger.TriggerAction;
+import com.datapps.zebra.workflow.trigger.builtin.SlaChecker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TriggerManagerTest {
+
+  private TriggerManager triggerManager;
+
+  @Before
+  public void setUp() {
+    this.triggerManager = new TriggerManager();
+  }
+
+  @After
+  public void tearDown() {
+    this.triggerManager.shutdown();
+  }
+
+  private static SlaOption createSlaOption(final String type, final String duration) {
+    final Map<String, Object> info = new HashMap<>();
+    info.put(SlaOption.INFO_DURATION, duration);
+    return new SlaOption(type, Collections.emptyList(), info);
+  }
+
+  private static ExecutableFlow createRunningFlow(final int execId) {
+    final ExecutableFlow flow = new ExecutableFlow();
+    flow.setExecutionId(execId);
+    flow.setStartTime(System.currentTimeMillis());
+    flow.setStatus(Status.RUNNING);
+    return flow;
+  }
+
+  /* Test expired sla triggers are dropped as soon as their flow finishes */
+  @Test
+  public void testCancelTriggersOnFlowFinish() {
+    final ExecutableFlow flow = createRunningFlow(1);
+    final ExecutableFlow otherFlow = createRunningFlow(2);
+    this.triggerManager.addTrigger(flow,
+        Collections.singletonList(createSlaOption(SlaOption.TYPE_FLOW_FINISH, "1h")));
+    this.triggerManager.addTrigger(otherFlow,
+        Collections.singletonList(createSlaOption(SlaOption.TYPE_FLOW_FINISH, "1h")));
+    Assert.assertEquals(2, this.triggerManager.getNumScheduledTriggers());
+
+    flow.setStatus(Status.SUCCEEDED);
+    this.triggerManager.cancelTriggers(flow.getExecutionId());
+    Assert.assertEquals(1, this.triggerManager.getNumScheduledTriggers());
+    // cancelling twice or an unknown execution is a no-op
+    this.triggerManager.cancelTriggers(flow.getExecutionId());
+    this.triggerManager.cancelTriggers(3);
+    Assert.assertEquals(1, this.triggerManager.getNumScheduledTriggers());
+  }
+
+  /* Test a flow failing before the deadline of its succeed sla still gets the sla actions */
+  @Test
+  public void testMissedSlaFiresAfterFlowFinish() throws Exception {
+    final ExecutableFlow flow = createRunningFlow(1);
+    final CountDownLatch alerted = new CountDownLatch(1);
+    this.triggerManager.addTrigger(flow, createSlaOption(SlaOption.TYPE_FLOW_SUCCEED, "1s"),
+        Collections.singletonList(new RecordingAction(alerted)));
+
+    flow.setStatus(Status.FAILED);
+    this.triggerManager.cancelTriggers(flow.getExecutionId());
+    Assert.assertEquals(1, this.triggerManager.getNumScheduledTriggers());
+
+    Assert.assertTrue(alerted.await(10, TimeUnit.SECONDS));
+  }
+
+  /* Test the checker follows the in-memory flow without any db access */
+  @Test
+  public void testSlaCheckerReadsRunningFlow() {
+    final ExecutableFlow flow = createRunningFlow(1);
+    flow.setStartTime(System.currentTimeMillis() - 120 * 1000);
+    final SlaChecker checker =
+        new SlaChecker("slaChecker", createSlaOption(SlaOption.TYPE_FLOW_FINISH, "1m"), flow);
+
+    Assert.assertEquals(Boolean.FALSE, checker.isSlaPassed());
+    Assert.assertEquals(Boolean.TRUE, checker.isSlaFailed());
+
+    flow.setStatus(Status.SUCCEEDED);
+    Assert.assertEquals(Boolean.TRUE, checker.isSlaPassed());
+    Assert.assertEquals(Boolean.FALSE, checker.isSlaFailed());
+  }
+
+  private static class RecordingAction implements TriggerAction {
+
+    private final CountDownLatch done;
+
+    RecordingAction(final CountDownLatch done) {
+      this.done = done;
+    }
+
+    @Override
+    public String getId() {
+      return "recording";
+    }
+
+    @Override
+    public String getType() {
+      return "RecordingAction";
+    }
+
+    @Override
+    public TriggerAction fromJson(final Object obj) {
+      return this;
+    }
+
+    @Override
+    public Object toJson() {
+      return null;
+    }
+
+    @Override
+    public void doAction() {
+      this.done.countDown();
+    }
+
+    @Override
+    public void setContext(final Map<String, Object> context) {
+    }
+
+    @Override
+    public String getDescription() {
+      return getType();
+    }
+  }
+}
@@ -20,6 +20,7 @@ import com.datapps.zebra.workflow.execapp.EventCollectorListener;
 import com.datapps.zebra.workflow.execapp.FlowRunner;
 import com.datapps.zebra.workflow.executor.*;
 import com.datapps.zebra.workflow.flow.Flow;
+import com.datapps.zebra.workflow.flow.Node;
 import com.datapps.zebra.workflow.jobtype.JobTypeManager;
 import com.datapps.zebra.workflow.project.MockProjectLoader;
 import com.datapps.zebra.workflow.project.Project;
@@ -27,6 +28,7 @@ import com.datapps.zebra.workflow.project.ProjectLoader;
 import com.datapps.zebra.workflow.utils.JSONUtils;
 import com.datapps.zebra.workflow.utils.Props;
 import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
 import org.junit.*;
 
 import java.io.File;
@@ -64,6 +66,49 @@ public class RemoteFlowWatcherTest {
     return workingDir;
   }
 
+  @Test
+  public void testWatchersShareOneMonitor() throws Exception {
+    final MockExecutorLoader loader = new MockExecutorLoader();
+    final Flow flow = new Flow("watched");
+    final Node node = new Node("job1");
+    node.setType("noop");
+    flow.addNode(node);
+    final ExecutableFlow watchedFlow = new ExecutableFlow(new Project(1, "test"), flow);
+    watchedFlow.setExecutionId(1000);
+    watchedFlow.setStatus(Status.RUNNING);
+    loader.uploadExecutableFlow(watchedFlow);
+
+    final int monitorCount = RemoteFlowMonitor.getMonitorCount();
+    final RemoteFlowWatcher watcher1 = new RemoteFlowWatcher(1000, loader, 50);
+    final RemoteFlowWatcher watcher2 = new RemoteFlowWatcher(1000, loader, 50);
+    watcher1.setLogger(Logger.getLogger(RemoteFlowWatcherTest.class));
+    watcher2.setLogger(Logger.getLogger(RemoteFlowWatcherTest.class));
+    Assert.assertEquals(monitorCount + 1, RemoteFlowMonitor.getMonitorCount());
+
+    final BlockingStatus status1 = watcher1.getBlockingStatus("job1");
+    final BlockingStatus status2 = watcher2.getBlockingStatus("job1");
+    Assert.assertEquals(Status.READY, status1.viewStatus());
+
+    final ExecutableNode watchedNode = watchedFlow.getExecutableNode("job1");
+    watchedNode.setStatus(Status.SUCCEEDED);
+    watchedNode.setUpdateTime(System.currentTimeMillis());
+    watchedFlow.setUpdateTime(System.currentTimeMillis());
+    loader.updateExecutableFlow(watchedFlow);
+
+    final long deadline = System.currentTimeMillis() + 5000;
+    while ((status1.viewStatus() != Status.SUCCEEDED || status2.viewStatus() != Status.SUCCEEDED)
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(Status.SUCCEEDED, status1.viewStatus());
+    Assert.assertEquals(Status.SUCCEEDED, status2.viewStatus());
+
+    watcher1.stopWatcher();
+    Assert.assertEquals(monitorCount + 1, RemoteFlowMonitor.getMonitorCount());
+    watcher2.stopWatcher();
+    Assert.assertEquals(monitorCount, RemoteFlowMonitor.getMonitorCount());
+  }
+
   @Ignore
   @Test
   public void testBasicRemoteFlowWatcher() throws Exception {
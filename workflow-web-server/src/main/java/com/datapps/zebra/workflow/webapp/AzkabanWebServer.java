@@ -27,6 +27,7 @@ import com.datapps.zebra.workflow.metrics.MetricsManager;
 import com.datapps.zebra.workflow.project.ProjectManager;
 import com.datapps.zebra.workflow.scheduler.ScheduleManager;
 import com.datapps.zebra.workflow.server.AzkabanServer;
+import com.datapps.zebra.workflow.server.RequestLimitFilter;
 import com.datapps.zebra.workflow.server.session.SessionCache;
 import com.datapps.zebra.workflow.trigger.TriggerManager;
 import com.datapps.zebra.workflow.trigger.TriggerManagerException;
@@ -46,9 +47,11 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.jmx.HierarchyDynamicMBean;
 import org.apache.velocity.app.VelocityEngine;
 import org.joda.time.DateTimeZone;
+import org.mortbay.jetty.Handler;
 import org.mortbay.jetty.Server;
 import org.mortbay.jetty.servlet.Context;
 import org.mortbay.jetty.servlet.DefaultServlet;
+import org.mortbay.jetty.servlet.FilterHolder;
 import org.mortbay.jetty.servlet.ServletHolder;
 import org.mortbay.thread.QueuedThreadPool;
 
@@ -117,6 +120,10 @@ public class AzkabanWebServer extends AzkabanServer {
 
   //queuedThreadPool is mainly used to monitor jetty threadpool.
   private QueuedThreadPool queuedThreadPool;
+  // bounds the long running ajax requests, waiting ones are suspended without holding a thread
+  private final RequestLimitFilter requestLimitFilter;
+  // serialized flow graphs, flows are immutable within a project version
+  private final FlowGraphCache flowGraphCache;
   private Map<String, TriggerPlugin> triggerPlugins;
   private MBeanServer mbeanServer;
 
@@ -141,6 +148,9 @@ public class AzkabanWebServer extends AzkabanServer {
     this.userManager = requireNonNull(userManager, "userManager is null.");
     this.scheduleManager = requireNonNull(scheduleManager, "scheduleManager is null.");
     this.velocityEngine = requireNonNull(velocityEngine, "velocityEngine is null.");
+    this.requestLimitFilter = createRequestLimitFilter(props);
+    this.flowGraphCache = new FlowGraphCache(
+        props.getLong("web.flowgraph.cache.maxBytes", 64 * 1024 * 1024L));
 
     loadBuiltinCheckersAndActions();
 
@@ -288,6 +298,7 @@ public class AzkabanWebServer extends AzkabanServer {
     logger.info("Setting up web resource dir " + staticDir);
     final Context root = new Context(server, "/", Context.SESSIONS);
     root.setMaxFormContentSize(MAX_FORM_CONTENT_SIZE);
+    root.addFilter(new FilterHolder(app.requestLimitFilter), "/executor", Handler.DEFAULT);
 
     final String defaultServletPath =
         azkabanSettings.getString("azkaban.default.servlet.path", "/index");
@@ -681,6 +692,13 @@ public class AzkabanWebServer extends AzkabanServer {
     // The number of requests queued in the Jetty thread pool.
     this.metricsManager.addGauge("JETTY-NumQueueSize", this.queuedThreadPool::getQueueSize);
 
+    // The number of log requests suspended while waiting for a slot.
+    this.metricsManager.addGauge("JETTY-NumLimitedRequestsWaiting",
+        this.requestLimitFilter::getWaitingRequests);
+
+    // The size of the serialized flow graphs held in memory.
+    this.metricsManager.addGauge("WEB-FlowGraphCacheBytes", this.flowGraphCache::getTotalBytes);
+
     this.metricsManager.addGauge("WEB-NumQueuedFlows", this.executorManager::getQueuedFlowSize);
     /*
      * TODO: Currently {@link ExecutorManager#getRunningFlows()} includes both running and non-dispatched flows.
@@ -870,6 +888,10 @@ public class AzkabanWebServer extends AzkabanServer {
     return this.scheduleManager;
   }
 
+  public FlowGraphCache getFlowGraphCache() {
+    return this.flowGraphCache;
+  }
+
   public TriggerManager getTriggerManager() {
     return this.triggerManager;
   }
@@ -894,7 +916,7 @@ public class AzkabanWebServer extends AzkabanServer {
     logger.info("Registering MBeans...");
     this.mbeanServer = ManagementFactory.getPlatformMBeanServer();
 
-    registerMbean("jetty", new JmxJettyServer(this.server));
+    registerMbean("jetty", new JmxJettyServer(this.server, this.requestLimitFilter));
     registerMbean("triggerManager", new JmxTriggerManager(this.triggerManager));
     if (this.executorManager instanceof ExecutorManager) {
       registerMbean("executorManager", new JmxExecutorManager(
@@ -978,4 +1000,16 @@ public class AzkabanWebServer extends AzkabanServer {
   private void setThreadPool(final QueuedThreadPool queuedThreadPool) {
     this.queuedThreadPool = queuedThreadPool;
   }
+
+  private static RequestLimitFilter createRequestLimitFilter(final Props props) {
+    final int maxThreads = props
+        .getInt("jetty.maxThreads", Constants.DEFAULT_JETTY_MAX_THREAD_COUNT);
+    final List<String> limitedRequests = props.getStringList("jetty.limited.requests",
+        Arrays.asList("fetchExecFlowLogs", "fetchExecJobLogs"));
+    final int maxRequests =
+        props.getInt("jetty.limited.maxRequests", Math.max(1, maxThreads / 2));
+    final long suspendMs = props.getLong("jetty.limited.suspendMs", 30 * 1000L);
+    return new RequestLimitFilter("ajax", new HashSet<>(limitedRequests), maxRequests,
+        suspendMs);
+  }
 }
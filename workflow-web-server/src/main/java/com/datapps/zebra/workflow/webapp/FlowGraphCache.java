@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.webapp;
+
+import com.datapps.zebra.workflow.utils.JSONUtils;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Cache of serialized flow graph responses.
+ *
+ * A flow never changes within a project version, so the graph JSON of a (project, version,
+ * flow) is built once and served as is, together with an ETag allowing the browser to
+ * revalidate with a 304. Entries are evicted least recently used first once the total size of
+ * the cached responses exceeds the byte budget. Uploading a new version or deleting a project
+ * drops all of its entries.
+ */
+public class FlowGraphCache {
+
+  private static final Logger logger = Logger.getLogger(FlowGraphCache.class);
+
+  private final long maxBytes;
+  // access ordered, guarded by this
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes = 0;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public FlowGraphCache(final long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the cached response of a flow graph, serializing the object built by the loader on a
+   * miss. The loader runs outside of the cache lock, concurrent misses on the same key may both
+   * build the graph.
+   *
+   * @param variant distinguishes different graphs of the same flow, e.g. the disabled jobs of a
+   * schedule. May be null.
+   */
+  public Entry get(final int projectId, final int version, final String flowId,
+      final String variant, final Supplier<Object> loader) {
+    return get(projectId, version, flowId, variant, generator -> {
+      generator.useDefaultPrettyPrinter();
+      generator.writeObject(loader.get());
+    });
+  }
+
+  /**
+   * Same as {@link #get(int, int, String, String, Supplier)}, the graph is written with a
+   * generator straight into the bytes of the entry on a miss.
+   */
+  public Entry get(final int projectId, final int version, final String flowId,
+      final String variant, final JSONUtils.JsonStreamWriter writer) {
+    final Key key = new Key(projectId, version, flowId, variant);
+    synchronized (this) {
+      final Entry entry = this.entries.get(key);
+      if (entry != null) {
+        this.hits.incrementAndGet();
+        return entry;
+      }
+    }
+
+    this.misses.incrementAndGet();
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try {
+      JSONUtils.toJSON(stream, writer);
+    } catch (final IOException e) {
+      throw new RuntimeException(e);
+    }
+    final byte[] json = stream.toByteArray();
+    final Entry entry = new Entry(json, createETag(key, json));
+    if (json.length > this.maxBytes) {
+      logger.debug("Graph of flow " + flowId + " is too large to be cached, " + json.length
+          + " bytes");
+      return entry;
+    }
+
+    synchronized (this) {
+      final Entry previous = this.entries.put(key, entry);
+      if (previous != null) {
+        this.totalBytes -= previous.getLength();
+      }
+      this.totalBytes += json.length;
+      evict();
+    }
+    return entry;
+  }
+
+  /**
+   * Drops all entries of a project, to be called when a version is uploaded or the project is
+   * removed.
+   */
+  public synchronized void invalidateProject(final int projectId) {
+    final Iterator<Map.Entry<Key, Entry>> iter = this.entries.entrySet().iterator();
+    while (iter.hasNext()) {
+      final Map.Entry<Key, Entry> next = iter.next();
+      if (next.getKey().projectId == projectId) {
+        this.totalBytes -= next.getValue().getLength();
+        iter.remove();
+      }
+    }
+  }
+
+  private void evict() {
+    final Iterator<Entry> iter = this.entries.values().iterator();
+    while (this.totalBytes > this.maxBytes && iter.hasNext()) {
+      this.totalBytes -= iter.next().getLength();
+      iter.remove();
+    }
+  }
+
+  private static String createETag(final Key key, final byte[] json) {
+    final CRC32 crc = new CRC32();
+    crc.update(json);
+    return "\"" + key.projectId + "-" + key.version + "-" + Long.toHexString(crc.getValue())
+        + "\"";
+  }
+
+  public synchronized int getSize() {
+    return this.entries.size();
+  }
+
+  public synchronized long getTotalBytes() {
+    return this.totalBytes;
+  }
+
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  public long getHits() {
+    return this.hits.get();
+  }
+
+  public long getMisses() {
+    return this.misses.get();
+  }
+
+  /**
+   * A serialized flow graph and its ETag
+   */
+  public static class Entry {
+
+    private final byte[] json;
+    private final String eTag;
+
+    private Entry(final byte[] json, final String eTag) {
+      this.json = json;
+      this.eTag = eTag;
+    }
+
+    public byte[] getJson() {
+      return this.json;
+    }
+
+    public int getLength() {
+      return this.json.length;
+    }
+
+    public String getETag() {
+      return this.eTag;
+    }
+  }
+
+  private static class Key {
+
+    private final int projectId;
+    private final int version;
+    private final String flowId;
+    private final String variant;
+
+    private Key(final int projectId, final int version, final String flowId,
+        final String variant) {
+      this.projectId = projectId;
+      this.version = version;
+      this.flowId = flowId;
+      this.variant = variant;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return this.projectId == key.projectId && this.version == key.version
+          && Objects.equals(this.flowId, key.flowId) && Objects.equals(this.variant, key.variant);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.projectId, this.version, this.flowId, this.variant);
+    }
+  }
+}
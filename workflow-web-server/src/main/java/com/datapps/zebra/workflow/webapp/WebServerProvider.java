@@ -18,16 +18,12 @@
 package com.datapps.zebra.workflow.webapp;
 
 import com.datapps.zebra.workflow.Constants;
+import com.datapps.zebra.workflow.server.JettyConnectors;
 import com.datapps.zebra.workflow.utils.Props;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import org.apache.log4j.Logger;
-import org.mortbay.jetty.Connector;
 import org.mortbay.jetty.Server;
-import org.mortbay.jetty.bio.SocketConnector;
-import org.mortbay.jetty.security.SslSocketConnector;
-
-import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
@@ -46,50 +42,22 @@ public class WebServerProvider implements Provider<Server> {
 
     final int maxThreads = this.props
         .getInt("jetty.maxThreads", Constants.DEFAULT_JETTY_MAX_THREAD_COUNT);
-    final boolean isStatsOn = this.props.getBoolean("jetty.connector.stats", true);
-    logger.info("Setting up connector with stats on: " + isStatsOn);
 
     final boolean ssl;
     final int port;
     final Server server = new Server();
     if (this.props.getBoolean("jetty.use.ssl", true)) {
-      final int sslPortNumber = this.props
-          .getInt("jetty.ssl.port", Constants.DEFAULT_SSL_PORT_NUMBER);
-      port = sslPortNumber;
+      port = this.props.getInt("jetty.ssl.port", Constants.DEFAULT_SSL_PORT_NUMBER);
       ssl = true;
-      logger.info("Setting up Jetty Https Server with port:" + sslPortNumber
+      logger.info("Setting up Jetty Https Server with port:" + port
           + " and numThreads:" + maxThreads);
-
-      final SslSocketConnector secureConnector = new SslSocketConnector();
-      secureConnector.setPort(sslPortNumber);
-      secureConnector.setKeystore(this.props.getString("jetty.keystore"));
-      secureConnector.setPassword(this.props.getString("jetty.password"));
-      secureConnector.setKeyPassword(this.props.getString("jetty.keypassword"));
-      secureConnector.setTruststore(this.props.getString("jetty.truststore"));
-      secureConnector.setTrustPassword(this.props.getString("jetty.trustpassword"));
-      secureConnector.setHeaderBufferSize(MAX_HEADER_BUFFER_SIZE);
-
-      // set up vulnerable cipher suites to exclude
-      final List<String> cipherSuitesToExclude = this.props
-          .getStringList("jetty.excludeCipherSuites");
-      logger.info("Excluded Cipher Suites: " + String.valueOf(cipherSuitesToExclude));
-      if (cipherSuitesToExclude != null && !cipherSuitesToExclude.isEmpty()) {
-        secureConnector.setExcludeCipherSuites(cipherSuitesToExclude.toArray(new String[0]));
-      }
-
-      server.addConnector(secureConnector);
+      server.addConnector(
+          JettyConnectors.createSslConnector(this.props, "jetty", port, MAX_HEADER_BUFFER_SIZE));
     } else {
       ssl = false;
       port = this.props.getInt("jetty.port", Constants.DEFAULT_PORT_NUMBER);
-      final SocketConnector connector = new SocketConnector();
-      connector.setPort(port);
-      connector.setHeaderBufferSize(MAX_HEADER_BUFFER_SIZE);
-      server.addConnector(connector);
-    }
-
-    // setting stats configuration for connectors
-    for (final Connector connector : server.getConnectors()) {
-      connector.setStatsOn(isStatsOn);
+      server.addConnector(
+          JettyConnectors.createConnector(this.props, "jetty", port, MAX_HEADER_BUFFER_SIZE));
     }
 
     logger.info(String.format("Starting %sserver on port: %d", ssl ? "SSL " : "", port));
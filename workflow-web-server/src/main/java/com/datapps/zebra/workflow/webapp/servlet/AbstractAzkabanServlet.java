@@ -23,6 +23,7 @@ import com.datapps.zebra.workflow.utils.JSONUtils;
 import com.datapps.zebra.workflow.utils.Props;
 import com.datapps.zebra.workflow.utils.WebUtils;
 import com.datapps.zebra.workflow.webapp.AzkabanWebServer;
+import com.datapps.zebra.workflow.webapp.FlowGraphCache;
 import com.datapps.zebra.workflow.webapp.plugin.PluginRegistry;
 import com.datapps.zebra.workflow.webapp.plugin.TriggerPlugin;
 import com.datapps.zebra.workflow.webapp.plugin.ViewerPlugin;
@@ -358,7 +359,36 @@ public abstract class AbstractAzkabanServlet extends HttpServlet {
 
   protected void writeJSON(final HttpServletResponse resp, final Object obj, final boolean pretty)
       throws IOException {
+    writeJSON(resp, generator -> {
+      if (pretty) {
+        generator.useDefaultPrettyPrinter();
+      }
+      generator.writeObject(obj);
+    });
+  }
+
+  /**
+   * Streams json out with a generator, without building the whole response first.
+   */
+  protected void writeJSON(final HttpServletResponse resp,
+      final JSONUtils.JsonStreamWriter writer) throws IOException {
+    resp.setContentType(JSON_MIME_TYPE);
+    JSONUtils.toJSON(resp.getOutputStream(), writer);
+  }
+
+  /**
+   * Writes a cached JSON response, or a 304 if the client already has it
+   */
+  protected void writeCachedJSON(final HttpServletRequest req, final HttpServletResponse resp,
+      final FlowGraphCache.Entry entry) throws IOException {
+    resp.setHeader("ETag", entry.getETag());
+    resp.setHeader("Cache-Control", "private, no-cache");
+    if (entry.getETag().equals(req.getHeader("If-None-Match"))) {
+      resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
     resp.setContentType(JSON_MIME_TYPE);
-    JSONUtils.toJSON(obj, resp.getOutputStream(), true);
+    resp.setContentLength(entry.getLength());
+    resp.getOutputStream().write(entry.getJson());
   }
 }
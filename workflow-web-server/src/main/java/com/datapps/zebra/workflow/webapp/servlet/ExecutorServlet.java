@@ -34,21 +34,23 @@ import com.datapps.zebra.workflow.user.UserManager;
 import com.datapps.zebra.workflow.utils.ExternalLinkUtils;
 import com.datapps.zebra.workflow.utils.FileIOUtils.LogData;
 import com.datapps.zebra.workflow.utils.FlowUtils;
+import com.datapps.zebra.workflow.utils.JSONUtils;
 import com.datapps.zebra.workflow.utils.Pair;
 import com.datapps.zebra.workflow.utils.Props;
 import com.datapps.zebra.workflow.webapp.AzkabanWebServer;
+import com.datapps.zebra.workflow.webapp.FlowGraphCache;
 import com.datapps.zebra.workflow.webapp.WebMetrics;
 import com.datapps.zebra.workflow.webapp.plugin.PluginRegistry;
 import com.datapps.zebra.workflow.webapp.plugin.ViewerPlugin;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.log4j.Logger;
+import org.codehaus.jackson.JsonGenerator;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,6 +67,7 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
   private ProjectManager projectManager;
   private ExecutorManagerAdapter executorManager;
   private ScheduleManager scheduleManager;
+  private FlowGraphCache flowGraphCache;
   private ExecutorVelocityHelper velocityHelper;
   private UserManager userManager;
 
@@ -76,6 +79,7 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     this.projectManager = server.getProjectManager();
     this.executorManager = server.getExecutorManager();
     this.scheduleManager = server.getScheduleManager();
+    this.flowGraphCache = server.getFlowGraphCache();
     this.velocityHelper = new ExecutorVelocityHelper();
     // TODO: reallocf fully guicify
     this.webMetrics = SERVICE_PROVIDER.getInstance(WebMetrics.class);
@@ -118,10 +122,13 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
         ret.put("error", "Cannot find execution '" + execid + "'");
       } else {
         if (ajaxName.equals("fetchexecflow")) {
-          ajaxFetchExecutableFlow(req, resp, ret, session.getUser(), exFlow);
+          if (ajaxFetchExecutableFlow(req, resp, ret, session.getUser(), exFlow)) {
+            return;
+          }
         } else if (ajaxName.equals("fetchexecflowupdate")) {
-          ajaxFetchExecutableFlowUpdate(req, resp, ret, session.getUser(),
-              exFlow);
+          if (ajaxFetchExecutableFlowUpdate(req, resp, ret, session.getUser(), exFlow)) {
+            return;
+          }
         } else if (ajaxName.equals("cancelFlow")) {
           ajaxCancelFlow(req, resp, ret, session.getUser(), exFlow);
         } else if (ajaxName.equals("pauseFlow")) {
@@ -143,7 +150,12 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     } else if (ajaxName.equals("fetchscheduledflowgraph")) {
       final String projectName = getParam(req, "project");
       final String flowName = getParam(req, "flow");
-      ajaxFetchScheduledFlowGraph(projectName, flowName, ret, session.getUser());
+      final FlowGraphCache.Entry graph =
+          ajaxFetchScheduledFlowGraph(projectName, flowName, ret, session.getUser());
+      if (graph != null) {
+        writeCachedJSON(req, resp, graph);
+        return;
+      }
     } else if (ajaxName.equals("reloadExecutors")) {
       ajaxReloadExecutors(req, resp, ret, session.getUser());
     } else if (ajaxName.equals("enableQueueProcessor")) {
@@ -206,13 +218,19 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     }
   }
 
-  private void ajaxFetchScheduledFlowGraph(final String projectName, final String flowName,
-      final HashMap<String, Object> ret, final User user) throws ServletException {
+  /**
+   * Returns the graph of a scheduled flow, null with an error in ret if it can't be built. The
+   * graph only depends on the project version and the disabled jobs of the schedule, so it is
+   * served from the flow graph cache.
+   */
+  private FlowGraphCache.Entry ajaxFetchScheduledFlowGraph(final String projectName,
+      final String flowName, final HashMap<String, Object> ret, final User user)
+      throws ServletException {
     final Project project =
         getProjectAjaxByPermission(ret, projectName, user, Type.EXECUTE);
     if (project == null) {
       ret.put("error", "Project '" + projectName + "' doesn't exist.");
-      return;
+      return null;
     }
     try {
       final Schedule schedule = this.scheduleManager.getSchedule(project.getId(), flowName);
@@ -221,18 +239,16 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
       final Flow flow = project.getFlow(flowName);
       if (flow == null) {
         ret.put("error", "Flow '" + flowName + "' cannot be found in project " + project);
-        return;
+        return null;
       }
-      final ExecutableFlow exFlow = new ExecutableFlow(project, flow);
-      exFlow.setExecutionOptions(executionOptions);
-      ret.put("submitTime", exFlow.getSubmitTime());
-      ret.put("submitUser", exFlow.getSubmitUser());
-      ret.put("execid", exFlow.getExecutionId());
-      ret.put("projectId", exFlow.getProjectId());
-      ret.put("project", project.getName());
-      FlowUtils.applyDisabledJobs(executionOptions.getDisabledJobs(), exFlow);
-      final Map<String, Object> flowObj = getExecutableNodeInfo(exFlow);
-      ret.putAll(flowObj);
+      final String disabledJobs = JSONUtils.toJSON(executionOptions.getDisabledJobs());
+      return this.flowGraphCache.get(project.getId(), project.getVersion(), flowName,
+          "scheduled:" + disabledJobs, generator -> {
+            final ExecutableFlow exFlow = new ExecutableFlow(project, flow);
+            exFlow.setExecutionOptions(executionOptions);
+            FlowUtils.applyDisabledJobs(executionOptions.getDisabledJobs(), exFlow);
+            writeExecutableFlowInfo(generator, exFlow, project);
+          });
     } catch (final ScheduleManagerException ex) {
       throw new ServletException(ex);
     }
@@ -325,6 +341,16 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     page.add("parentflowid", node.getParentFlow().getFlowId());
     page.add("jobname", node.getId());
 
+    try {
+      final Props outputProps =
+          this.executorManager.getExecutionJobsProps(flow).getOutputProps(node.getId());
+      if (outputProps != null && outputProps.size() > 0) {
+        page.add("outputProps", outputProps.getFlattened());
+      }
+    } catch (final ExecutorManagerException e) {
+      LOGGER.error("Error loading the output props of " + jobId + " in " + execId, e);
+    }
+
     page.render();
   }
 
@@ -611,15 +637,9 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     ret.put("successEmails", flow.getSuccessEmails());
     ret.put("failureEmails", flow.getFailureEmails());
 
-    Schedule sflow = null;
+    final Schedule sflow;
     try {
-      for (final Schedule sched : this.scheduleManager.getSchedules()) {
-        if (sched.getProjectId() == project.getId()
-            && sched.getFlowName().equals(flowId)) {
-          sflow = sched;
-          break;
-        }
-      }
+      sflow = this.scheduleManager.getSchedule(project.getId(), flowId);
     } catch (final ScheduleManagerException e) {
       // TODO Auto-generated catch block
       throw new ServletException(e);
@@ -753,123 +773,167 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     }
   }
 
-  private Map<String, Object> getExecutableFlowUpdateInfo(final ExecutableNode node,
-      final long lastUpdateTime) {
-    final HashMap<String, Object> nodeObj = new HashMap<>();
+  /**
+   * @return true if the node or one of its nested nodes has been updated after the given time
+   */
+  private static boolean isUpdatedSince(final ExecutableNode node, final long lastUpdateTime) {
+    if (node.getUpdateTime() > lastUpdateTime) {
+      return true;
+    }
     if (node instanceof ExecutableFlowBase) {
-      final ExecutableFlowBase base = (ExecutableFlowBase) node;
-      final ArrayList<Map<String, Object>> nodeList =
-          new ArrayList<>();
-
-      for (final ExecutableNode subNode : base.getExecutableNodes()) {
-        final Map<String, Object> subNodeObj =
-            getExecutableFlowUpdateInfo(subNode, lastUpdateTime);
-        if (!subNodeObj.isEmpty()) {
-          nodeList.add(subNodeObj);
+      for (final ExecutableNode subNode : ((ExecutableFlowBase) node).getExecutableNodes()) {
+        if (isUpdatedSince(subNode, lastUpdateTime)) {
+          return true;
         }
       }
-
-      if (!nodeList.isEmpty()) {
-        nodeObj.put("flow", base.getFlowId());
-        nodeObj.put("nodes", nodeList);
-      }
     }
+    return false;
+  }
 
-    if (node.getUpdateTime() > lastUpdateTime || !nodeObj.isEmpty()) {
-      nodeObj.put("id", node.getId());
-      nodeObj.put("status", node.getStatus());
-      nodeObj.put("startTime", node.getStartTime());
-      nodeObj.put("endTime", node.getEndTime());
-      nodeObj.put("updateTime", node.getUpdateTime());
+  /**
+   * Writes the fields of a node updated after the given time, with its nested nodes that have
+   * been updated.
+   */
+  private static void writeExecutableFlowUpdateInfo(final JsonGenerator generator,
+      final ExecutableNode node, final long lastUpdateTime) throws IOException {
+    writeUpdatedSubNodes(generator, node, lastUpdateTime);
+    generator.writeStringField("id", node.getId());
+    writeNodeStatus(generator, node);
+    writeNodeAttempts(generator, node);
+  }
 
-      nodeObj.put("attempt", node.getAttempt());
-      if (node.getAttempt() > 0) {
-        nodeObj.put("pastAttempts", node.getAttemptObjects());
+  /**
+   * @return true if some nested nodes have been written
+   */
+  private static boolean writeUpdatedSubNodes(final JsonGenerator generator,
+      final ExecutableNode node, final long lastUpdateTime) throws IOException {
+    if (!(node instanceof ExecutableFlowBase)) {
+      return false;
+    }
+    final ExecutableFlowBase base = (ExecutableFlowBase) node;
+    boolean written = false;
+    for (final ExecutableNode subNode : base.getExecutableNodes()) {
+      if (!isUpdatedSince(subNode, lastUpdateTime)) {
+        continue;
       }
+      if (!written) {
+        generator.writeStringField("flow", base.getFlowId());
+        generator.writeArrayFieldStart("nodes");
+        written = true;
+      }
+      generator.writeStartObject();
+      writeExecutableFlowUpdateInfo(generator, subNode, lastUpdateTime);
+      generator.writeEndObject();
     }
-
-    return nodeObj;
+    if (written) {
+      generator.writeEndArray();
+    }
+    return written;
   }
 
-  private Map<String, Object> getExecutableNodeInfo(final ExecutableNode node) {
-    final HashMap<String, Object> nodeObj = new HashMap<>();
-    nodeObj.put("id", node.getId());
-    nodeObj.put("status", node.getStatus());
-    nodeObj.put("startTime", node.getStartTime());
-    nodeObj.put("endTime", node.getEndTime());
-    nodeObj.put("updateTime", node.getUpdateTime());
-    nodeObj.put("type", node.getType());
-    nodeObj.put("nestedId", node.getNestedId());
+  private static void writeNodeStatus(final JsonGenerator generator, final ExecutableNode node)
+      throws IOException {
+    generator.writeObjectField("status", node.getStatus());
+    generator.writeNumberField("startTime", node.getStartTime());
+    generator.writeNumberField("endTime", node.getEndTime());
+    generator.writeNumberField("updateTime", node.getUpdateTime());
+  }
 
-    nodeObj.put("attempt", node.getAttempt());
+  private static void writeNodeAttempts(final JsonGenerator generator, final ExecutableNode node)
+      throws IOException {
+    generator.writeNumberField("attempt", node.getAttempt());
     if (node.getAttempt() > 0) {
-      nodeObj.put("pastAttempts", node.getAttemptObjects());
+      generator.writeObjectField("pastAttempts", node.getAttemptObjects());
     }
+  }
+
+  /**
+   * Writes the graph of an execution with the fields of its flow, as served for the executions
+   * and for the cached graphs of the scheduled flows.
+   */
+  private static void writeExecutableFlowInfo(final JsonGenerator generator,
+      final ExecutableFlow exFlow, final Project project) throws IOException {
+    generator.writeStartObject();
+    generator.writeNumberField("submitTime", exFlow.getSubmitTime());
+    generator.writeStringField("submitUser", exFlow.getSubmitUser());
+    generator.writeNumberField("execid", exFlow.getExecutionId());
+    generator.writeNumberField("projectId", exFlow.getProjectId());
+    generator.writeStringField("project", project.getName());
+    writeExecutableNodeInfo(generator, exFlow);
+    generator.writeEndObject();
+  }
+
+  private static void writeExecutableNodeInfo(final JsonGenerator generator,
+      final ExecutableNode node) throws IOException {
+    generator.writeStringField("id", node.getId());
+    writeNodeStatus(generator, node);
+    generator.writeStringField("type", node.getType());
+    generator.writeStringField("nestedId", node.getNestedId());
+    writeNodeAttempts(generator, node);
 
     if (node.getInNodes() != null && !node.getInNodes().isEmpty()) {
-      nodeObj.put("in", node.getInNodes());
+      generator.writeObjectField("in", node.getInNodes());
     }
 
     if (node instanceof ExecutableFlowBase) {
       final ExecutableFlowBase base = (ExecutableFlowBase) node;
-      final ArrayList<Map<String, Object>> nodeList =
-          new ArrayList<>();
-
+      generator.writeStringField("flow", base.getFlowId());
+      generator.writeArrayFieldStart("nodes");
       for (final ExecutableNode subNode : base.getExecutableNodes()) {
-        final Map<String, Object> subNodeObj = getExecutableNodeInfo(subNode);
-        if (!subNodeObj.isEmpty()) {
-          nodeList.add(subNodeObj);
-        }
+        generator.writeStartObject();
+        writeExecutableNodeInfo(generator, subNode);
+        generator.writeEndObject();
       }
-
-      nodeObj.put("flow", base.getFlowId());
-      nodeObj.put("nodes", nodeList);
-      nodeObj.put("flowId", base.getFlowId());
+      generator.writeEndArray();
+      generator.writeStringField("flowId", base.getFlowId());
     }
-
-    return nodeObj;
   }
 
-  private void ajaxFetchExecutableFlowUpdate(final HttpServletRequest req,
-                                             final HttpServletResponse resp, final HashMap<String, Object> ret, final User user,
-                                             final ExecutableFlow exFlow) throws ServletException {
-    final Long lastUpdateTime = Long.parseLong(getParam(req, "lastUpdateTime"));
-    System.out.println("Fetching " + exFlow.getExecutionId());
+  /**
+   * Polled by the execution page, the update is streamed to the response.
+   *
+   * @return true if the response has been written
+   */
+  private boolean ajaxFetchExecutableFlowUpdate(final HttpServletRequest req,
+                                                final HttpServletResponse resp, final HashMap<String, Object> ret, final User user,
+                                                final ExecutableFlow exFlow) throws ServletException, IOException {
+    final long lastUpdateTime = Long.parseLong(getParam(req, "lastUpdateTime"));
 
     final Project project =
         getProjectAjaxByPermission(ret, exFlow.getProjectId(), user, Type.READ);
     if (project == null) {
-      return;
+      return false;
     }
 
-    final Map<String, Object> map =
-        getExecutableFlowUpdateInfo(exFlow, lastUpdateTime);
-    map.put("status", exFlow.getStatus());
-    map.put("startTime", exFlow.getStartTime());
-    map.put("endTime", exFlow.getEndTime());
-    map.put("updateTime", exFlow.getUpdateTime());
-    ret.putAll(map);
+    writeJSON(resp, generator -> {
+      generator.writeStartObject();
+      if (writeUpdatedSubNodes(generator, exFlow, lastUpdateTime)
+          || exFlow.getUpdateTime() > lastUpdateTime) {
+        generator.writeStringField("id", exFlow.getId());
+        writeNodeAttempts(generator, exFlow);
+      }
+      writeNodeStatus(generator, exFlow);
+      generator.writeEndObject();
+    });
+    return true;
   }
 
-  private void ajaxFetchExecutableFlow(final HttpServletRequest req,
-                                       final HttpServletResponse resp, final HashMap<String, Object> ret, final User user,
-                                       final ExecutableFlow exFlow) throws ServletException {
-    System.out.println("Fetching " + exFlow.getExecutionId());
-
+  /**
+   * The graph of the execution is streamed to the response.
+   *
+   * @return true if the response has been written
+   */
+  private boolean ajaxFetchExecutableFlow(final HttpServletRequest req,
+                                          final HttpServletResponse resp, final HashMap<String, Object> ret, final User user,
+                                          final ExecutableFlow exFlow) throws ServletException, IOException {
     final Project project =
         getProjectAjaxByPermission(ret, exFlow.getProjectId(), user, Type.READ);
     if (project == null) {
-      return;
+      return false;
     }
 
-    ret.put("submitTime", exFlow.getSubmitTime());
-    ret.put("submitUser", exFlow.getSubmitUser());
-    ret.put("execid", exFlow.getExecutionId());
-    ret.put("projectId", exFlow.getProjectId());
-    ret.put("project", project.getName());
-
-    final Map<String, Object> flowObj = getExecutableNodeInfo(exFlow);
-    ret.putAll(flowObj);
+    writeJSON(resp, generator -> writeExecutableFlowInfo(generator, exFlow, project));
+    return true;
   }
 
   private void ajaxAttemptExecuteFlow(final HttpServletRequest req,
@@ -32,6 +32,7 @@ import com.datapps.zebra.workflow.user.*;
 import com.datapps.zebra.workflow.user.Permission.Type;
 import com.datapps.zebra.workflow.utils.*;
 import com.datapps.zebra.workflow.webapp.AzkabanWebServer;
+import com.datapps.zebra.workflow.webapp.FlowGraphCache;
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -72,6 +73,7 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
   private ExecutorManagerAdapter executorManager;
   private ScheduleManager scheduleManager;
   private UserManager userManager;
+  private FlowGraphCache flowGraphCache;
   private int downloadBufferSize;
   private boolean lockdownCreateProjects = false;
   private boolean lockdownUploadProjects = false;
@@ -85,6 +87,7 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
     this.executorManager = server.getExecutorManager();
     this.scheduleManager = server.getScheduleManager();
     this.userManager = server.getUserManager();
+    this.flowGraphCache = server.getFlowGraphCache();
     this.lockdownCreateProjects =
         server.getServerProps().getBoolean(LOCKDOWN_CREATE_PROJECTS_KEY, false);
     if (this.lockdownCreateProjects) {
@@ -207,7 +210,11 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
         }
       } else if (ajaxName.equals("fetchflowgraph")) {
         if (handleAjaxPermission(project, user, Type.READ, ret)) {
-          ajaxFetchFlowGraph(project, ret, req);
+          final FlowGraphCache.Entry graph = ajaxFetchFlowGraph(project, ret, req);
+          if (graph != null) {
+            writeCachedJSON(req, resp, graph);
+            return;
+          }
         }
       } else if (ajaxName.equals("fetchflownodedata")) {
         if (handleAjaxPermission(project, user, Type.READ, ret)) {
@@ -545,6 +552,7 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
 
       if (isOperationSuccessful) {
         this.projectManager.purgeProject(project, user);
+        this.flowGraphCache.invalidateProject(project.getId());
       }
     } catch (final Exception e) {
       ret.put("error", e.getMessage());
@@ -579,12 +587,10 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
     // Check if scheduled
     Schedule sflow = null;
     try {
-      for (final Schedule flow : this.scheduleManager.getSchedules()) {
-
-        if (flow.getProjectId() == project.getId()) {
-          sflow = flow;
-          break;
-        }
+      final List<Schedule> schedules =
+          this.scheduleManager.getSchedulesByProject(project.getId());
+      if (!schedules.isEmpty()) {
+        sflow = schedules.get(0);
       }
     } catch (final ScheduleManagerException e) {
       throw new ServletException(e);
@@ -615,6 +621,7 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
 
     try {
       this.projectManager.removeProject(project, user);
+      this.flowGraphCache.invalidateProject(project.getId());
     } catch (final ProjectManagerException e) {
       this.setErrorMessageInCookie(resp, e.getMessage());
       resp.sendRedirect(req.getRequestURI() + "?project=" + projectName);
@@ -717,7 +724,10 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
       this.projectManager.setJobOverrideProperty(project, overrideParams, jobName, user);
     } catch (final ProjectManagerException e) {
       ret.put("error", "Failed to upload job override property");
+      return;
     }
+    // executors cache the overrides of the installed project versions
+    this.executorManager.invalidateJobOverrides(project.getId());
 
   }
 
@@ -735,11 +745,21 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
     ret.put("flows", flowList);
   }
 
-  private void ajaxFetchFlowGraph(final Project project, final HashMap<String, Object> ret,
-      final HttpServletRequest req) throws ServletException {
+  private FlowGraphCache.Entry ajaxFetchFlowGraph(final Project project,
+      final HashMap<String, Object> ret, final HttpServletRequest req) throws ServletException {
     final String flowId = getParam(req, "flow");
+    if (project.getFlow(flowId) == null) {
+      ret.put("error", "Flow " + flowId + " doesn't exist.");
+      return null;
+    }
 
-    fillFlowInfo(project, flowId, ret);
+    return this.flowGraphCache.get(project.getId(), project.getVersion(), flowId, null, () -> {
+      final HashMap<String, Object> graph = new HashMap<>();
+      graph.put("project", project.getName());
+      graph.put("projectId", project.getId());
+      fillFlowInfo(project, flowId, graph);
+      return graph;
+    });
   }
 
   private void fillFlowInfo(final Project project, final String flowId,
@@ -1679,6 +1699,7 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
         final Map<String, ValidationReport> reports =
             this.projectManager.uploadProject(project, archiveFile, type, user,
                 props);
+        this.flowGraphCache.invalidateProject(project.getId());
         final StringBuffer errorMsgs = new StringBuffer();
         final StringBuffer warnMsgs = new StringBuffer();
         for (final Entry<String, ValidationReport> reportEntry : reports.entrySet()) {
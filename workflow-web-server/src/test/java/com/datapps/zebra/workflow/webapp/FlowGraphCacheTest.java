@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.datapps.zebra.workflow.webapp;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlowGraphCacheTest {
+
+  private static Supplier<Object> graph(final AtomicInteger builds, final String flowId) {
+    return () -> {
+      builds.incrementAndGet();
+      return Collections.singletonMap("flow", flowId);
+    };
+  }
+
+  @Test
+  public void testGraphIsBuiltOncePerVersion() {
+    final FlowGraphCache cache = new FlowGraphCache(1024 * 1024);
+    final AtomicInteger builds = new AtomicInteger();
+
+    final FlowGraphCache.Entry first = cache.get(1, 1, "flow", null, graph(builds, "flow"));
+    final FlowGraphCache.Entry second = cache.get(1, 1, "flow", null, graph(builds, "flow"));
+    assertThat(second).isSameAs(first);
+    assertThat(builds.get()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+
+    final FlowGraphCache.Entry newVersion = cache.get(1, 2, "flow", null, graph(builds, "flow"));
+    assertThat(builds.get()).isEqualTo(2);
+    assertThat(newVersion.getETag()).isNotEqualTo(first.getETag());
+
+    cache.get(1, 2, "flow", "scheduled:[]", graph(builds, "flow"));
+    assertThat(builds.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void testGraphWrittenWithAGenerator() {
+    final FlowGraphCache cache = new FlowGraphCache(1024 * 1024);
+    final AtomicInteger builds = new AtomicInteger();
+
+    final FlowGraphCache.Entry first = cache.get(1, 1, "flow", null, generator -> {
+      builds.incrementAndGet();
+      generator.writeStartObject();
+      generator.writeStringField("flow", "flow");
+      generator.writeEndObject();
+    });
+    assertThat(new String(first.getJson(), StandardCharsets.UTF_8))
+        .isEqualTo("{\"flow\":\"flow\"}");
+    assertThat(cache.getTotalBytes()).isEqualTo(first.getLength());
+
+    // the entry is shared with the graphs built from an object
+    assertThat(cache.get(1, 1, "flow", null, graph(builds, "flow"))).isSameAs(first);
+    assertThat(builds.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedOverBudget() {
+    final AtomicInteger builds = new AtomicInteger();
+    final int entrySize = new FlowGraphCache(1024).get(1, 1, "a", null, graph(builds, "a"))
+        .getLength();
+    final FlowGraphCache cache = new FlowGraphCache(2 * entrySize);
+
+    cache.get(1, 1, "a", null, graph(builds, "a"));
+    cache.get(1, 1, "b", null, graph(builds, "b"));
+    // touch a so b is the eldest
+    cache.get(1, 1, "a", null, graph(builds, "a"));
+    cache.get(1, 1, "c", null, graph(builds, "c"));
+    assertThat(cache.getSize()).isEqualTo(2);
+    assertThat(cache.getTotalBytes()).isLessThanOrEqualTo(cache.getMaxBytes());
+
+    builds.set(0);
+    cache.get(1, 1, "a", null, graph(builds, "a"));
+    assertThat(builds.get()).isEqualTo(0);
+    cache.get(1, 1, "b", null, graph(builds, "b"));
+    assertThat(builds.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testInvalidateProject() {
+    final FlowGraphCache cache = new FlowGraphCache(1024 * 1024);
+    final AtomicInteger builds = new AtomicInteger();
+    cache.get(1, 1, "flow", null, graph(builds, "flow"));
+    cache.get(2, 1, "flow", null, graph(builds, "flow"));
+
+    cache.invalidateProject(1);
+    assertThat(cache.getSize()).isEqualTo(1);
+    cache.get(2, 1, "flow", null, graph(builds, "flow"));
+    assertThat(builds.get()).isEqualTo(2);
+    cache.get(1, 1, "flow", null, graph(builds, "flow"));
+    assertThat(builds.get()).isEqualTo(3);
+  }
+}